@@ -0,0 +1,1172 @@
+package Jtesting;
+
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.*;
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+
+import application.User;
+import application.PasswordEvaluator;
+import application.BreachedPasswordScreen;
+import application.RosterValidator;
+import application.UserNameRecognizer;
+import application.EmailRecognizer;
+import application.Question;
+import application.Answer;
+import application.ReviewerProfile;
+import application.ReviewerRank;
+import databasePart1.DatabaseBackup;
+import databasePart1.DatabaseHelper;
+import databasePart1.DatabaseHelper2;
+import databasePart1.DatabaseHelper3;
+import databasePart1.RosterImportResult;
+import databasePart1.ExportFormat;
+import databasePart1.QaImportResult;
+
+/**
+ * A test class for validating the performance related features:
+ * <ol>
+ *   <li>Chat and feedback messages are routed using cached question metadata</li>
+ *   <li>Reviewer profiles read materialized review and rating aggregates</li>
+ *   <li>Reviewers are ranked on a leaderboard that is updated incrementally</li>
+ *   <li>Answers and reviews are ordered by the student's trust in their reviewers</li>
+ *   <li>Near-duplicate questions are detected when a question is posted</li>
+ *   <li>Related resolved questions are found through a TF-IDF index</li>
+ *   <li>Search input is completed from the terms and phrases of posts</li>
+ *   <li>Misspelled searches are corrected against the vocabulary of posts</li>
+ *   <li>New posts matching saved searches are delivered as alerts</li>
+ *   <li>Subscribers get per-user unread counts for answers and chats</li>
+ *   <li>Popular questions and answer lists are served from a weighted LRU cache</li>
+ *   <li>Search results are cached until a table they were built from changes</li>
+ *   <li>User profiles and roles are read through a cache invalidated on writes</li>
+ *   <li>Login checks credentials and loads the role and profile in one query</li>
+ *   <li>Passwords are hashed with PBKDF2 on a bounded worker pool</li>
+ *   <li>Passwords are evaluated by a thread-safe evaluator with an immutable result</li>
+ *   <li>Compromised passwords are screened with a memory-mapped Bloom filter</li>
+ *   <li>Usernames and emails are checked by table-driven recognizers, in batches for rosters</li>
+ *   <li>CSV rosters are imported in batched, chunked transactions with per-row results</li>
+ *   <li>Invitation codes are generated in bulk and claimed atomically</li>
+ *   <li>Questions are exported with their answers, reviews and feedback as a stream</li>
+ *   <li>Exported questions are imported in batches under new IDs</li>
+ *   <li>Online database snapshots are rotated and can be restored</li>
+ *   <li>Old resolved threads are moved to archive tables and searched on request</li>
+ *   <li>Deleted users and questions are purged with their whole content graph</li>
+ * </ol>
+ */
+public class Jtest5 {
+    private DatabaseHelper dbHelper;
+    private DatabaseHelper2 dbHelper2;
+    private DatabaseHelper3 dbHelper3;
+
+    private User testStudent;
+    private User testReviewer;
+
+    private Question testQuestion;
+
+    @BeforeEach
+    public void setUp() throws SQLException {
+        dbHelper = new DatabaseHelper();
+        dbHelper2 = new DatabaseHelper2();
+        dbHelper3 = new DatabaseHelper3();
+
+        dbHelper.connectToDatabase();
+        dbHelper2.connectToDatabase();
+        dbHelper3.connectToDatabase();
+
+        // Create test users with unique usernames
+        String suffix = UUID.randomUUID().toString().substring(0, 5);
+
+        testStudent = new User("teststudent" + suffix, "password", "Student", "Test", "Student", "test@student.com");
+        testReviewer = new User("testreviewer" + suffix, "password", "Reviewer", "Test", "Reviewer", "test@reviewer.com");
+
+        if (!dbHelper.doesUserExist(testStudent.getUserName())) {
+            dbHelper.register(testStudent);
+        }
+
+        if (!dbHelper.doesUserExist(testReviewer.getUserName())) {
+            dbHelper.register(testReviewer);
+        }
+
+        // Create a test question
+        testQuestion = new Question(getNewQuestionId(), "Test question for performance features", testStudent.getUserName(), new Date());
+        dbHelper2.insertQuestion(testQuestion);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        try {
+            // Clean up test data
+            if (testQuestion != null) {
+                dbHelper2.deleteQuestion(testQuestion.getQuestionID());
+            }
+
+            // Close all connections
+            dbHelper.closeConnection();
+            dbHelper2.closeConnection();
+            dbHelper3.closeConnection();
+        } catch (SQLException e) {
+            // Ignore errors during cleanup
+        }
+    }
+
+    /**
+     * Utility method to get a new unique question ID
+     */
+    private int getNewQuestionId() throws SQLException {
+        List<Question> allQuestions = dbHelper2.getAllQuestions();
+        return allQuestions.stream()
+            .mapToInt(Question::getQuestionID)
+            .max()
+            .orElse(0) + 1;
+    }
+
+    /**
+     * Utility method to get a new unique answer ID
+     */
+    private int getNewAnswerId() throws SQLException {
+        List<Answer> allAnswers = dbHelper2.getAllAnswers();
+        return allAnswers.stream()
+            .mapToInt(Answer::getAnsID)
+            .max()
+            .orElse(0) + 1;
+    }
+
+    @Nested
+    @DisplayName("Question Routing Cache")
+    class QuestionRoutingCacheTests {
+
+        @Test
+        @DisplayName("The assigned reviewer is picked up after a review is added")
+        void testReviewerUpdatedAfterReview() throws SQLException {
+            // No reviewer yet, this also caches the route
+            assertEquals("NoReviewer", dbHelper3.getReviewerForQuestion(testQuestion.getQuestionID()));
+
+            dbHelper3.insertReview(testQuestion.getQuestionID(), 0, testReviewer.getUserName(), "Routing review", new Date());
+
+            assertEquals(testReviewer.getUserName(), dbHelper3.getReviewerForQuestion(testQuestion.getQuestionID()));
+        }
+
+        @Test
+        @DisplayName("Staff messages are routed to the question owner")
+        void testStaffMessageRoutedToOwner() throws SQLException {
+            dbHelper3.insertChatMessage("Staff", "someStaff", testQuestion.getQuestionID(), "Routed message");
+
+            List<String> messages = dbHelper3.getChatMessagesForQuestion(testStudent.getUserName(), testQuestion.getQuestionID());
+            assertTrue(messages.stream().anyMatch(m -> m.contains("Routed message")));
+        }
+
+        @Test
+        @DisplayName("Messages about a deleted question are rejected")
+        void testDeletedQuestionNotRouted() throws SQLException {
+            int questionID = testQuestion.getQuestionID();
+            dbHelper3.getReviewerForQuestion(questionID);
+            dbHelper2.deleteQuestion(questionID);
+            testQuestion = null;
+
+            assertThrows(SQLException.class,
+                () -> dbHelper3.insertChatMessage("Staff", "someStaff", questionID, "Should fail"));
+        }
+    }
+
+    @Nested
+    @DisplayName("Reviewer Rating Aggregates")
+    class ReviewerStatsTests {
+
+        @Test
+        @DisplayName("Profile totals follow review inserts and deletes")
+        void testReviewCountMaintained() throws SQLException {
+            dbHelper3.updateReviewerProfile(testReviewer.getUserName(), "Experience", "Background");
+
+            dbHelper3.insertReview(testQuestion.getQuestionID(), 0, testReviewer.getUserName(), "First review", new Date());
+            dbHelper3.insertReview(testQuestion.getQuestionID(), 0, testReviewer.getUserName(), "Second review", new Date());
+            assertEquals(2, dbHelper3.getReviewerProfile(testReviewer.getUserName()).getTotalReviews());
+
+            List<String[]> reviews = dbHelper3.getReviewsForQuestion(testQuestion.getQuestionID());
+            dbHelper3.deleteReview(Integer.parseInt(reviews.get(0)[0]));
+            assertEquals(1, dbHelper3.getReviewerProfile(testReviewer.getUserName()).getTotalReviews());
+
+            // Deleting the question removes the remaining review through the cascade
+            dbHelper2.deleteQuestion(testQuestion.getQuestionID());
+            testQuestion = null;
+            assertEquals(0, dbHelper3.getReviewerProfile(testReviewer.getUserName()).getTotalReviews());
+        }
+
+        @Test
+        @DisplayName("Average rating follows weight updates")
+        void testAverageRatingMaintained() throws SQLException {
+            dbHelper3.updateReviewerProfile(testReviewer.getUserName(), "Experience", "Background");
+
+            dbHelper3.setReviewerWeight(testStudent.getUserName(), testReviewer.getUserName(), 4);
+            dbHelper3.setReviewerWeight("otherstudent" + testStudent.getUserName(), testReviewer.getUserName(), 2);
+            ReviewerProfile profile = dbHelper3.getReviewerProfile(testReviewer.getUserName());
+            assertEquals(3.0, profile.getAverageRating(), 0.001);
+
+            // Updating an existing weight replaces it rather than adding a new rating
+            dbHelper3.setReviewerWeight(testStudent.getUserName(), testReviewer.getUserName(), 5);
+            profile = dbHelper3.getReviewerProfile(testReviewer.getUserName());
+            assertEquals(3.5, profile.getAverageRating(), 0.001);
+        }
+
+        @Test
+        @DisplayName("First review and rating create the aggregates")
+        void testFirstReviewAndRatingCreateAggregates() throws SQLException {
+            dbHelper3.insertReview(testQuestion.getQuestionID(), 0, testReviewer.getUserName(), "First review", new Date());
+            dbHelper3.setReviewerWeight(testStudent.getUserName(), testReviewer.getUserName(), 4);
+
+            dbHelper3.updateReviewerProfile(testReviewer.getUserName(), "Experience", "Background");
+            ReviewerProfile profile = dbHelper3.getReviewerProfile(testReviewer.getUserName());
+            assertEquals(1, profile.getTotalReviews());
+            assertEquals(4.0, profile.getAverageRating(), 0.001);
+
+            // A rejected rating leaves the aggregates as they were
+            assertThrows(SQLException.class,
+                    () -> dbHelper3.setReviewerWeight(testStudent.getUserName(), testReviewer.getUserName(), -1));
+            assertEquals(4.0, dbHelper3.getReviewerProfile(testReviewer.getUserName()).getAverageRating(), 0.001);
+        }
+    }
+
+    @Nested
+    @DisplayName("Reviewer Leaderboard")
+    class ReviewerLeaderboardTests {
+
+        @Test
+        @DisplayName("A better rated reviewer moves ahead on the leaderboard")
+        void testRatingChangesRank() throws SQLException {
+            String otherReviewer = "other" + testReviewer.getUserName();
+            Date now = new Date();
+            dbHelper3.insertReview(testQuestion.getQuestionID(), 0, testReviewer.getUserName(), "Review", now);
+            dbHelper3.insertReview(testQuestion.getQuestionID(), 0, otherReviewer, "Review", now);
+
+            // Load the leaderboard, then change the ratings so it has to be updated incrementally
+            dbHelper3.getReviewerLeaderboard(0, 10);
+            dbHelper3.setReviewerWeight(testStudent.getUserName(), testReviewer.getUserName(), 1);
+            dbHelper3.setReviewerWeight(testStudent.getUserName(), otherReviewer, 5);
+
+            List<String> ordered = dbHelper3.getAllReviewersByRank();
+            assertTrue(ordered.indexOf(otherReviewer) < ordered.indexOf(testReviewer.getUserName()));
+
+            dbHelper3.setReviewerWeight(testStudent.getUserName(), testReviewer.getUserName(), 5);
+            dbHelper3.setReviewerWeight(testStudent.getUserName(), otherReviewer, 1);
+
+            ordered = dbHelper3.getAllReviewersByRank();
+            assertTrue(ordered.indexOf(testReviewer.getUserName()) < ordered.indexOf(otherReviewer));
+        }
+
+        @Test
+        @DisplayName("Leaderboard pages do not overlap")
+        void testPagesDoNotOverlap() throws SQLException {
+            dbHelper3.insertReview(testQuestion.getQuestionID(), 0, testReviewer.getUserName(), "Review", new Date());
+
+            List<ReviewerRank> first = dbHelper3.getReviewerLeaderboard(0, 1);
+            List<ReviewerRank> second = dbHelper3.getReviewerLeaderboard(1, 1);
+            assertEquals(1, first.size());
+            if (!second.isEmpty()) {
+                assertNotEquals(first.get(0).getUserName(), second.get(0).getUserName());
+                assertTrue(first.get(0).getScore() >= second.get(0).getScore());
+            }
+        }
+    }
+
+    @Nested
+    @DisplayName("Trust-Weighted Answer Ordering")
+    class TrustOrderingTests {
+
+        @Test
+        @DisplayName("Answers reviewed by trusted reviewers come first, after the accepted answer")
+        void testAnswersOrderedByTrust() throws SQLException {
+            String distrusted = "other" + testReviewer.getUserName();
+            Answer first = new Answer(getNewAnswerId(), testQuestion.getQuestionID(), "First answer", testStudent.getUserName(), new Date());
+            dbHelper2.insertAnswer(first);
+            Answer second = new Answer(getNewAnswerId(), testQuestion.getQuestionID(), "Second answer", testStudent.getUserName(), new Date());
+            dbHelper2.insertAnswer(second);
+            Answer third = new Answer(getNewAnswerId(), testQuestion.getQuestionID(), "Third answer", testStudent.getUserName(), new Date());
+            dbHelper2.insertAnswer(third);
+
+            dbHelper3.setReviewerWeight(testStudent.getUserName(), testReviewer.getUserName(), 5);
+            dbHelper3.setReviewerWeight(testStudent.getUserName(), distrusted, 0);
+            dbHelper3.insertReview(testQuestion.getQuestionID(), first.getAnsID(), distrusted, "Meh", new Date());
+            dbHelper3.insertReview(testQuestion.getQuestionID(), second.getAnsID(), testReviewer.getUserName(), "Great", new Date());
+
+            List<Answer> ordered = dbHelper3.getAnswersForStudent(testQuestion.getQuestionID(), testStudent.getUserName());
+            assertEquals(second.getAnsID(), ordered.get(0).getAnsID());
+            assertEquals(first.getAnsID(), ordered.get(1).getAnsID());
+            assertEquals(third.getAnsID(), ordered.get(2).getAnsID());
+
+            dbHelper2.acceptAnswer(testQuestion.getQuestionID(), third.getAnsID());
+            ordered = dbHelper3.getAnswersForStudent(testQuestion.getQuestionID(), testStudent.getUserName());
+            assertEquals(third.getAnsID(), ordered.get(0).getAnsID());
+        }
+
+        @Test
+        @DisplayName("Answer reviews are ordered by reviewer weight")
+        void testReviewsOrderedByTrust() throws SQLException {
+            String distrusted = "other" + testReviewer.getUserName();
+            Answer answer = new Answer(getNewAnswerId(), testQuestion.getQuestionID(), "Answer", testStudent.getUserName(), new Date());
+            dbHelper2.insertAnswer(answer);
+
+            // Load the weight vector before changing it so the cached copy has to be updated
+            dbHelper3.getAnswerReviewsForStudent(testQuestion.getQuestionID(), testStudent.getUserName());
+            dbHelper3.setReviewerWeight(testStudent.getUserName(), testReviewer.getUserName(), 4);
+            dbHelper3.insertReview(testQuestion.getQuestionID(), answer.getAnsID(), testReviewer.getUserName(), "Older trusted review", new Date(System.currentTimeMillis() - 60000));
+            dbHelper3.insertReview(testQuestion.getQuestionID(), answer.getAnsID(), distrusted, "Newer review", new Date());
+
+            List<String[]> reviews = dbHelper3.getAnswerReviewsForStudent(testQuestion.getQuestionID(), testStudent.getUserName());
+            assertEquals(2, reviews.size());
+            assertEquals(testReviewer.getUserName(), reviews.get(0)[4]);
+        }
+    }
+
+    @Nested
+    @DisplayName("Duplicate Question Detection")
+    class DuplicateQuestionTests {
+
+        @Test
+        @DisplayName("A reworded copy of an existing question is reported as similar")
+        void testNearDuplicateFound() throws SQLException {
+            String marker = "zq" + UUID.randomUUID().toString().substring(0, 6);
+            Question original = new Question(getNewQuestionId(),
+                "How do I implement " + marker + " recursion for the binary tree traversal in homework three",
+                testStudent.getUserName(), new Date());
+            dbHelper2.insertQuestion(original);
+
+            List<Question> similar = dbHelper2.findSimilarQuestions(
+                "How do I implement " + marker + " recursion for the binary tree traversal in homework three?", 5);
+            assertTrue(similar.stream().anyMatch(q -> q.getQuestionID() == original.getQuestionID()));
+
+            List<Question> unrelated = dbHelper2.findSimilarQuestions(
+                "When is the midterm exam " + marker + " scheduled and which room", 5);
+            assertFalse(unrelated.stream().anyMatch(q -> q.getQuestionID() == original.getQuestionID()));
+
+            dbHelper2.deleteQuestion(original.getQuestionID());
+            similar = dbHelper2.findSimilarQuestions(original.getBodyText(), 5);
+            assertFalse(similar.stream().anyMatch(q -> q.getQuestionID() == original.getQuestionID()));
+        }
+    }
+
+    @Nested
+    @DisplayName("Related Answered Questions")
+    class RelatedQuestionTests {
+
+        @Test
+        @DisplayName("A question becomes related once its answer is accepted")
+        void testRelatedAfterAccept() throws SQLException {
+            String marker = "zr" + UUID.randomUUID().toString().substring(0, 6);
+            Question resolved = new Question(getNewQuestionId(),
+                "Why does my " + marker + " hashmap lose entries after resizing", testStudent.getUserName(), new Date());
+            dbHelper2.insertQuestion(resolved);
+            Answer answer = new Answer(getNewAnswerId(), resolved.getQuestionID(),
+                "Override hashCode together with equals for the " + marker + " keys", testReviewer.getUserName(), new Date());
+            dbHelper2.insertAnswer(answer);
+
+            Question reading = new Question(0, "My " + marker + " hashmap keys disappear", testStudent.getUserName(), new Date());
+
+            // Loads the index before the question is resolved
+            assertFalse(dbHelper2.getRelatedAnsweredQuestions(reading, 5).stream()
+                .anyMatch(q -> q.getQuestionID() == resolved.getQuestionID()));
+
+            dbHelper2.acceptAnswer(resolved.getQuestionID(), answer.getAnsID());
+            List<Question> related = dbHelper2.getRelatedAnsweredQuestions(reading, 5);
+            assertEquals(resolved.getQuestionID(), related.get(0).getQuestionID());
+
+            // The question itself is never listed as related
+            assertFalse(dbHelper2.getRelatedAnsweredQuestions(resolved, 5).stream()
+                .anyMatch(q -> q.getQuestionID() == resolved.getQuestionID()));
+
+            dbHelper2.deleteQuestion(resolved.getQuestionID());
+            assertFalse(dbHelper2.getRelatedAnsweredQuestions(reading, 5).stream()
+                .anyMatch(q -> q.getQuestionID() == resolved.getQuestionID()));
+        }
+    }
+
+    @Nested
+    @DisplayName("Search Completion")
+    class SearchCompletionTests {
+
+        @Test
+        @DisplayName("Words and repeated phrases from new posts are suggested")
+        void testCompletionsFromNewPosts() throws SQLException {
+            String marker = "zc" + UUID.randomUUID().toString().substring(0, 6).replace("-", "");
+            // Loads the completions before the new posts are added
+            DatabaseHelper3.preloadSearchIndexes().join();
+
+            Question question = new Question(getNewQuestionId(),
+                "Question about " + marker + "alpha sorting", testStudent.getUserName(), new Date());
+            dbHelper2.insertQuestion(question);
+            dbHelper2.insertAnswer(new Answer(getNewAnswerId(), question.getQuestionID(),
+                "Use " + marker + "alpha sorting with a comparator", testReviewer.getUserName(), new Date()));
+
+            List<String> words = dbHelper3.getSearchCompletions("how to " + marker.substring(0, 5), 5);
+            assertTrue(words.contains("how to " + marker + "alpha"));
+
+            // The phrase appears in both posts, so it is suggested for the next word
+            List<String> phrases = dbHelper3.getSearchCompletions(marker + "alpha ", 5);
+            assertEquals(marker + "alpha sorting", phrases.get(0));
+
+            dbHelper2.deleteQuestion(question.getQuestionID());
+        }
+    }
+
+    @Nested
+    @DisplayName("Search Spelling Correction")
+    class SpellingCorrectionTests {
+
+        @Test
+        @DisplayName("A misspelled word from a new post is corrected")
+        void testMisspelledWordCorrected() throws SQLException {
+            String marker = "qx" + UUID.randomUUID().toString().replaceAll("[^a-z]", "").substring(0, 4);
+            // Loads the vocabulary before the new question is added
+            DatabaseHelper3.preloadSearchIndexes().join();
+            assertNull(dbHelper3.getSpellingSuggestion("the"));
+
+            Question question = new Question(getNewQuestionId(),
+                "Explain " + marker + "polymorphism please", testStudent.getUserName(), new Date());
+            dbHelper2.insertQuestion(question);
+
+            // One deleted letter and one swapped pair
+            String misspelled = marker + "polymrophsm";
+            assertEquals("the " + marker + "polymorphism", dbHelper3.getSpellingSuggestion("the " + misspelled));
+
+            // Known words need no correction
+            assertNull(dbHelper3.getSpellingSuggestion(marker + "polymorphism"));
+
+            dbHelper2.deleteQuestion(question.getQuestionID());
+        }
+    }
+
+    @Nested
+    @DisplayName("Saved Search Alerts")
+    class SavedSearchAlertTests {
+
+        @Test
+        @DisplayName("Only posts containing every saved word raise an alert")
+        void testAlertsForMatchingPosts() throws SQLException {
+            String marker = "zs" + UUID.randomUUID().toString().substring(0, 6);
+            int searchID = dbHelper3.saveSearch(testReviewer.getUserName(), "Recursion " + marker);
+
+            Question partial = new Question(getNewQuestionId(), "A question about recursion only", testStudent.getUserName(), new Date());
+            dbHelper2.insertQuestion(partial);
+            Question matching = new Question(getNewQuestionId(), "Is " + marker + " solved with recursion?", testStudent.getUserName(), new Date());
+            dbHelper2.insertQuestion(matching);
+            // The reviewer is not alerted about their own answer
+            dbHelper2.insertAnswer(new Answer(getNewAnswerId(), matching.getQuestionID(),
+                "Yes, " + marker + " needs recursion", testReviewer.getUserName(), new Date()));
+
+            List<String[]> alerts = dbHelper3.getSearchAlertsForUser(testReviewer.getUserName());
+            assertEquals(1, alerts.stream().filter(a -> a[1].contains(marker)).count());
+            assertEquals(String.valueOf(matching.getQuestionID()), alerts.get(0)[6]);
+
+            dbHelper3.deleteSavedSearch(searchID);
+            assertTrue(dbHelper3.getSearchAlertsForUser(testReviewer.getUserName()).stream()
+                .noneMatch(a -> a[1].contains(marker)));
+
+            dbHelper2.deleteQuestion(partial.getQuestionID());
+            dbHelper2.deleteQuestion(matching.getQuestionID());
+        }
+    }
+
+    @Nested
+    @DisplayName("Question Subscriptions")
+    class QuestionSubscriptionTests {
+
+        @Test
+        @DisplayName("Answers and chats are counted per subscriber until the question is seen")
+        void testUnreadCountsPerSubscriber() throws SQLException {
+            int questionID = testQuestion.getQuestionID();
+            // The student is subscribed as the author, the reviewer subscribes explicitly
+            dbHelper2.subscribeToQuestion(testReviewer.getUserName(), questionID);
+
+            dbHelper2.insertAnswer(new Answer(getNewAnswerId(), questionID, "First answer", testReviewer.getUserName(), new Date()));
+            dbHelper2.insertAnswer(new Answer(getNewAnswerId(), questionID, "Second answer", testReviewer.getUserName(), new Date()));
+            assertEquals(2, dbHelper2.getUnreadCounts(testStudent.getUserName()).get(questionID));
+            // Authors are not told about their own posts
+            assertNull(dbHelper2.getUnreadCounts(testReviewer.getUserName()).get(questionID));
+
+            dbHelper3.insertReview(questionID, 0, testReviewer.getUserName(), "Review", new Date());
+            dbHelper3.insertChatMessage("Student", testStudent.getUserName(), questionID, "Can you explain?");
+            assertEquals(1, dbHelper2.getUnreadCounts(testReviewer.getUserName()).get(questionID));
+
+            dbHelper2.markQuestionSeen(testStudent.getUserName(), questionID);
+            assertNull(dbHelper2.getUnreadCounts(testStudent.getUserName()).get(questionID));
+
+            dbHelper2.unsubscribeFromQuestion(testReviewer.getUserName(), questionID);
+            dbHelper2.insertAnswer(new Answer(getNewAnswerId(), questionID, "Third answer", testStudent.getUserName(), new Date()));
+            assertNull(dbHelper2.getUnreadCounts(testReviewer.getUserName()).get(questionID));
+        }
+
+        @Test
+        @DisplayName("A first chat message to an unsubscribed participant subscribes them with one unread")
+        void testFirstChatToUnsubscribedParticipant() throws SQLException {
+            int questionID = testQuestion.getQuestionID();
+            dbHelper3.insertReview(questionID, 0, testReviewer.getUserName(), "Review", new Date());
+            dbHelper2.unsubscribeFromQuestion(testReviewer.getUserName(), questionID);
+
+            dbHelper3.insertChatMessage("Student", testStudent.getUserName(), questionID, "Can you explain?");
+            assertEquals(1, dbHelper2.getUnreadCounts(testReviewer.getUserName()).get(questionID));
+            dbHelper3.insertChatMessage("Student", testStudent.getUserName(), questionID, "Anyone there?");
+            assertEquals(2, dbHelper2.getUnreadCounts(testReviewer.getUserName()).get(questionID));
+
+            dbHelper2.unsubscribeFromQuestion(testStudent.getUserName(), questionID);
+            dbHelper3.insertChatMessage("Reviewer", testReviewer.getUserName(), questionID, "Here is why");
+            assertEquals(1, dbHelper2.getUnreadCounts(testStudent.getUserName()).get(questionID));
+        }
+    }
+
+    @Nested
+    @DisplayName("Hot Question Cache")
+    class HotQuestionCacheTests {
+
+        @Test
+        @DisplayName("Repeated reads hit the cache and writes are seen on the next read")
+        void testCacheHitsAndInvalidation() throws SQLException {
+            int questionID = testQuestion.getQuestionID();
+            dbHelper2.getQuestionById(questionID);
+            long hitsBefore = dbHelper2.getHotQuestionCacheStats().get("questions").get("hits");
+
+            Question cached = dbHelper2.getQuestionById(questionID);
+            assertEquals(hitsBefore + 1, dbHelper2.getHotQuestionCacheStats().get("questions").get("hits"));
+
+            // Changing the returned copy does not change the cached question
+            cached.setBodyText("Changed locally");
+            cached.getDateCreated().setTime(0);
+            Question reread = dbHelper2.getQuestionById(questionID);
+            assertEquals(testQuestion.getBodyText(), reread.getBodyText());
+            assertNotEquals(0, reread.getDateCreated().getTime());
+
+            cached.setBodyText("Changed in the database");
+            dbHelper2.updateQuestion(cached);
+            assertEquals("Changed in the database", dbHelper2.getQuestionById(questionID).getBodyText());
+
+            Answer answer = new Answer(getNewAnswerId(), questionID, "Cached answer", testReviewer.getUserName(), new Date());
+            assertEquals(0, dbHelper2.getAnswersForQuestion(questionID).size());
+            dbHelper2.insertAnswer(answer);
+            assertEquals(1, dbHelper2.getAnswersForQuestion(questionID).size());
+
+            answer.setBodyText("Edited answer");
+            dbHelper2.updateAnswer(answer);
+            assertEquals("Edited answer", dbHelper2.getAnswersForQuestion(questionID).get(0).getBodyText());
+
+            dbHelper2.deleteAnswer(answer.getAnsID());
+            assertEquals(0, dbHelper2.getAnswersForQuestion(questionID).size());
+        }
+    }
+
+    @Nested
+    @DisplayName("Search Result Cache")
+    class SearchResultCacheTests {
+
+        @Test
+        @DisplayName("Cached searches follow writes to the tables each filter reads")
+        void testCachedSearchesFollowWrites() throws SQLException {
+            String marker = "zk" + UUID.randomUUID().toString().substring(0, 6);
+            assertTrue(dbHelper3.searchQuestions(marker, "All", null).isEmpty());
+            assertTrue(dbHelper3.searchQuestions(marker, "Answered", null).isEmpty());
+            assertTrue(dbHelper3.searchQuestions(marker, "Reviewer", testReviewer.getUserName()).isEmpty());
+
+            Question question = new Question(getNewQuestionId(), "Cached search " + marker, testStudent.getUserName(), new Date());
+            dbHelper2.insertQuestion(question);
+            assertEquals(1, dbHelper3.searchQuestions(marker.toUpperCase(), "All", null).size());
+            assertEquals(1, dbHelper3.searchQuestions(marker, "Unanswered", null).size());
+
+            dbHelper2.insertAnswer(new Answer(getNewAnswerId(), question.getQuestionID(), "Answer", testReviewer.getUserName(), new Date()));
+            assertEquals(1, dbHelper3.searchQuestions(marker, "Answered", null).size());
+            assertTrue(dbHelper3.searchQuestions(marker, "Unanswered", null).isEmpty());
+
+            dbHelper3.insertReview(question.getQuestionID(), 0, testReviewer.getUserName(), "Review", new Date());
+            List<Question> reviewed = dbHelper3.searchQuestions(marker, "Reviewer", testReviewer.getUserName());
+            assertEquals(question.getQuestionID(), reviewed.get(0).getQuestionID());
+            // A repeated search returns the same questions from the cache
+            assertEquals(reviewed.get(0).getBodyText(),
+                dbHelper3.searchQuestions(marker, "Reviewer", testReviewer.getUserName()).get(0).getBodyText());
+
+            dbHelper2.deleteQuestion(question.getQuestionID());
+            assertTrue(dbHelper3.searchQuestions(marker, "All", null).isEmpty());
+        }
+    }
+
+    @Nested
+    @DisplayName("User Record Cache")
+    class UserRecordCacheTests {
+
+        @Test
+        @DisplayName("Profile lookups share one cached record that writes invalidate")
+        void testProfileLookupsAndInvalidation() throws SQLException {
+            String userName = testStudent.getUserName();
+            assertEquals("Student", dbHelper.getUserRole(userName));
+            long hitsBefore = dbHelper.getUserCacheStats().get("hits");
+
+            assertEquals("Test", dbHelper.getUserFirstName(userName));
+            assertEquals("Student", dbHelper.getUserLastName(userName));
+            assertEquals("test@student.com", dbHelper.getUserEmail(userName));
+            assertTrue(dbHelper.doesUserExist(userName));
+            assertEquals(hitsBefore + 4, dbHelper.getUserCacheStats().get("hits"));
+
+            dbHelper.updateUserRole(userName, "Student,Reviewer");
+            assertEquals("Student,Reviewer", dbHelper.getUserRole(userName));
+
+            assertTrue(dbHelper.deleteUser(userName));
+            assertFalse(dbHelper.doesUserExist(userName));
+            assertNull(dbHelper.getUserRole(userName));
+        }
+    }
+
+    @Nested
+    @DisplayName("Single Query Login")
+    class SingleQueryLoginTests {
+
+        @Test
+        @DisplayName("Authentication returns the role and profile and warms the user cache")
+        void testAuthenticateLoadsProfile() throws SQLException {
+            String userName = testReviewer.getUserName();
+            assertNull(dbHelper.authenticate(userName, "wrong"));
+            assertNull(dbHelper.authenticate("unknown" + userName, "password"));
+
+            User user = dbHelper.authenticate(userName, "password");
+            assertEquals("Reviewer", user.getRole());
+            assertEquals("Test", user.getfirstName());
+            assertEquals("test@reviewer.com", user.getemail());
+
+            long hitsBefore = dbHelper.getUserCacheStats().get("hits");
+            assertEquals("Reviewer", dbHelper.getUserRole(userName));
+            assertEquals(hitsBefore + 1, dbHelper.getUserCacheStats().get("hits"));
+        }
+    }
+
+    @Nested
+    @DisplayName("Password Hashing")
+    class PasswordHashingTests {
+
+        @Test
+        @DisplayName("Hashed passwords verify on the worker pool and survive a work factor change")
+        void testHashedPasswordsOnWorkerPool() throws Exception {
+            String userName = testStudent.getUserName();
+            assertTrue(dbHelper.isOTPValid(userName, "password"));
+            assertFalse(dbHelper.isOTPValid(userName, "Password"));
+
+            assertNotNull(dbHelper.authenticateAsync(userName, "password").get());
+            assertNull(dbHelper.authenticateAsync(userName, "wrong").get());
+
+            // Hashes made with the old work factor still verify and are upgraded at login
+            DatabaseHelper.setPasswordHashIterations(1000);
+            try {
+                assertNotNull(dbHelper.authenticate(userName, "password"));
+                assertNotNull(dbHelper.authenticate(userName, "password"));
+                dbHelper.updatePasswordAsync(userName, "newpassword").get();
+                assertTrue(dbHelper.login(new User(userName, "newpassword", "", "", "", "")));
+            } finally {
+                DatabaseHelper.setPasswordHashIterations(120_000);
+            }
+            assertTrue(DatabaseHelper.getPasswordPoolStats().get("threads") > 0);
+        }
+    }
+
+    @Nested
+    @DisplayName("Thread-Safe Password Evaluator")
+    class PasswordEvaluatorTests {
+
+        @Test
+        @DisplayName("Results describe each condition and blocked patterns are found in one scan")
+        void testResultFields() {
+            PasswordEvaluator evaluator = new PasswordEvaluator(PasswordEvaluator.DEFAULT_BLOCKED);
+            assertTrue(evaluator.evaluate("Abcdef_1").isValid());
+
+            PasswordEvaluator.Result result = evaluator.evaluate("x12345678_Q");
+            assertFalse(result.isValid());
+            assertTrue(result.hasUpperCase() && result.hasNumericDigit() && result.isLongEnough());
+            // The last matching pattern in the list is reported, as before
+            assertEquals("12345678", result.getBlockedPattern());
+            assertEquals(PasswordEvaluator.evaluatePassword("x12345678_Q"), result.getMessage());
+
+            result = evaluator.evaluate("Abc!def_1");
+            assertEquals(3, result.getIndexOfError());
+        }
+
+        @Test
+        @DisplayName("One evaluator gives the same results when shared by many threads")
+        void testConcurrentEvaluation() {
+            PasswordEvaluator evaluator = new PasswordEvaluator(List.of("secret", "qwerty"));
+            List<String> passwords = List.of("Abcdef_1", "my_Secret1", "qwerty_A1", "Short_1", "Abc!");
+            for (String password : passwords) {
+                String expected = evaluator.evaluate(password).getMessage();
+                assertTrue(IntStream.range(0, 2000).parallel()
+                    .allMatch(i -> evaluator.evaluate(password).getMessage().equals(expected)));
+            }
+            assertEquals("qwerty", evaluator.evaluate("qwerty_A1").getBlockedPattern());
+            assertNull(evaluator.evaluate("my_Secret1").getBlockedPattern());
+        }
+    }
+
+    @Nested
+    @DisplayName("Breached Password Screen")
+    class BreachedPasswordScreenTests {
+
+        @Test
+        @DisplayName("Listed passwords and patterns are rejected and others are not")
+        void testScreenRejectsListedPasswords() throws IOException {
+            Path directory = Files.createTempDirectory("breached");
+            Path list = directory.resolve("passwords.txt");
+            Path filter = directory.resolve("passwords.bloom");
+            Path patterns = directory.resolve("patterns.txt");
+            List<String> breached = new ArrayList<>();
+            for (int i = 0; i < 5000; i++) {
+                breached.add("Leaked_" + i + "x");
+            }
+            Files.write(list, breached);
+            Files.write(patterns, List.of("# keyboard walks", "asdfgh", "Letmein"));
+            BreachedPasswordScreen.buildFilter(list, filter, 0.001);
+
+            BreachedPasswordScreen screen = new BreachedPasswordScreen(filter, patterns);
+            for (String password : breached) {
+                assertTrue(screen.isBreached(password));
+            }
+            int falsePositives = 0;
+            for (int i = 0; i < 5000; i++) {
+                if (screen.isBreached("Unlisted_" + i + "y")) {
+                    falsePositives++;
+                }
+            }
+            assertTrue(falsePositives < 50, "False positives: " + falsePositives);
+            assertEquals("Letmein", screen.findPattern("my_LETMEIN_9"));
+
+            PasswordEvaluator evaluator = new PasswordEvaluator(PasswordEvaluator.DEFAULT_BLOCKED, screen);
+            PasswordEvaluator.Result result = evaluator.evaluate("Leaked_42x");
+            assertTrue(result.isBreached());
+            assertTrue(result.getMessage().contains("breached"));
+            assertEquals("asdfgh", evaluator.evaluate("Asdfgh_12").getBlockedPattern());
+            assertTrue(evaluator.evaluate("Abcdef_1").isValid());
+        }
+    }
+
+    @Nested
+    @DisplayName("Roster Validation")
+    class RosterValidationTests {
+
+        @Test
+        @DisplayName("Recognizers report errors with their positions")
+        void testRecognizerResults() {
+            UserNameRecognizer userNames = new UserNameRecognizer();
+            assertTrue(userNames.recognize("John_Doe1").isValid());
+            assertEquals(4, userNames.recognize("John$Doe1").getIndexOfError());
+            assertTrue(userNames.recognize("John__Doe").getMessage().contains("after an underscore"));
+            assertTrue(userNames.recognize("Abcdefghij0123456789x").getMessage().contains("no more than 20"));
+
+            EmailRecognizer emails = new EmailRecognizer();
+            assertTrue(emails.evaluate("user@example.com").isValid());
+            assertEquals(7, emails.evaluate("user@ex!ample.com").getIndexOfError());
+        }
+
+        @Test
+        @DisplayName("A large roster is checked in parallel with the same results as one by one")
+        void testValidateAllMatchesSingleChecks() {
+            List<User> roster = new ArrayList<>();
+            for (int i = 0; i < 3000; i++) {
+                String userName = (i % 7 == 0) ? "bad name " + i : "student_" + i + "x";
+                String email = (i % 11 == 0) ? "student" + i : "student" + i + "@asu.edu";
+                roster.add(new User(userName, "", "Student", "First", "Last", email));
+            }
+            RosterValidator validator = new RosterValidator();
+            List<String> results = validator.validateAll(roster);
+            assertEquals(roster.size(), results.size());
+            for (int i = 0; i < roster.size(); i++) {
+                assertEquals(validator.validate(roster.get(i)), results.get(i));
+            }
+            assertEquals("", results.get(1));
+            assertTrue(results.get(7).contains("UserName"));
+            assertTrue(results.get(11).contains("Email must contain '@'"));
+        }
+    }
+
+    @Nested
+    @DisplayName("Roster Import")
+    class RosterImportTests {
+
+        @Test
+        @DisplayName("A roster creates new users, merges roles of existing ones and reports bad rows")
+        void testImportRoster() throws Exception {
+            String newUser = "roster" + UUID.randomUUID().toString().substring(0, 5);
+            String csv = "UserName,First Name,Last Name,Email,Role\r\n"
+                    + newUser + ",New,Student,\"new@student.com\",student\r\n"
+                    + "\n"
+                    + testStudent.getUserName() + ",Test,Student,test@student.com,Reviewer\n"
+                    + "bad name,Bad,Row,bad@student.com,Student\n"
+                    + newUser + ",Again,Student,again@student.com,Student\n";
+            List<Integer> progress = new ArrayList<>();
+            RosterImportResult result = dbHelper.importRoster(new StringReader(csv), progress::add);
+
+            assertEquals(1, result.getCreated());
+            assertEquals(1, result.getUpdated());
+            assertEquals(2, result.getFailed());
+            assertEquals(List.of(4), progress);
+
+            RosterImportResult.Row created = result.getRows().get(0);
+            assertEquals(RosterImportResult.Status.CREATED, created.getStatus());
+            assertEquals(2, created.getLineNumber());
+            assertTrue(created.getOneTimePassword().matches("\\d{6}"));
+            assertNotNull(dbHelper.authenticate(newUser, created.getOneTimePassword()));
+            assertEquals("Student", dbHelper.getUserRole(newUser));
+
+            assertEquals("Student,Reviewer", dbHelper.getUserRole(testStudent.getUserName()));
+            assertNull(result.getRows().get(1).getOneTimePassword());
+            assertEquals(5, result.getRows().get(2).getLineNumber());
+            assertTrue(result.getRows().get(3).getMessage().contains("more than once"));
+
+            dbHelper.deleteUser(newUser);
+        }
+    }
+
+    @Nested
+    @DisplayName("Invitation Codes")
+    class InvitationCodeTests {
+
+        @Test
+        @DisplayName("Codes generated in bulk are unique and each can be claimed only once")
+        void testBulkCodesAndAtomicClaim() throws Exception {
+            List<String> codes = dbHelper.generateInvitationCodes("Student", 200);
+            assertEquals(200, codes.size());
+            assertEquals(200, new HashSet<>(codes).size());
+            assertTrue(codes.stream().allMatch(code -> code.length() == 10));
+
+            // Several signups race for the same code on their own connections
+            String contested = codes.get(0);
+            ExecutorService pool = Executors.newFixedThreadPool(8);
+            List<Future<String>> claims = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                claims.add(pool.submit(() -> {
+                    DatabaseHelper helper = new DatabaseHelper();
+                    helper.connectToDatabase();
+                    try {
+                        return helper.claimInvitationCode(contested);
+                    } finally {
+                        helper.closeConnection();
+                    }
+                }));
+            }
+            int claimed = 0;
+            for (Future<String> claim : claims) {
+                if (claim.get() != null) {
+                    assertEquals("Student", claim.get());
+                    claimed++;
+                }
+            }
+            pool.shutdown();
+            assertEquals(1, claimed);
+
+            assertEquals("Student", dbHelper.validateInvitationCodeAndGetRole(codes.get(1)));
+            assertNull(dbHelper.validateInvitationCodeAndGetRole(codes.get(1)));
+            assertNull(dbHelper.claimInvitationCode("NOSUCHCODE"));
+        }
+    }
+
+    @Nested
+    @DisplayName("Q&A Export")
+    class QaExportTests {
+
+        @Test
+        @DisplayName("Questions are exported with their answers, reviews and feedback as JSON Lines and CSV")
+        void testExportQuestions() throws Exception {
+            int questionID = testQuestion.getQuestionID();
+            int answerID = getNewAnswerId();
+            dbHelper2.insertAnswer(new Answer(answerID, questionID, "Use a \"loop\",\nthen print", testReviewer.getUserName(), new Date()));
+            dbHelper3.insertReview(questionID, answerID, testReviewer.getUserName(), "Looks right", new Date());
+            dbHelper3.insertFeedback(questionID, testReviewer.getUserName(), testStudent.getUserName(), "Thanks");
+
+            ByteArrayOutputStream json = new ByteArrayOutputStream();
+            long count = dbHelper2.exportQuestions(json, ExportFormat.JSON_LINES, true);
+            assertEquals(dbHelper2.getAllQuestions().size(), count);
+            List<String> lines = new BufferedReader(new InputStreamReader(
+                new GZIPInputStream(new ByteArrayInputStream(json.toByteArray())),
+                StandardCharsets.UTF_8)).lines().toList();
+            assertEquals(count, lines.size());
+            String line = lines.stream().filter(l -> l.startsWith("{\"questionID\":" + questionID + ",")).findFirst().orElseThrow();
+            assertTrue(line.contains("\"answers\":[{\"answerID\":" + answerID + ",\"bodyText\":\"Use a \\\"loop\\\",\\nthen print\""));
+            assertTrue(line.contains("\"reviewText\":\"Looks right\""));
+            assertTrue(line.contains("\"feedbackText\":\"Thanks\""));
+
+            ByteArrayOutputStream csv = new ByteArrayOutputStream();
+            dbHelper2.exportQuestions(csv, ExportFormat.CSV, false);
+            String text = csv.toString(StandardCharsets.UTF_8);
+            assertTrue(text.startsWith("recordType,id,questionID,answerID,parentID,author,recipient,createdAt,resolved,acceptedAnswerID,text\n"));
+            assertTrue(text.contains("answer," + answerID + "," + questionID + ",,," + testReviewer.getUserName()));
+            assertTrue(text.contains(",\"Use a \"\"loop\"\",\nthen print\"\n"));
+        }
+    }
+
+    @Nested
+    @DisplayName("Q&A Import")
+    class QaImportTests {
+
+        @Test
+        @DisplayName("Imported questions get new IDs with their answers, reviews and replies pointed at them")
+        void testImportJsonLines() throws Exception {
+            String student = testStudent.getUserName();
+            String reviewer = testReviewer.getUserName();
+            String jsonl = "{\"questionID\":7,\"bodyText\":\"Imported \\\"question\\\" one\",\"postedBy\":\"" + student
+                    + "\",\"dateCreated\":\"2025-01-15T10:30\",\"resolved\":true,\"acceptedAnswerID\":12,"
+                    + "\"answers\":[{\"answerID\":11,\"bodyText\":\"First\",\"answeredBy\":\"" + reviewer + "\",\"dateCreated\":null},"
+                    + "{\"answerID\":12,\"bodyText\":\"Second\",\"answeredBy\":\"" + reviewer + "\",\"dateCreated\":\"2025-01-16T09:00\"}],"
+                    + "\"reviews\":[{\"reviewID\":3,\"answerID\":12,\"reviewerName\":\"" + reviewer + "\",\"reviewText\":\"Good\",\"dateCreated\":null},"
+                    + "{\"reviewID\":4,\"answerID\":99,\"reviewerName\":\"" + reviewer + "\",\"reviewText\":\"Lost\",\"dateCreated\":null}],"
+                    + "\"feedback\":[{\"id\":5,\"parentID\":null,\"sentBy\":\"" + reviewer + "\",\"sentTo\":\"" + student + "\",\"feedbackText\":\"Hi\",\"timestamp\":null},"
+                    + "{\"id\":6,\"parentID\":5,\"sentBy\":\"" + student + "\",\"sentTo\":\"" + reviewer + "\",\"feedbackText\":\"Reply\",\"timestamp\":null}]}\n"
+                    + "not json\n"
+                    + "\n"
+                    + "{\"questionID\":8,\"bodyText\":\"Imported question two\",\"postedBy\":\"" + student + "\",\"dateCreated\":null,"
+                    + "\"resolved\":false,\"acceptedAnswerID\":-1,\"answers\":[],\"reviews\":[],\"feedback\":[]}\n";
+
+            int firstNewID = getNewQuestionId();
+            List<Integer> progress = new ArrayList<>();
+            QaImportResult result = dbHelper2.importQuestions(new ByteArrayInputStream(
+                jsonl.getBytes(StandardCharsets.UTF_8)), ExportFormat.JSON_LINES, false, 1, progress::add);
+            try {
+                assertEquals(2, result.getQuestions());
+                assertEquals(2, result.getAnswers());
+                assertEquals(1, result.getReviews());
+                assertEquals(2, result.getFeedback());
+                assertEquals(2, result.getSkipped());
+                assertEquals(List.of(1, 2), progress);
+                assertTrue(result.getMessages().get(0).startsWith("Line 1: The review is of answer 99"));
+                assertTrue(result.getMessages().get(1).startsWith("Line 2:"));
+
+                Question imported = dbHelper2.getQuestionById(firstNewID);
+                assertEquals("Imported \"question\" one", imported.getBodyText());
+                assertTrue(imported.isResolved());
+                List<Answer> answers = dbHelper2.getAnswersForQuestion(firstNewID);
+                assertEquals(2, answers.size());
+                Answer second = answers.stream().filter(a -> a.getBodyText().equals("Second")).findFirst().orElseThrow();
+                assertEquals(second.getAnsID(), imported.getAcceptedAnsID());
+                assertEquals(1, dbHelper3.getReviewsForAnswer(second.getAnsID()).size());
+                assertEquals("Imported question two", dbHelper2.getQuestionById(firstNewID + 1).getBodyText());
+
+                // The reply points at the new ID of the message it answers
+                ByteArrayOutputStream export = new ByteArrayOutputStream();
+                dbHelper2.exportQuestions(export, ExportFormat.JSON_LINES, false);
+                String line = export.toString(StandardCharsets.UTF_8).lines()
+                    .filter(l -> l.startsWith("{\"questionID\":" + firstNewID + ",")).findFirst().orElseThrow();
+                Matcher first = Pattern.compile("\\{\"id\":(\\d+),\"parentID\":null").matcher(line);
+                assertTrue(first.find());
+                assertTrue(line.contains("\"parentID\":" + first.group(1) + ",\"sentBy\":\"" + student + "\""));
+
+                assertFalse(dbHelper2.findSimilarQuestions("Imported question two", 5).isEmpty());
+            } finally {
+                dbHelper2.deleteQuestion(firstNewID);
+                dbHelper2.deleteQuestion(firstNewID + 1);
+            }
+        }
+    }
+
+    @Nested
+    @DisplayName("Database Backup")
+    class DatabaseBackupTests {
+
+        @Test
+        @DisplayName("Snapshots are rotated and a restore brings back their contents")
+        void testBackupRotationAndRestore() throws Exception {
+            String url = "jdbc:h2:mem:backuptest;DB_CLOSE_DELAY=-1";
+            Path directory = Files.createTempDirectory("backups");
+            try (Connection connection = DriverManager.getConnection(url, "sa", "");
+                 Statement statement = connection.createStatement()) {
+                statement.execute("CREATE TABLE Notes (id INT PRIMARY KEY, text VARCHAR(255))");
+                statement.execute("INSERT INTO Notes VALUES (1, 'kept')");
+
+                DatabaseBackup backup = new DatabaseBackup(url, directory, 2);
+                backup.backupNow();
+                backup.backupNow();
+                Path newest = backup.backupNow();
+                List<Path> snapshots = backup.listBackups();
+                assertEquals(2, snapshots.size());
+                assertEquals(newest, snapshots.get(0));
+
+                statement.execute("DELETE FROM Notes");
+                statement.execute("INSERT INTO Notes VALUES (2, 'lost')");
+                Path before = backup.restore(newest);
+
+                try (ResultSet rs = statement.executeQuery("SELECT text FROM Notes ORDER BY id")) {
+                    assertTrue(rs.next());
+                    assertEquals("kept", rs.getString(1));
+                    assertFalse(rs.next());
+                }
+                assertEquals(List.of(before, newest), backup.listBackups());
+            } finally {
+                try (Stream<Path> files = Files.list(directory)) {
+                    for (Path file : files.toList()) {
+                        Files.delete(file);
+                    }
+                }
+                Files.delete(directory);
+            }
+        }
+    }
+
+    @Nested
+    @DisplayName("Thread Archive")
+    class ThreadArchiveTests {
+
+        @Test
+        @DisplayName("Old resolved threads move to the archive with their rows and can be restored")
+        void testArchiveSearchAndRestore() throws SQLException {
+            dbHelper3.updateReviewerProfile(testReviewer.getUserName(), "Experience", "Background");
+            Date old = new Date(946_684_800_000L); // 2000-01-01
+            Timestamp cutoff = Timestamp.valueOf("2001-01-01 00:00:00");
+            String word = "archivable" + UUID.randomUUID().toString().substring(0, 5);
+
+            int archivedID = getNewQuestionId();
+            Question archivable = new Question(archivedID, "An old " + word + " question", testStudent.getUserName(), old);
+            dbHelper2.insertQuestion(archivable);
+            int answerID = getNewAnswerId();
+            dbHelper2.insertAnswer(new Answer(answerID, archivedID, "The " + word + " answer", testReviewer.getUserName(), old));
+            dbHelper3.insertReview(archivedID, answerID, testReviewer.getUserName(), "Correct", old);
+            archivable.setResolved(true);
+            archivable.setAcceptedAnsID(answerID);
+            dbHelper2.updateQuestion(archivable);
+
+            // Recent feedback keeps one old thread live, an open flag keeps the other
+            int activeID = archivedID + 1;
+            Question active = new Question(activeID, "An old active question", testStudent.getUserName(), old);
+            active.setResolved(true);
+            dbHelper2.insertQuestion(active);
+            dbHelper3.insertFeedback(activeID, testStudent.getUserName(), testReviewer.getUserName(), "Still talking");
+            int flaggedID = archivedID + 2;
+            Question flagged = new Question(flaggedID, "An old flagged question", testStudent.getUserName(), old);
+            flagged.setResolved(true);
+            dbHelper2.insertQuestion(flagged);
+            dbHelper3.flagContent("Question", flaggedID, testReviewer.getUserName(), "Needs a look");
+
+            try {
+                int reviewsBefore = dbHelper3.getReviewerProfile(testReviewer.getUserName()).getTotalReviews();
+                List<Integer> progress = new ArrayList<>();
+                assertEquals(1, dbHelper2.archiveResolvedQuestions(cutoff, 1, progress::add));
+                assertEquals(List.of(1), progress);
+
+                assertNull(dbHelper2.getQuestionById(archivedID));
+                assertTrue(dbHelper2.getAnswersForQuestion(archivedID).isEmpty());
+                assertTrue(dbHelper3.getReviewsForAnswer(answerID).isEmpty());
+                assertNotNull(dbHelper2.getQuestionById(activeID));
+                assertNotNull(dbHelper2.getQuestionById(flaggedID));
+                assertTrue(dbHelper3.searchQuestions(word, "All", null).isEmpty());
+                assertEquals(reviewsBefore, dbHelper3.getReviewerProfile(testReviewer.getUserName()).getTotalReviews());
+
+                // The archive is searched by question and answer text
+                List<Question> found = dbHelper2.searchArchivedQuestions(word + " answer", 10);
+                assertEquals(1, found.size());
+                assertEquals(archivedID, found.get(0).getQuestionID());
+                assertEquals(answerID, found.get(0).getAcceptedAnsID());
+                assertEquals(1, dbHelper2.getArchivedAnswers(archivedID).size());
+
+                assertTrue(dbHelper2.restoreArchivedQuestion(archivedID));
+                assertFalse(dbHelper2.restoreArchivedQuestion(archivedID));
+                assertTrue(dbHelper2.searchArchivedQuestions(word, 10).isEmpty());
+                Question restored = dbHelper2.getQuestionById(archivedID);
+                assertTrue(restored.isResolved());
+                assertEquals(answerID, restored.getAcceptedAnsID());
+                assertEquals(1, dbHelper2.getAnswersForQuestion(archivedID).size());
+                assertEquals(1, dbHelper3.getReviewsForAnswer(answerID).size());
+
+                // The author and the answerer are subscribed to the restored thread again
+                dbHelper2.insertAnswer(new Answer(getNewAnswerId(), archivedID, "A follow-up answer", testReviewer.getUserName(), new Date()));
+                dbHelper2.insertAnswer(new Answer(getNewAnswerId(), archivedID, "A follow-up question", testStudent.getUserName(), new Date()));
+                assertEquals(1, dbHelper2.getUnreadCounts(testStudent.getUserName()).get(archivedID));
+                assertEquals(1, dbHelper2.getUnreadCounts(testReviewer.getUserName()).get(archivedID));
+            } finally {
+                dbHelper2.restoreArchivedQuestion(archivedID);
+                dbHelper2.deleteQuestion(archivedID);
+                dbHelper2.deleteQuestion(activeID);
+                dbHelper2.deleteQuestion(flaggedID);
+            }
+        }
+    }
+
+    @Nested
+    @DisplayName("Content Purge")
+    class ContentPurgeTests {
+
+        @Test
+        @DisplayName("Deleting a question removes its reviews, chat messages and flags")
+        void testDeleteQuestionLeavesNoOrphans() throws SQLException {
+            dbHelper3.updateReviewerProfile(testReviewer.getUserName(), "Experience", "Background");
+            int questionID = getNewQuestionId();
+            Question question = new Question(questionID, "A question to purge", testStudent.getUserName(), new Date());
+            dbHelper2.insertQuestion(question);
+            int answerID = getNewAnswerId();
+            dbHelper2.insertAnswer(new Answer(answerID, questionID, "An answer to purge", testReviewer.getUserName(), new Date()));
+            dbHelper3.insertReview(questionID, answerID, testReviewer.getUserName(), "Reviewed", new Date());
+            dbHelper3.insertChatMessage("Student", testStudent.getUserName(), questionID, "Any update?");
+            dbHelper3.flagContent("Question", questionID, testReviewer.getUserName(), "Off topic");
+            dbHelper3.flagContent("Answer", answerID, testStudent.getUserName(), "Wrong");
+            int reviewsBefore = dbHelper3.getReviewerProfile(testReviewer.getUserName()).getTotalReviews();
+
+            dbHelper2.deleteQuestion(questionID);
+
+            assertNull(dbHelper2.getQuestionById(questionID));
+            assertTrue(dbHelper2.getAnswersForQuestion(questionID).isEmpty());
+            assertTrue(dbHelper3.getReviewsForAnswer(answerID).isEmpty());
+            assertTrue(dbHelper3.getChatMessagesForQuestion(testStudent.getUserName(), questionID).isEmpty());
+            assertTrue(dbHelper3.getAllFlaggedContent().stream().noneMatch(flag ->
+                (flag[1].equals("Question") && Integer.parseInt(flag[2]) == questionID)
+                || (flag[1].equals("Answer") && Integer.parseInt(flag[2]) == answerID)));
+            assertEquals(reviewsBefore - 1, dbHelper3.getReviewerProfile(testReviewer.getUserName()).getTotalReviews());
+        }
+
+        @Test
+        @DisplayName("Deleting a user removes everything they posted, sent or saved")
+        void testDeleteUserPurgesContent() throws SQLException {
+            dbHelper3.updateReviewerProfile(testReviewer.getUserName(), "Experience", "Background");
+            String userName = "purged" + UUID.randomUUID().toString().substring(0, 5);
+            dbHelper.register(new User(userName, "password", "Student", "Purged", "Student", "purged@student.com"));
+
+            int ownQuestionID = getNewQuestionId();
+            dbHelper2.insertQuestion(new Question(ownQuestionID, "A question by a purged user", userName, new Date()));
+            dbHelper3.insertReview(ownQuestionID, 0, testReviewer.getUserName(), "Reviewed", new Date());
+            // The reviewer's saved search matches the answer the purged user posts
+            String marker = "zp" + UUID.randomUUID().toString().substring(0, 6);
+            int searchID = dbHelper3.saveSearch(testReviewer.getUserName(), marker);
+            int answerID = getNewAnswerId();
+            dbHelper2.insertAnswer(new Answer(answerID, testQuestion.getQuestionID(), "An accepted " + marker + " answer", userName, new Date()));
+            dbHelper2.acceptAnswer(testQuestion.getQuestionID(), answerID);
+            assertTrue(dbHelper3.getSearchAlertsForUser(testReviewer.getUserName()).stream().anyMatch(a -> a[1].contains(marker)));
+            dbHelper3.insertFeedback(testQuestion.getQuestionID(), testStudent.getUserName(), userName, "A note");
+            dbHelper3.flagContent("Question", testQuestion.getQuestionID(), userName, "Flagged by the purged user");
+            dbHelper3.saveSearch(userName, "purge");
+            int reviewsBefore = dbHelper3.getReviewerProfile(testReviewer.getUserName()).getTotalReviews();
+
+            assertTrue(dbHelper.deleteUser(userName));
+
+            assertNull(dbHelper2.getQuestionById(ownQuestionID));
+            assertEquals(reviewsBefore - 1, dbHelper3.getReviewerProfile(testReviewer.getUserName()).getTotalReviews());
+            assertTrue(dbHelper2.getAnswersForQuestion(testQuestion.getQuestionID()).isEmpty());
+            Question unresolved = dbHelper2.getQuestionById(testQuestion.getQuestionID());
+            assertFalse(unresolved.isResolved());
+            assertEquals(-1, unresolved.getAcceptedAnsID());
+            assertTrue(dbHelper3.getAllFlaggedContent().stream().noneMatch(flag -> flag[3].equals(userName)));
+            assertTrue(dbHelper3.getSavedSearches(userName).isEmpty());
+            assertTrue(dbHelper2.getAnswersByStudent(userName).isEmpty());
+            assertNull(dbHelper.getUserRole(userName));
+            assertTrue(dbHelper3.getSearchAlertsForUser(testReviewer.getUserName()).stream().noneMatch(a -> a[1].contains(marker)));
+            dbHelper3.deleteSavedSearch(searchID);
+        }
+    }
+}
@@ -1,6 +1,18 @@
 package application;
 
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.sql.SQLException;
+import java.util.concurrent.CompletableFuture;
+
+import databasePart1.DatabaseBackup;
 import databasePart1.DatabaseHelper;
+import databasePart1.DatabaseHelper2;
+import databasePart1.ExportFormat;
+import javafx.application.Platform;
 import javafx.beans.property.SimpleStringProperty;
 import javafx.collections.ObservableList;
 import javafx.scene.Scene;
@@ -8,6 +20,7 @@ import javafx.scene.control.*;
 import javafx.scene.layout.VBox;
 import javafx.scene.layout.HBox;
 import javafx.scene.layout.BorderPane;
+import javafx.stage.FileChooser;
 import javafx.stage.Stage;
 import javafx.geometry.Insets;
 import javafx.scene.text.Font;
@@ -68,10 +81,15 @@ public class AdminHomePage {
         Button viewReportsButton = new Button("View Reports");
         Button manageRolesButton = new Button("Manage User Roles");
         Button viewRequestsButton = new Button("View Admin Requests");
+        Button importRosterButton = new Button("Import Roster");
+        Button exportQaButton = new Button("Export Q&A");
+        Button importQaButton = new Button("Import Q&A");
+        Button backupsButton = new Button("Database Backups");
+        Button archiveButton = new Button("Archived Threads");
         
         // Add action buttons to the box
         adminActionsBox.getChildren().addAll(actionsTitle, manageUsersButton, setOTPButton, 
-            inviteUsersButton, viewReportsButton, manageRolesButton, viewRequestsButton);
+            inviteUsersButton, viewReportsButton, manageRolesButton, viewRequestsButton, importRosterButton, exportQaButton, importQaButton, backupsButton, archiveButton);
 
         
         // Create TableView to display user data
@@ -150,6 +168,119 @@ public class AdminHomePage {
             new AdminAccessRequest(dbHelper, adminUserName).showAdminRequestsView(new Stage());
         });
 
+        // Import Roster button action
+        importRosterButton.setOnAction(e -> {
+            new RosterImportDialog(loadUsers).show();
+        });
+
+        // Export Q&A button action
+        exportQaButton.setOnAction(e -> {
+            FileChooser chooser = new FileChooser();
+            chooser.setTitle("Export Questions and Answers");
+            chooser.getExtensionFilters().addAll(
+                new FileChooser.ExtensionFilter("JSON Lines, compressed", "*.jsonl.gz"),
+                new FileChooser.ExtensionFilter("JSON Lines", "*.jsonl"),
+                new FileChooser.ExtensionFilter("CSV, compressed", "*.csv.gz"),
+                new FileChooser.ExtensionFilter("CSV", "*.csv"));
+            chooser.setInitialFileName("questions.jsonl.gz");
+            File file = chooser.showSaveDialog(primaryStage);
+            if (file == null) {
+                return;
+            }
+            ExportFormat format = ExportFormat.forFileName(file.getName());
+            if (format == null) {
+                new Alert(Alert.AlertType.WARNING, "Please name the file .jsonl, .csv, .jsonl.gz or .csv.gz").showAndWait();
+                return;
+            }
+            boolean gzip = file.getName().toLowerCase().endsWith(".gz");
+            exportQaButton.setDisable(true);
+
+            // The export runs on its own connection, off the JavaFX thread
+            CompletableFuture.supplyAsync(() -> {
+                DatabaseHelper2 exportHelper = new DatabaseHelper2();
+                try (OutputStream out = new FileOutputStream(file)) {
+                    exportHelper.connectToDatabase();
+                    return exportHelper.exportQuestions(out, format, gzip);
+                } catch (Exception ex) {
+                    throw new RuntimeException(ex.getMessage(), ex);
+                } finally {
+                    exportHelper.closeConnection();
+                }
+            }).whenComplete((count, error) -> Platform.runLater(() -> {
+                exportQaButton.setDisable(false);
+                if (error != null) {
+                    Throwable cause = error.getCause() != null ? error.getCause() : error;
+                    new Alert(Alert.AlertType.ERROR, "Export failed: " + cause.getMessage()).showAndWait();
+                } else {
+                    new Alert(Alert.AlertType.INFORMATION, count + " questions exported to " + file.getName()).showAndWait();
+                }
+            }));
+        });
+
+        // Database Backups button action
+        backupsButton.setOnAction(e -> {
+            new BackupDialog(DatabaseBackup.getDefault(), loadUsers).show();
+        });
+
+        // Archived Threads button action
+        archiveButton.setOnAction(e -> {
+            DatabaseHelper2 archiveHelper = new DatabaseHelper2();
+            try {
+                archiveHelper.connectToDatabase();
+            } catch (SQLException ex) {
+                new Alert(Alert.AlertType.ERROR, "Could not open the archive: " + ex.getMessage()).showAndWait();
+                return;
+            }
+            new ArchiveDialog(archiveHelper, "", true).show();
+        });
+
+        // Import Q&A button action
+        importQaButton.setOnAction(e -> {
+            FileChooser chooser = new FileChooser();
+            chooser.setTitle("Import Questions and Answers");
+            chooser.getExtensionFilters().add(new FileChooser.ExtensionFilter(
+                "Q&A Exports", "*.jsonl", "*.jsonl.gz", "*.csv", "*.csv.gz"));
+            File file = chooser.showOpenDialog(primaryStage);
+            if (file == null) {
+                return;
+            }
+            ExportFormat format = ExportFormat.forFileName(file.getName());
+            if (format == null) {
+                new Alert(Alert.AlertType.WARNING, "Please choose a .jsonl, .csv, .jsonl.gz or .csv.gz file").showAndWait();
+                return;
+            }
+            boolean gzip = file.getName().toLowerCase().endsWith(".gz");
+            importQaButton.setDisable(true);
+
+            // The import runs on its own connection, off the JavaFX thread
+            CompletableFuture.supplyAsync(() -> {
+                DatabaseHelper2 importHelper = new DatabaseHelper2();
+                try (InputStream in = new FileInputStream(file)) {
+                    importHelper.connectToDatabase();
+                    return importHelper.importQuestions(in, format, gzip, null);
+                } catch (Exception ex) {
+                    throw new RuntimeException(ex.getMessage(), ex);
+                } finally {
+                    importHelper.closeConnection();
+                }
+            }).whenComplete((result, error) -> Platform.runLater(() -> {
+                importQaButton.setDisable(false);
+                if (error != null) {
+                    Throwable cause = error.getCause() != null ? error.getCause() : error;
+                    new Alert(Alert.AlertType.ERROR, "Import failed: " + cause.getMessage()).showAndWait();
+                    return;
+                }
+                StringBuilder summary = new StringBuilder(result.getQuestions() + " questions, " + result.getAnswers()
+                    + " answers, " + result.getReviews() + " reviews and " + result.getFeedback()
+                    + " feedback messages imported.");
+                if (result.getSkipped() > 0) {
+                    summary.append("\n").append(result.getSkipped()).append(" records skipped:");
+                    result.getMessages().stream().limit(10).forEach(m -> summary.append("\n").append(m));
+                }
+                new Alert(Alert.AlertType.INFORMATION, summary.toString()).showAndWait();
+            }));
+        });
+
         // Delete button
         Button deleteButton = new Button("Delete Selected");
         deleteButton.setOnAction(e -> {
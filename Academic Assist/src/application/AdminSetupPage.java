@@ -1,5 +1,6 @@
 package application;
 
+import javafx.application.Platform;
 import javafx.scene.Scene;
 import javafx.scene.control.*;
 import javafx.scene.image.Image;
@@ -11,8 +12,6 @@ import javafx.scene.layout.BackgroundSize;
 import javafx.scene.layout.VBox;
 import javafx.stage.Stage;
 
-import java.sql.SQLException;
-
 import databasePart1.DatabaseHelper;
 
 /**
@@ -69,18 +68,21 @@ public class AdminSetupPage {
             String lastName = lastNameField.getText();
             String email = emailField.getText();
             
-            try {
-                // Create a new User object with admin role including first name, last name, and email
-                User user = new User(userName, password, "Admin", firstName, lastName, email);
-                databaseHelper.register(user);
+            // Create a new User object with admin role including first name, last name, and email
+            User user = new User(userName, password, "Admin", firstName, lastName, email);
+            // Hash the password off the JavaFX thread, then continue on it
+            setupButton.setDisable(true);
+            databaseHelper.registerAsync(user).whenComplete((ignored, error) -> Platform.runLater(() -> {
+                setupButton.setDisable(false);
+                if (error != null) {
+                    System.err.println("Database error: " + error.getMessage());
+                    return;
+                }
                 System.out.println("Administrator setup completed.");
                 
                 // Navigate to the Welcome Login Page (assuming WelcomeLoginPage accepts a DatabaseHelper and a User)
                 new WelcomeLoginPage(databaseHelper).show(primaryStage, user);
-            } catch (SQLException e) {
-                System.err.println("Database error: " + e.getMessage());
-                e.printStackTrace();
-            }
+            }));
         });
 
         // Arrange all input fields and the setup button in a VBox layout
@@ -43,11 +43,11 @@ public class AdminUserReset {
             if (selectedUser != null) {
                 String otp = generateOTP();
                 otpLabel.setText("Generated OTP: " + otp);
-                try {
-                    databaseHelper.updatePassword(selectedUser, otp);
-                } catch (SQLException ex) {
-                    ex.printStackTrace();
-                }
+                databaseHelper.updatePasswordAsync(selectedUser, otp).whenComplete((ignored, error) -> {
+                    if (error != null) {
+                        error.printStackTrace();
+                    }
+                });
             }
         });
 
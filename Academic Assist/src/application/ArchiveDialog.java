@@ -0,0 +1,173 @@
+package application;
+
+import java.text.SimpleDateFormat;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import databasePart1.DatabaseHelper2;
+import javafx.application.Platform;
+import javafx.beans.property.SimpleStringProperty;
+import javafx.collections.FXCollections;
+import javafx.geometry.Insets;
+import javafx.scene.Scene;
+import javafx.scene.control.*;
+import javafx.scene.layout.HBox;
+import javafx.scene.layout.VBox;
+import javafx.stage.Stage;
+
+/**
+ * This class displays a dialog to search the archived threads and read their answers.
+ * Admins can also archive old resolved threads and move an archived thread back.
+ */
+public class ArchiveDialog {
+
+    private static final int SEARCH_LIMIT = 200;
+
+    private final DatabaseHelper2 dbHelper2;
+    private final String keyword;
+    private final boolean canManage;
+
+    /**
+     * Constructor for ArchiveDialog
+     *
+     * @param dbHelper2 The question and answer helper
+     * @param keyword The text to search for when the dialog opens
+     * @param canManage Whether the user can archive and restore threads
+     */
+    public ArchiveDialog(DatabaseHelper2 dbHelper2, String keyword, boolean canManage) {
+        this.dbHelper2 = dbHelper2;
+        this.keyword = keyword;
+        this.canManage = canManage;
+    }
+
+    /**
+     * Show the dialog
+     */
+    public void show() {
+        Stage dialogStage = new Stage();
+        dialogStage.setTitle("Archived Threads");
+
+        VBox layout = new VBox(10);
+        layout.setPadding(new Insets(20));
+
+        TextField searchField = new TextField(keyword == null ? "" : keyword);
+        searchField.setPromptText("Search archived questions and answers...");
+        searchField.setPrefWidth(350);
+        Button searchButton = new Button("Search");
+        HBox searchBox = new HBox(10, searchField, searchButton);
+
+        SimpleDateFormat dateFormat = new SimpleDateFormat("yyyy-MM-dd");
+        TableView<Question> questionTable = new TableView<>();
+        TableColumn<Question, String> questionColumn = new TableColumn<>("Question");
+        questionColumn.setCellValueFactory(data -> new SimpleStringProperty(data.getValue().getBodyText()));
+        questionColumn.setPrefWidth(420);
+        TableColumn<Question, String> postedByColumn = new TableColumn<>("Posted By");
+        postedByColumn.setCellValueFactory(data -> new SimpleStringProperty(data.getValue().getPostedBy()));
+        postedByColumn.setPrefWidth(120);
+        TableColumn<Question, String> dateColumn = new TableColumn<>("Date");
+        dateColumn.setCellValueFactory(data -> new SimpleStringProperty(
+                data.getValue().getDateCreated() == null ? "" : dateFormat.format(data.getValue().getDateCreated())));
+        dateColumn.setPrefWidth(100);
+        questionTable.getColumns().setAll(questionColumn, postedByColumn, dateColumn);
+        questionTable.setPlaceholder(new Label("No archived questions found"));
+
+        ListView<String> answerList = new ListView<>();
+        answerList.setPrefHeight(160);
+        Label statusLabel = new Label();
+
+        Runnable search = () -> {
+            try {
+                List<Question> questions = dbHelper2.searchArchivedQuestions(searchField.getText(), SEARCH_LIMIT);
+                questionTable.setItems(FXCollections.observableArrayList(questions));
+                answerList.getItems().clear();
+            } catch (Exception e) {
+                statusLabel.setText("Search failed: " + e.getMessage());
+            }
+        };
+        searchButton.setOnAction(e -> search.run());
+        searchField.setOnAction(e -> search.run());
+
+        questionTable.getSelectionModel().selectedItemProperty().addListener((observable, oldValue, selected) -> {
+            answerList.getItems().clear();
+            if (selected == null) {
+                return;
+            }
+            try {
+                for (Answer answer : dbHelper2.getArchivedAnswers(selected.getQuestionID())) {
+                    String accepted = answer.getAnsID() == selected.getAcceptedAnsID() ? " (Accepted)" : "";
+                    answerList.getItems().add(answer.getAnsweredBy() + accepted + ": " + answer.getBodyText());
+                }
+            } catch (Exception ex) {
+                statusLabel.setText("Could not load answers: " + ex.getMessage());
+            }
+        });
+
+        layout.getChildren().addAll(searchBox, questionTable, new Label("Answers:"), answerList);
+
+        if (canManage) {
+            Spinner<Integer> daysSpinner = new Spinner<>(1, 3650, 180);
+            daysSpinner.setEditable(true);
+            daysSpinner.setPrefWidth(90);
+            Button archiveButton = new Button("Archive Now");
+            Button restoreButton = new Button("Restore Selected");
+            HBox manageBox = new HBox(10, new Label("Archive resolved threads inactive for"), daysSpinner,
+                    new Label("days"), archiveButton, restoreButton);
+
+            archiveButton.setOnAction(e -> {
+                int days = daysSpinner.getValue();
+                manageBox.setDisable(true);
+                statusLabel.setText("Archiving...");
+
+                // The threads are moved on their own connection, off the JavaFX thread
+                CompletableFuture.supplyAsync(() -> {
+                    DatabaseHelper2 archiveHelper = new DatabaseHelper2();
+                    try {
+                        archiveHelper.connectToDatabase();
+                        return archiveHelper.archiveResolvedQuestions(days, count ->
+                                Platform.runLater(() -> statusLabel.setText("Archived " + count + " threads...")));
+                    } catch (Exception ex) {
+                        throw new RuntimeException(ex.getMessage(), ex);
+                    } finally {
+                        archiveHelper.closeConnection();
+                    }
+                }).whenComplete((count, error) -> Platform.runLater(() -> {
+                    manageBox.setDisable(false);
+                    if (error != null) {
+                        Throwable cause = error.getCause() != null ? error.getCause() : error;
+                        statusLabel.setText("Archiving failed: " + cause.getMessage());
+                        return;
+                    }
+                    statusLabel.setText(count + " threads archived");
+                    search.run();
+                }));
+            });
+
+            restoreButton.setOnAction(e -> {
+                Question selected = questionTable.getSelectionModel().getSelectedItem();
+                if (selected == null) {
+                    new Alert(Alert.AlertType.WARNING, "Please select a question to restore.").showAndWait();
+                    return;
+                }
+                try {
+                    if (dbHelper2.restoreArchivedQuestion(selected.getQuestionID())) {
+                        statusLabel.setText("The thread is back among the live questions");
+                    } else {
+                        statusLabel.setText("The thread is no longer in the archive");
+                    }
+                    search.run();
+                } catch (Exception ex) {
+                    statusLabel.setText("Restore failed: " + ex.getMessage());
+                }
+            });
+            layout.getChildren().add(manageBox);
+        }
+
+        Button closeButton = new Button("Close");
+        closeButton.setOnAction(e -> dialogStage.close());
+        layout.getChildren().addAll(statusLabel, closeButton);
+
+        search.run();
+        dialogStage.setScene(new Scene(layout, 700, 600));
+        dialogStage.show();
+    }
+}
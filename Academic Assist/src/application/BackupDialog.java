@@ -0,0 +1,143 @@
+package application;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import databasePart1.DatabaseBackup;
+import javafx.application.Platform;
+import javafx.beans.property.SimpleStringProperty;
+import javafx.collections.FXCollections;
+import javafx.geometry.Insets;
+import javafx.scene.Scene;
+import javafx.scene.control.*;
+import javafx.scene.layout.HBox;
+import javafx.scene.layout.VBox;
+import javafx.stage.Stage;
+
+/**
+ * This class displays a dialog where an admin takes database snapshots and restores
+ * the database from one.
+ */
+public class BackupDialog {
+
+    private final DatabaseBackup backup;
+    private final Runnable onRestored;
+
+    /**
+     * Constructor for BackupDialog
+     *
+     * @param backup The backup manager of the database
+     * @param onRestored Run on the JavaFX thread after a restore, to refresh the page
+     */
+    public BackupDialog(DatabaseBackup backup, Runnable onRestored) {
+        this.backup = backup;
+        this.onRestored = onRestored;
+    }
+
+    /**
+     * Show the dialog
+     */
+    public void show() {
+        Stage dialogStage = new Stage();
+        dialogStage.setTitle("Database Backups");
+
+        VBox layout = new VBox(10);
+        layout.setPadding(new Insets(20));
+
+        TableView<Path> snapshotTable = new TableView<>();
+        TableColumn<Path, String> nameColumn = new TableColumn<>("Snapshot");
+        nameColumn.setCellValueFactory(data -> new SimpleStringProperty(data.getValue().getFileName().toString()));
+        nameColumn.setPrefWidth(320);
+        TableColumn<Path, String> sizeColumn = new TableColumn<>("Size (KB)");
+        sizeColumn.setCellValueFactory(data -> {
+            try {
+                return new SimpleStringProperty(String.valueOf(Files.size(data.getValue()) / 1024));
+            } catch (Exception e) {
+                return new SimpleStringProperty("");
+            }
+        });
+        sizeColumn.setPrefWidth(100);
+        snapshotTable.getColumns().setAll(nameColumn, sizeColumn);
+
+        Button backupButton = new Button("Back Up Now");
+        Button restoreButton = new Button("Restore Selected");
+        Button closeButton = new Button("Close");
+        Label statusLabel = new Label();
+        HBox buttons = new HBox(10, backupButton, restoreButton, closeButton);
+
+        Runnable loadSnapshots = () -> {
+            try {
+                List<Path> snapshots = backup.listBackups();
+                snapshotTable.setItems(FXCollections.observableArrayList(snapshots));
+            } catch (Exception e) {
+                statusLabel.setText("Could not list snapshots: " + e.getMessage());
+            }
+        };
+        loadSnapshots.run();
+
+        backupButton.setOnAction(e -> {
+            buttons.setDisable(true);
+            statusLabel.setText("Taking snapshot...");
+            CompletableFuture.supplyAsync(() -> {
+                try {
+                    return backup.backupNow();
+                } catch (Exception ex) {
+                    throw new RuntimeException(ex.getMessage(), ex);
+                }
+            }).whenComplete((snapshot, error) -> Platform.runLater(() -> {
+                buttons.setDisable(false);
+                if (error != null) {
+                    Throwable cause = error.getCause() != null ? error.getCause() : error;
+                    statusLabel.setText("Snapshot failed: " + cause.getMessage());
+                    return;
+                }
+                statusLabel.setText("Snapshot written to " + snapshot.getFileName());
+                loadSnapshots.run();
+            }));
+        });
+
+        restoreButton.setOnAction(e -> {
+            Path selected = snapshotTable.getSelectionModel().getSelectedItem();
+            if (selected == null) {
+                new Alert(Alert.AlertType.WARNING, "Please select a snapshot to restore.").showAndWait();
+                return;
+            }
+            Alert confirmation = new Alert(Alert.AlertType.CONFIRMATION,
+                    "Replace all data with " + selected.getFileName() + "? A snapshot of the current data is taken first.",
+                    ButtonType.YES, ButtonType.NO);
+            confirmation.showAndWait();
+            if (confirmation.getResult() != ButtonType.YES) {
+                return;
+            }
+            buttons.setDisable(true);
+            statusLabel.setText("Restoring...");
+            CompletableFuture.supplyAsync(() -> {
+                try {
+                    return backup.restore(selected);
+                } catch (Exception ex) {
+                    throw new RuntimeException(ex.getMessage(), ex);
+                }
+            }).whenComplete((before, error) -> Platform.runLater(() -> {
+                buttons.setDisable(false);
+                if (error != null) {
+                    Throwable cause = error.getCause() != null ? error.getCause() : error;
+                    statusLabel.setText("Restore failed: " + cause.getMessage());
+                    return;
+                }
+                statusLabel.setText("Restored. The previous data was saved to " + before.getFileName());
+                loadSnapshots.run();
+                if (onRestored != null) {
+                    onRestored.run();
+                }
+            }));
+        });
+
+        closeButton.setOnAction(e -> dialogStage.close());
+
+        layout.getChildren().addAll(snapshotTable, buttons, statusLabel);
+        dialogStage.setScene(new Scene(layout, 500, 400));
+        dialogStage.show();
+    }
+}
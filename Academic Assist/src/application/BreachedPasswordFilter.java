@@ -0,0 +1,152 @@
+package application;
+
+import java.io.BufferedReader;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * A Bloom filter of compromised passwords kept in a file and memory-mapped, so a list of
+ * millions of passwords can be checked without loading it onto the heap.
+ *
+ * <p>The file starts with a {@value #HEADER_BYTES}-byte header, holding a magic number,
+ * the format version, the number of bits and the number of hash functions, followed by the
+ * bits. A lookup hashes the password once and derives every bit position from that hash
+ * by double hashing, so it reads a handful of bytes and allocates nothing. A password that
+ * is not in the list is reported as breached only with the false positive rate the filter
+ * was built for. A password that is in the list is always reported.</p>
+ */
+final class BreachedPasswordFilter {
+
+    static final int MAGIC = 0x41414246;
+    static final int VERSION = 1;
+    static final int HEADER_BYTES = 20;
+    private static final int MAX_HASHES = 16;
+
+    private final ByteBuffer bits;
+    private final long bitCount;
+    private final int hashCount;
+
+    private BreachedPasswordFilter(ByteBuffer bits, long bitCount, int hashCount) {
+        this.bits = bits;
+        this.bitCount = bitCount;
+        this.hashCount = hashCount;
+    }
+
+    /**
+     * Memory-maps a filter file built by {@link #build(Path, Path, double)}.
+     *
+     * @param file The filter file
+     * @return The filter
+     * @throws IOException if the file cannot be read or is not a filter file
+     */
+    static BreachedPasswordFilter open(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (mapped.limit() < HEADER_BYTES || mapped.getInt(0) != MAGIC || mapped.getInt(4) != VERSION) {
+                throw new IOException("Not a breached password filter: " + file);
+            }
+            long bitCount = mapped.getLong(8);
+            int hashCount = mapped.getInt(16);
+            if (bitCount <= 0 || hashCount <= 0 || HEADER_BYTES + (bitCount + 7) / 8 > mapped.limit()) {
+                throw new IOException("Corrupt breached password filter: " + file);
+            }
+            return new BreachedPasswordFilter(mapped, bitCount, hashCount);
+        }
+    }
+
+    /**
+     * Builds a filter file from a text file with one compromised password per line.
+     *
+     * @param passwordList The list of passwords
+     * @param filterFile The filter file to write
+     * @param falsePositiveRate The fraction of other passwords that may be reported as breached
+     * @throws IOException if a file cannot be read or written
+     */
+    static void build(Path passwordList, Path filterFile, double falsePositiveRate) throws IOException {
+        // The first pass only counts the passwords, so the filter can be sized before any is added
+        long count = 0;
+        try (BufferedReader reader = Files.newBufferedReader(passwordList, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (!line.isEmpty()) {
+                    count++;
+                }
+            }
+        }
+        long bitCount = Math.max(64, (long) Math.ceil(-Math.max(count, 1) * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2))));
+        int hashCount = (int) Math.max(1, Math.min(MAX_HASHES, Math.round((double) bitCount / Math.max(count, 1) * Math.log(2))));
+        long byteCount = (bitCount + 7) / 8;
+        if (byteCount > Integer.MAX_VALUE - HEADER_BYTES) {
+            throw new IOException("Password list is too large for a single filter file");
+        }
+
+        byte[] filterBits = new byte[(int) byteCount];
+        try (BufferedReader reader = Files.newBufferedReader(passwordList, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isEmpty()) {
+                    continue;
+                }
+                long h1 = hash(line);
+                long h2 = mix(h1 ^ 0x9E3779B97F4A7C15L) | 1;
+                for (int i = 0; i < hashCount; i++) {
+                    long bit = Long.remainderUnsigned(h1 + i * h2, bitCount);
+                    filterBits[(int) (bit >>> 3)] |= (byte) (1 << (bit & 7));
+                }
+            }
+        }
+
+        try (OutputStream out = Files.newOutputStream(filterFile);
+             DataOutputStream data = new DataOutputStream(out)) {
+            data.writeInt(MAGIC);
+            data.writeInt(VERSION);
+            data.writeLong(bitCount);
+            data.writeInt(hashCount);
+            data.write(filterBits);
+        }
+    }
+
+    /**
+     * Returns true if a password is probably in the list the filter was built from.
+     */
+    boolean mightContain(String password) {
+        long h1 = hash(password);
+        long h2 = mix(h1 ^ 0x9E3779B97F4A7C15L) | 1;
+        for (int i = 0; i < hashCount; i++) {
+            long bit = Long.remainderUnsigned(h1 + i * h2, bitCount);
+            if ((bits.get(HEADER_BYTES + (int) (bit >>> 3)) & (1 << (bit & 7))) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Hashes the UTF-16 characters of a string with FNV-1a and a final mix.
+     */
+    private static long hash(String s) {
+        long h = 0xCBF29CE484222325L;
+        for (int i = 0; i < s.length(); i++) {
+            h ^= s.charAt(i);
+            h *= 0x100000001B3L;
+        }
+        return mix(h);
+    }
+
+    private static long mix(long h) {
+        h ^= h >>> 33;
+        h *= 0xFF51AFD7ED558CCDL;
+        h ^= h >>> 33;
+        h *= 0xC4CEB9FE1A85EC53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
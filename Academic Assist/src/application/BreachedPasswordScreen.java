@@ -0,0 +1,146 @@
+package application;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Screens passwords against a local list of compromised passwords and a list of patterns,
+ * such as keyboard walks and common words, that a password may not contain.
+ *
+ * <p>The passwords are kept in a memory-mapped {@link BreachedPasswordFilter} and the
+ * patterns in a case-insensitive {@link SubstringAutomaton}. Both files are loaded the
+ * first time a password is screened, so starting the application costs nothing. A missing
+ * file turns off that part of the screen. The default screen reads its files from the
+ * paths in the {@value #FILTER_PROPERTY} and {@value #PATTERNS_PROPERTY} system
+ * properties, or from {@code breached-passwords.bloom} and {@code breached-patterns.txt}
+ * in {@code ~/AcademicAssist}.</p>
+ */
+public final class BreachedPasswordScreen {
+
+    static final String FILTER_PROPERTY = "academicassist.breached.filter";
+    static final String PATTERNS_PROPERTY = "academicassist.breached.patterns";
+
+    private static final Path DEFAULT_DIRECTORY = Paths.get(System.getProperty("user.home"), "AcademicAssist");
+    private static final BreachedPasswordScreen DEFAULT = new BreachedPasswordScreen(
+        Paths.get(System.getProperty(FILTER_PROPERTY, DEFAULT_DIRECTORY.resolve("breached-passwords.bloom").toString())),
+        Paths.get(System.getProperty(PATTERNS_PROPERTY, DEFAULT_DIRECTORY.resolve("breached-patterns.txt").toString())));
+
+    private final Path filterFile;
+    private final Path patternFile;
+    private volatile boolean loaded = false;
+    private BreachedPasswordFilter filter;
+    private SubstringAutomaton patterns;
+
+    /**
+     * Creates a screen that reads its files when it is first used.
+     *
+     * @param filterFile A filter file built from the compromised passwords, or null
+     * @param patternFile A text file with one pattern per line, or null
+     */
+    public BreachedPasswordScreen(Path filterFile, Path patternFile) {
+        this.filterFile = filterFile;
+        this.patternFile = patternFile;
+    }
+
+    /**
+     * Returns the screen used by {@link PasswordEvaluator#evaluatePassword(String)}.
+     */
+    public static BreachedPasswordScreen getDefault() {
+        return DEFAULT;
+    }
+
+    /**
+     * Builds the filter file for a screen from a text file with one compromised password
+     * per line, such as a published breach corpus.
+     *
+     * @param passwordList The list of passwords
+     * @param filterFile The filter file to write
+     * @param falsePositiveRate The fraction of other passwords that may be rejected, such as 0.001
+     * @throws IOException if a file cannot be read or written
+     */
+    public static void buildFilter(Path passwordList, Path filterFile, double falsePositiveRate) throws IOException {
+        BreachedPasswordFilter.build(passwordList, filterFile, falsePositiveRate);
+    }
+
+    /**
+     * Starts loading the files in the background, so the first password screened does not
+     * wait for them.
+     */
+    public void preload() {
+        if (loaded) {
+            return;
+        }
+        Thread thread = new Thread(this::ensureLoaded, "breached-password-preload");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Returns true if a password is in the compromised password list.
+     */
+    public boolean isBreached(String password) {
+        ensureLoaded();
+        return filter != null && filter.mightContain(password);
+    }
+
+    /**
+     * Finds a pattern from the pattern list contained in a password, ignoring case.
+     *
+     * @return The pattern, or null if the password contains none
+     */
+    public String findPattern(String password) {
+        ensureLoaded();
+        if (patterns == null) {
+            return null;
+        }
+        int index = patterns.findLast(password);
+        return index >= 0 ? patterns.pattern(index) : null;
+    }
+
+    private void ensureLoaded() {
+        if (loaded) {
+            return;
+        }
+        synchronized (this) {
+            if (loaded) {
+                return;
+            }
+            if (filterFile != null && Files.isRegularFile(filterFile)) {
+                try {
+                    filter = BreachedPasswordFilter.open(filterFile);
+                } catch (IOException e) {
+                    System.err.println("Breached password filter not loaded: " + e.getMessage());
+                }
+            }
+            if (patternFile != null && Files.isRegularFile(patternFile)) {
+                try {
+                    patterns = new SubstringAutomaton(readPatterns(patternFile), true);
+                } catch (IOException e) {
+                    System.err.println("Breached password patterns not loaded: " + e.getMessage());
+                }
+            }
+            // Written last, so a thread that sees it also sees the fields set above
+            loaded = true;
+        }
+    }
+
+    private static List<String> readPatterns(Path file) throws IOException {
+        List<String> list = new ArrayList<>();
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                line = line.trim();
+                if (!line.isEmpty() && !line.startsWith("#")) {
+                    list.add(line);
+                }
+            }
+        }
+        return list;
+    }
+}
@@ -1,38 +1,83 @@
 package application;
 
 public class EmailRecognizer{
-    // Renamed the method to emailEvaluator to better reflect its purpose
-    public static String emailEvaluator(String email) {
+    // The character classes of an email address
+    private static final byte INVALID = 0;
+    private static final byte LETTER = 1;
+    private static final byte DIGIT = 2;
+    private static final byte AT = 3;
+    private static final byte DOT = 4;
+
+    // The class of each ASCII character, built once; every other character is invalid
+    private static final byte[] CLASSES = new byte[128];
+    static {
+        for (char c = 'a'; c <= 'z'; c++) {
+            CLASSES[c] = LETTER;
+            CLASSES[Character.toUpperCase(c)] = LETTER;
+        }
+        for (char c = '0'; c <= '9'; c++) {
+            CLASSES[c] = DIGIT;
+        }
+        CLASSES['@'] = AT;
+        CLASSES['.'] = DOT;
+    }
+
+    // The recognizer used by the static emailEvaluator method
+    private static final EmailRecognizer DEFAULT = new EmailRecognizer();
+
+    /**
+     * Checks an email address in a single pass over its characters. The recognizer keeps no
+     * state between calls, so one instance can check many addresses at once.
+     *
+     * @param email The email address
+     * @return The result, with an empty message if the address is valid
+     */
+    public ValidationResult evaluate(String email) {
         // Check for null or empty email
         if (email == null || email.isEmpty()) {
-            return "Error: Email cannot be null or empty.";
+            return new ValidationResult("Error: Email cannot be null or empty.", 0);
         }
-        
-        // Validate that the email contains only allowed characters:
-        // Allowed: alphabets, numbers, '@', and '.'
-        if (!email.matches("^[a-zA-Z0-9@.]+$")) {
-            return "Error: Email contains invalid characters. Only alphabets, numbers, '@', and '.' are allowed.";
+
+        boolean foundLetter = false;
+        boolean foundAt = false;
+        boolean foundDot = false;
+        for (int i = 0; i < email.length(); i++) {
+            char c = email.charAt(i);
+            byte charClass = c < 128 ? CLASSES[c] : INVALID;
+            // Validate that the email contains only allowed characters:
+            // Allowed: alphabets, numbers, '@', and '.'
+            if (charClass == INVALID) {
+                return new ValidationResult("Error: Email contains invalid characters. Only alphabets, numbers, '@', and '.' are allowed.", i);
+            }
+            foundLetter |= charClass == LETTER;
+            foundAt |= charClass == AT;
+            foundDot |= charClass == DOT;
         }
-        
+
         // Validate that the email contains at least one alphabet.
-        if (!email.matches(".*[a-zA-Z].*")) {
-            return "Error: Email must contain at least one alphabet.";
+        if (!foundLetter) {
+            return new ValidationResult("Error: Email must contain at least one alphabet.", email.length());
         }
-        
+
         // Validate that the email contains the '@' character.
-        if (!email.contains("@")) {
-            return "Error: Email must contain '@'.";
+        if (!foundAt) {
+            return new ValidationResult("Error: Email must contain '@'.", email.length());
         }
-        
+
         // Validate that the email contains the '.' character.
-        if (!email.contains(".")) {
-            return "Error: Email must contain '.'.";
+        if (!foundDot) {
+            return new ValidationResult("Error: Email must contain '.'.", email.length());
         }
-        
-        // If all validations pass, return a valid message or an empty string.
-        return "";
+
+        // If all validations pass, return a valid result.
+        return ValidationResult.VALID;
     }
-    
+
+    // Renamed the method to emailEvaluator to better reflect its purpose
+    public static String emailEvaluator(String email) {
+        return DEFAULT.evaluate(email).getMessage();
+    }
+
     // Example usage:
     public static void main(String[] args) {
         String[] testEmails = {
@@ -44,7 +89,7 @@ public class EmailRecognizer{
             "@example.com",        // Missing alphabet? (There is no alphabet in '@')
             "userexamplecom"       // Missing '@' and '.'
         };
-        
+
         for (String email : testEmails) {
             System.out.println("Testing: " + email + " -> " + emailEvaluator(email));
         }
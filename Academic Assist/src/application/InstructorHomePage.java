@@ -80,10 +80,13 @@ public class InstructorHomePage {
 
         requestTable.getColumns().addAll(studentColumn,messageColumn,dateColumn,statusColumn);
 
+        // Use the requests prefetched while the role was chosen if they are ready
+        RolePagePrefetcher.FirstPage firstPage = RolePagePrefetcher.take(user.getUserName(), "Instructor");
         try {
             ObservableList<ReviewerRequest> requests =
                     FXCollections.observableArrayList(
-                            dbHelper.getReviewerRequestsForInstructor(user.getUserName())
+                            firstPage != null ? firstPage.reviewerRequests
+                                    : dbHelper.getReviewerRequestsForInstructor(user.getUserName())
                     );
             requestTable.setItems(requests);
         } catch (SQLException e) {
@@ -656,9 +659,9 @@ public class InstructorHomePage {
         
         scoresTable.getColumns().addAll(reviewerCol, scoreCol, setScoreCol);
         
-        // Load reviewers and their scores
+        // Load reviewers and their scores, best ranked first
         try {
-            List<String[]> reviewers = dbHelper3.getAllReviewers().stream()
+            List<String[]> reviewers = dbHelper3.getAllReviewersByRank().stream()
                 .map(name -> {
 					try {
 						return new String[]{name, String.valueOf(dbHelper3.getReviewerWeight(currentUser.getUserName(), name))};
@@ -1,5 +1,8 @@
 package application;
 
+import java.sql.SQLException;
+import java.util.List;
+
 import databasePart1.*;
 import javafx.scene.Scene;
 import javafx.scene.control.Button;
@@ -74,6 +77,12 @@ public void show(DatabaseHelper databaseHelper, Stage primaryStage, Scene previo
 	    roleSelect.getChildren().addAll(roleLabel, studentCB, reviewerCB, instructorCB, staffCB);
 	    
 	    
+	    // Number of codes to generate at once, e.g. one per student of a class
+	    Label countLabel = new Label("Number of Codes");
+	    Spinner<Integer> countSpinner = new Spinner<>(1, 500, 1);
+	    countSpinner.setEditable(true);
+	    countSpinner.setMaxWidth(100);
+	    
 	    // Button to generate the invitation code
 	    Button showCodeButton = new Button("Generate Invitation Code");
 	    
@@ -81,6 +90,14 @@ public void show(DatabaseHelper databaseHelper, Stage primaryStage, Scene previo
 	    Label inviteCodeLabel = new Label("");
 	    inviteCodeLabel.setStyle("-fx-font-size: 14px; -fx-font-style: italic;");
 	    
+	    // Area listing the codes when more than one is generated, so they can be copied
+	    TextArea codesArea = new TextArea();
+	    codesArea.setEditable(false);
+	    codesArea.setMaxWidth(250);
+	    codesArea.setPrefRowCount(6);
+	    codesArea.setVisible(false);
+	    codesArea.setManaged(false);
+	    
 	    showCodeButton.setOnAction(a -> {
 	        // Collect all selected roles
 	        StringBuilder selectedRoles = new StringBuilder();
@@ -101,11 +118,20 @@ public void show(DatabaseHelper databaseHelper, Stage primaryStage, Scene previo
 	            return;
 	        }
 	        
-	        // Generate the invitation code using the databaseHelper
-	        String invitationCode = databaseHelper.generateInvitationCodeWithRole(roles);
-	        if (invitationCode != null) {
-	            inviteCodeLabel.setText("Code: " + invitationCode + " (Roles: " + roles + ")");
-	        } else {
+	        // Generate the invitation codes using the databaseHelper
+	        int count = countSpinner.getValue();
+	        try {
+	            List<String> codes = databaseHelper.generateInvitationCodes(roles, count);
+	            if (count == 1) {
+	                inviteCodeLabel.setText("Code: " + codes.get(0) + " (Roles: " + roles + ")");
+	            } else {
+	                inviteCodeLabel.setText(count + " codes generated (Roles: " + roles + ")");
+	            }
+	            codesArea.setText(String.join("\n", codes));
+	            codesArea.setVisible(count > 1);
+	            codesArea.setManaged(count > 1);
+	        } catch (SQLException e) {
+	            e.printStackTrace();
 	            Alert alert = new Alert(Alert.AlertType.ERROR, "Failed to generate invitation code.");
 	            alert.showAndWait();
 	        }
@@ -115,8 +141,8 @@ public void show(DatabaseHelper databaseHelper, Stage primaryStage, Scene previo
         Button backButton = new Button("Back");
         backButton.setOnAction(e -> primaryStage.setScene(previousScene));
 
-        layout.getChildren().addAll(userLabel, showCodeButton, inviteCodeLabel, roleSelect, expDateField, backButton);
-        Scene inviteScene = new Scene(layout, 800, 400);
+        layout.getChildren().addAll(userLabel, countLabel, countSpinner, showCodeButton, inviteCodeLabel, codesArea, roleSelect, expDateField, backButton);
+        Scene inviteScene = new Scene(layout, 800, 550);
 
         // Set the scene to primary stage
         primaryStage.setScene(inviteScene);
@@ -1,6 +1,11 @@
 package application;
 
+import java.util.regex.Pattern;
+
 public class NameRecognizer {
+    // Allowed characters: only alphabets and spaces. Compiled once, since Pattern is thread-safe.
+    private static final Pattern VALID_NAME = Pattern.compile("^[a-zA-Z ]+$");
+
     public static String nameEvaluator(String firstname, String lastname) {
         // Check for null values (optional but recommended)
         if (firstname == null || lastname == null) {
@@ -15,16 +20,13 @@ public class NameRecognizer {
             return "Error: Last name exceeds 30 characters.";
         }
         
-        // Define a regular expression for allowed characters: only alphabets and spaces.
-        String validPattern = "^[a-zA-Z ]+$";
-        
         // Validate that the first name matches the pattern.
-        if (!firstname.matches(validPattern)) {
+        if (!VALID_NAME.matcher(firstname).matches()) {
             return "Error: First name contains invalid characters. Only alphabets and spaces are allowed.";
         }
         
         // Validate that the last name matches the pattern.
-        if (!lastname.matches(validPattern)) {
+        if (!VALID_NAME.matcher(lastname).matches()) {
             return "Error: Last name contains invalid characters. Only alphabets and spaces are allowed.";
         }
         
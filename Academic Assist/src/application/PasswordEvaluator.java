@@ -1,170 +1,203 @@
 package application;
 
+import java.util.Arrays;
+import java.util.List;
+
 
 public class PasswordEvaluator {
 	/**
 	 * <p> Title: Directed Graph-translated Password Assessor. </p>
-	 * 
-	 * <p> Description: A demonstration of the mechanical translation of Directed Graph 
-	 * diagram into an executable Java program using the Password Evaluator Directed Graph. 
-	 * The code detailed design is based on a while loop with a cascade of if statements</p>
-	 * 
+	 *
+	 * <p> Description: A demonstration of the mechanical translation of Directed Graph
+	 * diagram into an executable Java program using the Password Evaluator Directed Graph.
+	 * The code detailed design is based on a single pass over the input with a cascade of
+	 * if statements. All of the state of an evaluation is kept in local variables and the
+	 * outcome is returned as an immutable {@link Result}, so one evaluator can be shared by
+	 * any number of threads, such as registration workers and batch imports.</p>
+	 *
 	 * <p> Copyright: Lynn Robert Carter © 2022 </p>
-	 * 
+	 *
 	 * @author Lynn Robert Carter
-	 * 
-	 * @version 0.00		2018-02-22	Initial baseline 
-	 * 
+	 *
+	 * @version 0.00		2018-02-22	Initial baseline
+	 * @version 1.00		2026-10-19	Instance based evaluator with an immutable result, no
+	 * 									console output, and a single scan for blocked patterns
+	 *
 	 */
 
+	/** The passwords blocked by default, checked as substrings of the password */
+	public static final List<String> DEFAULT_BLOCKED = Arrays.asList(
+			"1234", "password", "12345678", "qwerty", "secret", "00000000");
+
+	/** The minimum number of characters in a password */
+	public static final int MIN_LENGTH = 8;
+
+	// The evaluator used by the static evaluatePassword method
+	private static final PasswordEvaluator DEFAULT =
+			new PasswordEvaluator(DEFAULT_BLOCKED, BreachedPasswordScreen.getDefault());
+
+	private final SubstringAutomaton blocked;
+	private final BreachedPasswordScreen screen;		// Compromised passwords, or null
+
 	/**********************************************************************************************
-	 * 
-	 * Result attributes to be used for GUI applications where a detailed error message and a 
+	 *
+	 * Result attributes to be used for GUI applications where a detailed error message and a
 	 * pointer to the character of the error will enhance the user experience.
-	 * 
+	 *
 	 */
+	public static final class Result {
+		private final String message;
+		private final int indexOfError;
+		private final boolean foundUpperCase;
+		private final boolean foundLowerCase;
+		private final boolean foundNumericDigit;
+		private final boolean foundSpecialChar;
+		private final boolean foundLongEnough;
+		private final String blockedPattern;
+		private final boolean breached;
+
+		private Result(String message, int indexOfError, boolean foundUpperCase, boolean foundLowerCase,
+				boolean foundNumericDigit, boolean foundSpecialChar, boolean foundLongEnough, String blockedPattern,
+				boolean breached) {
+			this.message = message;
+			this.indexOfError = indexOfError;
+			this.foundUpperCase = foundUpperCase;
+			this.foundLowerCase = foundLowerCase;
+			this.foundNumericDigit = foundNumericDigit;
+			this.foundSpecialChar = foundSpecialChar;
+			this.foundLongEnough = foundLongEnough;
+			this.blockedPattern = blockedPattern;
+			this.breached = breached;
+		}
+
+		/** Returns true if the password satisfied every condition */
+		public boolean isValid() { return message.isEmpty(); }
+		/** Returns the error message, or an empty string if the password is valid */
+		public String getMessage() { return message; }
+		/** Returns the index where the error was located, or -1 if the password is valid */
+		public int getIndexOfError() { return indexOfError; }
+		public boolean hasUpperCase() { return foundUpperCase; }
+		public boolean hasLowerCase() { return foundLowerCase; }
+		public boolean hasNumericDigit() { return foundNumericDigit; }
+		public boolean hasSpecialChar() { return foundSpecialChar; }
+		public boolean isLongEnough() { return foundLongEnough; }
+		/** Returns the blocked pattern found in the password, or null if there is none */
+		public String getBlockedPattern() { return blockedPattern; }
+		/** Returns true if the password is in the list of compromised passwords */
+		public boolean isBreached() { return breached; }
+	}
 
-	public static String passwordErrorMessage = "";		// The error message text
-	public static String passwordInput = "";			// The input being processed
-	public static int passwordIndexofError = -1;		// The index where the error was located
-	public static boolean foundUpperCase = false;
-	public static boolean foundLowerCase = false;
-	public static boolean foundNumericDigit = false;
-	public static boolean foundSpecialChar = false;
-	public static boolean foundLongEnough = false;
-	private static String inputLine = "";				// The input line
-	private static char currentChar;					// The current character in the line
-	private static int currentCharNdx;					// The index of the current character
-	private static boolean running;						// The flag that specifies if the FSM is 
-														// running
-	private static boolean foundBlocked = false;		// The flag that specifies valid special char
+	/**********
+	 * Creates an evaluator that rejects passwords containing any of the given patterns.
+	 *
+	 * @param blockedPatterns	The patterns a password may not contain
+	 */
+	public PasswordEvaluator(List<String> blockedPatterns) {
+		this(blockedPatterns, null);
+	}
 
 	/**********
-	 * This private method display the input line and then on a line under it displays an up arrow
-	 * at the point where an error should one be detected.  This method is designed to be used to 
-	 * display the error message on the console terminal.
-	 * 
-	 * @param input				The input string
-	 * @param currentCharNdx	The location where an error was found
-	 * @return					Two lines, the entire input line followed by a line with an up arrow
+	 * Creates an evaluator that also rejects compromised passwords and passwords containing
+	 * a pattern of the given screen.
+	 *
+	 * @param blockedPatterns	The patterns a password may not contain
+	 * @param screen			The compromised password screen, or null for none
 	 */
-	private static void displayInputState() {
-		// Display the entire input line
-		System.out.println(inputLine);
-		System.out.println(inputLine.substring(0,currentCharNdx) + "?");
-		System.out.println("The password size: " + inputLine.length() + "  |  The currentCharNdx: " + 
-				currentCharNdx + "  |  The currentChar: \"" + currentChar + "\"");
+	public PasswordEvaluator(List<String> blockedPatterns, BreachedPasswordScreen screen) {
+		this.blocked = new SubstringAutomaton(blockedPatterns);
+		this.screen = screen;
 	}
 
 	/**********
 	 * This method is a mechanical transformation of a Directed Graph diagram into a Java
 	 * method.
-	 * 
+	 *
 	 * @param input		The input string for directed graph processing
-	 * @return			An output string that is empty if every things is okay or it will be
-	 * 						a string with a help description of the error follow by two lines
-	 * 						that shows the input line follow by a line with an up arrow at the
-	 *						point where the error was found.
+	 * @return			The result of the evaluation, with an error message that is empty if
+	 * 						every thing is okay or a help description of the error otherwise
 	 */
-	public static String evaluatePassword(String input) {
-		// The following are the local variable used to perform the Directed Graph simulation
-		passwordErrorMessage = "";
-		passwordIndexofError = 0;			// Initialize the IndexofError
-		inputLine = input;					// Save the reference to the input line as a global
-		currentCharNdx = 0;					// The index of the current character
-		
-		if(input.length() <= 0) return "*** Error *** The password is empty!";
-		
-		// The input is not empty, so we can access the first character
-		currentChar = input.charAt(0);		// The current character from the above indexed position
-
-		// The Directed Graph simulation continues until the end of the input is reached or at some 
-		// state the current character does not match any valid transition to a next state
-
-		passwordInput = input;				// Save a copy of the input
-		foundUpperCase = false;				// Reset the Boolean flag
-		foundLowerCase = false;				// Reset the Boolean flag
-		foundNumericDigit = false;			// Reset the Boolean flag
-		foundSpecialChar = false;			// Reset the Boolean flag
-		foundNumericDigit = false;			// Reset the Boolean flag
-		foundLongEnough = false;			// Reset the Boolean flag
-		running = true;						// Start the loop
-		foundBlocked = false;				// Reset the Boolean flag
-
-		// The Directed Graph simulation continues until the end of the input is reached or at some 
+	public Result evaluate(String input) {
+		if (input.length() <= 0)
+			return new Result("*** Error *** The password is empty!", 0,
+					false, false, false, false, false, null, false);
+
+		boolean foundUpperCase = false;
+		boolean foundLowerCase = false;
+		boolean foundNumericDigit = false;
+		boolean foundSpecialChar = false;
+
+		// The Directed Graph simulation continues until the end of the input is reached or at some
 		// state the current character does not match any valid transition
-		String[] blocked = {"1234", "password", "12345678", "qwerty", "secret", "00000000"};
-		String currentBlocked = "";
-		while (running) {
-			displayInputState();
+		for (int currentCharNdx = 0; currentCharNdx < input.length(); currentCharNdx++) {
+			char currentChar = input.charAt(currentCharNdx);
 			// The cascading if statement sequentially tries the current character against all of the
 			// valid transitions
 			if (currentChar >= 'A' && currentChar <= 'Z') {
-				System.out.println("Upper case letter found");
 				foundUpperCase = true;
 			} else if (currentChar >= 'a' && currentChar <= 'z') {
-				System.out.println("Lower case letter found");
 				foundLowerCase = true;
 			} else if (currentChar >= '0' && currentChar <= '9') {
-				System.out.println("Digit found");
 				foundNumericDigit = true;
-			} else if ("_".indexOf(currentChar) >= 0) {
-				System.out.println("Underscore Found!");
+			} else if (currentChar == '_') {
 				foundSpecialChar = true;
 			}
 			else {
-				passwordIndexofError = currentCharNdx;
-				return "*** Error *** An invalid character has been found!";
+				return new Result("*** Error *** An invalid character has been found!", currentCharNdx,
+						foundUpperCase, foundLowerCase, foundNumericDigit, foundSpecialChar,
+						currentCharNdx >= MIN_LENGTH, null, false);
 			}
-			if (currentCharNdx >= 7) {
-				System.out.println("At least 8 characters found");
-				foundLongEnough = true;
-			}
-			// Checks for blocked characters from the array
-			if (true) {
-				for (int i = 0; i < blocked.length; i++) {
-					if (passwordInput.contains(blocked[i])) {
-						System.out.println("Blocked characters");
-						foundBlocked = true;
-						currentBlocked = blocked[i];
-					}
-				}
-			}
-			
-			// Go to the next character if there is one
-			currentCharNdx++;
-			if (currentCharNdx >= inputLine.length())
-				running = false;
-			else
-				currentChar = input.charAt(currentCharNdx);
-			
-			System.out.println();
+		}
+		boolean foundLongEnough = input.length() >= MIN_LENGTH;
+
+		// Checks for every blocked pattern in one scan, reporting the last one in the list
+		int blockedIndex = blocked.findLast(input);
+		String blockedPattern = blockedIndex >= 0 ? blocked.pattern(blockedIndex) : null;
+		boolean breached = false;
+		if (screen != null) {
+			if (blockedPattern == null)
+				blockedPattern = screen.findPattern(input);
+			breached = screen.isBreached(input);
 		}
 
 		String errMessage = "";
 		if (!foundUpperCase)
-			errMessage += "Upper case; "; 
-		
+			errMessage += "Upper case; ";
+
 		if (!foundLowerCase)
 			errMessage += "Lower case; ";
-		
+
 		if (!foundNumericDigit)
 			errMessage += "Numeric digits; ";
-			
+
 		if (!foundSpecialChar)
 			errMessage += "Underscore; ";
-			
+
 		if (!foundLongEnough)
 			errMessage += "At least 8 characters; ";
 		// Displays error message of characters that are blocked
-		if (foundBlocked)
-			errMessage += "Blocked character(s): \"" + currentBlocked + "\"; ";
-		
-		if (errMessage == "")
-			return "";
-		
-		passwordIndexofError = currentCharNdx;
-		return errMessage + "conditions were not satisfied";
+		if (blockedPattern != null)
+			errMessage += "Blocked character(s): \"" + blockedPattern + "\"; ";
+		// Displays error message if the password is known to be compromised
+		if (breached)
+			errMessage += "Not a known breached password; ";
 
+		if (errMessage.isEmpty())
+			return new Result("", -1, true, true, true, true, true, null, false);
+
+		return new Result(errMessage + "conditions were not satisfied", input.length(),
+				foundUpperCase, foundLowerCase, foundNumericDigit, foundSpecialChar, foundLongEnough,
+				blockedPattern, breached);
+	}
+
+	/**********
+	 * Evaluates a password against the default blocked patterns and the default
+	 * compromised password screen.
+	 *
+	 * @param input		The input string for directed graph processing
+	 * @return			An output string that is empty if every things is okay or it will be
+	 * 						a string with a help description of the error
+	 */
+	public static String evaluatePassword(String input) {
+		return DEFAULT.evaluate(input).getMessage();
 	}
-}
\ No newline at end of file
+}
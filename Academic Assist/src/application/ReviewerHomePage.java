@@ -18,6 +18,8 @@ import java.util.Date;
 import java.sql.SQLException;
 import java.util.List;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Map;
 
 import databasePart1.DatabaseHelper;
 import databasePart1.DatabaseHelper2;
@@ -32,6 +34,9 @@ public class ReviewerHomePage {
     private DatabaseHelper2 dbHelper2;
     private DatabaseHelper3 dbHelper3;
     private Reviewer reviewer;
+    private User currentUser;
+    // Unread answers and chats of each subscribed question, reloaded with the question table
+    private Map<Integer, Integer> unreadCounts = new HashMap<>();
 
     /**
      * Initializes the ReviewerHomePage with database connections.
@@ -56,6 +61,7 @@ public class ReviewerHomePage {
      * @param user The user object containing user information and roles
      */
     public void show(Stage primaryStage, User user) {
+        this.currentUser = user;
         VBox layout = new VBox(10);
         layout.setStyle("-fx-alignment: center; -fx-padding: 20;");
         
@@ -102,21 +108,21 @@ public class ReviewerHomePage {
 
         TableColumn<Question, String> unreadColumn = new TableColumn<>("Unread Answers");
         unreadColumn.setCellValueFactory(cellData -> {
-            try {
-                List<Answer> answers = dbHelper2.getAnswersForQuestion(cellData.getValue().getQuestionID());
-                int unreadCount = cellData.getValue().getNewMessagesCount();
-                return new SimpleStringProperty(unreadCount > 0 ? String.valueOf(unreadCount) : "");
-            } catch (SQLException e) {
-                e.printStackTrace();
-                return new SimpleStringProperty("");
-            }
+            int unreadCount = unreadCounts.getOrDefault(cellData.getValue().getQuestionID(), 0);
+            return new SimpleStringProperty(unreadCount > 0 ? String.valueOf(unreadCount) : "");
         });
 
         questionTable.getColumns().addAll(idColumn, bodyColumn, postedByColumn, dateColumn, 
                                         statusColumn, unreadColumn);
 
-        // Initial load of questions
-        refreshQuestionTable(questionTable);
+        // Initial load of questions, using the data prefetched while the role was chosen if it is ready
+        RolePagePrefetcher.FirstPage firstPage = RolePagePrefetcher.take(user.getUserName(), "Reviewer");
+        if (firstPage != null) {
+            unreadCounts = firstPage.unreadCounts;
+            questionTable.setItems(FXCollections.observableArrayList(firstPage.questions));
+        } else {
+            refreshQuestionTable(questionTable);
+        }
 
         // Buttons for reviewer functionality - limited as per requirements
         Button viewAnswersButton = new Button("Answer");
@@ -124,6 +130,7 @@ public class ReviewerHomePage {
         Button addReviewButton = new Button("Add Review");
         Button viewReviewsButton = new Button("View Reviews");
         Button inboxButton = new Button("Inbox");
+        Button searchAlertsButton = new Button("Search Alerts");
         Button myReviewsButton = new Button("My Reviews");
         Button profileButton = new Button("My Profile");
         Button backButton = new Button("Back");
@@ -132,12 +139,21 @@ public class ReviewerHomePage {
         buttonBox.setStyle("-fx-alignment: center;");
         buttonBox.getChildren().addAll(viewAnswersButton, searchQuestionButton, 
                 addReviewButton, viewReviewsButton, myReviewsButton, inboxButton, 
-                profileButton, backButton);
+                searchAlertsButton, profileButton, backButton);
 
         // View Answers button action
         viewAnswersButton.setOnAction(e -> {
             Question selectedQuestion = questionTable.getSelectionModel().getSelectedItem();
             if (selectedQuestion != null) {
+                try {
+                    // Everything in the question is read once its answers are opened
+                    if (unreadCounts.containsKey(selectedQuestion.getQuestionID())) {
+                        dbHelper2.markQuestionSeen(user.getUserName(), selectedQuestion.getQuestionID());
+                        refreshQuestionTable(questionTable);
+                    }
+                } catch (SQLException ex) {
+                    showAlert("Error updating unread count: " + ex.getMessage(), Alert.AlertType.ERROR);
+                }
                 showAnswersDialog(selectedQuestion, user);
             } else {
                 showAlert("Please select a question first.", Alert.AlertType.WARNING);
@@ -186,6 +202,7 @@ public class ReviewerHomePage {
         myReviewsButton.setOnAction(e -> showMyReviews(user));
         
         inboxButton.setOnAction(e -> showInbox(user));
+        searchAlertsButton.setOnAction(e -> new SearchAlertsDialog(user, dbHelper3).show());
         profileButton.setOnAction(e -> showProfileDialog(user));
 
         // Back button action
@@ -319,6 +336,7 @@ public class ReviewerHomePage {
     private void refreshQuestionTable(TableView<Question> table) {
         try {
             List<Question> questions = dbHelper2.getAllQuestions();
+            unreadCounts = dbHelper2.getUnreadCounts(currentUser.getUserName());
             table.setItems(FXCollections.observableArrayList(questions));
         } catch (SQLException ex) {
             showAlert("Error refreshing questions: " + ex.getMessage(), Alert.AlertType.ERROR);
@@ -345,10 +363,14 @@ public class ReviewerHomePage {
             // Get chat messages
             List<String[]> chatMessages = dbHelper3.getChatMessagesForReviewer(user.getUserName());
             
-            // Combine both lists
+            // Get alerts from saved searches
+            List<String[]> searchAlerts = dbHelper3.getSearchAlertsForUser(user.getUserName());
+            
+            // Combine all lists
             List<String[]> allMessages = new ArrayList<>();
             allMessages.addAll(feedbackList);
             allMessages.addAll(chatMessages);
+            allMessages.addAll(searchAlerts);
             
             if (allMessages.isEmpty()) {
                 showAlert("Your inbox is empty.", Alert.AlertType.INFORMATION);
@@ -418,6 +440,7 @@ public class ReviewerHomePage {
                                     List<String[]> updatedAllMessages = new ArrayList<>();
                                     updatedAllMessages.addAll(updatedFeedbackList);
                                     updatedAllMessages.addAll(updatedChatMessages);
+                                    updatedAllMessages.addAll(dbHelper3.getSearchAlertsForUser(user.getUserName()));
                                     inboxTable.setItems(FXCollections.observableArrayList(updatedAllMessages));
                                 } catch (Exception ex) {
                                     showAlert("Error sending reply: " + ex.getMessage(), Alert.AlertType.ERROR);
@@ -0,0 +1,65 @@
+package application;
+
+import java.util.Date;
+
+/**
+ * Represents a reviewer's position on the reviewer leaderboard, together with the
+ * aggregates the ranking score was computed from.
+ */
+public class ReviewerRank {
+    private String userName;
+    private int totalReviews;
+    private long ratingSum;
+    private int ratingCount;
+    private Date lastReviewTime;
+    private double score;
+
+    /**
+     * Creates a new ReviewerRank with the specified aggregates.
+     *
+     * @param userName The username of the reviewer.
+     * @param totalReviews The number of reviews the reviewer has written.
+     * @param ratingSum The sum of all weights students and instructors gave the reviewer.
+     * @param ratingCount The number of weights given to the reviewer.
+     * @param lastReviewTime The time of the reviewer's latest review, or null if there is none.
+     */
+    public ReviewerRank(String userName, int totalReviews, long ratingSum, int ratingCount, Date lastReviewTime) {
+        this.userName = userName;
+        this.totalReviews = totalReviews;
+        this.ratingSum = ratingSum;
+        this.ratingCount = ratingCount;
+        this.lastReviewTime = lastReviewTime;
+    }
+
+    public String getUserName() {
+        return userName;
+    }
+
+    public int getTotalReviews() {
+        return totalReviews;
+    }
+
+    public long getRatingSum() {
+        return ratingSum;
+    }
+
+    public int getRatingCount() {
+        return ratingCount;
+    }
+
+    public double getAverageRating() {
+        return ratingCount > 0 ? (double) ratingSum / ratingCount : 0.0;
+    }
+
+    public Date getLastReviewTime() {
+        return lastReviewTime;
+    }
+
+    public double getScore() {
+        return score;
+    }
+
+    public void setScore(double score) {
+        this.score = score;
+    }
+}
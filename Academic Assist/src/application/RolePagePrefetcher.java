@@ -0,0 +1,185 @@
+package application;
+
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import databasePart1.DatabaseHelper;
+import databasePart1.DatabaseHelper2;
+import databasePart1.DatabaseHelper3;
+
+/**
+ * Loads the first page of data for each role of a user in the background while they
+ * are choosing a role, so the home page they pick can be shown without waiting on the
+ * database. A home page takes its prefetched data once, waiting briefly for a prefetch
+ * that is still running, and loads it itself if the prefetch has not finished by then,
+ * failed, or is too old to trust.
+ */
+public class RolePagePrefetcher {
+
+    // Prefetched pages older than this are loaded again instead
+    static final long MAX_AGE_MILLIS = 30_000;
+    // How long a home page waits for a prefetch that is still running
+    static final long TAKE_TIMEOUT_MILLIS = 500;
+
+    /**
+     * The data a home page shows when it first opens. Only the fields used by the
+     * page's role are set.
+     */
+    public static class FirstPage {
+        public List<Question> questions;
+        public Map<Integer, Integer> unreadCounts;
+        public List<ReviewerRequest> reviewerRequests;
+        final long loadedAt = System.currentTimeMillis();
+    }
+
+    private static final ExecutorService executor = Executors.newFixedThreadPool(2, runnable -> {
+        Thread thread = new Thread(runnable, "role-page-prefetch");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private static final Map<String, Future<FirstPage>> pending = new ConcurrentHashMap<>();
+
+    private RolePagePrefetcher() {
+    }
+
+    /**
+     * Starts loading the first page of each of the given roles for a user. Roles without
+     * a home page to prefetch, such as Admin and Restricted, are skipped.
+     *
+     * @param user The user choosing a role
+     * @param roles The roles they can choose from
+     */
+    public static void prefetch(User user, List<String> roles) {
+        for (String role : roles) {
+            String pageRole = normalize(role);
+            if (pageRole == null) {
+                continue;
+            }
+            String key = keyOf(user.getUserName(), pageRole);
+            Future<FirstPage> previous = pending.put(key, executor.submit(() -> load(user.getUserName(), pageRole)));
+            if (previous != null) {
+                previous.cancel(false);
+            }
+        }
+    }
+
+    /**
+     * Takes the prefetched first page of a role, if it is ready.
+     *
+     * @param userName The user opening the home page
+     * @param role The role of the home page
+     * @return The prefetched data, or null if the page has to load its own data
+     */
+    public static FirstPage take(String userName, String role) {
+        String pageRole = normalize(role);
+        if (pageRole == null) {
+            return null;
+        }
+        Future<FirstPage> future = pending.remove(keyOf(userName, pageRole));
+        if (future == null) {
+            return null;
+        }
+        try {
+            FirstPage page = future.get(TAKE_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+            if (System.currentTimeMillis() - page.loadedAt > MAX_AGE_MILLIS) {
+                return null;
+            }
+            return page;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        } catch (ExecutionException e) {
+            System.err.println("Prefetch failed for " + pageRole + ": " + e.getCause().getMessage());
+            return null;
+        } catch (TimeoutException e) {
+            // The page loads its own data, the prefetch finishes without being used
+            return null;
+        }
+    }
+
+    /**
+     * Runs the same queries the home page of a role runs when it first opens. The
+     * connections skip the table setup; on a database whose tables have not been
+     * created yet the prefetch fails and the page loads its own data.
+     */
+    private static FirstPage load(String userName, String role) throws SQLException {
+        FirstPage page = new FirstPage();
+        switch (role) {
+            case "Student": {
+                DatabaseHelper2 dbHelper2 = new DatabaseHelper2();
+                DatabaseHelper3 dbHelper3 = new DatabaseHelper3();
+                try {
+                    dbHelper2.connectToExistingDatabase();
+                    dbHelper3.connectToExistingDatabase();
+                    page.questions = dbHelper3.searchQuestions("", "All", null);
+                    page.unreadCounts = dbHelper2.getUnreadCounts(userName);
+                } finally {
+                    dbHelper2.closeConnection();
+                    dbHelper3.closeConnection();
+                }
+                break;
+            }
+            case "Reviewer":
+            case "Staff": {
+                DatabaseHelper2 dbHelper2 = new DatabaseHelper2();
+                try {
+                    dbHelper2.connectToExistingDatabase();
+                    page.questions = dbHelper2.getAllQuestions();
+                    if (role.equals("Reviewer")) {
+                        page.unreadCounts = dbHelper2.getUnreadCounts(userName);
+                    }
+                } finally {
+                    dbHelper2.closeConnection();
+                }
+                break;
+            }
+            case "Instructor": {
+                DatabaseHelper dbHelper = new DatabaseHelper();
+                try {
+                    dbHelper.connectToExistingDatabase();
+                    page.reviewerRequests = dbHelper.getReviewerRequestsForInstructor(userName);
+                } finally {
+                    dbHelper.closeConnection();
+                }
+                break;
+            }
+            default:
+                break;
+        }
+        return page;
+    }
+
+    /**
+     * Returns the home page role for a role name, or null if it has nothing to prefetch.
+     */
+    private static String normalize(String role) {
+        if (role == null) {
+            return null;
+        }
+        switch (role.trim().toLowerCase()) {
+            case "student":
+                return "Student";
+            case "staff":
+                return "Staff";
+            case "reviewer":
+                return "Reviewer";
+            case "instructor":
+                return "Instructor";
+            default:
+                return null;
+        }
+    }
+
+    private static String keyOf(String userName, String role) {
+        return userName + "\0" + role;
+    }
+}
@@ -0,0 +1,129 @@
+package application;
+
+import java.io.File;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.concurrent.CompletableFuture;
+
+import databasePart1.DatabaseHelper;
+import databasePart1.RosterImportResult;
+import javafx.application.Platform;
+import javafx.beans.property.SimpleStringProperty;
+import javafx.collections.FXCollections;
+import javafx.geometry.Insets;
+import javafx.scene.Scene;
+import javafx.scene.control.*;
+import javafx.scene.layout.HBox;
+import javafx.scene.layout.VBox;
+import javafx.stage.FileChooser;
+import javafx.stage.Stage;
+
+/**
+ * This class displays a dialog where an admin imports a CSV roster of users, such as a
+ * course's class list, and sees what happened to each row.
+ */
+public class RosterImportDialog {
+
+    private final Runnable onImported;
+
+    /**
+     * Constructor for RosterImportDialog
+     *
+     * @param onImported Run on the JavaFX thread after an import, to refresh the user list
+     */
+    public RosterImportDialog(Runnable onImported) {
+        this.onImported = onImported;
+    }
+
+    /**
+     * Show the dialog
+     */
+    public void show() {
+        Stage dialogStage = new Stage();
+        dialogStage.setTitle("Import Roster");
+
+        VBox layout = new VBox(10);
+        layout.setPadding(new Insets(20));
+
+        Label formatLabel = new Label("The first row must name the columns: userName, firstName, lastName, email, "
+                + "and optionally role and password.\nNew users without a password are given a one-time password.");
+        formatLabel.setWrapText(true);
+
+        Button chooseButton = new Button("Choose CSV File...");
+        ProgressIndicator progressIndicator = new ProgressIndicator();
+        progressIndicator.setVisible(false);
+        progressIndicator.setPrefSize(24, 24);
+        Label statusLabel = new Label();
+        HBox controls = new HBox(10, chooseButton, progressIndicator, statusLabel);
+
+        TableView<RosterImportResult.Row> resultTable = new TableView<>();
+        TableColumn<RosterImportResult.Row, String> lineColumn = new TableColumn<>("Line");
+        lineColumn.setCellValueFactory(data -> new SimpleStringProperty(String.valueOf(data.getValue().getLineNumber())));
+        lineColumn.setPrefWidth(60);
+        TableColumn<RosterImportResult.Row, String> userColumn = new TableColumn<>("Username");
+        userColumn.setCellValueFactory(data -> new SimpleStringProperty(data.getValue().getUserName()));
+        userColumn.setPrefWidth(150);
+        TableColumn<RosterImportResult.Row, String> statusColumn = new TableColumn<>("Result");
+        statusColumn.setCellValueFactory(data -> new SimpleStringProperty(data.getValue().getStatus().toString()));
+        statusColumn.setPrefWidth(90);
+        TableColumn<RosterImportResult.Row, String> detailColumn = new TableColumn<>("Details");
+        detailColumn.setCellValueFactory(data -> {
+            RosterImportResult.Row row = data.getValue();
+            String detail = row.getOneTimePassword() != null
+                    ? "One-time password: " + row.getOneTimePassword() : row.getMessage();
+            return new SimpleStringProperty(detail);
+        });
+        detailColumn.setPrefWidth(400);
+        resultTable.getColumns().setAll(lineColumn, userColumn, statusColumn, detailColumn);
+
+        Button closeButton = new Button("Close");
+        closeButton.setOnAction(e -> dialogStage.close());
+
+        chooseButton.setOnAction(e -> {
+            FileChooser chooser = new FileChooser();
+            chooser.setTitle("Choose Roster");
+            chooser.getExtensionFilters().add(new FileChooser.ExtensionFilter("CSV Files", "*.csv"));
+            File file = chooser.showOpenDialog(dialogStage);
+            if (file == null) {
+                return;
+            }
+            chooseButton.setDisable(true);
+            progressIndicator.setVisible(true);
+            statusLabel.setText("Importing " + file.getName() + "...");
+            resultTable.getItems().clear();
+
+            // The import runs on its own connection, off the JavaFX thread
+            CompletableFuture.supplyAsync(() -> {
+                DatabaseHelper importHelper = new DatabaseHelper();
+                try (Reader reader = Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8)) {
+                    importHelper.connectToDatabase();
+                    return importHelper.importRoster(reader,
+                        handled -> Platform.runLater(() -> statusLabel.setText(handled + " rows processed...")));
+                } catch (Exception ex) {
+                    throw new RuntimeException(ex.getMessage(), ex);
+                } finally {
+                    importHelper.closeConnection();
+                }
+            }).whenComplete((result, error) -> Platform.runLater(() -> {
+                chooseButton.setDisable(false);
+                progressIndicator.setVisible(false);
+                if (error != null) {
+                    Throwable cause = error.getCause() != null ? error.getCause() : error;
+                    statusLabel.setText("Import failed: " + cause.getMessage());
+                    return;
+                }
+                resultTable.setItems(FXCollections.observableArrayList(result.getRows()));
+                statusLabel.setText(result.getCreated() + " created, " + result.getUpdated() + " updated, "
+                        + result.getFailed() + " failed");
+                if (onImported != null) {
+                    onImported.run();
+                }
+            }));
+        });
+
+        layout.getChildren().addAll(formatLabel, controls, resultTable, closeButton);
+        dialogStage.setScene(new Scene(layout, 760, 500));
+        dialogStage.show();
+    }
+}
@@ -0,0 +1,57 @@
+package application;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.IntStream;
+
+/**
+ * Validates the username, name and email of many users at once, such as the entries of a
+ * class roster being imported.
+ *
+ * <p>The recognizers hold no per-call state, so the entries are checked in parallel on the
+ * common fork/join pool, with each entry checked by the same rules as the account setup
+ * page. Short lists are checked on the calling thread, where splitting the work would cost
+ * more than it saves.</p>
+ */
+public class RosterValidator {
+
+    // Lists shorter than this are not worth checking in parallel
+    static final int PARALLEL_THRESHOLD = 256;
+
+    private final UserNameRecognizer userNameRecognizer = new UserNameRecognizer();
+    private final EmailRecognizer emailRecognizer = new EmailRecognizer();
+
+    /**
+     * Checks one user with the same rules as the account setup page.
+     *
+     * @param user The user to check; the password and role are not checked
+     * @return An empty string if the user is valid, otherwise the first error found
+     */
+    public String validate(User user) {
+        ValidationResult userName = userNameRecognizer.recognize(user.getUserName() == null ? "" : user.getUserName());
+        if (!userName.isValid()) {
+            return userName.getMessage();
+        }
+        String names = NameRecognizer.nameEvaluator(user.getfirstName(), user.getlastName());
+        if (!names.isEmpty()) {
+            return names;
+        }
+        return emailRecognizer.evaluate(user.getemail()).getMessage();
+    }
+
+    /**
+     * Checks every user of a list.
+     *
+     * @param users The users to check
+     * @return The result of {@link #validate(User)} for each user, in the same order
+     */
+    public List<String> validateAll(List<User> users) {
+        String[] results = new String[users.size()];
+        IntStream indexes = IntStream.range(0, results.length);
+        if (results.length >= PARALLEL_THRESHOLD) {
+            indexes = indexes.parallel();
+        }
+        indexes.forEach(i -> results[i] = validate(users.get(i)));
+        return Arrays.asList(results);
+    }
+}
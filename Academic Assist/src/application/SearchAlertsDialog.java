@@ -0,0 +1,157 @@
+package application;
+
+import java.sql.SQLException;
+import java.util.List;
+
+import javafx.beans.property.SimpleStringProperty;
+import javafx.collections.FXCollections;
+import javafx.geometry.Insets;
+import javafx.geometry.Pos;
+import javafx.scene.Scene;
+import javafx.scene.control.*;
+import javafx.scene.layout.HBox;
+import javafx.scene.layout.VBox;
+import javafx.scene.text.Font;
+import javafx.scene.text.FontWeight;
+import javafx.stage.Stage;
+import databasePart1.DatabaseHelper3;
+
+/**
+ * This class displays a dialog where staff and reviewers manage their saved searches
+ * and read the alerts delivered when new questions or answers match them.
+ */
+public class SearchAlertsDialog {
+    private User currentUser;
+    private DatabaseHelper3 dbHelper3;
+
+    /**
+     * Constructor for SearchAlertsDialog
+     *
+     * @param currentUser The current user
+     * @param dbHelper3 The database helper instance
+     */
+    public SearchAlertsDialog(User currentUser, DatabaseHelper3 dbHelper3) {
+        this.currentUser = currentUser;
+        this.dbHelper3 = dbHelper3;
+    }
+
+    /**
+     * Show the dialog with the saved searches and their alerts
+     */
+    public void show() {
+        Stage dialogStage = new Stage();
+        dialogStage.setTitle("Search Alerts");
+
+        VBox layout = new VBox(10);
+        layout.setPadding(new Insets(20));
+
+        Label searchesLabel = new Label("Saved Searches");
+        searchesLabel.setFont(Font.font("System", FontWeight.BOLD, 14));
+
+        // Saved searches, rows of [searchID, queryText, createdAt]
+        TableView<String[]> searchTable = new TableView<>();
+        TableColumn<String[], String> queryColumn = new TableColumn<>("Watching For");
+        queryColumn.setCellValueFactory(data -> new SimpleStringProperty(data.getValue()[1]));
+        queryColumn.setPrefWidth(400);
+        TableColumn<String[], String> createdColumn = new TableColumn<>("Saved On");
+        createdColumn.setCellValueFactory(data -> new SimpleStringProperty(data.getValue()[2]));
+        createdColumn.setPrefWidth(200);
+        searchTable.getColumns().setAll(queryColumn, createdColumn);
+        searchTable.setPrefHeight(150);
+
+        TextField queryField = new TextField();
+        queryField.setPromptText("Words to watch for, e.g. recursion exam");
+        queryField.setPrefWidth(300);
+        Button saveButton = new Button("Save Search");
+        Button deleteButton = new Button("Delete Search");
+        HBox searchButtons = new HBox(10, queryField, saveButton, deleteButton);
+        searchButtons.setAlignment(Pos.CENTER_LEFT);
+
+        Label alertsLabel = new Label("Alerts");
+        alertsLabel.setFont(Font.font("System", FontWeight.BOLD, 14));
+
+        // Alerts, in the inbox row layout
+        TableView<String[]> alertTable = new TableView<>();
+        TableColumn<String[], String> messageColumn = new TableColumn<>("Alert");
+        messageColumn.setCellValueFactory(data -> new SimpleStringProperty(data.getValue()[3]));
+        messageColumn.setPrefWidth(200);
+        TableColumn<String[], String> contentColumn = new TableColumn<>("Question/Answer");
+        contentColumn.setCellValueFactory(data -> new SimpleStringProperty(data.getValue()[1]));
+        contentColumn.setPrefWidth(300);
+        TableColumn<String[], String> fromColumn = new TableColumn<>("From");
+        fromColumn.setCellValueFactory(data -> new SimpleStringProperty(data.getValue()[4]));
+        TableColumn<String[], String> dateColumn = new TableColumn<>("Date-Time");
+        dateColumn.setCellValueFactory(data -> new SimpleStringProperty(data.getValue()[5]));
+        alertTable.getColumns().setAll(messageColumn, contentColumn, fromColumn, dateColumn);
+
+        Button dismissButton = new Button("Dismiss Alert");
+
+        saveButton.setOnAction(e -> {
+            String queryText = queryField.getText().trim();
+            if (queryText.isEmpty()) {
+                showAlert("Please enter the words to watch for.", Alert.AlertType.WARNING);
+                return;
+            }
+            try {
+                dbHelper3.saveSearch(currentUser.getUserName(), queryText);
+                queryField.clear();
+                refresh(searchTable, alertTable);
+            } catch (SQLException ex) {
+                showAlert("Error saving search: " + ex.getMessage(), Alert.AlertType.ERROR);
+            }
+        });
+
+        deleteButton.setOnAction(e -> {
+            String[] selected = searchTable.getSelectionModel().getSelectedItem();
+            if (selected == null) {
+                showAlert("Please select a saved search to delete.", Alert.AlertType.WARNING);
+                return;
+            }
+            try {
+                dbHelper3.deleteSavedSearch(Integer.parseInt(selected[0]));
+                refresh(searchTable, alertTable);
+            } catch (SQLException ex) {
+                showAlert("Error deleting search: " + ex.getMessage(), Alert.AlertType.ERROR);
+            }
+        });
+
+        dismissButton.setOnAction(e -> {
+            String[] selected = alertTable.getSelectionModel().getSelectedItem();
+            if (selected == null) {
+                showAlert("Please select an alert to dismiss.", Alert.AlertType.WARNING);
+                return;
+            }
+            try {
+                dbHelper3.deleteSearchAlert(Integer.parseInt(selected[2]));
+                refresh(searchTable, alertTable);
+            } catch (SQLException ex) {
+                showAlert("Error dismissing alert: " + ex.getMessage(), Alert.AlertType.ERROR);
+            }
+        });
+
+        Button closeButton = new Button("Close");
+        closeButton.setOnAction(e -> dialogStage.close());
+
+        refresh(searchTable, alertTable);
+
+        layout.getChildren().addAll(searchesLabel, searchTable, searchButtons, alertsLabel, alertTable, dismissButton, closeButton);
+        dialogStage.setScene(new Scene(layout, 850, 600));
+        dialogStage.show();
+    }
+
+    private void refresh(TableView<String[]> searchTable, TableView<String[]> alertTable) {
+        try {
+            List<String[]> searches = dbHelper3.getSavedSearches(currentUser.getUserName());
+            List<String[]> alerts = dbHelper3.getSearchAlertsForUser(currentUser.getUserName());
+            searchTable.setItems(FXCollections.observableArrayList(searches));
+            alertTable.setItems(FXCollections.observableArrayList(alerts));
+        } catch (SQLException ex) {
+            showAlert("Error loading search alerts: " + ex.getMessage(), Alert.AlertType.ERROR);
+        }
+    }
+
+    private void showAlert(String message, Alert.AlertType alertType) {
+        Alert alert = new Alert(alertType, message);
+        alert.showAndWait();
+    }
+}
@@ -54,6 +54,9 @@ public class SelectRole {
             roleComboBox.setValue(roles[0].trim());
         }
         
+        // Load the first page of each role in the background while the user chooses
+        RolePagePrefetcher.prefetch(user, roleComboBox.getItems());
+        
         // If the user has the Restricted flag, show a message
         if (roleString.contains("Restricted")) {
             Label restrictedLabel = new Label("Note: Your account is restricted");
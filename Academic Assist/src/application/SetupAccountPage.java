@@ -1,5 +1,6 @@
 package application;
 
+import javafx.application.Platform;
 import javafx.scene.Scene;
 import javafx.scene.control.*;
 import javafx.scene.image.Image;
@@ -10,7 +11,6 @@ import javafx.scene.layout.BackgroundRepeat;
 import javafx.scene.layout.BackgroundSize;
 import javafx.scene.layout.VBox;
 import javafx.stage.Stage;
-import java.sql.SQLException;
 import databasePart1.*;
 
 
@@ -34,6 +34,9 @@ public class SetupAccountPage {
     }
 
     public void show() {
+        // Load the compromised password screen while the form is being filled in
+        BreachedPasswordScreen.getDefault().preload();
+
     	Label text = new Label("Please Enter the Following Info to make an Account");
 	    text.setStyle("-fx-font-size: 20px; -fx-font-weight: bold;");
 	    text.setTranslateY(-40);
@@ -98,25 +101,29 @@ public class SetupAccountPage {
                 return;
             }
             
-            try {
-                if (!databaseHelper.doesUserExist(userName)) {
-                    // Get the role associated with the invitation code
-                    String role = databaseHelper.validateInvitationCodeAndGetRole(code);
-                    if (role != null) {
-                        // Create user with the role from the invitation code
-                        User user = new User(userName, password, role, firstName, lastName, email);
-                        databaseHelper.register(user);
+            if (!databaseHelper.doesUserExist(userName)) {
+                // Get the role associated with the invitation code
+                String role = databaseHelper.validateInvitationCodeAndGetRole(code);
+                if (role != null) {
+                    // Create user with the role from the invitation code
+                    User user = new User(userName, password, role, firstName, lastName, email);
+                    // Hash the password off the JavaFX thread, then continue on it
+                    setupButton.setDisable(true);
+                    databaseHelper.registerAsync(user).whenComplete((ignored, error) -> Platform.runLater(() -> {
+                        setupButton.setDisable(false);
+                        if (error != null) {
+                            System.err.println("Database error: " + error.getMessage());
+                            errorLabel.setText(error.getMessage());
+                            return;
+                        }
                         // After a successful setup, navigate to WelcomeLoginPage.
                         new WelcomeLoginPage(databaseHelper).show(primaryStage, user);
-                    } else {
-                        errorLabel.setText("Please enter a valid invitation code");
-                    }
+                    }));
                 } else {
-                    errorLabel.setText("This username is taken! Please use another.");
+                    errorLabel.setText("Please enter a valid invitation code");
                 }
-            } catch (SQLException e) {
-                System.err.println("Database error: " + e.getMessage());
-                e.printStackTrace();
+            } else {
+                errorLabel.setText("This username is taken! Please use another.");
             }
         });
 
@@ -110,8 +110,13 @@ public class StaffHomePage {
 
         questionTable.getColumns().addAll(idColumn, bodyColumn, postedByColumn, dateColumn, statusColumn);
 
-        // Initial load of questions
-        refreshQuestionTable(questionTable);
+        // Initial load of questions, using the data prefetched while the role was chosen if it is ready
+        RolePagePrefetcher.FirstPage firstPage = RolePagePrefetcher.take(user.getUserName(), "Staff");
+        if (firstPage != null) {
+            questionTable.setItems(FXCollections.observableArrayList(firstPage.questions));
+        } else {
+            refreshQuestionTable(questionTable);
+        }
 
         // Buttons for viewing only
         Button viewAnswersButton = new Button("View Answers");
@@ -123,6 +128,7 @@ public class StaffHomePage {
         Button requestRestrictButton = new Button("Request to Restrict");
         Button viewAdminActionsButton = new Button("View Admin Actions");
         Button viewClosedRequestsButton = new Button("View Closed Requests");
+        Button searchAlertsButton = new Button("Search Alerts");
 
         // Request to Restrict button
         requestRestrictButton.setOnAction(e -> {
@@ -144,11 +150,17 @@ public class StaffHomePage {
             showClosedRequestsDialog();
         });
 
+        // Search Alerts button action
+        searchAlertsButton.setOnAction(e -> {
+            new SearchAlertsDialog(user, dbHelper3).show();
+        });
+
         HBox buttonBox = new HBox(10);
         buttonBox.setStyle("-fx-alignment: center;");
         buttonBox.getChildren().addAll(viewAnswersButton, viewReviewsButton, viewFeedbackButton, 
                                       flagButton, flaggedActivityButton, chatButton, 
-                                      requestRestrictButton, viewAdminActionsButton, viewClosedRequestsButton);
+                                      requestRestrictButton, viewAdminActionsButton, viewClosedRequestsButton,
+                                      searchAlertsButton);
 
         // View Answers button action
         viewAnswersButton.setOnAction(e -> {
@@ -4,6 +4,7 @@ import javafx.application.Application;
 import javafx.stage.Stage;
 import java.sql.SQLException;
 
+import databasePart1.DatabaseBackup;
 import databasePart1.DatabaseHelper;
 
 
@@ -21,6 +22,9 @@ public class StartCSE360 extends Application {
         try {
             databaseHelper.connectToDatabase(); // Connect to the database
             
+            // Take a snapshot of the database now and then at the configured interval
+            DatabaseBackup.startScheduled();
+            
             // Normalize admin roles to ensure consistency (convert lowercase 'admin' to 'Admin')
             databaseHelper.normalizeAdminRoles();
             
@@ -5,6 +5,7 @@ import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 import javafx.geometry.Insets;
 import javafx.geometry.Pos;
+import javafx.geometry.Side;
 import javafx.scene.Scene;
 import javafx.scene.control.*;
 import javafx.scene.image.Image;
@@ -46,6 +47,9 @@ public class StudentHomePage {
     private DatabaseHelper2 dbHelper2;
     private DatabaseHelper3 dbHelper3;
     private User currentUser;
+    private TextField searchField;
+    // Unread answers and chats of each subscribed question, reloaded with the question table
+    private Map<Integer, Integer> unreadCounts = new HashMap<>();
 
     /**
      * Initializes the StudentHomePage with a database connection.
@@ -138,15 +142,8 @@ public class StudentHomePage {
 
         TableColumn<Question, String> unreadColumn = new TableColumn<>("Unread Answers");
         unreadColumn.setCellValueFactory(cellData -> {
-            try {
-                // Get total number of answers for this question
-                List<Answer> answers = dbHelper2.getAnswersForQuestion(cellData.getValue().getQuestionID());
-                int unreadCount = cellData.getValue().getNewMessagesCount();
-                return new SimpleStringProperty(unreadCount > 0 ? String.valueOf(unreadCount) : "");
-            } catch (SQLException e) {
-                e.printStackTrace();
-                return new SimpleStringProperty("");
-            }
+            int unreadCount = unreadCounts.getOrDefault(cellData.getValue().getQuestionID(), 0);
+            return new SimpleStringProperty(unreadCount > 0 ? String.valueOf(unreadCount) : "");
         });
 
         questionTable.getColumns().addAll(idColumn, bodyColumn, postedByColumn, dateColumn, 
@@ -158,7 +155,7 @@ public class StudentHomePage {
         searchBox.setPadding(new Insets(15, 10, 15, 10));
         searchBox.setStyle("-fx-background-color: #f5f5f5; -fx-border-color: #e0e0e0; -fx-border-width: 1px; -fx-border-radius: 5px;");
         
-        TextField searchField = new TextField();
+        searchField = new TextField();
         searchField.setPromptText("Search questions...");
         searchField.setPrefWidth(300);
         searchField.setStyle("-fx-padding: 8px; -fx-font-size: 13px;");
@@ -191,9 +188,9 @@ public class StudentHomePage {
             refreshQuestionTable(questionTable);
         });
         
-        // Load reviewers for the reviewer filter
+        // Load reviewers for the reviewer filter, best ranked first
         try {
-            reviewerComboBox.getItems().addAll(dbHelper3.getAllReviewers());
+            reviewerComboBox.getItems().addAll(dbHelper3.getAllReviewersByRank());
         } catch (SQLException ex) {
             ex.printStackTrace();
         }
@@ -242,6 +239,30 @@ public class StudentHomePage {
             applySearchFilter(newValue, filterType, filterValue, questionTable);
         });
         
+        // Suggest completions below the search field as the student types, once they are loaded
+        DatabaseHelper3.preloadSearchIndexes();
+        ContextMenu suggestionMenu = new ContextMenu();
+        searchField.textProperty().addListener((observable, oldValue, newValue) -> {
+            suggestionMenu.getItems().clear();
+            try {
+                for (String suggestion : dbHelper3.getSearchCompletions(newValue, 5)) {
+                    MenuItem item = new MenuItem(suggestion);
+                    item.setOnAction(e -> {
+                        searchField.setText(suggestion);
+                        searchField.positionCaret(suggestion.length());
+                    });
+                    suggestionMenu.getItems().add(item);
+                }
+            } catch (SQLException ex) {
+                ex.printStackTrace();
+            }
+            if (suggestionMenu.getItems().isEmpty() || !searchField.isFocused()) {
+                suggestionMenu.hide();
+            } else if (!suggestionMenu.isShowing()) {
+                suggestionMenu.show(searchField, Side.BOTTOM, 0, 0);
+            }
+        });
+        
         // Add Enter key event handler to search field
         searchField.setOnKeyPressed(event -> {
             if (event.getCode() == KeyCode.ENTER) {
@@ -258,8 +279,14 @@ public class StudentHomePage {
         // Add search components to search box
         searchBox.getChildren().addAll(searchField, searchButton, filterLabel, filterComboBox, reviewerComboBox, clearButton);
 
-        // Initial load of questions
-        refreshQuestionTable(questionTable);
+        // Initial load of questions, using the data prefetched while the role was chosen if it is ready
+        RolePagePrefetcher.FirstPage firstPage = RolePagePrefetcher.take(user.getUserName(), "Student");
+        if (firstPage != null) {
+            unreadCounts = firstPage.unreadCounts;
+            questionTable.setItems(FXCollections.observableArrayList(firstPage.questions));
+        } else {
+            refreshQuestionTable(questionTable);
+        }
 
         // Buttons for question management
         Button askQuestionButton = new Button("Ask Question");
@@ -391,9 +418,8 @@ public class StudentHomePage {
             if (selectedQuestion != null) {
                 try {
                     // Reset unread count when viewing answers
-                    if (selectedQuestion.getNewMessagesCount() > 0) {
-                        selectedQuestion.setNewMessagesCount(0);
-                        dbHelper2.updateQuestion(selectedQuestion);
+                    if (unreadCounts.containsKey(selectedQuestion.getQuestionID())) {
+                        dbHelper2.markQuestionSeen(user.getUserName(), selectedQuestion.getQuestionID());
                         refreshQuestionTable(questionTable);
                     }
                     showAnswersDialog(selectedQuestion, user, questionTable);
@@ -590,6 +616,24 @@ public class StudentHomePage {
 
         result.ifPresent(question -> {
             try {
+                // Point the student to existing threads that already ask the same thing
+                List<Question> similarQuestions = dbHelper2.findSimilarQuestions(question.getBodyText(), 3);
+                if (!similarQuestions.isEmpty()) {
+                    StringBuilder similarText = new StringBuilder();
+                    for (Question similar : similarQuestions) {
+                        similarText.append("\u2022 ").append(similar.getBodyText())
+                                   .append(similar.isResolved() ? " (Resolved)" : "").append("\n");
+                    }
+                    Alert duplicateAlert = new Alert(Alert.AlertType.CONFIRMATION);
+                    duplicateAlert.setTitle("Similar Questions Found");
+                    duplicateAlert.setHeaderText("These existing questions look similar to yours:");
+                    duplicateAlert.setContentText(similarText + "\nDo you still want to post your question?");
+                    Optional<ButtonType> choice = duplicateAlert.showAndWait();
+                    if (choice.isEmpty() || choice.get() != ButtonType.OK) {
+                        return;
+                    }
+                }
+
                 // Use DatabaseHelper3 to insert the question
                 dbHelper2.insertQuestion(question);
                 
@@ -660,7 +704,7 @@ public class StudentHomePage {
         answerTable.getColumns().addAll(answerColumn, answeredByColumn, dateColumn, acceptedColumn);
         
         try {
-            List<Answer> allAnswers = dbHelper2.getAnswersForQuestion(question.getQuestionID());
+            List<Answer> allAnswers = dbHelper3.getAnswersForStudent(question.getQuestionID(), user.getUserName());
             answerTable.setItems(FXCollections.observableArrayList(allAnswers));
         } catch (SQLException ex) {
             showAlert("Error loading answers: " + ex.getMessage(), Alert.AlertType.ERROR);
@@ -698,7 +742,7 @@ public class StudentHomePage {
                         showAlert("Your answer has been posted!", Alert.AlertType.INFORMATION);
                         
                         // Refresh the answer table
-                        List<Answer> updatedAnswers = dbHelper2.getAnswersForQuestion(question.getQuestionID());
+                        List<Answer> updatedAnswers = dbHelper3.getAnswersForStudent(question.getQuestionID(), user.getUserName());
                         answerTable.setItems(FXCollections.observableArrayList(updatedAnswers));
 
                 } catch (SQLException ex) {
@@ -726,7 +770,7 @@ public class StudentHomePage {
                     acceptAnswerButton.setVisible(false);
                     
                     // Refresh the tables
-                    List<Answer> updatedAnswers = dbHelper2.getAnswersForQuestion(question.getQuestionID());
+                    List<Answer> updatedAnswers = dbHelper3.getAnswersForStudent(question.getQuestionID(), user.getUserName());
                     answerTable.setItems(FXCollections.observableArrayList(updatedAnswers));
                     refreshQuestionTable(questionTable);
                     
@@ -814,8 +858,33 @@ public class StudentHomePage {
         buttonBox.setStyle("-fx-alignment: center;");
         buttonBox.getChildren().addAll(addAnswerButton, acceptAnswerButton, feedbackButton, chatWithReviewerButton, flagAnswerButton);
 
-        dialogLayout.getChildren().addAll(questionLabel, statusBox, answerTable, buttonBox);
-        dialogStage.setScene(new Scene(dialogLayout, 750, 400));
+        // Related resolved questions, double-click one to open its answers
+        Label relatedLabel = new Label("Related answered questions:");
+        relatedLabel.setStyle("-fx-font-weight: bold;");
+        ListView<Question> relatedList = new ListView<>();
+        relatedList.setPrefHeight(90);
+        relatedList.setCellFactory(list -> new ListCell<Question>() {
+            @Override
+            protected void updateItem(Question item, boolean empty) {
+                super.updateItem(item, empty);
+                setText(empty || item == null ? null : item.getBodyText());
+            }
+        });
+        try {
+            relatedList.setItems(FXCollections.observableArrayList(dbHelper2.getRelatedAnsweredQuestions(question, 5)));
+        } catch (SQLException ex) {
+            showAlert("Error loading related questions: " + ex.getMessage(), Alert.AlertType.ERROR);
+        }
+        relatedList.setPlaceholder(new Label("No related answered questions yet."));
+        relatedList.setOnMouseClicked(event -> {
+            Question related = relatedList.getSelectionModel().getSelectedItem();
+            if (event.getClickCount() == 2 && related != null) {
+                showAnswersDialog(related, user, questionTable);
+            }
+        });
+
+        dialogLayout.getChildren().addAll(questionLabel, statusBox, answerTable, buttonBox, relatedLabel, relatedList);
+        dialogStage.setScene(new Scene(dialogLayout, 750, 520));
         dialogStage.setTitle("Answers for Question #" + question.getQuestionID());
         dialogStage.show();
     }
@@ -931,6 +1000,7 @@ public class StudentHomePage {
         try {
             // Use the new searchQuestions method with no filters
             List<Question> questions = dbHelper3.searchQuestions("", "All", null);
+            unreadCounts = dbHelper2.getUnreadCounts(currentUser.getUserName());
             table.setItems(FXCollections.observableArrayList(questions));
         } catch (SQLException ex) {
             showAlert("Error refreshing questions: " + ex.getMessage(), Alert.AlertType.ERROR);
@@ -962,7 +1032,7 @@ public class StudentHomePage {
             VBox questionReviewsLayout = new VBox(10);
             questionReviewsLayout.setStyle("-fx-padding: 10;");
 
-            List<String[]> questionReviews = dbHelper3.getReviewsForQuestionWithIDs(question.getQuestionID());
+            List<String[]> questionReviews = dbHelper3.getQuestionReviewsForStudent(question.getQuestionID(), currentUser.getUserName());
 
             if (questionReviews.isEmpty()) {
                 Label noQuestionsLabel = new Label("No reviews available for this question.");
@@ -978,13 +1048,8 @@ public class StudentHomePage {
             VBox answerReviewsLayout = new VBox(10);
             answerReviewsLayout.setStyle("-fx-padding: 10;");
 
-            List<Answer> answers = dbHelper2.getAnswersForQuestion(question.getQuestionID());
-            List<String[]> allAnswerReviews = new ArrayList<>();
-
-            for (Answer answer : answers) {
-                List<String[]> answerReviews = dbHelper3.getReviewsForAnswerWithIDs(answer.getAnsID());
-                allAnswerReviews.addAll(answerReviews);
-            }
+            // Reviews of all answers are loaded at once, most trusted reviewers first
+            List<String[]> allAnswerReviews = dbHelper3.getAnswerReviewsForStudent(question.getQuestionID(), currentUser.getUserName());
 
             if (allAnswerReviews.isEmpty()) {
                 Label noAnswersLabel = new Label("No reviews available for answers to this question.");
@@ -1549,7 +1614,24 @@ public class StudentHomePage {
     private void applySearchFilter(String keyword, String filterType, String filterValue, TableView<Question> questionTable) {
         try {
             List<Question> filteredQuestions = dbHelper3.searchQuestions(keyword, filterType, filterValue);
+            unreadCounts = dbHelper2.getUnreadCounts(currentUser.getUserName());
             questionTable.setItems(FXCollections.observableArrayList(filteredQuestions));
+
+            // Offer a corrected search when a misspelled keyword finds nothing,
+            // and otherwise a search of the archived threads
+            questionTable.setPlaceholder(null);
+            if (filteredQuestions.isEmpty() && keyword != null && !keyword.trim().isEmpty()) {
+                String suggestion = dbHelper3.getSpellingSuggestion(keyword);
+                if (suggestion != null) {
+                    Hyperlink didYouMean = new Hyperlink("Did you mean \"" + suggestion + "\"?");
+                    didYouMean.setOnAction(e -> searchField.setText(suggestion));
+                    questionTable.setPlaceholder(didYouMean);
+                } else {
+                    Hyperlink searchArchive = new Hyperlink("Search archived threads for \"" + keyword.trim() + "\"");
+                    searchArchive.setOnAction(e -> new ArchiveDialog(dbHelper2, keyword, false).show());
+                    questionTable.setPlaceholder(searchArchive);
+                }
+            }
         } catch (SQLException ex) {
             showAlert("Error applying search filter: " + ex.getMessage(), Alert.AlertType.ERROR);
         }
@@ -0,0 +1,160 @@
+package application;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.TreeSet;
+
+/**
+ * An Aho-Corasick automaton that finds which of a fixed list of patterns occur in a text
+ * in a single pass over the text.
+ *
+ * <p>The failure links are folded into a full transition table when the automaton is built,
+ * so scanning a text is one table lookup per character with no backtracking and no
+ * allocation. The automaton is never changed after it is built, so one instance can be
+ * shared by any number of threads.</p>
+ */
+final class SubstringAutomaton {
+
+    private final String[] patterns;
+    private final boolean ignoreCase;
+    // Column of each ASCII character in the transition table; 0 means "not in any pattern"
+    private final int[] asciiColumn = new int[128];
+    // The non-ASCII characters used by the patterns, sorted; their columns follow the ASCII ones
+    private final char[] otherChars;
+    private final int otherBase;
+    private final int[][] next;
+    // The highest index of a pattern that ends at each state, or -1
+    private final int[] lastMatch;
+
+    /**
+     * Builds an automaton for the given patterns. Empty patterns are ignored.
+     *
+     * @param patterns The patterns to look for
+     */
+    SubstringAutomaton(List<String> patterns) {
+        this(patterns, false);
+    }
+
+    /**
+     * Builds an automaton for the given patterns, optionally ignoring the case of both the
+     * patterns and the texts scanned. Empty patterns are ignored.
+     *
+     * @param patterns The patterns to look for
+     * @param ignoreCase Whether upper and lower case letters match each other
+     */
+    SubstringAutomaton(List<String> patterns, boolean ignoreCase) {
+        this.patterns = patterns.toArray(new String[0]);
+        this.ignoreCase = ignoreCase;
+
+        // Give each distinct character of the patterns its own column
+        TreeSet<Character> others = new TreeSet<>();
+        int columns = 1;
+        for (String pattern : this.patterns) {
+            for (int i = 0; i < pattern.length(); i++) {
+                char c = ignoreCase ? Character.toLowerCase(pattern.charAt(i)) : pattern.charAt(i);
+                if (c < 128) {
+                    if (asciiColumn[c] == 0) {
+                        asciiColumn[c] = columns++;
+                    }
+                } else {
+                    others.add(c);
+                }
+            }
+        }
+        otherBase = columns;
+        otherChars = new char[others.size()];
+        int o = 0;
+        for (char c : others) {
+            otherChars[o++] = c;
+        }
+        int width = otherBase + otherChars.length;
+
+        // Build the trie of the patterns
+        List<int[]> trie = new ArrayList<>();
+        List<Integer> ends = new ArrayList<>();
+        trie.add(new int[width]);
+        ends.add(-1);
+        for (int p = 0; p < this.patterns.length; p++) {
+            String pattern = this.patterns[p];
+            if (pattern.isEmpty()) {
+                continue;
+            }
+            int state = 0;
+            for (int i = 0; i < pattern.length(); i++) {
+                int column = columnOf(pattern.charAt(i));
+                if (trie.get(state)[column] == 0) {
+                    trie.get(state)[column] = trie.size();
+                    trie.add(new int[width]);
+                    ends.add(-1);
+                }
+                state = trie.get(state)[column];
+            }
+            ends.set(state, Math.max(ends.get(state), p));
+        }
+
+        // Fill in the missing transitions from the failure links, breadth first
+        next = trie.toArray(new int[0][]);
+        lastMatch = new int[next.length];
+        int[] fail = new int[next.length];
+        for (int s = 0; s < next.length; s++) {
+            lastMatch[s] = ends.get(s);
+        }
+        ArrayDeque<Integer> queue = new ArrayDeque<>();
+        for (int column = 0; column < width; column++) {
+            if (next[0][column] != 0) {
+                queue.add(next[0][column]);
+            }
+        }
+        while (!queue.isEmpty()) {
+            int state = queue.poll();
+            lastMatch[state] = Math.max(lastMatch[state], lastMatch[fail[state]]);
+            for (int column = 0; column < width; column++) {
+                int child = next[state][column];
+                if (child != 0) {
+                    fail[child] = next[fail[state]][column];
+                    queue.add(child);
+                } else {
+                    next[state][column] = next[fail[state]][column];
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the pattern at an index of the list the automaton was built from.
+     */
+    String pattern(int index) {
+        return patterns[index];
+    }
+
+    /**
+     * Finds the pattern with the highest index in the list that occurs in a text.
+     *
+     * @param text The text to scan
+     * @return The index of the pattern, or -1 if no pattern occurs in the text
+     */
+    int findLast(CharSequence text) {
+        int state = 0;
+        int found = -1;
+        for (int i = 0; i < text.length(); i++) {
+            state = next[state][columnOf(text.charAt(i))];
+            if (lastMatch[state] > found) {
+                found = lastMatch[state];
+            }
+        }
+        return found;
+    }
+
+    private int columnOf(char c) {
+        if (ignoreCase) {
+            c = Character.toLowerCase(c);
+        }
+        if (c < 128) {
+            return asciiColumn[c];
+        }
+        int index = Arrays.binarySearch(otherChars, c);
+        return index >= 0 ? otherBase + index : 0;
+    }
+}
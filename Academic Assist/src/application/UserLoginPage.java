@@ -1,5 +1,6 @@
 package application;
 
+import javafx.application.Platform;
 import javafx.scene.Scene;
 import javafx.scene.control.*;
 import javafx.scene.image.Image;
@@ -11,8 +12,6 @@ import javafx.scene.layout.BackgroundSize;
 import javafx.scene.layout.VBox;
 import javafx.stage.Stage;
 
-import java.sql.SQLException;
-
 import databasePart1.DatabaseHelper;
 
 /**
@@ -54,72 +53,17 @@ public class UserLoginPage {
             // Retrieve user inputs
             String userName = userNameField.getText();
             String password = passwordField.getText();
-            try { 
-                // Updated: Create a new User object using empty strings for the additional parameters.
-                // Note that the constructor now requires six parameters:
-                // userName, password, role, firstName, lastName, email.
-                User user = new User(userName, password, "", "", "", "");
-                	
-                
-                // Retrieve the user's role from the database using userName
-                String role = databaseHelper.getUserRole(userName);
-                
-             // Check if the password is only number and if it is correct password for the user than it is a otp
-                if (password.matches("[0-9]+") && databaseHelper.isOTPValid(userName, password)) {
-                    new UserPasswordReset(userName).show(primaryStage, primaryStage.getScene());
+            // Verify the password off the JavaFX thread, then continue on it
+            loginButton.setDisable(true);
+            databaseHelper.authenticateAsync(userName, password).whenComplete((user, error) -> Platform.runLater(() -> {
+                loginButton.setDisable(false);
+                if (error != null) {
+                    System.err.println("Database error: " + error.getMessage());
+                    errorLabel.setText(error.getMessage());
                     return;
                 }
-                
-                else if (role != null) {
-                    user.setRole(role);
-                    // Attempt to log in the user with the given credentials
-                    if (databaseHelper.login(user)) {
-                        // Get user details from database to populate the User object
-                        String firstName = databaseHelper.getUserFirstName(userName);
-                        String lastName = databaseHelper.getUserLastName(userName);
-                        String email = databaseHelper.getUserEmail(userName);
-                        user = new User(userName, password, role, firstName, lastName, email);
-
-                        if (role.contains(",")) {
-                            // Multiple roles - show role selection page
-                            new SelectRole().show(primaryStage, user, role);
-                        } else {
-                            // Single role - direct navigation
-                            switch(role.trim()) {
-                                case "Student":
-                                    new StudentHomePage().show(primaryStage, user);
-                                    break;
-                                case "Staff":
-                                    new StaffHomePage().show(primaryStage, user);
-                                    break;
-                                case "Reviewer":
-                                    new ReviewerHomePage().show(primaryStage, user);
-                                    break;
-                                case "Instructor":
-                                    new InstructorHomePage().show(primaryStage, user);
-                                    break;
-                                case "admin":
-                                case "Admin":
-                                    new WelcomeLoginPage(databaseHelper).show(primaryStage, user);
-                                    break;
-                                default:
-                                    System.out.println("Unknown role: " + role);
-                                    break;
-                            }
-                        }
-                    } else {
-                        // Display an error if the login fails
-                        errorLabel.setText("Error logging in");
-                    }
-                } else {
-                    // Display an error if the account does not exist
-                    errorLabel.setText("User account doesn't exist");
-                }
-                
-            } catch (SQLException e) {
-                System.err.println("Database error: " + e.getMessage());
-                e.printStackTrace();
-            }
+                showPageFor(primaryStage, userName, password, user, errorLabel);
+            }));
         });
 
         // Back button to return to the previous scene
@@ -149,4 +93,57 @@ public class UserLoginPage {
         primaryStage.setTitle("User Login");
         primaryStage.show();
     }
+
+    /**
+     * Shows the page for a user once their password has been checked.
+     *
+     * @param user The authenticated user, or null if the credentials did not match
+     */
+    private void showPageFor(Stage primaryStage, String userName, String password, User user, Label errorLabel) {
+     // Check if the password is only number and if it is correct password for the user than it is a otp
+        if (user != null && password.matches("[0-9]+")) {
+            new UserPasswordReset(userName).show(primaryStage, primaryStage.getScene());
+            return;
+        }
+        
+        else if (databaseHelper.doesUserExist(userName)) {
+            if (user != null && user.getRole() != null) {
+                String role = user.getRole();
+
+                if (role.contains(",")) {
+                    // Multiple roles - show role selection page
+                    new SelectRole().show(primaryStage, user, role);
+                } else {
+                    // Single role - direct navigation
+                    switch(role.trim()) {
+                        case "Student":
+                            new StudentHomePage().show(primaryStage, user);
+                            break;
+                        case "Staff":
+                            new StaffHomePage().show(primaryStage, user);
+                            break;
+                        case "Reviewer":
+                            new ReviewerHomePage().show(primaryStage, user);
+                            break;
+                        case "Instructor":
+                            new InstructorHomePage().show(primaryStage, user);
+                            break;
+                        case "admin":
+                        case "Admin":
+                            new WelcomeLoginPage(databaseHelper).show(primaryStage, user);
+                            break;
+                        default:
+                            System.out.println("Unknown role: " + role);
+                            break;
+                    }
+                }
+            } else {
+                // Display an error if the login fails
+                errorLabel.setText("Error logging in");
+            }
+        } else {
+            // Display an error if the account does not exist
+            errorLabel.setText("User account doesn't exist");
+        }
+    }
 }
@@ -4,273 +4,122 @@ package application;
 public class UserNameRecognizer {
 	/**
 	 * <p> Title: FSM-translated UserNameRecognizer. </p>
-	 * 
-	 * <p> Description: A demonstration of the mechanical translation of Finite State Machine 
-	 * diagram into an executable Java program using the UserName Recognizer. The code 
-	 * detailed design is based on a while loop with a select list</p>
-	 * 
+	 *
+	 * <p> Description: A demonstration of the mechanical translation of Finite State Machine
+	 * diagram into an executable Java program using the UserName Recognizer. The Finite State
+	 * Machine is compiled into a transition table indexed by state and character class, so
+	 * each character costs one table lookup. A recognizer keeps no state between calls, so
+	 * one instance can check many usernames at once, such as the entries of a roster.</p>
+	 *
 	 * <p> Copyright: Lynn Robert Carter © 2024 </p>
-	 * 
+	 *
 	 * @author Lynn Robert Carter
-	 * 
+	 *
 	 * @version 1.00		2024-09-13	Initial baseline derived from the Even Recognizer
 	 * @version 1.01		2024-09-17	Correction to address UNChar coding error, improper error
 	 * 									message, and improve internal documentation
-	 * 
+	 * @version 2.00		2026-10-19	Table driven recognizer with an immutable result and no
+	 * 									console output
+	 *
 	 */
 
-	/**********************************************************************************************
-	 * 
-	 * Result attributes to be used for GUI applications where a detailed error message and a 
-	 * pointer to the character of the error will enhance the user experience.
-	 * 
+	/** The minimum number of characters in a UserName */
+	public static final int MIN_LENGTH = 8;
+
+	/** The maximum number of characters in a UserName */
+	public static final int MAX_LENGTH = 20;
+
+	// The character classes, the columns of the transition table
+	private static final int LETTER = 0;
+	private static final int DIGIT = 1;
+	private static final int UNDERSCORE = 2;
+	private static final int OTHER = 3;
+
+	// The halting states, each with its own error message
+	private static final int BAD_START = -1;
+	private static final int BAD_CHARACTER = -2;
+	private static final int BAD_AFTER_UNDERSCORE = -3;
+
+	/*
+	 * The Finite State Machine:
+	 *	State 0 is the start state; a letter goes to state 1
+	 *	State 1 is the final state; a letter or digit stays in state 1 and an _ goes to state 2
+	 *	State 2 follows an _; a letter or digit goes back to state 1
 	 */
+	private static final int[][] TRANSITIONS = {
+			//  LETTER  DIGIT       UNDERSCORE             OTHER
+			{   1,      BAD_START,  BAD_START,             BAD_START },				// State 0
+			{   1,      1,          2,                     BAD_CHARACTER },			// State 1
+			{   1,      1,          BAD_AFTER_UNDERSCORE,  BAD_AFTER_UNDERSCORE },	// State 2
+	};
 
-	public static String userNameRecognizerErrorMessage = "";	// The error message text
-	public static String userNameRecognizerInput = "";			// The input being processed
-	public static int userNameRecognizerIndexofError = -1;		// The index of error location
-	private static int state = 0;						// The current state value
-	private static int nextState = 0;					// The next state value
-	private static boolean finalState = false;			// Is this state a final state?
-	private static String inputLine = "";				// The input line
-	private static char currentChar;					// The current character in the line
-	private static int currentCharNdx;					// The index of the current character
-	private static boolean running;						// The flag that specifies if the FSM is 
-														// running
-	private static int userNameSize = 0;			// A numeric value may not exceed 16 characters
-	private static boolean invalidSpecialCharacter = false; // The flag that specifies valid special chars
+	private static final String ERROR = "*** ERROR *** ";
+	private static final String INVALID_CHARACTER =
+			ERROR + "A UserName character may only contain the characters A-Z, a-z, 0-9, _.";
 
-	// Private method to display debugging info
-	private static void displayDebuggingInfo() {
-		// Display the current state of the FSM as part of an execution trace
-		if (currentCharNdx >= inputLine.length())
-			// display the line with the current state numbers aligned
-			System.out.println(((state > 99) ? " " : (state > 9) ? "  " : "   ") + state + 
-					((finalState) ? "       F   " : "           ") + "None");
-		else
-			System.out.println(((state > 99) ? " " : (state > 9) ? "  " : "   ") + state + 
-				((finalState) ? "       F   " : "           ") + "  " + currentChar + " " + 
-				((nextState > 99) ? "" : (nextState > 9) || (nextState == -1) ? "   " : "    ") + 
-				nextState + "     " + userNameSize);
-	}
-	
-	// Private method to move to the next character within the limits of the input line
-	private static void moveToNextCharacter() {
-		currentCharNdx++;
-		if (currentCharNdx < inputLine.length())
-			currentChar = inputLine.charAt(currentCharNdx);
-		else {
-			currentChar = ' ';
-			running = false;
-		}
-	}
+	// The recognizer used by the static checkForValidUserName method
+	private static final UserNameRecognizer DEFAULT = new UserNameRecognizer();
 
 	/**********
 	 * This method is a mechanical transformation of a Finite State Machine diagram into a Java
 	 * method.
-	 * 
+	 *
 	 * @param input		The input string for the Finite State Machine
-	 * @return			An output string that is empty if every things is okay or it is a String
-	 * 						with a helpful description of the error
+	 * @return			The result, with an error message that is empty if every things is okay or
+	 * 						a helpful description of the error otherwise
 	 */
-	public static String checkForValidUserName(String input) {
+	public ValidationResult recognize(String input) {
 		// Check to ensure that there is input to process
-		if(input.length() <= 0) {
-			userNameRecognizerIndexofError = 0;	// Error at first character;
-			return "*** ERROR *** The input is empty";
-		}
-		
-		// Reset the static flags for each validation
-		userNameSize = 0;
-		invalidSpecialCharacter = false;
-		finalState = false;
-		
-		// The local variables used to perform the Finite State Machine simulation
-		state = 0;							// This is the FSM state number
-		inputLine = input;					// Save the reference to the input line as a global
-		currentCharNdx = 0;					// The index of the current character
-		currentChar = input.charAt(0);		// The current character from above indexed position
+		if (input.length() <= 0)
+			return new ValidationResult(ERROR + "The input is empty", 0);
 
-		// The Finite State Machines continues until the end of the input is reached or at some 
+		// The Finite State Machines continues until the end of the input is reached or at some
 		// state the current character does not match any valid transition to a next state
+		int state = 0;
+		for (int currentCharNdx = 0; currentCharNdx < input.length(); currentCharNdx++) {
+			if (currentCharNdx >= MAX_LENGTH)
+				return new ValidationResult(ERROR + "A UserName must have no more than 20 character.", currentCharNdx);
 
-		userNameRecognizerInput = input;	// Save a copy of the input
-		running = true;						// Start the loop
-		nextState = -1;						// There is no next state
-		System.out.println("\nCurrent Final Input  Next  Date\nState   State Char  State  Size");
-		
-		// This is the place where semantic actions for a transition to the initial state occur
-		
-		userNameSize = 0;					// Initialize the UserName size
-
-		// The Finite State Machines continues until the end of the input is reached or at some 
-		// state the current character does not match any valid transition to a next state
-		while (running) {
-			// The switch statement takes the execution to the code for the current state, where
-			// that code sees whether or not the current character is valid to transition to a
-			// next state
+			state = TRANSITIONS[state][classOf(input.charAt(currentCharNdx))];
 			switch (state) {
-			case 0: 
-				// State 0 has 1 valid transition that is addressed by an if statement.
-				
-				// The current character is checked against A-Z, a-z, 0-9. If any are matched
-				// the FSM goes to state 1
-				
-				// A-Z, a-z, 0-9 -> State 1
-				if ((currentChar >= 'A' && currentChar <= 'Z') || (currentChar >= 'a' && currentChar <= 'z')) {
-					nextState = 1;
-					
-					// Count the character 
-					userNameSize++;
-					
-					// This only occurs once, so there is no need to check for the size getting
-					// too large.
-				}
-				// If it is none of those characters, the FSM halts
-				else 
-					running = false;
-				
-				// The execution of this state is finished
+			case BAD_START:
+				return new ValidationResult(ERROR + "A UserName must start with an alphabetic character (A-Z, a-z).", currentCharNdx);
+			case BAD_CHARACTER:
+				return new ValidationResult(INVALID_CHARACTER, currentCharNdx);
+			case BAD_AFTER_UNDERSCORE:
+				return new ValidationResult(ERROR + "A UserName character after an underscore must be A-Z, a-z, 0-9.", currentCharNdx);
+			default:
 				break;
-			
-			case 1: 
-				// State 1 has two valid transitions, 
-				//	1: a A-Z, a-z, 0-9 that transitions back to state 1
-				//  2: an underscore that transitions to state 2 
-
-				
-				// A-Z, a-z, 0-9 -> State 1
-				if ((currentChar >= 'A' && currentChar <= 'Z' ) ||		// Check for A-Z
-						(currentChar >= 'a' && currentChar <= 'z' ) ||	// Check for a-z
-						(currentChar >= '0' && currentChar <= '9' )) {	// Check for 0-9
-					nextState = 1;
-					
-					// Count the character
-					userNameSize++;
-				}
-				// _ -> State 2
-				else if (currentChar == '_') {
-                    nextState = 2;
-					
-					// Count the _
-					userNameSize++;
-				}
-				// If there's any character that's not a letter, digit, or underscore - halt with error
-				else {
-					invalidSpecialCharacter = true;
-					running = false;
-				}
-				
-				// The execution of this state is finished
-				// If the size is larger than 16, the loop must stop
-				if (userNameSize > 20)
-					running = false;
-				break;			
-				
-			case 2: 
-				// State 2 deals with a character after an _ in the name.
-				
-				// A-Z, a-z, 0-9 -> State 1
-				if ((currentChar >= 'A' && currentChar <= 'Z' ) ||		// Check for A-Z
-						(currentChar >= 'a' && currentChar <= 'z' ) ||	// Check for a-z
-						(currentChar >= '0' && currentChar <= '9' )) {	// Check for 0-9
-					nextState = 1;
-					
-					// Count the odd digit
-					userNameSize++;
-					
-				}
-				// If it is none of those characters, the FSM halts
-				else 
-					running = false;
-
-				// The execution of this state is finished
-				// If the size is larger than 20, the loop must stop
-				if (userNameSize > 20)
-					running = false;
-				break;			
-			}
-			
-			if (running) {
-				displayDebuggingInfo();
-				// When the processing of a state has finished, the FSM proceeds to the next
-				// character in the input and if there is one, it fetches that character and
-				// updates the currentChar.  If there is no next character the currentChar is
-				// set to a blank.
-				moveToNextCharacter();
-
-				// Move to the next state
-				state = nextState;
-				
-				// Is the new state a final state?  If so, signal this fact.
-				if (state == 1) finalState = true;
-
-				// Ensure that one of the cases sets this to a valid value
-				nextState = -1;
 			}
-			// Should the FSM get here, the loop starts again
-	
 		}
-		displayDebuggingInfo();
-		
-		System.out.println("The loop has ended.");
-		
-		// When the FSM halts, we must determine if the situation is an error or not.  That depends
-		// of the current state of the FSM and whether or not the whole string has been consumed.
-		// This switch directs the execution to separate code for each of the FSM states and that
-		// makes it possible for this code to display a very specific error message to improve the
-		// user experience.
-		userNameRecognizerIndexofError = currentCharNdx;	// Set index of a possible error;
-		userNameRecognizerErrorMessage = "*** ERROR *** ";
-		
-		// The following code is a slight variation to support just console output.
-		switch (state) {
-		case 0:
-			// State 0 is not a final state, so we can return a very specific error message
-			userNameRecognizerErrorMessage += "A UserName character may only contain the characters A-Z, a-z, 0-9, _.";
-			return userNameRecognizerErrorMessage;
 
-		case 1:
-			// State 1 is a final state.  Check to see if the UserName length is valid.  If so we
-			// we must ensure the whole string has been consumed.
+		// The whole input has been consumed, so whether it is valid depends on the state the
+		// FSM stopped in and the length of the input
+		if (state == 2)
+			return new ValidationResult(ERROR + "A UserName character after an underscore must be A-Z, a-z, 0-9.", input.length());
+		if (input.length() < MIN_LENGTH)
+			return new ValidationResult(ERROR + "A UserName must have at least 8 characters.", input.length());
+		return ValidationResult.VALID;
+	}
 
-			if (userNameSize < 8) {
-				// UserName is too small
-				userNameRecognizerErrorMessage += "A UserName must have at least 8 characters.";
-				return userNameRecognizerErrorMessage;
-			}
-			// Invalid special character check
-			else if (invalidSpecialCharacter) {
-				// There are invalid special characters in the input, so the input is not valid
-				userNameRecognizerErrorMessage += "A UserName character may only contain the characters A-Z, a-z, 0-9, _.";
-				return userNameRecognizerErrorMessage;
-			}
-			else if (userNameSize > 20) {
-				// UserName is too long
-				userNameRecognizerErrorMessage += "A UserName must have no more than 20 character.";
-				return userNameRecognizerErrorMessage;
-			}
-			else if (currentCharNdx < input.length()) {
-				// There are characters remaining in the input, so the input is not valid
-				userNameRecognizerErrorMessage += "A UserName character may only contain the characters A-Z, a-z, 0-9, _.";
-				return userNameRecognizerErrorMessage;
-			}
-			else {
-					// UserName is valid
-					userNameRecognizerIndexofError = -1;
-					userNameRecognizerErrorMessage = "";
-					return userNameRecognizerErrorMessage;
-			}
+	private static int classOf(char c) {
+		if ((c >= 'A' && c <= 'Z') || (c >= 'a' && c <= 'z'))
+			return LETTER;
+		if (c >= '0' && c <= '9')
+			return DIGIT;
+		if (c == '_')
+			return UNDERSCORE;
+		return OTHER;
+	}
 
-		case 2:
-			// State 2 is not a final state, so we can return a very specific error message
-			userNameRecognizerErrorMessage += "A UserName character after an underscore must be A-Z, a-z, 0-9.";
-			return userNameRecognizerErrorMessage;
-			
-		default:
-			// This is for the case where we have a state that is outside of the valid range.
-			// This should not happen
-			return "";
-		}
+	/**********
+	 * Checks a UserName with the shared recognizer.
+	 *
+	 * @param input		The input string for the Finite State Machine
+	 * @return			An output string that is empty if every things is okay or it is a String
+	 * 						with a helpful description of the error
+	 */
+	public static String checkForValidUserName(String input) {
+		return DEFAULT.recognize(input).getMessage();
 	}
-}
\ No newline at end of file
+}
@@ -1,11 +1,11 @@
 package application;
 
 import databasePart1.DatabaseHelper;
+import javafx.application.Platform;
 import javafx.scene.Scene;
 import javafx.scene.control.*;
 import javafx.scene.layout.VBox;
 import javafx.stage.Stage;
-import java.sql.SQLException;
 
 public class UserPasswordReset {
 
@@ -16,6 +16,9 @@ public class UserPasswordReset {
     }
 
     public void show(Stage primaryStage, Scene previousScene) {
+        // Load the compromised password screen while the new password is being typed
+        BreachedPasswordScreen.getDefault().preload();
+
         DatabaseHelper databaseHelper = new DatabaseHelper();
         VBox layout = new VBox(10);
         layout.setStyle("-fx-padding: 20; -fx-alignment: center;");
@@ -40,13 +43,17 @@ public class UserPasswordReset {
                 return;
             }
             
-            try {
-                databaseHelper.updatePassword(userName, newPassword);
+            // Hash the password off the JavaFX thread, then continue on it
+            resetPasswordButton.setDisable(true);
+            databaseHelper.updatePasswordAsync(userName, newPassword).whenComplete((ignored, error) -> Platform.runLater(() -> {
+                resetPasswordButton.setDisable(false);
+                if (error != null) {
+                    errorLabel.setText("Database error: Unable to update password.");
+                    error.printStackTrace();
+                    return;
+                }
                 primaryStage.setScene(previousScene);
-            } catch (SQLException ex) {
-                errorLabel.setText("Database error: Unable to update password.");
-                ex.printStackTrace();
-            }
+            }));
         });
 
         Button backButton = new Button("Back");
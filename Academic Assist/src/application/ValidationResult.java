@@ -0,0 +1,35 @@
+package application;
+
+/**
+ * The immutable outcome of checking one field, such as a username or an email address:
+ * an error message that is empty when the field is valid, and the index of the character
+ * where the error was found.
+ */
+public final class ValidationResult {
+
+    /** The result of every valid field */
+    public static final ValidationResult VALID = new ValidationResult("", -1);
+
+    private final String message;
+    private final int indexOfError;
+
+    ValidationResult(String message, int indexOfError) {
+        this.message = message;
+        this.indexOfError = indexOfError;
+    }
+
+    /** Returns true if the field is valid */
+    public boolean isValid() {
+        return message.isEmpty();
+    }
+
+    /** Returns the error message, or an empty string if the field is valid */
+    public String getMessage() {
+        return message;
+    }
+
+    /** Returns the index of the character where the error was found, or -1 if the field is valid */
+    public int getIndexOfError() {
+        return indexOfError;
+    }
+}
@@ -0,0 +1,317 @@
+package databasePart1;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Removes a question's or a user's whole content graph, live and archived, so no row
+ * is left behind pointing at something that no longer exists.
+ *
+ * <p>Every table is cleared with set-based deletes keyed by the IDs or the user name
+ * being purged, and the whole purge is committed as one transaction. The IDs of a large
+ * graph, such as all the questions of a prolific user, are deleted a batch at a time so
+ * no statement carries more than a batch of parameters. The reviewer aggregates are
+ * adjusted for the reviews that go, and the caller is told which questions were removed
+ * or changed so it can update its caches.</p>
+ *
+ * <p>The tables are created by different helpers, so the caller makes sure every
+ * table the purge touches exists before creating a purger.</p>
+ */
+class ContentPurger {
+
+    static final int DEFAULT_BATCH_SIZE = 500;
+
+    /**
+     * Work done inside the purge transaction.
+     */
+    private interface Work {
+        void run() throws SQLException;
+    }
+
+    private final Connection connection;
+    private final int batchSize;
+    private final Set<Integer> removedQuestions = new HashSet<>();
+    private final Set<Integer> changedQuestions = new HashSet<>();
+    private final Set<Integer> unresolvedQuestions = new HashSet<>();
+    private boolean reviewerStatsChanged = false;
+
+    ContentPurger(Connection connection, int batchSize) {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("batchSize must be at least 1");
+        }
+        this.connection = connection;
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Deletes questions with their answers, reviews, review feedback, feedback, chat
+     * messages and flags, whether they are live or archived.
+     *
+     * @param questionIDs The IDs of the questions
+     */
+    void purgeQuestions(List<Integer> questionIDs) throws SQLException {
+        inTransaction(() -> {
+            deleteLiveThreads(questionIDs);
+            deleteArchivedThreads(questionIDs);
+        });
+    }
+
+    /**
+     * Deletes a user with everything they posted, sent or saved: their questions with
+     * everything under them, their answers with the reviews of those answers, their
+     * reviews, feedback, chat messages, flags, saved searches, alerts, subscriptions,
+     * ratings, reviewer profile and requests.
+     *
+     * @param userName The name of the user
+     * @return Whether the user existed
+     */
+    boolean purgeUser(String userName) throws SQLException {
+        boolean[] existed = {false};
+        inTransaction(() -> {
+            deleteLiveThreads(ids("SELECT questionID FROM Questions WHERE postedBy = ?", userName));
+            deleteAnswers(ids("SELECT answerID FROM Answers WHERE answeredBy = ?", userName));
+
+            // The user's own reviews; their aggregates go with their ReviewerStats row
+            changedQuestions.addAll(ids("SELECT DISTINCT questionID FROM Reviews WHERE reviewerName = ?", userName));
+            update("DELETE FROM Reviews WHERE reviewerName = ?", userName);
+            update("DELETE FROM ReviewFeedback WHERE sentBy = ? OR sentTo = ?", userName, userName);
+
+            // Replies to the user's feedback go with it through the parentID cascade
+            changedQuestions.addAll(ids("SELECT DISTINCT questionID FROM Feedback WHERE (sentBy = ? OR sentTo = ?) "
+                    + "AND questionID IS NOT NULL", userName, userName));
+            update("DELETE FROM Feedback WHERE sentBy = ? OR sentTo = ?", userName, userName);
+            update("DELETE FROM FlaggedContent WHERE contentType = 'Feedback' "
+                    + "AND NOT EXISTS (SELECT 1 FROM Feedback f WHERE f.id = FlaggedContent.contentID) "
+                    + "AND NOT EXISTS (SELECT 1 FROM ArchivedFeedback a WHERE a.id = FlaggedContent.contentID)");
+            update("DELETE FROM ChatMessages WHERE reviewer_username = ? OR student_username = ?", userName, userName);
+            update("DELETE FROM FlaggedContent WHERE flaggedBy = ?", userName);
+
+            update("DELETE FROM SearchAlerts WHERE userName = ?", userName);
+            update("DELETE FROM SavedSearches WHERE userName = ?", userName);
+            update("DELETE FROM QuestionSubscriptions WHERE userName = ?", userName);
+
+            // Ratings the user gave as a student come off the reviewers' aggregates
+            if (update("UPDATE ReviewerStats s SET "
+                    + "ratingSum = ratingSum - (SELECT COALESCE(SUM(w.weight), 0) FROM ReviewerWeights w "
+                    + "WHERE w.studentUsername = ? AND w.reviewerUsername = s.reviewerName), "
+                    + "ratingCount = ratingCount - (SELECT COUNT(*) FROM ReviewerWeights w "
+                    + "WHERE w.studentUsername = ? AND w.reviewerUsername = s.reviewerName) "
+                    + "WHERE reviewerName IN (SELECT reviewerUsername FROM ReviewerWeights WHERE studentUsername = ?)",
+                    userName, userName, userName) > 0) {
+                reviewerStatsChanged = true;
+            }
+            update("DELETE FROM ReviewerWeights WHERE studentUsername = ? OR reviewerUsername = ?", userName, userName);
+            if (update("DELETE FROM ReviewerStats WHERE reviewerName = ?", userName) > 0) {
+                reviewerStatsChanged = true;
+            }
+            update("DELETE FROM ReviewerProfiles WHERE userName = ?", userName);
+            update("DELETE FROM ReviewerRequests WHERE studentName = ? OR instructorUsername = ?", userName, userName);
+            update("DELETE FROM admin_access_requests WHERE username = ?", userName);
+
+            purgeArchivedContent(userName);
+            existed[0] = update("DELETE FROM cse360users WHERE userName = ?", userName) > 0;
+        });
+        return existed[0];
+    }
+
+    /** Returns the IDs of the live questions that were deleted */
+    Set<Integer> getRemovedQuestions() { return Collections.unmodifiableSet(removedQuestions); }
+    /** Returns the IDs of the live questions that lost answers, reviews or feedback */
+    Set<Integer> getChangedQuestions() { return Collections.unmodifiableSet(changedQuestions); }
+    /** Returns the IDs of the live questions whose accepted answer was deleted */
+    Set<Integer> getUnresolvedQuestions() { return Collections.unmodifiableSet(unresolvedQuestions); }
+    /** Returns whether the aggregates of any reviewer changed */
+    boolean isReviewerStatsChanged() { return reviewerStatsChanged; }
+
+    private void deleteLiveThreads(List<Integer> questionIDs) throws SQLException {
+        for (List<Integer> batch : batches(questionIDs)) {
+            String in = placeholders(batch.size());
+            subtractReviews("Reviews", "r.questionID IN (" + in + ")", batch);
+            update("DELETE FROM FlaggedContent WHERE (contentType = 'Question' AND contentID IN (" + in + ")) "
+                    + "OR (contentType = 'Answer' AND contentID IN (SELECT answerID FROM Answers WHERE questionID IN (" + in + "))) "
+                    + "OR (contentType = 'Feedback' AND contentID IN (SELECT id FROM Feedback WHERE questionID IN (" + in + ")))",
+                    batch, batch, batch);
+            update("DELETE FROM ReviewFeedback WHERE reviewID IN (SELECT reviewID FROM Reviews WHERE questionID IN (" + in + "))", batch);
+            update("DELETE FROM Reviews WHERE questionID IN (" + in + ")", batch);
+            update("DELETE FROM ChatMessages WHERE question_id IN (" + in + ")", batch);
+            update("DELETE FROM Feedback WHERE questionID IN (" + in + ")", batch);
+            update("DELETE FROM Answers WHERE questionID IN (" + in + ")", batch);
+            // Signatures, LSH buckets, search alerts and subscriptions go through their cascades
+            update("DELETE FROM Questions WHERE questionID IN (" + in + ")", batch);
+            removedQuestions.addAll(batch);
+        }
+    }
+
+    private void deleteArchivedThreads(List<Integer> questionIDs) throws SQLException {
+        for (List<Integer> batch : batches(questionIDs)) {
+            String in = placeholders(batch.size());
+            // Reviewer aggregates count archived reviews too
+            subtractReviews("ArchivedReviews", "r.questionID IN (" + in + ")", batch);
+            update("DELETE FROM FlaggedContent WHERE (contentType = 'Question' AND contentID IN (" + in + ")) "
+                    + "OR (contentType = 'Answer' AND contentID IN (SELECT answerID FROM ArchivedAnswers WHERE questionID IN (" + in + "))) "
+                    + "OR (contentType = 'Feedback' AND contentID IN (SELECT id FROM ArchivedFeedback WHERE questionID IN (" + in + ")))",
+                    batch, batch, batch);
+            update("DELETE FROM ArchivedReviewFeedback WHERE reviewID IN "
+                    + "(SELECT reviewID FROM ArchivedReviews WHERE questionID IN (" + in + "))", batch);
+            update("DELETE FROM ArchivedReviews WHERE questionID IN (" + in + ")", batch);
+            update("DELETE FROM ArchivedChatMessages WHERE question_id IN (" + in + ")", batch);
+            update("DELETE FROM ArchivedFeedback WHERE questionID IN (" + in + ")", batch);
+            update("DELETE FROM ArchivedAnswers WHERE questionID IN (" + in + ")", batch);
+            update("DELETE FROM ArchivedQuestions WHERE questionID IN (" + in + ")", batch);
+        }
+    }
+
+    /**
+     * Deletes answers posted under other users' questions, with their reviews, flags
+     * and search alerts. A question whose accepted answer goes is marked unresolved.
+     */
+    private void deleteAnswers(List<Integer> answerIDs) throws SQLException {
+        for (List<Integer> batch : batches(answerIDs)) {
+            String in = placeholders(batch.size());
+            changedQuestions.addAll(ids("SELECT DISTINCT questionID FROM Answers WHERE answerID IN (" + in + ")", batch));
+            unresolvedQuestions.addAll(ids("SELECT questionID FROM Questions WHERE acceptedAnsID IN (" + in + ")", batch));
+            subtractReviews("Reviews", "r.answerID IN (" + in + ")", batch);
+            update("DELETE FROM FlaggedContent WHERE contentType = 'Answer' AND contentID IN (" + in + ")", batch);
+            // Alerts keep a copy of the answer, and only cascade with the question
+            update("DELETE FROM SearchAlerts WHERE contentType = 'Answer' AND contentID IN (" + in + ")", batch);
+            update("DELETE FROM Reviews WHERE answerID IN (" + in + ")", batch);
+            update("UPDATE Questions SET acceptedAnsID = -1, resolvedStatus = FALSE WHERE acceptedAnsID IN (" + in + ")", batch);
+            update("DELETE FROM Answers WHERE answerID IN (" + in + ")", batch);
+        }
+    }
+
+    /**
+     * Deletes a user's archived threads and the archived rows they wrote. Archived rows
+     * have no cascades, so replies left without their parent are deleted as well.
+     */
+    private void purgeArchivedContent(String userName) throws SQLException {
+        deleteArchivedThreads(ids("SELECT questionID FROM ArchivedQuestions WHERE postedBy = ?", userName));
+
+        String reviewsToDelete = "r.reviewerName = ? OR r.answerID IN (SELECT answerID FROM ArchivedAnswers WHERE answeredBy = ?)";
+        update("UPDATE ReviewerStats s SET totalReviews = totalReviews - (SELECT COUNT(*) FROM ArchivedReviews r "
+                + "WHERE r.reviewerName = s.reviewerName AND r.answerID IN (SELECT answerID FROM ArchivedAnswers WHERE answeredBy = ?)) "
+                + "WHERE reviewerName IN (SELECT r.reviewerName FROM ArchivedReviews r "
+                + "WHERE r.answerID IN (SELECT answerID FROM ArchivedAnswers WHERE answeredBy = ?))", userName, userName);
+        update("DELETE FROM ArchivedReviewFeedback WHERE sentBy = ? OR sentTo = ? OR reviewID IN "
+                + "(SELECT r.reviewID FROM ArchivedReviews r WHERE " + reviewsToDelete + ")",
+                userName, userName, userName, userName);
+        update("DELETE FROM ArchivedReviews r WHERE " + reviewsToDelete, userName, userName);
+        update("DELETE FROM FlaggedContent WHERE contentType = 'Answer' AND contentID IN "
+                + "(SELECT answerID FROM ArchivedAnswers WHERE answeredBy = ?)", userName);
+        update("UPDATE ArchivedQuestions SET acceptedAnsID = -1, resolvedStatus = FALSE WHERE acceptedAnsID IN "
+                + "(SELECT answerID FROM ArchivedAnswers WHERE answeredBy = ?)", userName);
+        update("DELETE FROM ArchivedAnswers WHERE answeredBy = ?", userName);
+        update("DELETE FROM ArchivedFeedback WHERE sentBy = ? OR sentTo = ?", userName, userName);
+        update("DELETE FROM ArchivedChatMessages WHERE reviewer_username = ? OR student_username = ?", userName, userName);
+
+        deleteOrphanReplies("ArchivedFeedback");
+        deleteOrphanReplies("ArchivedReviewFeedback");
+    }
+
+    /**
+     * Deletes the replies whose parent message was deleted, one level of replies per round.
+     */
+    private void deleteOrphanReplies(String table) throws SQLException {
+        int deleted;
+        do {
+            deleted = update("DELETE FROM " + table + " WHERE parentID IS NOT NULL "
+                    + "AND parentID NOT IN (SELECT id FROM " + table + ")");
+        } while (deleted > 0);
+    }
+
+    /**
+     * Takes reviews that are about to be deleted out of the reviewer aggregates.
+     *
+     * @param table Reviews or ArchivedReviews
+     * @param condition Selects the reviews, with the table aliased as {@code r}
+     */
+    private void subtractReviews(String table, String condition, List<Integer> ids) throws SQLException {
+        // Archived reviews are not used to find the time of a reviewer's latest review
+        String lastReviewTime = table.equals("Reviews")
+                ? ", lastReviewTime = (SELECT MAX(r.dateCreated) FROM Reviews r WHERE r.reviewerName = s.reviewerName AND NOT (" + condition + "))"
+                : "";
+        String query = "UPDATE ReviewerStats s SET totalReviews = totalReviews - (SELECT COUNT(*) FROM " + table + " r "
+                + "WHERE r.reviewerName = s.reviewerName AND (" + condition + "))" + lastReviewTime
+                + " WHERE reviewerName IN (SELECT r.reviewerName FROM " + table + " r WHERE " + condition + ")";
+        if (table.equals("Reviews") ? update(query, ids, ids, ids) > 0 : update(query, ids, ids) > 0) {
+            reviewerStatsChanged = true;
+        }
+    }
+
+    private void inTransaction(Work work) throws SQLException {
+        boolean autoCommit = connection.getAutoCommit();
+        connection.setAutoCommit(false);
+        try {
+            work.run();
+            connection.commit();
+        } catch (SQLException | RuntimeException e) {
+            connection.rollback();
+            removedQuestions.clear();
+            changedQuestions.clear();
+            unresolvedQuestions.clear();
+            reviewerStatsChanged = false;
+            throw e;
+        } finally {
+            connection.setAutoCommit(autoCommit);
+        }
+    }
+
+    /**
+     * Runs an update, binding each parameter in turn; a list binds each of its IDs.
+     */
+    private int update(String query, Object... params) throws SQLException {
+        try (PreparedStatement pstmt = connection.prepareStatement(query)) {
+            bind(pstmt, params);
+            return pstmt.executeUpdate();
+        }
+    }
+
+    private List<Integer> ids(String query, Object... params) throws SQLException {
+        List<Integer> ids = new ArrayList<>();
+        try (PreparedStatement pstmt = connection.prepareStatement(query)) {
+            bind(pstmt, params);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    ids.add(rs.getInt(1));
+                }
+            }
+        }
+        return ids;
+    }
+
+    private static void bind(PreparedStatement pstmt, Object... params) throws SQLException {
+        int index = 1;
+        for (Object param : params) {
+            if (param instanceof List) {
+                for (Object id : (List<?>) param) {
+                    pstmt.setInt(index++, (Integer) id);
+                }
+            } else {
+                pstmt.setString(index++, (String) param);
+            }
+        }
+    }
+
+    private List<List<Integer>> batches(List<Integer> ids) {
+        List<List<Integer>> batches = new ArrayList<>();
+        for (int i = 0; i < ids.size(); i += batchSize) {
+            batches.add(ids.subList(i, Math.min(i + batchSize, ids.size())));
+        }
+        return batches;
+    }
+
+    private static String placeholders(int count) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            sb.append(i == 0 ? "?" : ", ?");
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,118 @@
+package databasePart1;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reads comma-separated records one at a time, so a file of any size can be processed
+ * without holding it in memory.
+ *
+ * <p>Fields may be quoted with double quotes, in which case they can contain commas,
+ * line breaks and doubled quotes standing for one quote. Records end at a line feed,
+ * optionally preceded by a carriage return. Blank lines are skipped.</p>
+ */
+class CsvReader {
+
+    private final Reader reader;
+    private int peeked = -2;
+    private long lineNumber = 0;
+    private long recordLine = 0;
+
+    /**
+     * Creates a reader of the records in a character stream. The stream should be buffered.
+     */
+    CsvReader(Reader reader) {
+        this.reader = reader;
+    }
+
+    /**
+     * Reads the next record.
+     *
+     * @return The fields of the record, or null at the end of the input
+     * @throws IOException if the input cannot be read or a quoted field is not closed
+     */
+    List<String> next() throws IOException {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean inQuotes = false;
+        boolean fieldStarted = false;
+        while (true) {
+            int c = read();
+            if (c == -1) {
+                if (inQuotes) {
+                    throw new IOException("Unclosed quote in the record starting on line " + recordLine);
+                }
+                if (!fieldStarted && fields.isEmpty()) {
+                    return null;
+                }
+                fields.add(field.toString());
+                return fields;
+            }
+            if (!fieldStarted && fields.isEmpty()) {
+                recordLine = lineNumber + 1;
+            }
+            if (inQuotes) {
+                if (c == '"') {
+                    if (peek() == '"') {
+                        read();
+                        field.append('"');
+                    } else {
+                        inQuotes = false;
+                    }
+                } else {
+                    if (c == '\n') {
+                        lineNumber++;
+                    }
+                    field.append((char) c);
+                }
+                continue;
+            }
+            if (c == '\r' && peek() == '\n') {
+                continue;
+            }
+            if (c == '\n') {
+                lineNumber++;
+                if (!fieldStarted && fields.isEmpty()) {
+                    // Skip blank lines
+                    continue;
+                }
+                fields.add(field.toString());
+                return fields;
+            }
+            fieldStarted = true;
+            if (c == '"' && field.length() == 0) {
+                inQuotes = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append((char) c);
+            }
+        }
+    }
+
+    /**
+     * Returns the line number on which the last record read started.
+     */
+    long getRecordLine() {
+        return recordLine;
+    }
+
+    private int read() throws IOException {
+        if (peeked != -2) {
+            int c = peeked;
+            peeked = -2;
+            return c;
+        }
+        return reader.read();
+    }
+
+    private int peek() throws IOException {
+        if (peeked == -2) {
+            peeked = reader.read();
+        }
+        return peeked;
+    }
+}
@@ -0,0 +1,245 @@
+package databasePart1;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Takes snapshots of the database while the application keeps running, and restores
+ * the database from one.
+ *
+ * <p>A snapshot is a gzip-compressed SQL script written by H2's {@code SCRIPT} command
+ * on a connection of its own. The script is read from a consistent snapshot of the
+ * database, so users keep posting while it is taken. Snapshots are named by the time
+ * they were taken, and only the newest ones are kept.</p>
+ *
+ * <p>The default instance keeps its snapshots in {@code ~/AcademicAssist/backups}. The
+ * {@code academicassist.backup.dir}, {@code academicassist.backup.keep} and
+ * {@code academicassist.backup.intervalMinutes} system properties change where they are
+ * kept, how many are kept and how often they are taken.</p>
+ *
+ * <p>Operators can also run the class on its own:
+ * {@code java databasePart1.DatabaseBackup backup|list|restore <file>}.</p>
+ */
+public class DatabaseBackup {
+
+    static final String PREFIX = "FoundationDatabase-";
+    static final String SUFFIX = ".sql.gz";
+    static final int DEFAULT_KEEP = 24;
+    static final long DEFAULT_INTERVAL_MINUTES = 60;
+
+    private static final DateTimeFormatter NAME_FORMAT = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss-SSS");
+    private static DatabaseBackup defaultBackup;
+
+    private final String url;
+    private final Path directory;
+    private final int keep;
+    private ScheduledExecutorService scheduler;
+    private LocalDateTime lastSnapshotTime = LocalDateTime.MIN;
+
+    /**
+     * Creates a backup manager.
+     *
+     * @param url The JDBC URL of the database
+     * @param directory The directory snapshots are written to
+     * @param keep The number of snapshots to keep; older ones are deleted
+     */
+    public DatabaseBackup(String url, Path directory, int keep) {
+        if (keep < 1) {
+            throw new IllegalArgumentException("keep must be at least 1");
+        }
+        this.url = url;
+        this.directory = directory;
+        this.keep = keep;
+    }
+
+    /**
+     * Returns the backup manager of the application database, configured from the
+     * system properties.
+     */
+    public static synchronized DatabaseBackup getDefault() {
+        if (defaultBackup == null) {
+            Path directory = Paths.get(System.getProperty("academicassist.backup.dir",
+                    Paths.get(System.getProperty("user.home"), "AcademicAssist", "backups").toString()));
+            int keep = Integer.getInteger("academicassist.backup.keep", DEFAULT_KEEP);
+            defaultBackup = new DatabaseBackup(DatabaseHelper.DB_URL, directory, keep);
+        }
+        return defaultBackup;
+    }
+
+    /**
+     * Starts taking a snapshot of the default database at the configured interval, the
+     * first one right away. Does nothing if snapshots are already scheduled.
+     */
+    public static void startScheduled() {
+        long minutes = Long.getLong("academicassist.backup.intervalMinutes", DEFAULT_INTERVAL_MINUTES);
+        getDefault().schedule(Duration.ofMinutes(minutes));
+    }
+
+    /**
+     * Takes a snapshot now and then once per interval on a background thread, until
+     * {@link #stop()} is called. Does nothing if snapshots are already scheduled.
+     */
+    public synchronized void schedule(Duration interval) {
+        if (scheduler != null) {
+            return;
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "database-backup");
+            thread.setDaemon(true);
+            thread.setPriority(Thread.MIN_PRIORITY);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(() -> {
+            try {
+                Path snapshot = backupNow();
+                System.out.println("Database snapshot written to " + snapshot);
+            } catch (SQLException | IOException e) {
+                System.err.println("Database snapshot failed: " + e.getMessage());
+            }
+        }, 0, interval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Stops taking scheduled snapshots.
+     */
+    public synchronized void stop() {
+        if (scheduler != null) {
+            scheduler.shutdown();
+            scheduler = null;
+        }
+    }
+
+    /**
+     * Takes a snapshot and deletes the snapshots beyond the number to keep.
+     *
+     * @return The snapshot file
+     */
+    public synchronized Path backupNow() throws SQLException, IOException {
+        Path snapshot = writeSnapshot();
+        rotate();
+        return snapshot;
+    }
+
+    // Snapshots are written one at a time, so their names stay unique and in order
+    private synchronized Path writeSnapshot() throws SQLException, IOException {
+        Files.createDirectories(directory);
+        LocalDateTime time = LocalDateTime.now().truncatedTo(ChronoUnit.MILLIS);
+        if (!time.isAfter(lastSnapshotTime)) {
+            time = lastSnapshotTime.plusNanos(1_000_000);
+        }
+        lastSnapshotTime = time;
+        Path snapshot = directory.resolve(PREFIX + time.format(NAME_FORMAT) + SUFFIX);
+        try (Connection connection = DriverManager.getConnection(url, DatabaseHelper.USER, DatabaseHelper.PASS);
+             Statement statement = connection.createStatement()) {
+            statement.execute("SCRIPT TO " + quote(snapshot) + " COMPRESSION GZIP");
+        }
+        return snapshot;
+    }
+
+    /**
+     * Returns the snapshots in the backup directory, newest first.
+     */
+    public List<Path> listBackups() throws IOException {
+        List<Path> backups = new ArrayList<>();
+        if (!Files.isDirectory(directory)) {
+            return backups;
+        }
+        try (Stream<Path> files = Files.list(directory)) {
+            files.filter(DatabaseBackup::isSnapshot).forEach(backups::add);
+        }
+        // The names hold the time the snapshot was taken, so they sort in time order
+        backups.sort((a, b) -> b.getFileName().toString().compareTo(a.getFileName().toString()));
+        return backups;
+    }
+
+    /**
+     * Replaces the contents of the database with a snapshot.
+     *
+     * <p>A snapshot of the current contents is taken first, so a restore can be undone.
+     * The caches of the database helpers are dropped afterwards, and other open
+     * connections see the restored data on their next statement.</p>
+     *
+     * @param snapshot The snapshot to restore
+     * @return The snapshot taken of the contents before the restore
+     */
+    public synchronized Path restore(Path snapshot) throws SQLException, IOException {
+        if (!Files.isRegularFile(snapshot)) {
+            throw new IOException("No snapshot at " + snapshot);
+        }
+        // Old snapshots are only rotated out afterwards, so the one being restored stays
+        Path before = writeSnapshot();
+        try (Connection connection = DriverManager.getConnection(url, DatabaseHelper.USER, DatabaseHelper.PASS);
+             Statement statement = connection.createStatement()) {
+            statement.execute("DROP ALL OBJECTS");
+            statement.execute("RUNSCRIPT FROM " + quote(snapshot) + " COMPRESSION GZIP");
+        } catch (SQLException e) {
+            throw new SQLException("Restore failed; the previous contents are saved in " + before + ": " + e.getMessage(), e);
+        } finally {
+            DatabaseHelper.invalidateCaches();
+            DatabaseHelper2.invalidateCaches();
+            DatabaseHelper3.invalidateCaches();
+        }
+        rotate();
+        return before;
+    }
+
+    private void rotate() throws IOException {
+        List<Path> backups = listBackups();
+        for (int i = keep; i < backups.size(); i++) {
+            Files.deleteIfExists(backups.get(i));
+        }
+    }
+
+    private static boolean isSnapshot(Path path) {
+        String name = path.getFileName().toString();
+        return name.startsWith(PREFIX) && name.endsWith(SUFFIX);
+    }
+
+    private static String quote(Path path) {
+        return "'" + path.toAbsolutePath().toString().replace("'", "''") + "'";
+    }
+
+    /**
+     * Backs up, lists or restores the application database from the command line.
+     */
+    public static void main(String[] args) throws Exception {
+        DatabaseBackup backup = getDefault();
+        String command = args.length > 0 ? args[0] : "";
+        switch (command) {
+            case "backup":
+                System.out.println("Snapshot written to " + backup.backupNow());
+                break;
+            case "list":
+                for (Path snapshot : backup.listBackups()) {
+                    System.out.println(snapshot);
+                }
+                break;
+            case "restore":
+                if (args.length < 2) {
+                    System.err.println("Usage: DatabaseBackup restore <snapshot file>");
+                    return;
+                }
+                Path before = backup.restore(Paths.get(args[1]));
+                System.out.println("Restored " + args[1] + "; the previous contents were saved to " + before);
+                break;
+            default:
+                System.err.println("Usage: DatabaseBackup backup | list | restore <snapshot file>");
+        }
+    }
+}
@@ -1,9 +1,16 @@
 package databasePart1;
 
+import java.io.IOException;
+import java.io.Reader;
 import java.sql.*;
-import java.util.UUID;
+import java.security.SecureRandom;
 import java.util.List;
 import java.util.ArrayList;
+import java.util.Map;
+import java.util.Set;
+import java.util.HashSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.IntConsumer;
 import java.time.LocalDateTime;
 
 import application.Request;
@@ -28,6 +35,15 @@ public class DatabaseHelper {
 
     private Connection connection = null;
     private Statement statement = null; 
+
+    // Profile and role of recently looked up users, shared by every helper instance.
+    // Passwords are never cached.
+    private static final LruCache<String, User> userCache = new LruCache<>(1000);
+
+    // Invitation codes are drawn from letters and digits that are not easily confused
+    static final int INVITATION_CODE_LENGTH = 10;
+    private static final String INVITATION_CODE_ALPHABET = "ABCDEFGHJKLMNPQRSTUVWXYZ23456789";
+    private static final SecureRandom codeRandom = new SecureRandom();
  
     /**
      * Connects to the database and creates the necessary tables.
@@ -48,6 +64,21 @@ public class DatabaseHelper {
         }
     }
 
+    /**
+     * Connects to a database whose tables already exist, without setting them up.
+     * Used by background readers, which would otherwise pay for the table setup
+     * on every connection.
+     */
+    public void connectToExistingDatabase() throws SQLException {
+        try {
+            Class.forName(JDBC_DRIVER);
+            connection = DriverManager.getConnection(DB_URL, USER, PASS);
+            statement = connection.createStatement();
+        } catch (ClassNotFoundException e) {
+            System.err.println("JDBC Driver not found: " + e.getMessage());
+        }
+    }
+
     /**
      * This method ensures that the database connection is open.
      * If the connection is null or closed, it will attempt to reconnect.
@@ -138,7 +169,7 @@ public class DatabaseHelper {
     }
 
     /**
-     * Registers a new user in the database.
+     * Registers a new user in the database. The password is stored as a salted hash.
      */
     public void register(User user) throws SQLException {
         // Ensure connection is open before executing any operation
@@ -146,13 +177,45 @@ public class DatabaseHelper {
         String insertUser = "INSERT INTO cse360users (userName, password, role, firstName, lastName, email) VALUES (?, ?, ?, ?, ?, ?)";
         try (PreparedStatement pstmt = connection.prepareStatement(insertUser)) {
             pstmt.setString(1, user.getUserName());
-            pstmt.setString(2, user.getPassword());
+            pstmt.setString(2, PasswordHasher.hash(user.getPassword()));
             pstmt.setString(3, user.getRole());
             pstmt.setString(4, user.getfirstName()); // or getFirstName() if renamed
             pstmt.setString(5, user.getlastName());  // or getLastName() if renamed
             pstmt.setString(6, user.getemail());     // or getEmail() if renamed
             pstmt.executeUpdate();
         }
+        userCache.remove(user.getUserName());
+    }
+
+    /**
+     * Registers a new user on the password worker pool, so hashing the password does
+     * not block the calling thread.
+     *
+     * @return A future completed once the user is registered
+     */
+    public CompletableFuture<Void> registerAsync(User user) {
+        return PasswordHasher.submit(() -> {
+            register(user);
+            return null;
+        });
+    }
+
+    /**
+     * Creates and updates users from a CSV roster. See {@link RosterImporter} for the
+     * columns a roster may have.
+     *
+     * @param csv The roster, with a header row
+     * @param progress Called with the number of rows handled so far, or null
+     * @return The outcome of each row
+     */
+    public RosterImportResult importRoster(Reader csv, IntConsumer progress) throws IOException, SQLException {
+        ensureConnected();
+        try {
+            return new RosterImporter(connection).importRoster(csv, progress);
+        } finally {
+            // Rows written before a failure may have changed cached users too
+            userCache.clear();
+        }
     }
 
 
@@ -160,32 +223,89 @@ public class DatabaseHelper {
      * Validates a user's login credentials.
      */
     public boolean login(User user) throws SQLException {
-        // Ensure connection is open before executing any operation
-        ensureConnected();
+        User stored = authenticate(user.getUserName(), user.getPassword());
+        if (stored == null) {
+            return false;
+        }
+        // Get the stored role from the database
+        String storedRole = stored.getRole();
+        String requestedRole = user.getRole();
         
-        // Modified query to only check username and password
-        String query = "SELECT * FROM cse360users WHERE userName = ? AND password = ?";
+        // Case insensitive check for empty role or matching role
+        return requestedRole.isEmpty() || 
+            storedRole.equalsIgnoreCase(requestedRole) || 
+            storedRole.toLowerCase().contains(requestedRole.toLowerCase());
+    }
+    
+    /**
+     * Checks a user's credentials and loads their role and profile in the same query.
+     * The profile is added to the user cache, so the role and name lookups made by the
+     * pages shown after login do not go back to the database. Passwords stored in plain
+     * text or hashed with an older work factor are rehashed once they are verified.
+     * An unknown username is checked against a dummy hash, so it takes as long to
+     * reject as a wrong password.
+     *
+     * @param userName The username entered
+     * @param password The password or one-time password entered
+     * @return The user with their role and profile, or null if the credentials do not match
+     * @throws SQLException if a database error occurs
+     */
+    public User authenticate(String userName, String password) throws SQLException {
+        ensureConnected();
+        String query = "SELECT password, role, firstName, lastName, email FROM cse360users WHERE userName = ?";
         try (PreparedStatement pstmt = connection.prepareStatement(query)) {
-            pstmt.setString(1, user.getUserName());
-            pstmt.setString(2, user.getPassword());
+            pstmt.setString(1, userName);
             try (ResultSet rs = pstmt.executeQuery()) {
-                if (rs.next()) {
-                    // Get the stored role from the database
-                    String storedRole = rs.getString("role");
-                    String requestedRole = user.getRole();
-                    
-                    // Case insensitive check for empty role or matching role
-                    if (requestedRole.isEmpty() || 
-                        storedRole.equalsIgnoreCase(requestedRole) || 
-                        storedRole.toLowerCase().contains(requestedRole.toLowerCase())) {
-                        return true;
-                    }
+                if (!rs.next()) {
+                    // Unknown users take as long as wrong passwords
+                    PasswordHasher.verifyAbsentUser(password);
+                    return null;
                 }
-                return false;
+                String storedPassword = rs.getString("password");
+                if (!PasswordHasher.verify(password, storedPassword)) {
+                    return null;
+                }
+                if (PasswordHasher.needsRehash(storedPassword)) {
+                    storePassword(userName, PasswordHasher.hash(password));
+                }
+                String role = rs.getString("role");
+                String firstName = rs.getString("firstName");
+                String lastName = rs.getString("lastName");
+                String email = rs.getString("email");
+                userCache.put(userName, new User(userName, "", role, firstName, lastName, email));
+                return new User(userName, password, role, firstName, lastName, email);
             }
         }
     }
-    
+
+    /**
+     * Authenticates a user on the password worker pool, so verifying the password does
+     * not block the calling thread.
+     *
+     * @return A future completed with the user, or with null if the credentials do not match
+     * @see #authenticate(String, String)
+     */
+    public CompletableFuture<User> authenticateAsync(String userName, String password) {
+        return PasswordHasher.submit(() -> authenticate(userName, password));
+    }
+
+    /**
+     * Sets the number of PBKDF2 iterations used when passwords are hashed. Existing
+     * hashes keep working and are upgraded the next time their user logs in.
+     *
+     * @param iterations The new work factor
+     */
+    public static void setPasswordHashIterations(int iterations) {
+        PasswordHasher.setIterations(iterations);
+    }
+
+    /**
+     * Returns the thread count, queue depth and task counts of the password worker pool.
+     */
+    public static Map<String, Long> getPasswordPoolStats() {
+        return PasswordHasher.stats();
+    }
+
     /**
      * Checks if a user already exists in the database based on their userName.
      */
@@ -198,14 +318,8 @@ public class DatabaseHelper {
             return false;
         }
         
-        String query = "SELECT COUNT(*) FROM cse360users WHERE userName = ?";
-        try (PreparedStatement pstmt = connection.prepareStatement(query)) {
-            pstmt.setString(1, userName);
-            ResultSet rs = pstmt.executeQuery();
-            if (rs.next()) {
-                // If the count is greater than 0, the user exists
-                return rs.getInt(1) > 0;
-            }
+        try {
+            return getUserRecord(userName) != null;
         } catch (SQLException e) {
             e.printStackTrace();
         }
@@ -224,12 +338,10 @@ public class DatabaseHelper {
             return null;
         }
         
-        String query = "SELECT role FROM cse360users WHERE userName = ?";
-        try (PreparedStatement pstmt = connection.prepareStatement(query)) {
-            pstmt.setString(1, userName);
-            ResultSet rs = pstmt.executeQuery();
-            if (rs.next()) {
-                return rs.getString("role"); // Return the role if user exists
+        try {
+            User record = getUserRecord(userName);
+            if (record != null) {
+                return record.getRole(); // Return the role if user exists
             }
         } catch (SQLException e) {
             e.printStackTrace();
@@ -242,66 +354,108 @@ public class DatabaseHelper {
      */
     public String generateInvitationCodeWithRole(String role) {
         try {
-            ensureConnected();
-            
-            String code = UUID.randomUUID().toString().substring(0, 4);
-            String query = "INSERT INTO InvitationCodes (code, role) VALUES (?, ?)";
-            try (PreparedStatement pstmt = connection.prepareStatement(query)) {
-                pstmt.setString(1, code);
-                pstmt.setString(2, role);
-                pstmt.executeUpdate();
-                return code;
-            }
+            return generateInvitationCodes(role, 1).get(0);
         } catch (SQLException e) {
             e.printStackTrace();
             return null;
         }
     }
-    
+
     /**
-     * Validates an invitation code and returns the associated role if valid.
+     * Generates many invitation codes for the same roles in one transaction.
+     *
+     * <p>Each code is {@value #INVITATION_CODE_LENGTH} characters drawn from a secure random
+     * source, using an alphabet without easily confused characters. A code is only inserted
+     * if no other code has the same value, and any code that clashes is replaced and tried
+     * again, so the returned codes are always unique.</p>
+     *
+     * @param role The roles the codes grant, separated by commas
+     * @param count The number of codes to generate
+     * @return The new codes
      */
-    public String validateInvitationCodeAndGetRole(String code) {
-        try {
-            ensureConnected();
-            
-            String query = "SELECT role FROM InvitationCodes WHERE code = ? AND isUsed = FALSE";
-            try (PreparedStatement pstmt = connection.prepareStatement(query)) {
-                pstmt.setString(1, code);
-                ResultSet rs = pstmt.executeQuery();
-                if (rs.next()) {
-                    String role = rs.getString("role");
-                    markInvitationCodeAsUsed(code);
-                    return role;
+    public List<String> generateInvitationCodes(String role, int count) throws SQLException {
+        if (count < 1) {
+            throw new IllegalArgumentException("count must be at least 1");
+        }
+        ensureConnected();
+        String query = "INSERT INTO InvitationCodes (code, role) "
+                + "SELECT ?, ? WHERE NOT EXISTS (SELECT 1 FROM InvitationCodes WHERE code = ?)";
+        List<String> codes = new ArrayList<>(count);
+        boolean autoCommit = connection.getAutoCommit();
+        connection.setAutoCommit(false);
+        try (PreparedStatement pstmt = connection.prepareStatement(query)) {
+            int missing = count;
+            while (missing > 0) {
+                List<String> candidates = new ArrayList<>(missing);
+                Set<String> batch = new HashSet<>();
+                while (candidates.size() < missing) {
+                    String code = newInvitationCode();
+                    if (batch.add(code)) {
+                        candidates.add(code);
+                        pstmt.setString(1, code);
+                        pstmt.setString(2, role);
+                        pstmt.setString(3, code);
+                        pstmt.addBatch();
+                    }
+                }
+                int[] inserted = pstmt.executeBatch();
+                for (int i = 0; i < inserted.length; i++) {
+                    if (inserted[i] != 0) {
+                        codes.add(candidates.get(i));
+                        missing--;
+                    }
                 }
             }
+            connection.commit();
         } catch (SQLException e) {
-            e.printStackTrace();
+            connection.rollback();
+            throw e;
+        } finally {
+            connection.setAutoCommit(autoCommit);
         }
-        return null;
+        return codes;
     }
-    
+
+    private static String newInvitationCode() {
+        char[] code = new char[INVITATION_CODE_LENGTH];
+        for (int i = 0; i < code.length; i++) {
+            code[i] = INVITATION_CODE_ALPHABET.charAt(codeRandom.nextInt(INVITATION_CODE_ALPHABET.length()));
+        }
+        return new String(code);
+    }
+
     /**
-     * Marks the invitation code as used in the database.
+     * Validates an invitation code and returns the associated role if valid.
+     * The code is used up by the same call.
      */
-    private void markInvitationCodeAsUsed(String code) {
+    public String validateInvitationCodeAndGetRole(String code) {
         try {
-            // Ensure connection is open before executing any operation
-            ensureConnected();
-        } catch (SQLException e1) {
-            e1.printStackTrace();
-            return;
-        }
-        
-        String query = "UPDATE InvitationCodes SET isUsed = TRUE WHERE code = ?";
-        try (PreparedStatement pstmt = connection.prepareStatement(query)) {
-            pstmt.setString(1, code);
-            pstmt.executeUpdate();
+            return claimInvitationCode(code);
         } catch (SQLException e) {
             e.printStackTrace();
+            return null;
         }
     }
-    
+
+    /**
+     * Marks an unused invitation code as used and returns the roles it grants, in a single
+     * statement. When many people sign up at once, only one of them can claim each code.
+     *
+     * @param code The invitation code
+     * @return The roles the code grants, or null if the code does not exist or was already used
+     */
+    public String claimInvitationCode(String code) throws SQLException {
+        ensureConnected();
+        String query = "SELECT role FROM FINAL TABLE ("
+                + "UPDATE InvitationCodes SET isUsed = TRUE WHERE code = ? AND isUsed = FALSE)";
+        try (PreparedStatement pstmt = connection.prepareStatement(query)) {
+            pstmt.setString(1, code.trim());
+            try (ResultSet rs = pstmt.executeQuery()) {
+                return rs.next() ? rs.getString("role") : null;
+            }
+        }
+    }
+
     /**
      * Retrieves all users from the database.
      * @return An ObservableList of User objects.
@@ -331,7 +485,8 @@ public class DatabaseHelper {
 
     
     /**
-     * Deletes a user from the database based on their userName.
+     * Deletes a user from the database based on their userName, together with
+     * everything they posted, sent or saved. See {@link ContentPurger}.
      * <p>
      * Note: This method will not delete an admin user.
      * </p>
@@ -352,14 +507,21 @@ public class DatabaseHelper {
             return false;
         }
         
-        String query = "DELETE FROM cse360users WHERE userName = ?";
-        try (PreparedStatement pstmt = connection.prepareStatement(query)) {
-            pstmt.setString(1, userName);
-            int rowsAffected = pstmt.executeUpdate();
-            return rowsAffected > 0;
+        // Everything the user posted, sent or saved goes with them in one transaction
+        try {
+            // The purge also clears the tables the other helpers create
+            DatabaseHelper2.createTables(statement);
+            DatabaseHelper3.createTables(statement);
+            ContentPurger purger = new ContentPurger(connection, ContentPurger.DEFAULT_BATCH_SIZE);
+            boolean deleted = purger.purgeUser(userName);
+            DatabaseHelper2.forgetPurged(purger);
+            DatabaseHelper3.invalidateUser(userName);
+            return deleted;
         } catch (SQLException e) {
             e.printStackTrace();
             return false;
+        } finally {
+            userCache.remove(userName);
         }
     }
     /**
@@ -367,25 +529,43 @@ public class DatabaseHelper {
      */
     public void updatePassword(String username, String newPassword) throws SQLException {
         ensureConnected();
+        storePassword(username, PasswordHasher.hash(newPassword));
+        userCache.remove(username);
+    }
+
+    /**
+     * Updates the users password on the password worker pool.
+     *
+     * @return A future completed once the password is updated
+     */
+    public CompletableFuture<Void> updatePasswordAsync(String username, String newPassword) {
+        return PasswordHasher.submit(() -> {
+            updatePassword(username, newPassword);
+            return null;
+        });
+    }
+
+    private void storePassword(String username, String passwordHash) throws SQLException {
         String query = "UPDATE cse360users SET password = ? WHERE userName = ?";
         try (PreparedStatement pstmt = connection.prepareStatement(query)) {
-            pstmt.setString(1, newPassword);
+            pstmt.setString(1, passwordHash);
             pstmt.setString(2, username);
             pstmt.executeUpdate();
         }
     }
+
     /**
-     * Updates the users password.
+     * Checks whether a one-time password matches the password stored for a user.
      */
     public boolean isOTPValid(String username, String otp) throws SQLException {
         ensureConnected();
-        String query = "SELECT COUNT(*) FROM cse360users WHERE userName = ? AND password = ?";
+        String query = "SELECT password FROM cse360users WHERE userName = ?";
         try (PreparedStatement pstmt = connection.prepareStatement(query)) {
             pstmt.setString(1, username);
-            pstmt.setString(2, otp);
-            ResultSet rs = pstmt.executeQuery();
-            if (rs.next()) {
-                return rs.getInt(1) > 0;  // Returns true if OTP matches the stored password
+            try (ResultSet rs = pstmt.executeQuery()) {
+                if (rs.next()) {
+                    return PasswordHasher.verify(otp, rs.getString("password"));  // Returns true if OTP matches the stored password
+                }
             }
         }
         return false; // OTP is invalid
@@ -411,41 +591,63 @@ public class DatabaseHelper {
         } 
     }
 
-    public String getUserFirstName(String userName) throws SQLException {
-        ensureConnected();
-        String query = "SELECT firstName FROM cse360users WHERE userName = ?";
+    /**
+     * Returns the profile and role of a user, reading them from the database in one
+     * query the first time and from the user cache afterwards. The password is left empty.
+     *
+     * @param userName The username to look up
+     * @return The user record, or null if no such user exists
+     */
+    private User getUserRecord(String userName) throws SQLException {
+        User cached = userCache.get(userName);
+        if (cached != null) {
+            return cached;
+        }
+        String query = "SELECT userName, role, firstName, lastName, email FROM cse360users WHERE userName = ?";
         try (PreparedStatement pstmt = connection.prepareStatement(query)) {
             pstmt.setString(1, userName);
-            ResultSet rs = pstmt.executeQuery();
-            if (rs.next()) {
-                return rs.getString("firstName");
+            try (ResultSet rs = pstmt.executeQuery()) {
+                if (!rs.next()) {
+                    return null;
+                }
+                User record = new User(rs.getString("userName"), "", rs.getString("role"),
+                    rs.getString("firstName"), rs.getString("lastName"), rs.getString("email"));
+                userCache.put(userName, record);
+                return record;
             }
         }
+    }
+
+    /**
+     * Returns the entry count and hit counts of the user cache.
+     */
+    public Map<String, Long> getUserCacheStats() {
+        return userCache.stats();
+    }
+
+    public String getUserFirstName(String userName) throws SQLException {
+        ensureConnected();
+        User record = getUserRecord(userName);
+        if (record != null) {
+            return record.getfirstName();
+        }
         return "";
     }
 
     public String getUserLastName(String userName) throws SQLException {
         ensureConnected();
-        String query = "SELECT lastName FROM cse360users WHERE userName = ?";
-        try (PreparedStatement pstmt = connection.prepareStatement(query)) {
-            pstmt.setString(1, userName);
-            ResultSet rs = pstmt.executeQuery();
-            if (rs.next()) {
-                return rs.getString("lastName");
-            }
+        User record = getUserRecord(userName);
+        if (record != null) {
+            return record.getlastName();
         }
         return "";
     }
 
     public String getUserEmail(String userName) throws SQLException {
         ensureConnected();
-        String query = "SELECT email FROM cse360users WHERE userName = ?";
-        try (PreparedStatement pstmt = connection.prepareStatement(query)) {
-            pstmt.setString(1, userName);
-            ResultSet rs = pstmt.executeQuery();
-            if (rs.next()) {
-                return rs.getString("email");
-            }
+        User record = getUserRecord(userName);
+        if (record != null) {
+            return record.getemail();
         }
         return "";
     }
@@ -595,6 +797,7 @@ public class DatabaseHelper {
             pstmt.setString(2, userName);
             pstmt.executeUpdate();
         }
+        userCache.remove(userName);
     }
 
     /**
@@ -772,6 +975,7 @@ public class DatabaseHelper {
             pstmt.setString(1, username);
             pstmt.executeUpdate();
         }
+        userCache.remove(username);
     }
 
     /**
@@ -1006,6 +1210,13 @@ public class DatabaseHelper {
         }
     }
 
+    /**
+     * Drops the cached user records. Called when the database is replaced, such as by a restore.
+     */
+    static void invalidateCaches() {
+        userCache.clear();
+    }
+
     /**
      * Updates existing lowercase 'admin' roles to capitalized 'Admin' for consistency
      * This should be called during application startup to ensure all roles are properly capitalized
@@ -1014,15 +1225,25 @@ public class DatabaseHelper {
      */
     public void normalizeAdminRoles() throws SQLException {
         ensureConnected();
-        
-        // First, back up user roles to prevent data loss
-        String backupQuery = "CREATE TABLE IF NOT EXISTS role_backup AS SELECT userName, role FROM cse360users";
-        try (Statement stmt = connection.createStatement()) {
-            stmt.executeUpdate(backupQuery);
+
+        // Nothing to do on most starts; LIKE is case sensitive, so this only finds 'admin'
+        String query = "SELECT COUNT(*) FROM cse360users WHERE role LIKE '%admin%'";
+        try (Statement stmt = connection.createStatement();
+             ResultSet rs = stmt.executeQuery(query)) {
+            if (rs.next() && rs.getInt(1) == 0) {
+                return;
+            }
+        }
+
+        // First, take a snapshot of the database to prevent data loss
+        try {
+            DatabaseBackup.getDefault().backupNow();
+        } catch (IOException e) {
+            throw new SQLException("Could not back up the database before normalizing roles: " + e.getMessage(), e);
         }
         
         // Update comma-separated cases first: ",admin," to ",Admin,"
-        String query = "UPDATE cse360users SET role = REPLACE(role, ',admin,', ',Admin,') WHERE role LIKE '%,admin,%'";
+        query = "UPDATE cse360users SET role = REPLACE(role, ',admin,', ',Admin,') WHERE role LIKE '%,admin,%'";
         try (Statement stmt = connection.createStatement()) {
             stmt.executeUpdate(query);
         }
@@ -1044,6 +1265,7 @@ public class DatabaseHelper {
         try (Statement stmt = connection.createStatement()) {
             stmt.executeUpdate(query);
         }
+        userCache.clear();
         
         // Verify if any users still have lowercase 'admin' in their roles
         query = "SELECT COUNT(*) FROM cse360users WHERE role LIKE '%admin%'";
@@ -1,8 +1,20 @@
 package databasePart1;
 
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
 import java.sql.*;
 import java.util.List;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.IntConsumer;
+import java.util.zip.GZIPInputStream;
 
 import application.Question;
 import application.Answer;
@@ -23,6 +35,36 @@ public class DatabaseHelper2 {
 
     private Connection connection = null;
     private Statement statement = null; 
+
+    // Near-duplicate question index shared by every helper instance
+    private static final DuplicateQuestionIndex duplicateIndex = new DuplicateQuestionIndex();
+    // TF-IDF index of resolved questions shared by every helper instance
+    private static final RelatedQuestionIndex relatedIndex = new RelatedQuestionIndex();
+    // Recently read questions and answer lists, bounded by count and by total body length
+    private static final LruCache<Integer, Question> hotQuestionCache =
+            new LruCache<>(1000, 1_000_000, DatabaseHelper2::weightOf);
+    private static final LruCache<Integer, List<Answer>> hotAnswerCache =
+            new LruCache<>(500, 4_000_000, DatabaseHelper2::weightOf);
+    // Rough per-object overhead added to the body length when weighing cached values
+    private static final int ENTRY_OVERHEAD = 64;
+    // Review counts per reviewer, including the reviews of archived threads
+    private static final String REVIEW_TOTALS = "SELECT reviewerName, COUNT(*), MAX(dateCreated) FROM "
+            + "(SELECT reviewerName, dateCreated FROM Reviews UNION ALL SELECT reviewerName, dateCreated FROM ArchivedReviews) "
+            + "GROUP BY reviewerName";
+
+    // Everyone who took part in a thread: its author, answerers, reviewers and chat participants
+    private static final String THREAD_PARTICIPANTS = "SELECT postedBy AS userName, questionID FROM Questions "
+            + "UNION SELECT answeredBy, questionID FROM Answers "
+            + "UNION SELECT reviewerName, questionID FROM Reviews "
+            + "UNION SELECT CAST(student_username AS VARCHAR(255)), question_id FROM ChatMessages "
+            + "UNION SELECT CAST(reviewer_username AS VARCHAR(255)), question_id FROM ChatMessages";
+
+    private static final String SUBSCRIBE_PARTICIPANTS = "INSERT INTO QuestionSubscriptions (userName, questionID) "
+            + "SELECT p.userName, p.questionID FROM (" + THREAD_PARTICIPANTS + ") p "
+            + "WHERE p.userName IS NOT NULL AND p.userName <> 'NoReviewer' "
+            + "AND EXISTS (SELECT 1 FROM Questions q WHERE q.questionID = p.questionID) "
+            + "AND NOT EXISTS (SELECT 1 FROM QuestionSubscriptions s "
+            + "WHERE s.userName = p.userName AND s.questionID = p.questionID)";
  
     /**
      * Connects to the database and creates the necessary tables.
@@ -35,7 +77,22 @@ public class DatabaseHelper2 {
             connection = DriverManager.getConnection(DB_URL, USER, PASS);
             statement = connection.createStatement(); 
             
-            createTables();  // Create the necessary tables if they don't exist
+            createTables(statement);  // Create the necessary tables if they don't exist
+        } catch (ClassNotFoundException e) {
+            System.err.println("JDBC Driver not found: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Connects to a database whose tables already exist, without setting them up.
+     * Used by background readers, which would otherwise pay for the table setup
+     * on every connection.
+     */
+    public void connectToExistingDatabase() throws SQLException {
+        try {
+            Class.forName(JDBC_DRIVER);
+            connection = DriverManager.getConnection(DB_URL, USER, PASS);
+            statement = connection.createStatement();
         } catch (ClassNotFoundException e) {
             System.err.println("JDBC Driver not found: " + e.getMessage());
         }
@@ -53,9 +110,10 @@ public class DatabaseHelper2 {
     }
 
     /**
-     * Creates the necessary tables if they do not exist.
+     * Creates the necessary tables if they do not exist. Other helpers call this
+     * before working on tables only this helper creates.
      */
-    private void createTables() throws SQLException {
+    static void createTables(Statement statement) throws SQLException {
     	// Create Questions table
         String questionsTable = "CREATE TABLE IF NOT EXISTS Questions ("
                 + "questionID INT PRIMARY KEY, "
@@ -128,6 +186,10 @@ public class DatabaseHelper2 {
                 + "message TEXT NOT NULL, "
                 + "timestamp TIMESTAMP DEFAULT CURRENT_TIMESTAMP)";
         statement.execute(chatMessagesTable);
+        statement.execute("CREATE INDEX IF NOT EXISTS idx_chat_messages_question ON ChatMessages(question_id)");
+
+        // Create the tables holding archived threads, which reviewer aggregates still count
+        QuestionArchiver.createTables(statement);
 
         // Create a table for reviewer weights
         String reviewerWeightsTable = "CREATE TABLE IF NOT EXISTS ReviewerWeights ("
@@ -136,6 +198,16 @@ public class DatabaseHelper2 {
                 + "weight INT DEFAULT 0, "
                 + "PRIMARY KEY (studentUsername, reviewerUsername))";
         statement.execute(reviewerWeightsTable);
+
+        // Create a table of per-reviewer aggregates, maintained incrementally by DatabaseHelper3
+        String reviewerStatsTable = "CREATE TABLE IF NOT EXISTS ReviewerStats ("
+                + "reviewerName VARCHAR(255) PRIMARY KEY, "
+                + "totalReviews INT DEFAULT 0, "
+                + "ratingSum BIGINT DEFAULT 0, "
+                + "ratingCount INT DEFAULT 0, "
+                + "lastReviewTime TIMESTAMP)";
+        statement.execute(reviewerStatsTable);
+        rebuildReviewerStatsIfEmpty(statement);
         
         // Create a table for flagged content
         String flaggedContentTable = "CREATE TABLE IF NOT EXISTS FlaggedContent ("
@@ -148,8 +220,99 @@ public class DatabaseHelper2 {
                 + "resolved BOOLEAN DEFAULT FALSE"
                 + ")";
         statement.execute(flaggedContentTable);
+
+        // Create the tables holding MinHash signatures and LSH buckets for duplicate detection
+        String questionSignaturesTable = "CREATE TABLE IF NOT EXISTS QuestionSignatures ("
+                + "questionID INT PRIMARY KEY, "
+                + "signature VARBINARY(256), "
+                + "FOREIGN KEY (questionID) REFERENCES Questions(questionID) ON DELETE CASCADE)";
+        statement.execute(questionSignaturesTable);
+
+        String questionLshBucketsTable = "CREATE TABLE IF NOT EXISTS QuestionLshBuckets ("
+                + "bucketKey BIGINT, "
+                + "questionID INT, "
+                + "PRIMARY KEY (bucketKey, questionID), "
+                + "FOREIGN KEY (questionID) REFERENCES Questions(questionID) ON DELETE CASCADE)";
+        statement.execute(questionLshBucketsTable);
+
+        // Create the tables for saved searches and the alerts delivered when new posts match them
+        String savedSearchesTable = "CREATE TABLE IF NOT EXISTS SavedSearches ("
+                + "searchID INT AUTO_INCREMENT PRIMARY KEY, "
+                + "userName VARCHAR(255), "
+                + "queryText TEXT, "
+                + "createdAt TIMESTAMP DEFAULT CURRENT_TIMESTAMP)";
+        statement.execute(savedSearchesTable);
+
+        String searchAlertsTable = "CREATE TABLE IF NOT EXISTS SearchAlerts ("
+                + "alertID INT AUTO_INCREMENT PRIMARY KEY, "
+                + "searchID INT, "
+                + "userName VARCHAR(255), "
+                + "contentType VARCHAR(20), " // 'Question' or 'Answer'
+                + "contentID INT, "
+                + "questionID INT, "
+                + "contentText TEXT, "
+                + "postedBy VARCHAR(255), "
+                + "createdAt TIMESTAMP DEFAULT CURRENT_TIMESTAMP, "
+                + "FOREIGN KEY (searchID) REFERENCES SavedSearches(searchID) ON DELETE CASCADE, "
+                + "FOREIGN KEY (questionID) REFERENCES Questions(questionID) ON DELETE CASCADE)";
+        statement.execute(searchAlertsTable);
+        statement.execute("CREATE INDEX IF NOT EXISTS idx_search_alerts_user ON SearchAlerts(userName)");
+
+        // Create a table of question subscriptions with each subscriber's unread counter
+        String questionSubscriptionsTable = "CREATE TABLE IF NOT EXISTS QuestionSubscriptions ("
+                + "userName VARCHAR(255), "
+                + "questionID INT, "
+                + "unreadCount INT DEFAULT 0, "
+                + "PRIMARY KEY (userName, questionID), "
+                + "FOREIGN KEY (questionID) REFERENCES Questions(questionID) ON DELETE CASCADE)";
+        statement.execute(questionSubscriptionsTable);
+        // The counters are kept directly, so the high-water marks of earlier versions are not needed
+        statement.execute("ALTER TABLE QuestionSubscriptions DROP COLUMN IF EXISTS lastSeenAnswerID");
+        statement.execute("ALTER TABLE QuestionSubscriptions DROP COLUMN IF EXISTS lastSeenChatID");
+        statement.execute("CREATE INDEX IF NOT EXISTS idx_subscriptions_question ON QuestionSubscriptions(questionID)");
+        seedSubscriptionsIfEmpty(statement);
+    }
+
+
+    /**
+     * Fills the ReviewerStats table from Reviews and ReviewerWeights when it is empty,
+     * which happens the first time an existing database is opened after the table was added.
+     */
+    private static void rebuildReviewerStatsIfEmpty(Statement statement) throws SQLException {
+        try (ResultSet rs = statement.executeQuery("SELECT COUNT(*) FROM ReviewerStats")) {
+            if (rs.next() && rs.getInt(1) > 0) {
+                return;
+            }
+        }
+        statement.execute("MERGE INTO ReviewerStats (reviewerName, totalReviews, lastReviewTime) KEY (reviewerName) "
+                + REVIEW_TOTALS);
+        statement.execute("MERGE INTO ReviewerStats (reviewerName, ratingSum, ratingCount) KEY (reviewerName) "
+                + "SELECT reviewerUsername, SUM(weight), COUNT(*) FROM ReviewerWeights GROUP BY reviewerUsername");
     }
 
+    /**
+     * Subscribes everyone who took part in a question, keeping existing subscriptions as they are.
+     * Used when an archived thread is restored, since archiving drops its subscriptions.
+     */
+    static void subscribeParticipants(Connection connection, int questionID) throws SQLException {
+        try (PreparedStatement pstmt = connection.prepareStatement(SUBSCRIBE_PARTICIPANTS + " AND p.questionID = ?")) {
+            pstmt.setInt(1, questionID);
+            pstmt.executeUpdate();
+        }
+    }
+
+    /**
+     * Subscribes the participants of every existing thread when QuestionSubscriptions is empty,
+     * which happens the first time an existing database is opened after the table was added.
+     */
+    private static void seedSubscriptionsIfEmpty(Statement statement) throws SQLException {
+        try (ResultSet rs = statement.executeQuery("SELECT COUNT(*) FROM QuestionSubscriptions")) {
+            if (rs.next() && rs.getInt(1) > 0) {
+                return;
+            }
+        }
+        statement.execute(SUBSCRIBE_PARTICIPANTS);
+    }
 
     /**
      * Closes the database connection and statement.
@@ -193,6 +356,13 @@ public class DatabaseHelper2 {
             pstmt.setInt(7, question.getNewMessagesCount());
             pstmt.executeUpdate();
         }
+        duplicateIndex.put(connection, question.getQuestionID(), question.getBodyText());
+        DatabaseHelper3.indexSearchText(question.getBodyText());
+        DatabaseHelper3.deliverSearchAlerts(connection, "Question", question.getQuestionID(),
+                question.getQuestionID(), question.getBodyText(), question.getPostedBy());
+        subscribe(connection, question.getPostedBy(), question.getQuestionID());
+        hotQuestionCache.remove(question.getQuestionID());
+        TableVersions.bump(TableVersions.QUESTIONS);
     }
 
     /**
@@ -213,13 +383,23 @@ public class DatabaseHelper2 {
             pstmt.setInt(7, question.getQuestionID());
             pstmt.executeUpdate();
         }
+        hotQuestionCache.remove(question.getQuestionID());
+        DatabaseHelper3.invalidateQuestion(question.getQuestionID());
+        TableVersions.bump(TableVersions.QUESTIONS);
+        duplicateIndex.put(connection, question.getQuestionID(), question.getBodyText());
+        indexRelatedQuestion(question);
     }
     
     /**
      * Retrieves a specific question by ID.
      */
     public Question getQuestionById(int questionID) throws SQLException {
+        Question cached = hotQuestionCache.get(questionID);
+        if (cached != null) {
+            return copyOf(cached);
+        }
         ensureConnected();
+        long stamp = hotQuestionCache.stamp();
         String query = "SELECT * FROM Questions WHERE questionID = ?";
         try (PreparedStatement pstmt = connection.prepareStatement(query)) {
             pstmt.setInt(1, questionID);
@@ -234,6 +414,7 @@ public class DatabaseHelper2 {
                     q.setResolved(rs.getBoolean("resolvedStatus"));
                     q.setAcceptedAnsID(rs.getInt("acceptedAnsID"));
                     q.setNewMessagesCount(rs.getInt("newMessagesCount"));
+                    hotQuestionCache.put(questionID, copyOf(q), stamp);
                     return q;
                 }
             }
@@ -242,22 +423,113 @@ public class DatabaseHelper2 {
     }
 
     /**
-     * Deletes a question from the database.
+     * Deletes a question with everything posted under it, whether it is live or
+     * archived. See {@link ContentPurger}.
      */
     public void deleteQuestion(int questionID) throws SQLException {
         ensureConnected();
-        // First delete all associated answers
-        String deleteAnswers = "DELETE FROM Answers WHERE questionID = ?";
-        try (PreparedStatement pstmt = connection.prepareStatement(deleteAnswers)) {
-            pstmt.setInt(1, questionID);
-            pstmt.executeUpdate();
+        // Everything under the question goes in one transaction, including the rows
+        // without a foreign key to it, such as chat messages and flags
+        ContentPurger purger = new ContentPurger(connection, ContentPurger.DEFAULT_BATCH_SIZE);
+        purger.purgeQuestions(List.of(questionID));
+        forgetPurged(purger);
+    }
+
+    /**
+     * Brings the caches and in-memory indexes in line with a purge: removed questions
+     * are dropped from them and changed questions are read again when next needed.
+     */
+    static void forgetPurged(ContentPurger purger) {
+        for (int questionID : purger.getRemovedQuestions()) {
+            hotQuestionCache.remove(questionID);
+            hotAnswerCache.remove(questionID);
+            DatabaseHelper3.invalidateQuestion(questionID);
+            duplicateIndex.remove(questionID);
+            relatedIndex.remove(questionID);
         }
-        
-        // Then delete the question
-        String deleteQuestion = "DELETE FROM Questions WHERE questionID = ?";
-        try (PreparedStatement pstmt = connection.prepareStatement(deleteQuestion)) {
-            pstmt.setInt(1, questionID);
-            pstmt.executeUpdate();
+        for (int questionID : purger.getChangedQuestions()) {
+            hotQuestionCache.remove(questionID);
+            hotAnswerCache.remove(questionID);
+            DatabaseHelper3.invalidateQuestion(questionID);
+        }
+        for (int questionID : purger.getUnresolvedQuestions()) {
+            hotQuestionCache.remove(questionID);
+            relatedIndex.remove(questionID);
+        }
+        TableVersions.bump(TableVersions.QUESTIONS, TableVersions.ANSWERS, TableVersions.REVIEWS);
+        if (purger.isReviewerStatsChanged()) {
+            DatabaseHelper3.invalidateReviewerRanking();
+        }
+    }
+
+    /**
+     * Finds existing questions that are near duplicates of a question text, so a student
+     * can reuse an existing thread instead of posting the same question again.
+     * The lookup runs against an in-memory MinHash/LSH index and only the matching
+     * questions are read from the database.
+     *
+     * @param bodyText The text of the question about to be posted
+     * @param limit The maximum number of questions to return
+     * @return The similar questions, most similar first
+     */
+    public List<Question> findSimilarQuestions(String bodyText, int limit) throws SQLException {
+        ensureConnected();
+        duplicateIndex.ensureLoaded(connection);
+        List<Question> similar = new ArrayList<>();
+        for (int questionID : duplicateIndex.findSimilar(bodyText, limit)) {
+            Question question = getQuestionById(questionID);
+            if (question != null) {
+                similar.add(question);
+            }
+        }
+        return similar;
+    }
+
+    /**
+     * Finds resolved questions related to a question, so a student reading it can be
+     * pointed to threads that already have an accepted answer. The lookup runs against
+     * an in-memory TF-IDF index of resolved questions and their accepted answers.
+     *
+     * @param question The question being read
+     * @param limit The maximum number of questions to return
+     * @return The related resolved questions, most related first
+     */
+    public List<Question> getRelatedAnsweredQuestions(Question question, int limit) throws SQLException {
+        ensureConnected();
+        relatedIndex.ensureLoaded(connection);
+        List<Question> related = new ArrayList<>();
+        for (int questionID : relatedIndex.topK(question.getBodyText(), limit, question.getQuestionID())) {
+            Question relatedQuestion = getQuestionById(questionID);
+            if (relatedQuestion != null) {
+                related.add(relatedQuestion);
+            }
+        }
+        return related;
+    }
+
+    /**
+     * Keeps a question's entry in the related questions index in line with its resolved
+     * status and accepted answer. Skipped while the index is not loaded yet.
+     */
+    private void indexRelatedQuestion(Question question) throws SQLException {
+        if (!relatedIndex.isLoaded()) {
+            return;
+        }
+        if (!question.isResolved()) {
+            relatedIndex.remove(question.getQuestionID());
+            return;
+        }
+        String query = "SELECT bodyText FROM Answers WHERE answerID = ?";
+        try (PreparedStatement pstmt = connection.prepareStatement(query)) {
+            pstmt.setInt(1, question.getAcceptedAnsID());
+            try (ResultSet rs = pstmt.executeQuery()) {
+                if (rs.next()) {
+                    relatedIndex.put(question.getQuestionID(), question.getAcceptedAnsID(),
+                                     question.getBodyText(), rs.getString("bodyText"));
+                } else {
+                    relatedIndex.remove(question.getQuestionID());
+                }
+            }
         }
     }
 
@@ -334,6 +606,13 @@ public class DatabaseHelper2 {
             pstmt.setTimestamp(5, new Timestamp(answer.getDateCreated().getTime()));
             pstmt.executeUpdate();
         }
+        hotAnswerCache.remove(answer.getQuestionID());
+        TableVersions.bump(TableVersions.ANSWERS);
+        DatabaseHelper3.indexSearchText(answer.getBodyText());
+        DatabaseHelper3.deliverSearchAlerts(connection, "Answer", answer.getAnsID(),
+                answer.getQuestionID(), answer.getBodyText(), answer.getAnsweredBy());
+        notifySubscribers(connection, answer.getQuestionID(), answer.getAnsweredBy());
+        subscribe(connection, answer.getAnsweredBy(), answer.getQuestionID());
     }
 
     /**
@@ -350,6 +629,15 @@ public class DatabaseHelper2 {
             pstmt.setInt(4, answer.getAnsID());
             pstmt.executeUpdate();
         }
+        evictAnswer(answer.getAnsID());
+        // An edited accepted answer changes the text its question is indexed with
+        Integer resolvedQuestionID = relatedIndex.questionForAnswer(answer.getAnsID());
+        if (resolvedQuestionID != null) {
+            Question question = getQuestionById(resolvedQuestionID);
+            if (question != null) {
+                indexRelatedQuestion(question);
+            }
+        }
     }
 
     /**
@@ -362,13 +650,24 @@ public class DatabaseHelper2 {
             pstmt.setInt(1, answerID);
             pstmt.executeUpdate();
         }
+        evictAnswer(answerID);
+        TableVersions.bump(TableVersions.ANSWERS);
+        Integer resolvedQuestionID = relatedIndex.questionForAnswer(answerID);
+        if (resolvedQuestionID != null) {
+            relatedIndex.remove(resolvedQuestionID);
+        }
     }
 
     /**
      * Retrieves all answers for a specific question.
      */
     public List<Answer> getAnswersForQuestion(int questionID) throws SQLException {
+        List<Answer> cached = hotAnswerCache.get(questionID);
+        if (cached != null) {
+            return copyOf(cached);
+        }
         ensureConnected();
+        long stamp = hotAnswerCache.stamp();
         List<Answer> answers = new ArrayList<>();
         String query = "SELECT * FROM Answers WHERE questionID = ?";
         try (PreparedStatement pstmt = connection.prepareStatement(query)) {
@@ -386,9 +685,89 @@ public class DatabaseHelper2 {
                 }
             }
         }
+        hotAnswerCache.put(questionID, copyOf(answers), stamp);
         return answers;
     }
 
+    /**
+     * Returns the number of cached questions and answer lists with their total weight
+     * and hit counts, to check how well popular threads are served from memory.
+     *
+     * @return The statistics of the question cache and of the answer list cache
+     */
+    public Map<String, Map<String, Long>> getHotQuestionCacheStats() {
+        Map<String, Map<String, Long>> stats = new LinkedHashMap<>();
+        stats.put("questions", hotQuestionCache.stats());
+        stats.put("answers", hotAnswerCache.stats());
+        return stats;
+    }
+
+    /**
+     * Drops every cached answer list containing an answer, since the list is cached
+     * under its question and the answer alone does not say which one that is.
+     */
+    private static void evictAnswer(int answerID) {
+        hotAnswerCache.removeValuesIf(answers -> answers.stream().anyMatch(a -> a.getAnsID() == answerID));
+    }
+
+    /**
+     * Returns a copy of a question from the hot question cache, or null if it is not cached.
+     */
+    static Question getCachedQuestion(int questionID) {
+        Question cached = hotQuestionCache.get(questionID);
+        return cached != null ? copyOf(cached) : null;
+    }
+
+    /**
+     * Returns the stamp another helper takes before reading questions it will cache.
+     */
+    static long questionCacheStamp() {
+        return hotQuestionCache.stamp();
+    }
+
+    /**
+     * Adds a question read by another helper to the hot question cache, unless a
+     * question was invalidated since the stamp was taken.
+     */
+    static void cacheQuestion(Question question, long stamp) {
+        hotQuestionCache.put(question.getQuestionID(), copyOf(question), stamp);
+    }
+
+    private static Question copyOf(Question question) {
+        Question copy = new Question(question.getQuestionID(), question.getBodyText(),
+                                     question.getPostedBy(), copyOf(question.getDateCreated()));
+        copy.setResolved(question.isResolved());
+        copy.setAcceptedAnsID(question.getAcceptedAnsID());
+        copy.setNewMessagesCount(question.getNewMessagesCount());
+        return copy;
+    }
+
+    private static List<Answer> copyOf(List<Answer> answers) {
+        List<Answer> copy = new ArrayList<>(answers.size());
+        for (Answer a : answers) {
+            copy.add(new Answer(a.getAnsID(), a.getQuestionID(), a.getBodyText(), a.getAnsweredBy(), copyOf(a.getDateCreated())));
+        }
+        return copy;
+    }
+
+    // Dates are mutable, so the cached copy and the returned object must not share one
+    private static java.util.Date copyOf(java.util.Date date) {
+        return date != null ? (java.util.Date) date.clone() : null;
+    }
+
+    private static int weightOf(Question question) {
+        String body = question.getBodyText();
+        return ENTRY_OVERHEAD + (body == null ? 0 : body.length());
+    }
+
+    private static int weightOf(List<Answer> answers) {
+        int weight = ENTRY_OVERHEAD;
+        for (Answer a : answers) {
+            weight += ENTRY_OVERHEAD + (a.getBodyText() == null ? 0 : a.getBodyText().length());
+        }
+        return weight;
+    }
+
     /**
      * Retrieves all answers from the database.
      */
@@ -412,6 +791,164 @@ public class DatabaseHelper2 {
         return answers;
     }
 
+    /**
+     * Writes every question, with its answers, reviews and feedback, to a stream in
+     * constant memory. See {@link QaExporter}.
+     *
+     * @param out The stream to write to; it is flushed but not closed
+     * @param format JSON Lines or CSV
+     * @param gzip Whether to compress the output with gzip
+     * @return The number of questions exported
+     */
+    public long exportQuestions(OutputStream out, ExportFormat format, boolean gzip) throws IOException, SQLException {
+        ensureConnected();
+        return new QaExporter(connection).export(out, format, gzip);
+    }
+
+    /**
+     * Loads questions with their answers, reviews and feedback from a file written by
+     * {@link #exportQuestions}, giving them new IDs. See {@link QaImporter}.
+     *
+     * <p>The duplicate, related question and reviewer indexes are rebuilt in bulk once
+     * the load is over instead of row by row, even if it fails part way.</p>
+     *
+     * @param in The file contents
+     * @param format JSON Lines or CSV
+     * @param gzip Whether the file is compressed with gzip
+     * @param chunkSize The number of questions written per transaction
+     * @param progress Called with the number of questions imported so far, or null
+     * @return The number of rows imported and the records skipped
+     */
+    public QaImportResult importQuestions(InputStream in, ExportFormat format, boolean gzip, int chunkSize,
+            IntConsumer progress) throws IOException, SQLException {
+        ensureConnected();
+        Reader reader = new BufferedReader(new InputStreamReader(
+                gzip ? new GZIPInputStream(in, 1 << 16) : in, StandardCharsets.UTF_8), 1 << 16);
+        try {
+            return new QaImporter(connection, chunkSize).importQuestions(reader, format, progress);
+        } finally {
+            rebuildIndexesAfterImport();
+        }
+    }
+
+    /**
+     * Loads questions from a file, {@value QaImporter#DEFAULT_CHUNK_SIZE} per transaction.
+     */
+    public QaImportResult importQuestions(InputStream in, ExportFormat format, boolean gzip, IntConsumer progress)
+            throws IOException, SQLException {
+        return importQuestions(in, format, gzip, QaImporter.DEFAULT_CHUNK_SIZE, progress);
+    }
+
+    /**
+     * Drops every cache and in-memory index of the helper, so they are rebuilt from the
+     * database. Called when the database is replaced, such as by a restore.
+     */
+    static void invalidateCaches() {
+        hotQuestionCache.clear();
+        hotAnswerCache.clear();
+        duplicateIndex.invalidate();
+        relatedIndex.invalidate();
+        TableVersions.bump(TableVersions.QUESTIONS, TableVersions.ANSWERS, TableVersions.REVIEWS);
+    }
+
+    /**
+     * Brings the indexes and aggregates derived from questions, answers and reviews up
+     * to date after rows were added without maintaining them.
+     */
+    private void rebuildIndexesAfterImport() throws SQLException {
+        TableVersions.bump(TableVersions.QUESTIONS, TableVersions.ANSWERS, TableVersions.REVIEWS);
+        duplicateIndex.invalidate();
+        duplicateIndex.ensureLoaded(connection);
+        relatedIndex.invalidate();
+        statement.execute("MERGE INTO ReviewerStats (reviewerName, totalReviews, lastReviewTime) KEY (reviewerName) "
+                + REVIEW_TOTALS);
+        DatabaseHelper3.invalidateReviewerRanking();
+    }
+
+    /**
+     * Moves resolved threads with no activity since a cutoff to the archive tables,
+     * a batch at a time. See {@link QuestionArchiver}.
+     *
+     * @param cutoff Threads with a post or message at or after this time are kept
+     * @param batchSize The number of threads moved per transaction
+     * @param progress Called with the number of threads archived so far, or null
+     * @return The number of threads archived
+     */
+    public int archiveResolvedQuestions(Timestamp cutoff, int batchSize, IntConsumer progress) throws SQLException {
+        ensureConnected();
+        int[] archived = {0};
+        return new QuestionArchiver(connection, batchSize).archive(cutoff, batch -> {
+            for (int questionID : batch) {
+                hotQuestionCache.remove(questionID);
+                hotAnswerCache.remove(questionID);
+                DatabaseHelper3.invalidateQuestion(questionID);
+                duplicateIndex.remove(questionID);
+                relatedIndex.remove(questionID);
+            }
+            TableVersions.bump(TableVersions.QUESTIONS, TableVersions.ANSWERS, TableVersions.REVIEWS);
+            archived[0] += batch.size();
+            if (progress != null) {
+                progress.accept(archived[0]);
+            }
+        });
+    }
+
+    /**
+     * Archives resolved threads with no activity for a number of days,
+     * {@value QuestionArchiver#DEFAULT_BATCH_SIZE} per transaction.
+     */
+    public int archiveResolvedQuestions(int inactiveDays, IntConsumer progress) throws SQLException {
+        Timestamp cutoff = new Timestamp(System.currentTimeMillis() - inactiveDays * 24L * 60 * 60 * 1000);
+        return archiveResolvedQuestions(cutoff, QuestionArchiver.DEFAULT_BATCH_SIZE, progress);
+    }
+
+    /**
+     * Finds archived questions whose text, or the text of one of their answers,
+     * contains a keyword. Archived threads are only searched on request, so the
+     * regular searches stay on the small live tables.
+     *
+     * @param keyword The text to look for; the newest archived questions are returned when empty
+     * @param limit The maximum number of questions to return
+     * @return The matching questions, newest first
+     */
+    public List<Question> searchArchivedQuestions(String keyword, int limit) throws SQLException {
+        ensureConnected();
+        return new QuestionArchiver(connection, QuestionArchiver.DEFAULT_BATCH_SIZE).search(keyword, limit);
+    }
+
+    /**
+     * Retrieves the answers of an archived question, oldest first.
+     */
+    public List<Answer> getArchivedAnswers(int questionID) throws SQLException {
+        ensureConnected();
+        return new QuestionArchiver(connection, QuestionArchiver.DEFAULT_BATCH_SIZE).getAnswers(questionID);
+    }
+
+    /**
+     * Moves an archived thread back to the live tables, for example when a student
+     * wants to follow up on it.
+     *
+     * @param questionID The ID of the archived question
+     * @return Whether the question was in the archive
+     */
+    public boolean restoreArchivedQuestion(int questionID) throws SQLException {
+        ensureConnected();
+        if (!new QuestionArchiver(connection, QuestionArchiver.DEFAULT_BATCH_SIZE).restore(questionID)) {
+            return false;
+        }
+        // Reads made while the thread was archived may have cached it as missing
+        hotQuestionCache.remove(questionID);
+        hotAnswerCache.remove(questionID);
+        DatabaseHelper3.invalidateQuestion(questionID);
+        TableVersions.bump(TableVersions.QUESTIONS, TableVersions.ANSWERS, TableVersions.REVIEWS);
+        Question question = getQuestionById(questionID);
+        if (question != null) {
+            duplicateIndex.put(connection, questionID, question.getBodyText());
+            indexRelatedQuestion(question);
+        }
+        return true;
+    }
+
     /**
      * Retrieves all answers posted by a specific student.
      * @param studentUsername The username of the student
@@ -461,4 +998,129 @@ public class DatabaseHelper2 {
             throw new SQLException("Question not found with ID: " + questionID);
         }
     }
-}
\ No newline at end of file
+
+    //================================================================================
+    // Question Subscription Methods
+    //================================================================================
+
+    /**
+     * Subscribes a user to a question so they get unread counts for it. Users are
+     * subscribed automatically to questions they post, answer or chat about.
+     *
+     * @param userName The user to subscribe
+     * @param questionID The ID of the question
+     */
+    public void subscribeToQuestion(String userName, int questionID) throws SQLException {
+        ensureConnected();
+        subscribe(connection, userName, questionID);
+    }
+
+    /**
+     * Removes a user's subscription to a question.
+     *
+     * @param userName The user to unsubscribe
+     * @param questionID The ID of the question
+     */
+    public void unsubscribeFromQuestion(String userName, int questionID) throws SQLException {
+        ensureConnected();
+        String query = "DELETE FROM QuestionSubscriptions WHERE userName = ? AND questionID = ?";
+        try (PreparedStatement pstmt = connection.prepareStatement(query)) {
+            pstmt.setString(1, userName);
+            pstmt.setInt(2, questionID);
+            pstmt.executeUpdate();
+        }
+    }
+
+    /**
+     * Marks everything in a question as seen by a user, resetting their unread count.
+     *
+     * @param userName The user who viewed the question
+     * @param questionID The ID of the question
+     */
+    public void markQuestionSeen(String userName, int questionID) throws SQLException {
+        ensureConnected();
+        String query = "UPDATE QuestionSubscriptions SET unreadCount = 0 "
+                + "WHERE userName = ? AND questionID = ? AND unreadCount > 0";
+        try (PreparedStatement pstmt = connection.prepareStatement(query)) {
+            pstmt.setString(1, userName);
+            pstmt.setInt(2, questionID);
+            pstmt.executeUpdate();
+        }
+    }
+
+    /**
+     * Retrieves a user's unread counts for every question they are subscribed to with
+     * something unread, from a single lookup on the subscriptions primary key.
+     *
+     * @param userName The user whose unread counts to retrieve
+     * @return The unread count of each question ID that has unread answers or chats
+     */
+    public Map<Integer, Integer> getUnreadCounts(String userName) throws SQLException {
+        ensureConnected();
+        Map<Integer, Integer> unread = new HashMap<>();
+        String query = "SELECT questionID, unreadCount FROM QuestionSubscriptions WHERE userName = ? AND unreadCount > 0";
+        try (PreparedStatement pstmt = connection.prepareStatement(query)) {
+            pstmt.setString(1, userName);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    unread.put(rs.getInt("questionID"), rs.getInt("unreadCount"));
+                }
+            }
+        }
+        return unread;
+    }
+
+    /**
+     * Subscribes a user to a question, keeping an existing subscription as it is. A new
+     * subscription starts with nothing unread.
+     */
+    static void subscribe(Connection connection, String userName, int questionID) throws SQLException {
+        String query = "INSERT INTO QuestionSubscriptions (userName, questionID) "
+                + "SELECT ?, ? "
+                + "WHERE EXISTS (SELECT 1 FROM Questions WHERE questionID = ?) "
+                + "AND NOT EXISTS (SELECT 1 FROM QuestionSubscriptions WHERE userName = ? AND questionID = ?)";
+        try (PreparedStatement pstmt = connection.prepareStatement(query)) {
+            pstmt.setString(1, userName);
+            pstmt.setInt(2, questionID);
+            pstmt.setInt(3, questionID);
+            pstmt.setString(4, userName);
+            pstmt.setInt(5, questionID);
+            pstmt.executeUpdate();
+        }
+    }
+
+    /**
+     * Bumps the unread count of every subscriber of a question except the author of the
+     * new post, in a single statement.
+     */
+    static void notifySubscribers(Connection connection, int questionID, String author) throws SQLException {
+        String query = "UPDATE QuestionSubscriptions SET unreadCount = unreadCount + 1 "
+                + "WHERE questionID = ? AND userName <> ?";
+        try (PreparedStatement pstmt = connection.prepareStatement(query)) {
+            pstmt.setInt(1, questionID);
+            pstmt.setString(2, author);
+            pstmt.executeUpdate();
+        }
+    }
+
+    /**
+     * Bumps the unread count of the other participant of a chat about a question,
+     * subscribing them first if this is the first they hear of the question. Chats are
+     * private, so other subscribers are not told.
+     */
+    static void notifyChatParticipant(Connection connection, int questionID, String sender, String recipient) throws SQLException {
+        if (recipient == null || recipient.equals(sender)) {
+            return;
+        }
+        String query = "MERGE INTO QuestionSubscriptions s "
+                + "USING (SELECT CAST(? AS VARCHAR(255)) AS userName, questionID FROM Questions WHERE questionID = ?) n "
+                + "ON s.userName = n.userName AND s.questionID = n.questionID "
+                + "WHEN MATCHED THEN UPDATE SET unreadCount = s.unreadCount + 1 "
+                + "WHEN NOT MATCHED THEN INSERT (userName, questionID, unreadCount) VALUES (n.userName, n.questionID, 1)";
+        try (PreparedStatement pstmt = connection.prepareStatement(query)) {
+            pstmt.setString(1, recipient);
+            pstmt.setInt(2, questionID);
+            pstmt.executeUpdate();
+        }
+    }
+}
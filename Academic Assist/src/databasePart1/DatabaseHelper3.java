@@ -3,10 +3,18 @@ package databasePart1;
 import java.sql.*;
 import java.util.List;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 import application.Question;
 import application.Answer;
 import application.ReviewerProfile;
+import application.ReviewerRank;
 
 /**
  * The DatabaseHelper3 class is responsible for managing review, feedback, and chat operations
@@ -23,8 +31,67 @@ public class DatabaseHelper3 {
     static final String PASS = ""; 
 
     private Connection connection = null;
-    private Statement statement = null; 
- 
+    private Statement statement = null;
+
+    // Routing metadata (owner and assigned reviewer) shared by every helper instance,
+    // so chat and feedback sends do not look them up again for every message
+    private static final LruCache<Integer, QuestionRoute> questionRouteCache = new LruCache<>(500);
+    // Maps feedback IDs to the question they belong to, used when inserting replies
+    private static final LruCache<Integer, Integer> feedbackQuestionCache = new LruCache<>(500);
+    // Each student's reviewer weights, used to order answers and reviews for that student
+    private static final LruCache<String, Map<String, Integer>> studentWeightCache = new LruCache<>(200);
+    // Reviewers ordered by ranking score, shared by every helper instance
+    private static final ReviewerLeaderboard leaderboard = new ReviewerLeaderboard();
+    // Terms and phrases of every post, used to complete search input
+    private static final SearchCompletionTrie completionTrie = new SearchCompletionTrie();
+    // Vocabulary of every post, used to correct misspelled searches
+    private static final SpellingCorrector spellingCorrector = new SpellingCorrector();
+    // The background load of the completions and vocabulary, guarded by completionTrie
+    private static CompletableFuture<Void> searchIndexLoad = null;
+    // Saved searches of staff and reviewers, matched against every new post
+    private static final SavedSearchPercolator percolator = new SavedSearchPercolator();
+    // Question IDs found by recent searches, reused while the tables they read are unchanged
+    private static final LruCache<String, SearchResult> searchResultCache = new LruCache<>(200);
+
+    /**
+     * A unit of database work run inside one transaction.
+     */
+    private interface Work {
+        void run() throws SQLException;
+    }
+
+    /**
+     * Holds the users a message about a question should be routed between.
+     */
+    private static class QuestionRoute {
+        private final String owner;
+        private final String reviewer;
+
+        QuestionRoute(String owner, String reviewer) {
+            this.owner = owner;
+            this.reviewer = reviewer;
+        }
+    }
+
+    /**
+     * Holds the question IDs a search found and the versions of the tables it read.
+     */
+    private static class SearchResult {
+        private final String[] tables;
+        private final long[] versions;
+        private final List<Integer> questionIDs;
+
+        SearchResult(String[] tables, long[] versions, List<Integer> questionIDs) {
+            this.tables = tables;
+            this.versions = versions;
+            this.questionIDs = questionIDs;
+        }
+
+        boolean isCurrent() {
+            return Arrays.equals(versions, TableVersions.snapshot(tables));
+        }
+    }
+
     /**
      * Connects to the database.
      */
@@ -36,14 +103,35 @@ public class DatabaseHelper3 {
             connection = DriverManager.getConnection(DB_URL, USER, PASS);
             statement = connection.createStatement(); 
             
-            // Create ReviewerProfiles table if it doesn't exist
-            statement.execute("CREATE TABLE IF NOT EXISTS ReviewerProfiles (" +
-                "userName VARCHAR(50) PRIMARY KEY," +
-                "experience TEXT," +
-                "background TEXT," +
-                "lastUpdated TIMESTAMP DEFAULT CURRENT_TIMESTAMP" +
-                ")");
-            
+            createTables(statement);
+        } catch (ClassNotFoundException e) {
+            System.err.println("JDBC Driver not found: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Creates the ReviewerProfiles table if it does not exist. Other helpers call this
+     * before working on it.
+     */
+    static void createTables(Statement statement) throws SQLException {
+        statement.execute("CREATE TABLE IF NOT EXISTS ReviewerProfiles (" +
+            "userName VARCHAR(50) PRIMARY KEY," +
+            "experience TEXT," +
+            "background TEXT," +
+            "lastUpdated TIMESTAMP DEFAULT CURRENT_TIMESTAMP" +
+            ")");
+    }
+
+    /**
+     * Connects to a database whose tables already exist, without setting them up.
+     * Used by background readers, which would otherwise pay for the table setup
+     * on every connection.
+     */
+    public void connectToExistingDatabase() throws SQLException {
+        try {
+            Class.forName(JDBC_DRIVER);
+            connection = DriverManager.getConnection(DB_URL, USER, PASS);
+            statement = connection.createStatement();
         } catch (ClassNotFoundException e) {
             System.err.println("JDBC Driver not found: " + e.getMessage());
         }
@@ -97,16 +185,38 @@ public class DatabaseHelper3 {
     public void insertReview(int questionID, int answerID, String reviewerName, 
                           String reviewText, java.util.Date dateCreated) throws SQLException {
         ensureConnected();
-        String query = "INSERT INTO Reviews (questionID, answerID, reviewerName, reviewText, dateCreated) "
-                     + "VALUES (?, ?, ?, ?, ?)";
-        try (PreparedStatement pstmt = connection.prepareStatement(query)) {
-            pstmt.setInt(1, questionID);
-            pstmt.setInt(2, answerID);
-            pstmt.setString(3, reviewerName);
-            pstmt.setString(4, reviewText);
-            pstmt.setTimestamp(5, new Timestamp(dateCreated.getTime()));
-            pstmt.executeUpdate();
-        }
+        Timestamp created = new Timestamp(dateCreated.getTime());
+        // The review and its reviewer's aggregates are written together, so they cannot drift apart
+        inTransaction(() -> {
+            String query = "INSERT INTO Reviews (questionID, answerID, reviewerName, reviewText, dateCreated) "
+                         + "VALUES (?, ?, ?, ?, ?)";
+            try (PreparedStatement pstmt = connection.prepareStatement(query)) {
+                pstmt.setInt(1, questionID);
+                pstmt.setInt(2, answerID);
+                pstmt.setString(3, reviewerName);
+                pstmt.setString(4, reviewText);
+                pstmt.setTimestamp(5, created);
+                pstmt.executeUpdate();
+            }
+
+            String updateStats = "MERGE INTO ReviewerStats s "
+                               + "USING (SELECT CAST(? AS VARCHAR(255)) AS reviewerName, CAST(? AS TIMESTAMP) AS reviewTime) n "
+                               + "ON s.reviewerName = n.reviewerName "
+                               + "WHEN MATCHED THEN UPDATE SET totalReviews = s.totalReviews + 1, "
+                               + "lastReviewTime = GREATEST(COALESCE(s.lastReviewTime, n.reviewTime), n.reviewTime) "
+                               + "WHEN NOT MATCHED THEN INSERT (reviewerName, totalReviews, lastReviewTime) "
+                               + "VALUES (n.reviewerName, 1, n.reviewTime)";
+            try (PreparedStatement pstmt = connection.prepareStatement(updateStats)) {
+                pstmt.setString(1, reviewerName);
+                pstmt.setTimestamp(2, created);
+                pstmt.executeUpdate();
+            }
+            DatabaseHelper2.subscribe(connection, reviewerName, questionID);
+        });
+        // A question review may change who messages about the question are routed to
+        questionRouteCache.remove(questionID);
+        TableVersions.bump(TableVersions.REVIEWS);
+        refreshReviewerRank(reviewerName);
     }
     
     /**
@@ -299,12 +409,46 @@ public class DatabaseHelper3 {
      */
     public void deleteReview(int reviewID) throws SQLException {
         ensureConnected();
-        String query = "DELETE FROM Reviews WHERE reviewID = ?";
-        
-        try (PreparedStatement pstmt = connection.prepareStatement(query)) {
-            pstmt.setInt(1, reviewID);
-            pstmt.executeUpdate();
+        int[] questionID = {-1};
+        String[] reviewerName = {null};
+        // The review and its reviewer's aggregates are changed together, so they cannot drift apart
+        inTransaction(() -> {
+            // Look up and lock the review first so its reviewer's aggregates can be adjusted
+            String lookup = "SELECT questionID, reviewerName FROM Reviews WHERE reviewID = ? FOR UPDATE";
+            try (PreparedStatement pstmt = connection.prepareStatement(lookup)) {
+                pstmt.setInt(1, reviewID);
+                ResultSet rs = pstmt.executeQuery();
+                if (!rs.next()) {
+                    return;
+                }
+                questionID[0] = rs.getInt("questionID");
+                reviewerName[0] = rs.getString("reviewerName");
+            }
+
+            String query = "DELETE FROM Reviews WHERE reviewID = ?";
+            try (PreparedStatement pstmt = connection.prepareStatement(query)) {
+                pstmt.setInt(1, reviewID);
+                if (pstmt.executeUpdate() == 0 || reviewerName[0] == null) {
+                    reviewerName[0] = null;
+                    return;
+                }
+            }
+
+            String updateStats = "UPDATE ReviewerStats SET totalReviews = totalReviews - 1, "
+                               + "lastReviewTime = (SELECT MAX(dateCreated) FROM Reviews WHERE reviewerName = ?) "
+                               + "WHERE reviewerName = ?";
+            try (PreparedStatement pstmt = connection.prepareStatement(updateStats)) {
+                pstmt.setString(1, reviewerName[0]);
+                pstmt.setString(2, reviewerName[0]);
+                pstmt.executeUpdate();
+            }
+        });
+        if (reviewerName[0] == null) {
+            return;
         }
+        questionRouteCache.remove(questionID[0]);
+        TableVersions.bump(TableVersions.REVIEWS);
+        refreshReviewerRank(reviewerName[0]);
     }
     
     /**
@@ -492,20 +636,53 @@ public class DatabaseHelper3 {
     }
     
     public String getReviewerForQuestion(int questionID) throws SQLException {
+        QuestionRoute route = getQuestionRoute(questionID);
+        if (route != null && route.reviewer != null) {
+            return route.reviewer;
+        }
+        // Instead of throwing an exception, return a default value
+        return "NoReviewer";
+    }
+
+    /**
+     * Gets the owner and assigned reviewer of a question, loading both with a single
+     * query the first time and serving them from the shared cache afterwards.
+     *
+     * @param questionID The ID of the question
+     * @return The routing metadata, or null if the question does not exist
+     */
+    private QuestionRoute getQuestionRoute(int questionID) throws SQLException {
+        QuestionRoute route = questionRouteCache.get(questionID);
+        if (route != null) {
+            return route;
+        }
+
         ensureConnected();
-        String sql = "SELECT reviewerName FROM Reviews WHERE questionID = ? AND answerID = 0 LIMIT 1";
+        String sql = "SELECT q.postedBy, " +
+                     "(SELECT r.reviewerName FROM Reviews r WHERE r.questionID = q.questionID AND r.answerID = 0 LIMIT 1) AS reviewerName " +
+                     "FROM Questions q WHERE q.questionID = ?";
 
         try (PreparedStatement stmt = connection.prepareStatement(sql)) {
             stmt.setInt(1, questionID);
             ResultSet rs = stmt.executeQuery();
 
             if (rs.next()) {
-                return rs.getString("reviewerName");
-            } else {
-                // Instead of throwing an exception, return a default value
-                return "NoReviewer";
+                route = new QuestionRoute(rs.getString("postedBy"), rs.getString("reviewerName"));
+                questionRouteCache.put(questionID, route);
             }
         }
+        return route;
+    }
+
+    /**
+     * Drops any cached routing metadata for a question. Called by the other helpers
+     * whenever a question is updated or deleted.
+     *
+     * @param questionID The ID of the question
+     */
+    static void invalidateQuestion(int questionID) {
+        questionRouteCache.remove(questionID);
+        feedbackQuestionCache.removeValuesIf(id -> id == questionID);
     }
 
     //================================================================================
@@ -565,14 +742,18 @@ public class DatabaseHelper3 {
     public void insertReply(int parentID, String sentTo, String sentBy, String replyText) throws SQLException {
         ensureConnected();
         
-        String getQuestionQuery = "SELECT questionID FROM Feedback WHERE id = ?";
-        int questionID = -1;
+        Integer cachedQuestionID = feedbackQuestionCache.get(parentID);
+        int questionID = cachedQuestionID != null ? cachedQuestionID : -1;
 
-        try (PreparedStatement pstmt = connection.prepareStatement(getQuestionQuery)) {
-            pstmt.setInt(1, parentID);
-            ResultSet rs = pstmt.executeQuery();
-            if (rs.next()) {
-                questionID = rs.getInt("questionID");
+        if (questionID == -1) {
+            String getQuestionQuery = "SELECT questionID FROM Feedback WHERE id = ?";
+            try (PreparedStatement pstmt = connection.prepareStatement(getQuestionQuery)) {
+                pstmt.setInt(1, parentID);
+                ResultSet rs = pstmt.executeQuery();
+                if (rs.next()) {
+                    questionID = rs.getInt("questionID");
+                    feedbackQuestionCache.put(parentID, questionID);
+                }
             }
         }
 
@@ -711,13 +892,18 @@ public class DatabaseHelper3 {
     
     public void insertChatMessage(String role, String senderUsername, int questionID, String message) throws SQLException {
         ensureConnected();
-        String reviewerUsername;
-        
-        try {
-            reviewerUsername = getReviewerForQuestion(questionID);
-        } catch (SQLException e) {
-            // If no reviewer found, use a default value
-            reviewerUsername = "NoReviewer";
+        QuestionRoute route = getQuestionRoute(questionID);
+        String reviewerUsername = (route != null && route.reviewer != null) ? route.reviewer : "NoReviewer";
+
+        // If the sender is a student, use their username as student_username
+        // Otherwise, use the student who posted the question
+        String studentUsername;
+        if (role.equals("Student")) {
+            studentUsername = senderUsername;
+        } else if (route != null) {
+            studentUsername = route.owner;
+        } else {
+            throw new SQLException("Question not found: " + questionID);
         }
 
         String sql = "INSERT INTO ChatMessages (question_id, reviewer_username, student_username, sender_role, message) " +
@@ -726,43 +912,23 @@ public class DatabaseHelper3 {
         try (PreparedStatement stmt = connection.prepareStatement(sql)) {
             stmt.setInt(1, questionID);
             stmt.setString(2, reviewerUsername);
-            
-            // If the sender is a student, use their username as student_username
-            // Otherwise, get the student username by finding who posted the question
-            String studentUsername;
-            if (role.equals("Student")) {
-                studentUsername = senderUsername;
-            } else {
-                // For staff/instructor, find the student who posted the question
-                String query = "SELECT postedBy FROM Questions WHERE questionID = ?";
-                try (PreparedStatement pstmt = connection.prepareStatement(query)) {
-                    pstmt.setInt(1, questionID);
-                    ResultSet rs = pstmt.executeQuery();
-                    if (rs.next()) {
-                        studentUsername = rs.getString("postedBy");
-                    } else {
-                        throw new SQLException("Question not found: " + questionID);
-                    }
-                }
-            }
-            
             stmt.setString(3, studentUsername);
             stmt.setString(4, role);
             stmt.setString(5, message);
             stmt.executeUpdate();
         }
+
+        // Fan the message out to the other participant's unread count; a question with no
+        // reviewer yet has nobody on the other side
+        String recipient = role.equals("Student") ? reviewerUsername : studentUsername;
+        if (!recipient.equals("NoReviewer")) {
+            DatabaseHelper2.notifyChatParticipant(connection, questionID, senderUsername, recipient);
+        }
+        DatabaseHelper2.subscribe(connection, senderUsername, questionID);
     }
 
     public List<String> getChatMessagesForQuestion(String studentUsername, int questionID) throws SQLException {
         ensureConnected();
-        String reviewerUsername;
-        
-        try {
-            reviewerUsername = getReviewerForQuestion(questionID);
-        } catch (SQLException e) {
-            // If no reviewer found, use a default value
-            reviewerUsername = "NoReviewer";
-        }
 
         String sql = "SELECT sender_role, message, timestamp FROM ChatMessages " +
                      "WHERE question_id = ? AND student_username = ? " +
@@ -930,15 +1096,54 @@ public class DatabaseHelper3 {
             System.out.println("Attempting to set negative weight: " + weight);
             throw new SQLException("Weight cannot be negative");
         }
-        String query = "MERGE INTO ReviewerWeights (studentUsername, reviewerUsername, weight) "
-                     + "KEY (studentUsername, reviewerUsername) "
-                     + "VALUES (?, ?, ?)";
-        try (PreparedStatement pstmt = connection.prepareStatement(query)) {
-            pstmt.setString(1, studentUsername);
-            pstmt.setString(2, reviewerUsername);
-            pstmt.setInt(3, weight);
-            pstmt.executeUpdate();
+        // The rating and its reviewer's aggregates are written together, so they cannot drift apart
+        inTransaction(() -> {
+            // Read and lock the previous weight so the rating aggregates can be adjusted by the difference
+            Integer previousWeight = null;
+            String lookup = "SELECT weight FROM ReviewerWeights WHERE studentUsername = ? AND reviewerUsername = ? FOR UPDATE";
+            try (PreparedStatement pstmt = connection.prepareStatement(lookup)) {
+                pstmt.setString(1, studentUsername);
+                pstmt.setString(2, reviewerUsername);
+                ResultSet rs = pstmt.executeQuery();
+                if (rs.next()) {
+                    previousWeight = rs.getInt("weight");
+                }
+            }
+
+            String query = "MERGE INTO ReviewerWeights (studentUsername, reviewerUsername, weight) "
+                         + "KEY (studentUsername, reviewerUsername) "
+                         + "VALUES (?, ?, ?)";
+            try (PreparedStatement pstmt = connection.prepareStatement(query)) {
+                pstmt.setString(1, studentUsername);
+                pstmt.setString(2, reviewerUsername);
+                pstmt.setInt(3, weight);
+                pstmt.executeUpdate();
+            }
+
+            String updateStats = "MERGE INTO ReviewerStats s "
+                               + "USING (SELECT CAST(? AS VARCHAR(255)) AS reviewerName, "
+                               + "CAST(? AS BIGINT) AS sumDelta, CAST(? AS INT) AS countDelta) n "
+                               + "ON s.reviewerName = n.reviewerName "
+                               + "WHEN MATCHED THEN UPDATE SET ratingSum = s.ratingSum + n.sumDelta, "
+                               + "ratingCount = s.ratingCount + n.countDelta "
+                               + "WHEN NOT MATCHED THEN INSERT (reviewerName, ratingSum, ratingCount) "
+                               + "VALUES (n.reviewerName, n.sumDelta, n.countDelta)";
+            try (PreparedStatement pstmt = connection.prepareStatement(updateStats)) {
+                pstmt.setString(1, reviewerUsername);
+                pstmt.setInt(2, weight - (previousWeight != null ? previousWeight : 0));
+                pstmt.setInt(3, previousWeight != null ? 0 : 1);
+                pstmt.executeUpdate();
+            }
+        });
+
+        // Keep a cached weight vector of this student in step with the table
+        Map<String, Integer> cachedWeights = studentWeightCache.get(studentUsername);
+        if (cachedWeights != null) {
+            Map<String, Integer> updatedWeights = new HashMap<>(cachedWeights);
+            updatedWeights.put(reviewerUsername, weight);
+            studentWeightCache.put(studentUsername, Collections.unmodifiableMap(updatedWeights));
         }
+        refreshReviewerRank(reviewerUsername);
     }
 
     /**
@@ -978,6 +1183,445 @@ public class DatabaseHelper3 {
         return weights;
     }
     
+    //================================================================================
+    // Personalized Ordering Methods
+    //================================================================================
+
+    /**
+     * Retrieves the answers to a question ordered for a specific student. The accepted
+     * answer comes first, followed by answers written or reviewed by the reviewers the
+     * student trusts most. Answers and their review signals are read with one query and
+     * the student's weights come from memory after the first use.
+     *
+     * @param questionID The ID of the question
+     * @param studentUsername The student the answers are shown to
+     * @return The answers, most trusted first
+     */
+    public List<Answer> getAnswersForStudent(int questionID, String studentUsername) throws SQLException {
+        ensureConnected();
+        Map<Integer, Answer> answers = new LinkedHashMap<>();
+        Map<Integer, List<String>> reviewers = new HashMap<>();
+        int acceptedAnsID = -1;
+
+        String query = "SELECT a.answerID, a.questionID, a.bodyText, a.answeredBy, a.dateCreated, " +
+                       "q.acceptedAnsID, r.reviewerName " +
+                       "FROM Answers a " +
+                       "JOIN Questions q ON a.questionID = q.questionID " +
+                       "LEFT JOIN Reviews r ON r.answerID = a.answerID " +
+                       "WHERE a.questionID = ? " +
+                       "ORDER BY a.dateCreated ASC";
+
+        try (PreparedStatement pstmt = connection.prepareStatement(query)) {
+            pstmt.setInt(1, questionID);
+            ResultSet rs = pstmt.executeQuery();
+            while (rs.next()) {
+                int answerID = rs.getInt("answerID");
+                acceptedAnsID = rs.getInt("acceptedAnsID");
+                if (!answers.containsKey(answerID)) {
+                    answers.put(answerID, new Answer(
+                        answerID,
+                        rs.getInt("questionID"),
+                        rs.getString("bodyText"),
+                        rs.getString("answeredBy"),
+                        rs.getTimestamp("dateCreated")
+                    ));
+                    reviewers.put(answerID, new ArrayList<>());
+                }
+                String reviewerName = rs.getString("reviewerName");
+                if (reviewerName != null) {
+                    reviewers.get(answerID).add(reviewerName);
+                }
+            }
+        }
+
+        TrustScorer scorer = new TrustScorer(getWeightVector(studentUsername));
+        Map<Integer, Double> scores = new HashMap<>();
+        for (Answer answer : answers.values()) {
+            scores.put(answer.getAnsID(), scorer.scoreAnswer(answer.getAnsweredBy(),
+                    answer.getAnsID() == acceptedAnsID, reviewers.get(answer.getAnsID())));
+        }
+
+        // Sorting is stable, so answers with equal scores stay oldest first
+        List<Answer> ordered = new ArrayList<>(answers.values());
+        ordered.sort(Comparator.comparingDouble((Answer a) -> scores.get(a.getAnsID())).reversed());
+        return ordered;
+    }
+
+    /**
+     * Gets all reviews for a specific question including review IDs, ordered so that
+     * reviews from the reviewers the student trusts most come first.
+     *
+     * @param questionID The ID of the question
+     * @param studentUsername The student the reviews are shown to
+     * @return A list of review information arrays in the same format as getReviewsForQuestionWithIDs
+     */
+    public List<String[]> getQuestionReviewsForStudent(int questionID, String studentUsername) throws SQLException {
+        List<String[]> reviewList = getReviewsForQuestionWithIDs(questionID);
+        sortReviewsByTrust(reviewList, studentUsername);
+        return reviewList;
+    }
+
+    /**
+     * Gets the reviews of every answer to a question with a single query, ordered so that
+     * reviews from the reviewers the student trusts most come first.
+     *
+     * @param questionID The ID of the question
+     * @param studentUsername The student the reviews are shown to
+     * @return A list of review information arrays in the same format as getReviewsForAnswerWithIDs
+     */
+    public List<String[]> getAnswerReviewsForStudent(int questionID, String studentUsername) throws SQLException {
+        ensureConnected();
+        List<String[]> reviewList = new ArrayList<>();
+
+        String query = "SELECT r.reviewID, r.answerID, r.reviewerName, r.reviewText, r.dateCreated, " +
+                      "a.bodyText AS answerText " +
+                      "FROM Reviews r " +
+                      "JOIN Answers a ON r.answerID = a.answerID " +
+                      "WHERE a.questionID = ? " +
+                      "ORDER BY r.dateCreated DESC";
+
+        try (PreparedStatement pstmt = connection.prepareStatement(query)) {
+            pstmt.setInt(1, questionID);
+            ResultSet rs = pstmt.executeQuery();
+
+            while (rs.next()) {
+                String reviewID = String.valueOf(rs.getInt("reviewID"));
+                String aID = String.valueOf(rs.getInt("answerID"));
+                String answerText = rs.getString("answerText");
+                String reviewText = rs.getString("reviewText");
+                String reviewerName = rs.getString("reviewerName");
+                String dateCreated = rs.getTimestamp("dateCreated").toString();
+
+                reviewList.add(new String[]{reviewID, aID, answerText, reviewText, reviewerName, dateCreated});
+            }
+        }
+
+        sortReviewsByTrust(reviewList, studentUsername);
+        return reviewList;
+    }
+
+    /**
+     * Orders review rows by the student's weight for the reviewer in column 4, keeping
+     * the existing newest-first order between reviewers with the same weight.
+     */
+    private void sortReviewsByTrust(List<String[]> reviewList, String studentUsername) throws SQLException {
+        TrustScorer scorer = new TrustScorer(getWeightVector(studentUsername));
+        reviewList.sort(Comparator.comparingInt((String[] row) -> scorer.weightOf(row[4])).reversed());
+    }
+
+    /**
+     * Gets a student's weight for every reviewer they have weighted, loading it once and
+     * serving it from the shared cache afterwards.
+     */
+    private Map<String, Integer> getWeightVector(String studentUsername) throws SQLException {
+        Map<String, Integer> weights = studentWeightCache.get(studentUsername);
+        if (weights == null) {
+            Map<String, Integer> loaded = new HashMap<>();
+            for (String[] weight : getReviewerWeights(studentUsername)) {
+                loaded.put(weight[0], Integer.parseInt(weight[1]));
+            }
+            weights = Collections.unmodifiableMap(loaded);
+            studentWeightCache.put(studentUsername, weights);
+        }
+        return weights;
+    }
+
+    //================================================================================
+    // Reviewer Ranking Methods
+    //================================================================================
+
+    /**
+     * Returns one page of the reviewer leaderboard, best reviewer first. Reviewers are
+     * ranked by trust-weighted rating, review volume and recency, and the ordering is
+     * kept in memory so a page costs no aggregation queries once it has been loaded.
+     *
+     * @param page The page number, starting at 0
+     * @param pageSize The number of reviewers per page
+     * @return The reviewers on the requested page
+     */
+    public List<ReviewerRank> getReviewerLeaderboard(int page, int pageSize) throws SQLException {
+        ensureLeaderboardLoaded();
+        return leaderboard.getPage(page, pageSize);
+    }
+
+    /**
+     * Gets the reviewers who have reviewed questions, ordered by their leaderboard position.
+     * Reviewers without a position are listed last in alphabetical order.
+     *
+     * @return A list of reviewer usernames
+     */
+    public List<String> getAllReviewersByRank() throws SQLException {
+        List<String> reviewers = getAllReviewers();
+        ensureLeaderboardLoaded();
+        Map<String, Integer> positions = new HashMap<>();
+        for (ReviewerRank rank : leaderboard.getPage(0, Integer.MAX_VALUE)) {
+            positions.put(rank.getUserName(), positions.size());
+        }
+        // getAllReviewers is alphabetical and the sort is stable, so unranked reviewers stay in order
+        reviewers.sort(Comparator.comparingInt(name -> positions.getOrDefault(name, Integer.MAX_VALUE)));
+        return reviewers;
+    }
+
+    /**
+     * Marks the leaderboard as stale. Called by the other helpers when they change
+     * the aggregates of several reviewers at once.
+     */
+    static void invalidateReviewerRanking() {
+        leaderboard.invalidate();
+    }
+
+    /**
+     * Drops what is cached about a user who was deleted: their reviewer weights, their
+     * place on the leaderboard and their saved searches.
+     *
+     * @param userName The name of the user
+     */
+    static void invalidateUser(String userName) {
+        studentWeightCache.remove(userName);
+        leaderboard.invalidate();
+        percolator.invalidate();
+    }
+
+    /**
+     * Drops every cache and in-memory index of the helper, so they are rebuilt from the
+     * database. Called when the database is replaced, such as by a restore.
+     */
+    static void invalidateCaches() {
+        questionRouteCache.clear();
+        feedbackQuestionCache.clear();
+        studentWeightCache.clear();
+        searchResultCache.clear();
+        leaderboard.invalidate();
+        percolator.invalidate();
+        synchronized (completionTrie) {
+            completionTrie.clear();
+            spellingCorrector.clear();
+            searchIndexLoad = null;
+        }
+    }
+
+    /**
+     * Loads the whole leaderboard from ReviewerStats if it is not loaded yet.
+     */
+    private void ensureLeaderboardLoaded() throws SQLException {
+        if (leaderboard.isLoaded()) {
+            return;
+        }
+        ensureConnected();
+        List<ReviewerRank> ranks = new ArrayList<>();
+        String query = "SELECT reviewerName, totalReviews, ratingSum, ratingCount, lastReviewTime FROM ReviewerStats";
+        try (PreparedStatement pstmt = connection.prepareStatement(query);
+             ResultSet rs = pstmt.executeQuery()) {
+            while (rs.next()) {
+                ranks.add(readReviewerRank(rs));
+            }
+        }
+        leaderboard.load(ranks);
+    }
+
+    /**
+     * Runs the work in one transaction, rolling everything back if any statement fails.
+     */
+    private void inTransaction(Work work) throws SQLException {
+        boolean autoCommit = connection.getAutoCommit();
+        connection.setAutoCommit(false);
+        try {
+            work.run();
+            connection.commit();
+        } catch (SQLException | RuntimeException e) {
+            connection.rollback();
+            throw e;
+        } finally {
+            connection.setAutoCommit(autoCommit);
+        }
+    }
+
+    /**
+     * Re-reads a single reviewer's aggregates and moves them on the leaderboard.
+     */
+    private void refreshReviewerRank(String reviewerName) throws SQLException {
+        if (!leaderboard.isLoaded()) {
+            return;
+        }
+        String query = "SELECT reviewerName, totalReviews, ratingSum, ratingCount, lastReviewTime FROM ReviewerStats WHERE reviewerName = ?";
+        try (PreparedStatement pstmt = connection.prepareStatement(query)) {
+            pstmt.setString(1, reviewerName);
+            ResultSet rs = pstmt.executeQuery();
+            if (rs.next()) {
+                leaderboard.update(readReviewerRank(rs));
+            }
+        }
+    }
+
+    private ReviewerRank readReviewerRank(ResultSet rs) throws SQLException {
+        Timestamp lastReview = rs.getTimestamp("lastReviewTime");
+        return new ReviewerRank(
+            rs.getString("reviewerName"),
+            rs.getInt("totalReviews"),
+            rs.getLong("ratingSum"),
+            rs.getInt("ratingCount"),
+            lastReview != null ? new java.util.Date(lastReview.getTime()) : null
+        );
+    }
+
+    //================================================================================
+    // Saved Search Alert Methods
+    //================================================================================
+
+    /**
+     * Saves a search so that new questions and answers containing all of its words are
+     * delivered to the user as alerts.
+     *
+     * @param userName The user saving the search
+     * @param queryText The words to watch for
+     * @return The ID of the saved search
+     */
+    public int saveSearch(String userName, String queryText) throws SQLException {
+        ensureConnected();
+        if (SavedSearchPercolator.termsOf(queryText).isEmpty()) {
+            throw new SQLException("Saved search has no words to watch for");
+        }
+        percolator.ensureLoaded(connection);
+        String query = "INSERT INTO SavedSearches (userName, queryText) VALUES (?, ?)";
+        try (PreparedStatement pstmt = connection.prepareStatement(query, Statement.RETURN_GENERATED_KEYS)) {
+            pstmt.setString(1, userName);
+            pstmt.setString(2, queryText);
+            pstmt.executeUpdate();
+            try (ResultSet rs = pstmt.getGeneratedKeys()) {
+                if (!rs.next()) {
+                    throw new SQLException("Saving search failed, no ID obtained.");
+                }
+                int searchID = rs.getInt(1);
+                percolator.put(new SavedSearchPercolator.SavedSearch(searchID, userName, queryText));
+                return searchID;
+            }
+        }
+    }
+
+    /**
+     * Deletes a saved search together with the alerts it delivered.
+     *
+     * @param searchID The ID of the saved search
+     */
+    public void deleteSavedSearch(int searchID) throws SQLException {
+        ensureConnected();
+        String query = "DELETE FROM SavedSearches WHERE searchID = ?";
+        try (PreparedStatement pstmt = connection.prepareStatement(query)) {
+            pstmt.setInt(1, searchID);
+            pstmt.executeUpdate();
+        }
+        percolator.remove(searchID);
+    }
+
+    /**
+     * Retrieves the searches a user has saved.
+     *
+     * @param userName The user whose searches to retrieve
+     * @return Rows of [searchID, queryText, createdAt], newest first
+     */
+    public List<String[]> getSavedSearches(String userName) throws SQLException {
+        ensureConnected();
+        List<String[]> searches = new ArrayList<>();
+        String query = "SELECT searchID, queryText, createdAt FROM SavedSearches WHERE userName = ? ORDER BY createdAt DESC";
+        try (PreparedStatement pstmt = connection.prepareStatement(query)) {
+            pstmt.setString(1, userName);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    searches.add(new String[]{
+                        String.valueOf(rs.getInt("searchID")),
+                        rs.getString("queryText"),
+                        rs.getTimestamp("createdAt").toString()
+                    });
+                }
+            }
+        }
+        return searches;
+    }
+
+    /**
+     * Retrieves the alerts delivered to a user, in the same row layout as the inbox.
+     *
+     * @param userName The user whose alerts to retrieve
+     * @return Rows of [type, content, alertID, message, postedBy, date, questionID], newest first
+     */
+    public List<String[]> getSearchAlertsForUser(String userName) throws SQLException {
+        ensureConnected();
+        List<String[]> alerts = new ArrayList<>();
+        String query = "SELECT a.alertID, a.contentType, a.questionID, a.contentText, a.postedBy, a.createdAt, s.queryText "
+                     + "FROM SearchAlerts a JOIN SavedSearches s ON a.searchID = s.searchID "
+                     + "WHERE a.userName = ? ORDER BY a.createdAt DESC, a.alertID DESC";
+        try (PreparedStatement pstmt = connection.prepareStatement(query)) {
+            pstmt.setString(1, userName);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    alerts.add(new String[]{
+                        "Alert",                                                  // 0 - Type
+                        rs.getString("contentText"),                              // 1 - Content
+                        String.valueOf(rs.getInt("alertID")),                     // 2 - Alert ID
+                        "New " + rs.getString("contentType").toLowerCase()
+                            + " matches \"" + rs.getString("queryText") + "\"",  // 3 - Message
+                        rs.getString("postedBy"),                                 // 4 - From
+                        rs.getTimestamp("createdAt").toString(),                  // 5 - Date
+                        String.valueOf(rs.getInt("questionID"))                   // 6 - Question ID
+                    });
+                }
+            }
+        }
+        return alerts;
+    }
+
+    /**
+     * Dismisses an alert.
+     *
+     * @param alertID The ID of the alert
+     */
+    public void deleteSearchAlert(int alertID) throws SQLException {
+        ensureConnected();
+        String query = "DELETE FROM SearchAlerts WHERE alertID = ?";
+        try (PreparedStatement pstmt = connection.prepareStatement(query)) {
+            pstmt.setInt(1, alertID);
+            pstmt.executeUpdate();
+        }
+    }
+
+    /**
+     * Matches a new post against every saved search in one pass and delivers an alert to
+     * the owner of each matching search. Users are not alerted about their own posts.
+     *
+     * @param connection The connection the post was inserted on
+     * @param contentType "Question" or "Answer"
+     * @param contentID The ID of the question or answer
+     * @param questionID The ID of the question the post belongs to
+     * @param text The text of the post
+     * @param postedBy The author of the post
+     */
+    static void deliverSearchAlerts(Connection connection, String contentType, int contentID, int questionID,
+                                    String text, String postedBy) throws SQLException {
+        percolator.ensureLoaded(connection);
+        List<SavedSearchPercolator.SavedSearch> matches = percolator.match(text);
+        if (matches.isEmpty()) {
+            return;
+        }
+        String query = "INSERT INTO SearchAlerts (searchID, userName, contentType, contentID, questionID, contentText, postedBy) "
+                     + "VALUES (?, ?, ?, ?, ?, ?, ?)";
+        try (PreparedStatement pstmt = connection.prepareStatement(query)) {
+            for (SavedSearchPercolator.SavedSearch search : matches) {
+                if (search.userName.equals(postedBy)) {
+                    continue;
+                }
+                pstmt.setInt(1, search.searchID);
+                pstmt.setString(2, search.userName);
+                pstmt.setString(3, contentType);
+                pstmt.setInt(4, contentID);
+                pstmt.setInt(5, questionID);
+                pstmt.setString(6, text);
+                pstmt.setString(7, postedBy);
+                pstmt.addBatch();
+            }
+            pstmt.executeBatch();
+        }
+    }
+
     //================================================================================
     // Flagged Content Methods
     //================================================================================
@@ -1070,6 +1714,21 @@ public class DatabaseHelper3 {
     public List<Question> searchQuestions(String keyword, String filterType, String filterValue) throws SQLException {
         ensureConnected();
         List<Question> results = new ArrayList<>();
+
+        // Reuse the IDs of an earlier identical search while the tables it read are unchanged
+        boolean hasKeyword = keyword != null && !keyword.trim().isEmpty();
+        boolean hasReviewer = filterType.equals("Reviewer") && filterValue != null && !filterValue.trim().isEmpty();
+        String cacheKey = (hasKeyword ? keyword.toLowerCase() : "") + "\u0000" + filterType
+                        + "\u0000" + (hasReviewer ? filterValue : "");
+        SearchResult cached = searchResultCache.get(cacheKey);
+        if (cached != null && cached.isCurrent()) {
+            return getQuestionsInOrder(cached.questionIDs);
+        }
+        String[] tables = filterType.equals("Reviewer") ? new String[]{TableVersions.QUESTIONS, TableVersions.REVIEWS}
+                        : filterType.equals("Answered") || filterType.equals("Unanswered")
+                            ? new String[]{TableVersions.QUESTIONS, TableVersions.ANSWERS}
+                            : new String[]{TableVersions.QUESTIONS};
+        long[] versions = TableVersions.snapshot(tables);
         
         StringBuilder queryBuilder = new StringBuilder();
         queryBuilder.append("SELECT DISTINCT q.* FROM Questions q ");
@@ -1130,10 +1789,224 @@ public class DatabaseHelper3 {
                 results.add(question);
             }
         }
-        
+
+        List<Integer> questionIDs = new ArrayList<>();
+        for (Question question : results) {
+            questionIDs.add(question.getQuestionID());
+        }
+        searchResultCache.put(cacheKey, new SearchResult(tables, versions, questionIDs));
+        return results;
+    }
+
+    /**
+     * Loads questions by ID in the given order, taking those in the hot question cache
+     * from memory and reading the rest with one query.
+     */
+    private List<Question> getQuestionsInOrder(List<Integer> questionIDs) throws SQLException {
+        Map<Integer, Question> found = new HashMap<>();
+        List<Integer> missing = new ArrayList<>();
+        for (int questionID : questionIDs) {
+            Question question = DatabaseHelper2.getCachedQuestion(questionID);
+            if (question != null) {
+                found.put(questionID, question);
+            } else {
+                missing.add(questionID);
+            }
+        }
+        if (!missing.isEmpty()) {
+            StringBuilder query = new StringBuilder("SELECT * FROM Questions WHERE questionID IN (");
+            for (int i = 0; i < missing.size(); i++) {
+                query.append(i == 0 ? "?" : ", ?");
+            }
+            query.append(")");
+            long stamp = DatabaseHelper2.questionCacheStamp();
+            try (PreparedStatement pstmt = connection.prepareStatement(query.toString())) {
+                for (int i = 0; i < missing.size(); i++) {
+                    pstmt.setInt(i + 1, missing.get(i));
+                }
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    while (rs.next()) {
+                        Question question = new Question(
+                            rs.getInt("questionID"),
+                            rs.getString("bodyText"),
+                            rs.getString("postedBy"),
+                            rs.getTimestamp("dateCreated")
+                        );
+                        question.setResolved(rs.getBoolean("resolvedStatus"));
+                        question.setAcceptedAnsID(rs.getInt("acceptedAnsID"));
+                        question.setNewMessagesCount(rs.getInt("newMessagesCount"));
+                        DatabaseHelper2.cacheQuestion(question, stamp);
+                        found.put(question.getQuestionID(), question);
+                    }
+                }
+            }
+        }
+
+        List<Question> results = new ArrayList<>();
+        for (int questionID : questionIDs) {
+            Question question = found.get(questionID);
+            if (question != null) {
+                // Searches return plain dates, as the uncached search does
+                question.setDateCreated(new java.util.Date(question.getDateCreated().getTime()));
+                results.add(question);
+            }
+        }
         return results;
     }
     
+    /**
+     * Suggests completions for what has been typed in the search field so far. The last
+     * word is completed, together with the word before it when the two form a phrase
+     * used in posts. Completions come from an in-memory prefix trie, so no query runs
+     * per keystroke. Nothing is suggested until the trie has been loaded in the background.
+     *
+     * @param typed The text typed in the search field
+     * @param limit The maximum number of suggestions to return
+     * @return The suggested search texts, most frequent completion first
+     */
+    public List<String> getSearchCompletions(String typed, int limit) throws SQLException {
+        List<String> suggestions = new ArrayList<>();
+        List<String> tokens = TextTokenizer.tokenize(typed);
+        if (tokens.isEmpty() || limit <= 0 || !searchIndexesReady()) {
+            return suggestions;
+        }
+
+        // A trailing space or symbol means the next word is being started
+        boolean endsInWord = Character.isLetterOrDigit(typed.charAt(typed.length() - 1));
+        int keyStart = endsInWord ? tokens.size() - 1 : tokens.size();
+        if (keyStart > 0 && !TextTokenizer.isStopWord(tokens.get(keyStart - 1))) {
+            keyStart--;
+        }
+        if (keyStart == tokens.size()) {
+            return suggestions;
+        }
+        String key = String.join(" ", tokens.subList(keyStart, tokens.size())) + (endsInWord ? "" : " ");
+        addCompletions(suggestions, tokens.subList(0, keyStart), key, limit);
+
+        // Fall back to completing the last word on its own
+        if (suggestions.size() < limit && endsInWord && keyStart < tokens.size() - 1) {
+            addCompletions(suggestions, tokens.subList(0, tokens.size() - 1), tokens.get(tokens.size() - 1), limit);
+        }
+        return suggestions;
+    }
+
+    /**
+     * Suggests a corrected search when words of a keyword are not used in any post,
+     * replacing each unknown word with the closest known one. Nothing is suggested
+     * until the vocabulary has been loaded in the background.
+     *
+     * @param keyword The keyword that was searched for
+     * @return The corrected keyword, or null if there is nothing to correct
+     */
+    public String getSpellingSuggestion(String keyword) throws SQLException {
+        List<String> tokens = TextTokenizer.tokenize(keyword);
+        if (tokens.isEmpty() || !searchIndexesReady()) {
+            return null;
+        }
+        boolean corrected = false;
+        List<String> words = new ArrayList<>();
+        for (String token : tokens) {
+            String word = TextTokenizer.isStopWord(token) ? token : spellingCorrector.correct(token);
+            corrected |= !word.equals(token);
+            words.add(word);
+        }
+        return corrected ? String.join(" ", words) : null;
+    }
+
+    /**
+     * Adds the words of a new post to the search completions and spelling vocabulary.
+     * Ignored until loading has started, since loading will pick it up. A post written
+     * while loading may be counted twice, which only nudges its ranking.
+     */
+    static void indexSearchText(String text) {
+        synchronized (completionTrie) {
+            if (searchIndexLoad != null) {
+                completionTrie.addText(text);
+                spellingCorrector.addText(text);
+            }
+        }
+    }
+
+    private void addCompletions(List<String> suggestions, List<String> leading, String key, int limit) {
+        String lead = leading.isEmpty() ? "" : String.join(" ", leading) + " ";
+        for (String completion : completionTrie.complete(key, limit)) {
+            String suggestion = lead + completion;
+            if (suggestions.size() < limit && !suggestions.contains(suggestion)) {
+                suggestions.add(suggestion);
+            }
+        }
+    }
+
+    /**
+     * Starts filling the search completions and spelling vocabulary in the background,
+     * so the first keystroke in a search field does not wait for every post to be read.
+     *
+     * @return Completes when the completions and vocabulary have been loaded
+     */
+    public static CompletableFuture<Void> preloadSearchIndexes() {
+        synchronized (completionTrie) {
+            if (searchIndexLoad == null || searchIndexLoad.isCompletedExceptionally()) {
+                CompletableFuture<Void> load = new CompletableFuture<>();
+                searchIndexLoad = load;
+                Thread thread = new Thread(() -> loadSearchIndexes(load), "search-index-preload");
+                thread.setDaemon(true);
+                thread.start();
+            }
+            return searchIndexLoad;
+        }
+    }
+
+    /**
+     * Returns true if the completions and vocabulary are loaded, otherwise starts
+     * loading them.
+     */
+    private static boolean searchIndexesReady() {
+        if (completionTrie.isLoaded()) {
+            return true;
+        }
+        preloadSearchIndexes();
+        return false;
+    }
+
+    /**
+     * Fills the search completions and spelling vocabulary in one pass over every post,
+     * on its own connection. Posts are added one at a time, so searches and new posts
+     * are not held up while the rest are read. A load superseded by a cache invalidation
+     * stops without marking the trie loaded.
+     */
+    private static void loadSearchIndexes(CompletableFuture<Void> load) {
+        DatabaseHelper3 loader = new DatabaseHelper3();
+        try {
+            loader.connectToExistingDatabase();
+            String query = "SELECT bodyText FROM Questions UNION ALL SELECT bodyText FROM Answers";
+            try (PreparedStatement pstmt = loader.connection.prepareStatement(query);
+                 ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    String text = rs.getString("bodyText");
+                    synchronized (completionTrie) {
+                        if (searchIndexLoad != load) {
+                            load.complete(null);
+                            return;
+                        }
+                        completionTrie.addText(text);
+                        spellingCorrector.addText(text);
+                    }
+                }
+            }
+            synchronized (completionTrie) {
+                if (searchIndexLoad == load) {
+                    completionTrie.markLoaded();
+                }
+            }
+            load.complete(null);
+        } catch (SQLException | RuntimeException e) {
+            System.err.println("Loading search completions failed: " + e.getMessage());
+            load.completeExceptionally(e);
+        } finally {
+            loader.closeConnection();
+        }
+    }
+
     /**
      * Gets a list of all reviewers who have reviewed questions.
      * 
@@ -1224,25 +2097,18 @@ public class DatabaseHelper3 {
      */
     public ReviewerProfile getReviewerProfile(String userName) throws SQLException {
         ensureConnected();
-        
-        // First, create the table if it doesn't exist
-        statement.execute("CREATE TABLE IF NOT EXISTS ReviewerProfiles (" +
-            "userName VARCHAR(50) PRIMARY KEY," +
-            "experience TEXT," +
-            "background TEXT," +
-            "lastUpdated TIMESTAMP DEFAULT CURRENT_TIMESTAMP" +
-            ")");
 
-        String query = "SELECT rp.*, " +
-                      "(SELECT COUNT(*) FROM Reviews r WHERE r.reviewerName = ?) as totalReviews, " +
-                      "(SELECT COALESCE(AVG(CAST(weight as DOUBLE)), 0.0) FROM ReviewerWeights rw WHERE rw.reviewerUsername = ?) as avgRating " +
+        // Review counts and ratings come from the ReviewerStats aggregates instead of
+        // being recomputed from Reviews and ReviewerWeights on every read
+        String query = "SELECT rp.experience, rp.background, " +
+                      "COALESCE(s.totalReviews, 0) as totalReviews, " +
+                      "CASE WHEN s.ratingCount > 0 THEN CAST(s.ratingSum AS DOUBLE) / s.ratingCount ELSE 0.0 END as avgRating " +
                       "FROM ReviewerProfiles rp " +
+                      "LEFT JOIN ReviewerStats s ON s.reviewerName = rp.userName " +
                       "WHERE rp.userName = ?";
         
         try (PreparedStatement pstmt = connection.prepareStatement(query)) {
             pstmt.setString(1, userName);
-            pstmt.setString(2, userName);
-            pstmt.setString(3, userName);
             ResultSet rs = pstmt.executeQuery();
             
             if (rs.next()) {
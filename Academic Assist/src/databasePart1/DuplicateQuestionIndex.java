@@ -0,0 +1,323 @@
+package databasePart1;
+
+import java.nio.ByteBuffer;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Finds questions that are near duplicates of a new question using MinHash signatures
+ * and locality sensitive hashing (LSH).
+ *
+ * <p>Each question is reduced to the set of word pairs it contains, and the signature
+ * keeps the minimum of that set under {@value #NUM_HASHES} different hash functions.
+ * The share of equal signature positions estimates how much two questions overlap.
+ * The signature is cut into {@value #BANDS} bands, and questions sharing any band fall
+ * in the same bucket, so only those candidates are compared instead of every question.</p>
+ *
+ * <p>Signatures and bucket entries are persisted in the QuestionSignatures and
+ * QuestionLshBuckets tables next to Questions, and loaded into memory on first use so a
+ * lookup does not touch the database.</p>
+ */
+class DuplicateQuestionIndex {
+
+    static final int NUM_HASHES = 64;
+    static final int BANDS = 16;
+    static final int ROWS = NUM_HASHES / BANDS;
+    // With 16 bands of 4 rows, pairs around this similarity become candidates
+    static final double SIMILARITY_THRESHOLD = 0.5;
+
+    // Questions whose rows are written per JDBC batch when indexing many at once
+    static final int PERSIST_BATCH_SIZE = 500;
+
+    private static final long PRIME = 2147483647L;
+    private static final long[] HASH_A = new long[NUM_HASHES];
+    private static final long[] HASH_B = new long[NUM_HASHES];
+
+    static {
+        // Fixed seed so persisted signatures stay valid between runs
+        Random random = new Random(360);
+        for (int i = 0; i < NUM_HASHES; i++) {
+            HASH_A[i] = 1 + (long) (random.nextDouble() * (PRIME - 1));
+            HASH_B[i] = (long) (random.nextDouble() * PRIME);
+        }
+    }
+
+    private final Map<Integer, int[]> signatures = new HashMap<>();
+    private final Map<Long, Set<Integer>> buckets = new HashMap<>();
+    private boolean loaded = false;
+
+    /**
+     * Computes the MinHash signature of a text, or returns null if it has no terms.
+     */
+    static int[] signature(String text) {
+        List<String> tokens = TextTokenizer.tokenize(text);
+        if (tokens.isEmpty()) {
+            return null;
+        }
+        Set<String> shingles = new HashSet<>();
+        if (tokens.size() == 1) {
+            shingles.add(tokens.get(0));
+        }
+        for (int i = 0; i + 1 < tokens.size(); i++) {
+            shingles.add(tokens.get(i) + " " + tokens.get(i + 1));
+        }
+
+        int[] signature = new int[NUM_HASHES];
+        Arrays.fill(signature, Integer.MAX_VALUE);
+        for (String shingle : shingles) {
+            long x = shingle.hashCode() & 0x7fffffffL;
+            for (int i = 0; i < NUM_HASHES; i++) {
+                int h = (int) ((HASH_A[i] * x + HASH_B[i]) % PRIME);
+                if (h < signature[i]) {
+                    signature[i] = h;
+                }
+            }
+        }
+        return signature;
+    }
+
+    /**
+     * Computes the bucket key of every band of a signature.
+     */
+    static long[] bandKeys(int[] signature) {
+        long[] keys = new long[BANDS];
+        for (int band = 0; band < BANDS; band++) {
+            int hash = Arrays.hashCode(Arrays.copyOfRange(signature, band * ROWS, (band + 1) * ROWS));
+            keys[band] = ((long) band << 32) | (hash & 0xffffffffL);
+        }
+        return keys;
+    }
+
+    /**
+     * Estimates the Jaccard similarity of the texts behind two signatures.
+     */
+    static double similarity(int[] a, int[] b) {
+        int equal = 0;
+        for (int i = 0; i < NUM_HASHES; i++) {
+            if (a[i] == b[i]) {
+                equal++;
+            }
+        }
+        return (double) equal / NUM_HASHES;
+    }
+
+    /**
+     * Loads every persisted signature into memory, first indexing any question that
+     * was stored before it had a signature.
+     */
+    synchronized void ensureLoaded(Connection connection) throws SQLException {
+        if (loaded) {
+            return;
+        }
+        String missing = "SELECT q.questionID, q.bodyText FROM Questions q "
+                       + "LEFT JOIN QuestionSignatures s ON q.questionID = s.questionID "
+                       + "WHERE s.questionID IS NULL";
+        Map<Integer, String> unindexed = new HashMap<>();
+        try (PreparedStatement pstmt = connection.prepareStatement(missing);
+             ResultSet rs = pstmt.executeQuery()) {
+            while (rs.next()) {
+                unindexed.put(rs.getInt("questionID"), rs.getString("bodyText"));
+            }
+        }
+        // Bulk loads leave many questions unindexed, so sign them on every core and
+        // write their rows in batches
+        Map<Integer, int[]> signed = new ConcurrentHashMap<>();
+        unindexed.entrySet().parallelStream().forEach(entry -> {
+            int[] signature = signature(entry.getValue());
+            if (signature != null) {
+                signed.put(entry.getKey(), signature);
+            }
+        });
+        persistAll(connection, signed);
+
+        signatures.clear();
+        buckets.clear();
+        try (PreparedStatement pstmt = connection.prepareStatement("SELECT questionID, signature FROM QuestionSignatures");
+             ResultSet rs = pstmt.executeQuery()) {
+            while (rs.next()) {
+                signatures.put(rs.getInt("questionID"), decode(rs.getBytes("signature")));
+            }
+        }
+        try (PreparedStatement pstmt = connection.prepareStatement("SELECT bucketKey, questionID FROM QuestionLshBuckets");
+             ResultSet rs = pstmt.executeQuery()) {
+            while (rs.next()) {
+                buckets.computeIfAbsent(rs.getLong("bucketKey"), k -> new HashSet<>()).add(rs.getInt("questionID"));
+            }
+        }
+        loaded = true;
+    }
+
+    /**
+     * Drops the in-memory index, so the next lookup reloads it and indexes every question
+     * added without a signature, such as by a bulk import.
+     */
+    synchronized void invalidate() {
+        loaded = false;
+    }
+
+    /**
+     * Indexes a question, replacing any signature it had before.
+     */
+    synchronized void put(Connection connection, int questionID, String bodyText) throws SQLException {
+        int[] signature = signature(bodyText);
+        if (loaded && Arrays.equals(signature, signatures.get(questionID))) {
+            return;
+        }
+        delete(connection, questionID);
+        removeFromMemory(questionID);
+        persist(connection, questionID, signature);
+        if (loaded && signature != null) {
+            signatures.put(questionID, signature);
+            for (long key : bandKeys(signature)) {
+                buckets.computeIfAbsent(key, k -> new HashSet<>()).add(questionID);
+            }
+        }
+    }
+
+    /**
+     * Removes a question from the in-memory index. Its persisted rows are removed by
+     * the cascade when the question itself is deleted.
+     */
+    synchronized void remove(int questionID) {
+        removeFromMemory(questionID);
+    }
+
+    /**
+     * Finds the questions most similar to a text.
+     *
+     * @param text The text of the new question
+     * @param limit The maximum number of questions to return
+     * @return The IDs of similar questions, most similar first
+     */
+    synchronized List<Integer> findSimilar(String text, int limit) {
+        List<Integer> result = new ArrayList<>();
+        int[] signature = signature(text);
+        if (signature == null) {
+            return result;
+        }
+        Set<Integer> candidates = new HashSet<>();
+        for (long key : bandKeys(signature)) {
+            Set<Integer> bucket = buckets.get(key);
+            if (bucket != null) {
+                candidates.addAll(bucket);
+            }
+        }
+        Map<Integer, Double> scores = new HashMap<>();
+        for (int candidate : candidates) {
+            double similarity = similarity(signature, signatures.get(candidate));
+            if (similarity >= SIMILARITY_THRESHOLD) {
+                scores.put(candidate, similarity);
+            }
+        }
+        result.addAll(scores.keySet());
+        result.sort((a, b) -> Double.compare(scores.get(b), scores.get(a)));
+        return result.size() > limit ? new ArrayList<>(result.subList(0, limit)) : result;
+    }
+
+    private void removeFromMemory(int questionID) {
+        int[] previous = signatures.remove(questionID);
+        if (previous == null) {
+            return;
+        }
+        for (long key : bandKeys(previous)) {
+            Set<Integer> bucket = buckets.get(key);
+            if (bucket != null) {
+                bucket.remove(questionID);
+                if (bucket.isEmpty()) {
+                    buckets.remove(key);
+                }
+            }
+        }
+    }
+
+    private void persist(Connection connection, int questionID, int[] signature) throws SQLException {
+        if (signature == null) {
+            return;
+        }
+        String insertSignature = "INSERT INTO QuestionSignatures (questionID, signature) VALUES (?, ?)";
+        try (PreparedStatement pstmt = connection.prepareStatement(insertSignature)) {
+            pstmt.setInt(1, questionID);
+            pstmt.setBytes(2, encode(signature));
+            pstmt.executeUpdate();
+        }
+        String insertBucket = "MERGE INTO QuestionLshBuckets (bucketKey, questionID) KEY (bucketKey, questionID) VALUES (?, ?)";
+        try (PreparedStatement pstmt = connection.prepareStatement(insertBucket)) {
+            for (long key : bandKeys(signature)) {
+                pstmt.setLong(1, key);
+                pstmt.setInt(2, questionID);
+                pstmt.addBatch();
+            }
+            pstmt.executeBatch();
+        }
+    }
+
+    private void persistAll(Connection connection, Map<Integer, int[]> signatures) throws SQLException {
+        if (signatures.isEmpty()) {
+            return;
+        }
+        String insertSignature = "INSERT INTO QuestionSignatures (questionID, signature) VALUES (?, ?)";
+        String insertBucket = "MERGE INTO QuestionLshBuckets (bucketKey, questionID) KEY (bucketKey, questionID) VALUES (?, ?)";
+        try (PreparedStatement signatureStmt = connection.prepareStatement(insertSignature);
+             PreparedStatement bucketStmt = connection.prepareStatement(insertBucket)) {
+            int pending = 0;
+            for (Map.Entry<Integer, int[]> entry : signatures.entrySet()) {
+                signatureStmt.setInt(1, entry.getKey());
+                signatureStmt.setBytes(2, encode(entry.getValue()));
+                signatureStmt.addBatch();
+                for (long key : bandKeys(entry.getValue())) {
+                    bucketStmt.setLong(1, key);
+                    bucketStmt.setInt(2, entry.getKey());
+                    bucketStmt.addBatch();
+                }
+                if (++pending == PERSIST_BATCH_SIZE) {
+                    signatureStmt.executeBatch();
+                    bucketStmt.executeBatch();
+                    pending = 0;
+                }
+            }
+            if (pending > 0) {
+                signatureStmt.executeBatch();
+                bucketStmt.executeBatch();
+            }
+        }
+    }
+
+    private void delete(Connection connection, int questionID) throws SQLException {
+        try (PreparedStatement pstmt = connection.prepareStatement("DELETE FROM QuestionLshBuckets WHERE questionID = ?")) {
+            pstmt.setInt(1, questionID);
+            pstmt.executeUpdate();
+        }
+        try (PreparedStatement pstmt = connection.prepareStatement("DELETE FROM QuestionSignatures WHERE questionID = ?")) {
+            pstmt.setInt(1, questionID);
+            pstmt.executeUpdate();
+        }
+    }
+
+    private static byte[] encode(int[] signature) {
+        ByteBuffer buffer = ByteBuffer.allocate(signature.length * 4);
+        for (int value : signature) {
+            buffer.putInt(value);
+        }
+        return buffer.array();
+    }
+
+    private static int[] decode(byte[] bytes) {
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        int[] signature = new int[bytes.length / 4];
+        for (int i = 0; i < signature.length; i++) {
+            signature[i] = buffer.getInt();
+        }
+        return signature;
+    }
+}
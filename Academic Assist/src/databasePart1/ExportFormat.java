@@ -0,0 +1,49 @@
+package databasePart1;
+
+/**
+ * The file formats questions and answers can be exported to and imported from.
+ */
+public enum ExportFormat {
+
+    /**
+     * One JSON object per line for each question, with its answers, reviews and feedback
+     * nested in arrays.
+     */
+    JSON_LINES(".jsonl"),
+
+    /**
+     * One CSV record per question, answer, review or feedback, each question followed by
+     * the records that belong to it. The {@code recordType} column tells them apart.
+     */
+    CSV(".csv");
+
+    private final String extension;
+
+    ExportFormat(String extension) {
+        this.extension = extension;
+    }
+
+    /** Returns the usual file name extension, such as ".jsonl" */
+    public String getExtension() {
+        return extension;
+    }
+
+    /**
+     * Returns the format of a file from its name, ignoring a trailing ".gz".
+     *
+     * @param fileName The file name
+     * @return The format, or null if the name has neither extension
+     */
+    public static ExportFormat forFileName(String fileName) {
+        String name = fileName.toLowerCase();
+        if (name.endsWith(".gz")) {
+            name = name.substring(0, name.length() - 3);
+        }
+        for (ExportFormat format : values()) {
+            if (name.endsWith(format.extension)) {
+                return format;
+            }
+        }
+        return null;
+    }
+}
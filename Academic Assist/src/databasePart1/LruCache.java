@@ -0,0 +1,161 @@
+package databasePart1;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Predicate;
+import java.util.function.ToIntFunction;
+
+/**
+ * A small bounded least-recently-used cache used by the database helpers to avoid
+ * repeating lookups whose results rarely change. Once the cache holds more than
+ * {@code maxEntries} values, or the values weigh more than {@code maxWeight} in total,
+ * the entries that were read or written longest ago are evicted.
+ * All methods are synchronized so one cache can be shared by every helper instance.
+ *
+ * <p>A value read from the database can be stale by the time it is cached if a writer
+ * invalidated the entry while the read was running. Readers take a {@link #stamp()}
+ * before their query and cache the result with {@link #put(Object, Object, long)},
+ * which drops it if anything was invalidated in the meantime.</p>
+ *
+ * @param <K> The key type
+ * @param <V> The value type
+ */
+class LruCache<K, V> {
+
+    private final LinkedHashMap<K, V> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private final int maxEntries;
+    private final long maxWeight;
+    private final ToIntFunction<V> weigher;
+    private long weight = 0;
+    // Counts removals, so a read that started before one is not cached
+    private long invalidations = 0;
+    private long hits = 0;
+    private long misses = 0;
+
+    /**
+     * Creates a new cache that holds at most the given number of entries.
+     *
+     * @param maxEntries The maximum number of entries to keep
+     */
+    LruCache(int maxEntries) {
+        this(maxEntries, Long.MAX_VALUE, value -> 0);
+    }
+
+    /**
+     * Creates a new cache bounded by both the number of entries and their total weight.
+     *
+     * @param maxEntries The maximum number of entries to keep
+     * @param maxWeight The maximum total weight of the cached values
+     * @param weigher Computes the weight of a value, such as the length of its text
+     */
+    LruCache(int maxEntries, long maxWeight, ToIntFunction<V> weigher) {
+        this.maxEntries = maxEntries;
+        this.maxWeight = maxWeight;
+        this.weigher = weigher;
+    }
+
+    /**
+     * Returns the cached value for a key, or null if it is not cached.
+     */
+    synchronized V get(K key) {
+        V value = entries.get(key);
+        if (value != null) {
+            hits++;
+        } else {
+            misses++;
+        }
+        return value;
+    }
+
+    /**
+     * Adds or replaces the cached value for a key.
+     */
+    synchronized void put(K key, V value) {
+        V previous = entries.put(key, value);
+        if (previous != null) {
+            weight -= weigher.applyAsInt(previous);
+        }
+        weight += weigher.applyAsInt(value);
+        Iterator<V> eldest = entries.values().iterator();
+        while ((entries.size() > maxEntries || weight > maxWeight) && eldest.hasNext()) {
+            weight -= weigher.applyAsInt(eldest.next());
+            eldest.remove();
+        }
+    }
+
+    /**
+     * Adds the value read for a key unless an entry was invalidated since the read started.
+     *
+     * @param stamp The value of {@link #stamp()} taken before the read
+     * @return Whether the value was cached
+     */
+    synchronized boolean put(K key, V value, long stamp) {
+        if (stamp != invalidations) {
+            return false;
+        }
+        put(key, value);
+        return true;
+    }
+
+    /**
+     * Returns a stamp to take before reading a value that will be cached.
+     */
+    synchronized long stamp() {
+        return invalidations;
+    }
+
+    /**
+     * Removes the cached value for a key, if present.
+     */
+    synchronized void remove(K key) {
+        invalidations++;
+        V previous = entries.remove(key);
+        if (previous != null) {
+            weight -= weigher.applyAsInt(previous);
+        }
+    }
+
+    /**
+     * Removes every entry whose value matches the given condition.
+     */
+    synchronized void removeValuesIf(Predicate<V> condition) {
+        invalidations++;
+        Iterator<V> it = entries.values().iterator();
+        while (it.hasNext()) {
+            V value = it.next();
+            if (condition.test(value)) {
+                weight -= weigher.applyAsInt(value);
+                it.remove();
+            }
+        }
+    }
+
+    /**
+     * Removes every entry from the cache.
+     */
+    synchronized void clear() {
+        invalidations++;
+        entries.clear();
+        weight = 0;
+    }
+
+    /**
+     * Returns the number of entries currently cached.
+     */
+    synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * Returns the number of entries with their total weight and hit counts.
+     */
+    synchronized Map<String, Long> stats() {
+        Map<String, Long> stats = new LinkedHashMap<>();
+        stats.put("entries", (long) entries.size());
+        stats.put("weight", weight);
+        stats.put("hits", hits);
+        stats.put("misses", misses);
+        return stats;
+    }
+}
@@ -0,0 +1,214 @@
+package databasePart1;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.security.spec.InvalidKeySpecException;
+import java.sql.SQLException;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.crypto.SecretKeyFactory;
+import javax.crypto.spec.PBEKeySpec;
+
+/**
+ * Hashes and verifies passwords with salted PBKDF2, and runs that work on a bounded
+ * pool of worker threads so a burst of logins never blocks the JavaFX thread.
+ *
+ * <p>Hashes are stored as {@code pbkdf2_sha256$iterations$salt$hash} with the salt and
+ * hash in Base64, so the work factor can be raised later without breaking existing
+ * hashes: each hash is checked with the iteration count it was made with, and
+ * {@link #needsRehash(String)} reports the ones worth upgrading at the next login.
+ * Values without the prefix are passwords stored before hashing was added and are
+ * compared as they are.</p>
+ *
+ * <p>The pool has one thread per core, since hashing is pure CPU work, and a bounded
+ * queue. When the queue is full new work is refused instead of piling up, and the
+ * caller gets an error it can show to the user.</p>
+ */
+class PasswordHasher {
+
+    static final String PREFIX = "pbkdf2_sha256";
+    static final int DEFAULT_ITERATIONS = 120_000;
+    static final int QUEUE_CAPACITY = 512;
+    private static final String ALGORITHM = "PBKDF2WithHmacSHA256";
+    private static final int SALT_BYTES = 16;
+    private static final int HASH_BITS = 256;
+
+    private static final SecureRandom random = new SecureRandom();
+    private static volatile int iterations = Integer.getInteger("academicassist.pbkdf2.iterations", DEFAULT_ITERATIONS);
+    // Hash of a random password, checked when a user does not exist
+    private static volatile String absentUserHash = null;
+
+    private static final AtomicInteger threadCount = new AtomicInteger();
+    private static final ThreadPoolExecutor pool = createPool();
+    private static final AtomicInteger peakQueueDepth = new AtomicInteger();
+    private static final AtomicLong rejected = new AtomicLong();
+
+    private PasswordHasher() {
+    }
+
+    private static ThreadPoolExecutor createPool() {
+        int threads = Runtime.getRuntime().availableProcessors();
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+            new ArrayBlockingQueue<>(QUEUE_CAPACITY), runnable -> {
+                Thread thread = new Thread(runnable, "password-hash-" + threadCount.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    /**
+     * Sets the number of PBKDF2 iterations used for new hashes.
+     */
+    static void setIterations(int newIterations) {
+        if (newIterations < 1) {
+            throw new IllegalArgumentException("Iterations must be positive");
+        }
+        iterations = newIterations;
+    }
+
+    static int getIterations() {
+        return iterations;
+    }
+
+    /**
+     * Hashes a password with a new random salt and the current work factor.
+     */
+    static String hash(String password) {
+        byte[] salt = new byte[SALT_BYTES];
+        random.nextBytes(salt);
+        int rounds = iterations;
+        byte[] hash = pbkdf2(password, salt, rounds);
+        Base64.Encoder encoder = Base64.getEncoder();
+        return PREFIX + "$" + rounds + "$" + encoder.encodeToString(salt) + "$" + encoder.encodeToString(hash);
+    }
+
+    /**
+     * Checks a password against a stored hash, or against a password stored before
+     * hashing was added.
+     *
+     * @param password The password entered
+     * @param stored The value stored for the user
+     * @return true if the password matches
+     */
+    static boolean verify(String password, String stored) {
+        if (password == null || stored == null) {
+            return false;
+        }
+        if (!stored.startsWith(PREFIX + "$")) {
+            return MessageDigest.isEqual(password.getBytes(StandardCharsets.UTF_8),
+                stored.getBytes(StandardCharsets.UTF_8));
+        }
+        String[] parts = stored.split("\\$");
+        if (parts.length != 4) {
+            return false;
+        }
+        try {
+            int rounds = Integer.parseInt(parts[1]);
+            byte[] salt = Base64.getDecoder().decode(parts[2]);
+            byte[] expected = Base64.getDecoder().decode(parts[3]);
+            return MessageDigest.isEqual(pbkdf2(password, salt, rounds), expected);
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Checks a password against a hash no password matches, costing as much as checking
+     * a user's current hash, so the time a failed login takes does not reveal whether
+     * the user name exists.
+     *
+     * @param password The password entered
+     */
+    static void verifyAbsentUser(String password) {
+        String stored = absentUserHash;
+        if (stored == null || needsRehash(stored)) {
+            byte[] secret = new byte[SALT_BYTES];
+            random.nextBytes(secret);
+            stored = hash(Base64.getEncoder().encodeToString(secret));
+            absentUserHash = stored;
+        }
+        verify(password != null ? password : "", stored);
+    }
+
+    /**
+     * Returns true if a stored value is a plain password or was hashed with a different
+     * work factor than the current one.
+     */
+    static boolean needsRehash(String stored) {
+        if (stored == null || !stored.startsWith(PREFIX + "$")) {
+            return true;
+        }
+        String[] parts = stored.split("\\$");
+        return parts.length != 4 || !parts[1].equals(String.valueOf(iterations));
+    }
+
+    private static byte[] pbkdf2(String password, byte[] salt, int rounds) {
+        PBEKeySpec spec = new PBEKeySpec(password.toCharArray(), salt, rounds, HASH_BITS);
+        try {
+            return SecretKeyFactory.getInstance(ALGORITHM).generateSecret(spec).getEncoded();
+        } catch (NoSuchAlgorithmException | InvalidKeySpecException e) {
+            throw new IllegalStateException("PBKDF2 is not available", e);
+        } finally {
+            spec.clearPassword();
+        }
+    }
+
+    /**
+     * Work that hashes or verifies passwords and may touch the database.
+     */
+    interface PasswordTask<T> {
+        T run() throws SQLException;
+    }
+
+    /**
+     * Runs a task on the worker pool.
+     *
+     * @return A future completed with the task's result, or failed with an SQLException
+     *         if the task failed or the queue was full
+     */
+    static <T> CompletableFuture<T> submit(PasswordTask<T> task) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        try {
+            pool.execute(() -> {
+                try {
+                    future.complete(task.run());
+                } catch (SQLException | RuntimeException e) {
+                    future.completeExceptionally(e);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            rejected.incrementAndGet();
+            future.completeExceptionally(new SQLException("The server is busy, please try again in a moment."));
+            return future;
+        }
+        peakQueueDepth.accumulateAndGet(pool.getQueue().size(), Math::max);
+        return future;
+    }
+
+    /**
+     * Returns the pool size, queue depth and task counts of the worker pool.
+     */
+    static Map<String, Long> stats() {
+        Map<String, Long> stats = new LinkedHashMap<>();
+        stats.put("threads", (long) pool.getPoolSize());
+        stats.put("active", (long) pool.getActiveCount());
+        stats.put("queueDepth", (long) pool.getQueue().size());
+        stats.put("peakQueueDepth", (long) peakQueueDepth.get());
+        stats.put("completed", pool.getCompletedTaskCount());
+        stats.put("rejected", rejected.get());
+        return stats;
+    }
+}
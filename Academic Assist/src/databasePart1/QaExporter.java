@@ -0,0 +1,245 @@
+package databasePart1;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Writes every question, with its answers, reviews and feedback, to a stream.
+ *
+ * <p>Each table is read through its own forward-only cursor ordered by question ID, and
+ * the cursors are advanced together, like a merge join. Only the current row of each
+ * cursor is held in memory, so a semester of posts exports in constant memory no matter
+ * how many rows it has. Rows of the child tables whose question no longer exists are
+ * skipped.</p>
+ */
+class QaExporter {
+
+    // Rows fetched from the database per round trip
+    static final int FETCH_SIZE = 1000;
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    static final String[] CSV_HEADER = {"recordType", "id", "questionID", "answerID", "parentID",
+        "author", "recipient", "createdAt", "resolved", "acceptedAnswerID", "text"};
+
+    private final Connection connection;
+
+    /**
+     * A cursor over one child table, ordered by question ID.
+     */
+    private static final class ChildCursor {
+        final ResultSet rs;
+        boolean hasRow;
+
+        ChildCursor(ResultSet rs) throws SQLException {
+            this.rs = rs;
+            this.hasRow = rs.next();
+        }
+
+        /**
+         * Skips the rows of earlier questions and tells whether the cursor is on a row of
+         * the given question.
+         */
+        boolean at(int questionID) throws SQLException {
+            while (hasRow && rs.getInt("questionID") < questionID) {
+                hasRow = rs.next();
+            }
+            return hasRow && rs.getInt("questionID") == questionID;
+        }
+
+        void advance() throws SQLException {
+            hasRow = rs.next();
+        }
+    }
+
+    QaExporter(Connection connection) {
+        this.connection = connection;
+    }
+
+    /**
+     * Exports every question.
+     *
+     * @param out The stream to write to; it is flushed but not closed
+     * @param format The format to write
+     * @param gzip Whether to compress the output with gzip
+     * @return The number of questions written
+     */
+    long export(OutputStream out, ExportFormat format, boolean gzip) throws IOException, SQLException {
+        GZIPOutputStream compressed = gzip ? new GZIPOutputStream(out, BUFFER_SIZE) : null;
+        Writer writer = new BufferedWriter(new OutputStreamWriter(gzip ? compressed : out, StandardCharsets.UTF_8), BUFFER_SIZE);
+        long count = 0;
+        try (PreparedStatement questions = cursor("SELECT questionID, bodyText, postedBy, dateCreated, resolvedStatus, "
+                    + "acceptedAnsID FROM Questions ORDER BY questionID");
+             PreparedStatement answers = cursor("SELECT answerID, questionID, bodyText, answeredBy, dateCreated "
+                    + "FROM Answers ORDER BY questionID, answerID");
+             PreparedStatement reviews = cursor("SELECT reviewID, questionID, answerID, reviewerName, reviewText, "
+                    + "dateCreated FROM Reviews ORDER BY questionID, reviewID");
+             PreparedStatement feedback = cursor("SELECT id, questionID, sentTo, sentBy, feedbackText, parentID, "
+                    + "timestamp FROM Feedback ORDER BY questionID, id");
+             ResultSet q = questions.executeQuery()) {
+            ChildCursor a = new ChildCursor(answers.executeQuery());
+            ChildCursor r = new ChildCursor(reviews.executeQuery());
+            ChildCursor f = new ChildCursor(feedback.executeQuery());
+            if (format == ExportFormat.CSV) {
+                writeCsvRecord(writer, (Object[]) CSV_HEADER);
+            }
+            while (q.next()) {
+                int questionID = q.getInt("questionID");
+                if (format == ExportFormat.JSON_LINES) {
+                    writeJsonQuestion(writer, q, questionID, a, r, f);
+                } else {
+                    writeCsvQuestion(writer, q, questionID, a, r, f);
+                }
+                count++;
+            }
+        }
+        writer.flush();
+        if (compressed != null) {
+            compressed.finish();
+        }
+        out.flush();
+        return count;
+    }
+
+    private PreparedStatement cursor(String query) throws SQLException {
+        PreparedStatement pstmt = connection.prepareStatement(query, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+        pstmt.setFetchSize(FETCH_SIZE);
+        return pstmt;
+    }
+
+    private static void writeJsonQuestion(Writer w, ResultSet q, int questionID, ChildCursor a, ChildCursor r,
+            ChildCursor f) throws IOException, SQLException {
+        w.write("{\"questionID\":");
+        w.write(Integer.toString(questionID));
+        writeJsonField(w, "bodyText", q.getString("bodyText"));
+        writeJsonField(w, "postedBy", q.getString("postedBy"));
+        writeJsonField(w, "dateCreated", timestamp(q.getTimestamp("dateCreated")));
+        w.write(",\"resolved\":");
+        w.write(Boolean.toString(q.getBoolean("resolvedStatus")));
+        w.write(",\"acceptedAnswerID\":");
+        w.write(Integer.toString(q.getInt("acceptedAnsID")));
+
+        w.write(",\"answers\":[");
+        for (boolean first = true; a.at(questionID); a.advance(), first = false) {
+            w.write(first ? "{\"answerID\":" : ",{\"answerID\":");
+            w.write(Integer.toString(a.rs.getInt("answerID")));
+            writeJsonField(w, "bodyText", a.rs.getString("bodyText"));
+            writeJsonField(w, "answeredBy", a.rs.getString("answeredBy"));
+            writeJsonField(w, "dateCreated", timestamp(a.rs.getTimestamp("dateCreated")));
+            w.write('}');
+        }
+        w.write("],\"reviews\":[");
+        for (boolean first = true; r.at(questionID); r.advance(), first = false) {
+            w.write(first ? "{\"reviewID\":" : ",{\"reviewID\":");
+            w.write(Integer.toString(r.rs.getInt("reviewID")));
+            w.write(",\"answerID\":");
+            w.write(Integer.toString(r.rs.getInt("answerID")));
+            writeJsonField(w, "reviewerName", r.rs.getString("reviewerName"));
+            writeJsonField(w, "reviewText", r.rs.getString("reviewText"));
+            writeJsonField(w, "dateCreated", timestamp(r.rs.getTimestamp("dateCreated")));
+            w.write('}');
+        }
+        w.write("],\"feedback\":[");
+        for (boolean first = true; f.at(questionID); f.advance(), first = false) {
+            w.write(first ? "{\"id\":" : ",{\"id\":");
+            w.write(Integer.toString(f.rs.getInt("id")));
+            int parentID = f.rs.getInt("parentID");
+            w.write(",\"parentID\":");
+            w.write(f.rs.wasNull() ? "null" : Integer.toString(parentID));
+            writeJsonField(w, "sentBy", f.rs.getString("sentBy"));
+            writeJsonField(w, "sentTo", f.rs.getString("sentTo"));
+            writeJsonField(w, "feedbackText", f.rs.getString("feedbackText"));
+            writeJsonField(w, "timestamp", timestamp(f.rs.getTimestamp("timestamp")));
+            w.write('}');
+        }
+        w.write("]}\n");
+    }
+
+    private static void writeCsvQuestion(Writer w, ResultSet q, int questionID, ChildCursor a, ChildCursor r,
+            ChildCursor f) throws IOException, SQLException {
+        writeCsvRecord(w, "question", questionID, questionID, null, null, q.getString("postedBy"), null,
+            timestamp(q.getTimestamp("dateCreated")), q.getBoolean("resolvedStatus"), q.getInt("acceptedAnsID"),
+            q.getString("bodyText"));
+        for (; a.at(questionID); a.advance()) {
+            writeCsvRecord(w, "answer", a.rs.getInt("answerID"), questionID, null, null, a.rs.getString("answeredBy"),
+                null, timestamp(a.rs.getTimestamp("dateCreated")), null, null, a.rs.getString("bodyText"));
+        }
+        for (; r.at(questionID); r.advance()) {
+            writeCsvRecord(w, "review", r.rs.getInt("reviewID"), questionID, r.rs.getInt("answerID"), null,
+                r.rs.getString("reviewerName"), null, timestamp(r.rs.getTimestamp("dateCreated")), null, null,
+                r.rs.getString("reviewText"));
+        }
+        for (; f.at(questionID); f.advance()) {
+            int parentID = f.rs.getInt("parentID");
+            writeCsvRecord(w, "feedback", f.rs.getInt("id"), questionID, null, f.rs.wasNull() ? null : parentID,
+                f.rs.getString("sentBy"), f.rs.getString("sentTo"), timestamp(f.rs.getTimestamp("timestamp")), null,
+                null, f.rs.getString("feedbackText"));
+        }
+    }
+
+    private static String timestamp(Timestamp timestamp) {
+        return timestamp == null ? null : timestamp.toLocalDateTime().toString();
+    }
+
+    private static void writeJsonField(Writer w, String name, String value) throws IOException {
+        w.write(",\"");
+        w.write(name);
+        w.write("\":");
+        if (value == null) {
+            w.write("null");
+            return;
+        }
+        w.write('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"': w.write("\\\""); break;
+                case '\\': w.write("\\\\"); break;
+                case '\n': w.write("\\n"); break;
+                case '\r': w.write("\\r"); break;
+                case '\t': w.write("\\t"); break;
+                default:
+                    if (c < 0x20) {
+                        w.write(String.format("\\u%04x", (int) c));
+                    } else {
+                        w.write(c);
+                    }
+            }
+        }
+        w.write('"');
+    }
+
+    private static void writeCsvRecord(Writer w, Object... fields) throws IOException {
+        for (int i = 0; i < fields.length; i++) {
+            if (i > 0) {
+                w.write(',');
+            }
+            if (fields[i] == null) {
+                continue;
+            }
+            String value = fields[i].toString();
+            boolean quote = false;
+            for (int j = 0; j < value.length() && !quote; j++) {
+                char c = value.charAt(j);
+                quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+            }
+            if (quote) {
+                w.write('"');
+                w.write(value.replace("\"", "\"\""));
+                w.write('"');
+            } else {
+                w.write(value);
+            }
+        }
+        w.write('\n');
+    }
+}
@@ -0,0 +1,46 @@
+package databasePart1;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The outcome of importing questions and answers: how many rows of each kind were
+ * written and which records were skipped.
+ */
+public class QaImportResult {
+
+    // Only the first problems are kept, so a badly broken file cannot exhaust memory
+    static final int MAX_MESSAGES = 100;
+
+    private int questions = 0;
+    private int answers = 0;
+    private int reviews = 0;
+    private int feedback = 0;
+    private int skipped = 0;
+    private final List<String> messages = new ArrayList<>();
+
+    void addQuestions(int count) { questions += count; }
+    void addAnswers(int count) { answers += count; }
+    void addReviews(int count) { reviews += count; }
+    void addFeedback(int count) { feedback += count; }
+
+    /**
+     * Records a record that was not imported.
+     */
+    void skip(long lineNumber, String reason) {
+        skipped++;
+        if (messages.size() < MAX_MESSAGES) {
+            messages.add("Line " + lineNumber + ": " + reason);
+        }
+    }
+
+    public int getQuestions() { return questions; }
+    public int getAnswers() { return answers; }
+    public int getReviews() { return reviews; }
+    public int getFeedback() { return feedback; }
+    /** Returns the number of records that were not imported */
+    public int getSkipped() { return skipped; }
+    /** Returns why the first {@value #MAX_MESSAGES} skipped records were not imported */
+    public List<String> getMessages() { return Collections.unmodifiableList(messages); }
+}
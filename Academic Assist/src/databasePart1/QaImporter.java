@@ -0,0 +1,524 @@
+package databasePart1;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.IntConsumer;
+
+/**
+ * Loads questions with their answers, reviews and feedback from a file written by
+ * {@link QaExporter}, for example to seed a new course with last semester's posts.
+ *
+ * <p>The file is read one question at a time. Each question and answer gets a new ID
+ * after the highest one in use, and the accepted answers, reviews and feedback replies
+ * are pointed at the new IDs. Questions are written in chunks: the rows of a chunk go
+ * out as one JDBC batch per table and are committed together, so a failure loses at
+ * most the chunk being written.</p>
+ *
+ * <p>The duplicate, related question and reviewer indexes are not updated row by row
+ * during the load. The caller rebuilds them in bulk once it is done. Imported posts do
+ * not raise search alerts or subscribe their authors.</p>
+ */
+class QaImporter {
+
+    static final int DEFAULT_CHUNK_SIZE = 500;
+
+    private final Connection connection;
+    private final int chunkSize;
+    private final QaImportResult result = new QaImportResult();
+    private int nextQuestionID;
+    private int nextAnswerID;
+
+    // State of the reader of the file being imported
+    private BufferedReader lines;
+    private long lineNumber = 0;
+    private CsvReader csv;
+    private Map<String, Integer> columns;
+    private QuestionRecord nextCsvQuestion;
+
+    private static class QuestionRecord {
+        int oldID;
+        int newID;
+        String bodyText;
+        String postedBy;
+        Timestamp dateCreated;
+        boolean resolved;
+        int acceptedAnswerID = -1;
+        final List<AnswerRecord> answers = new ArrayList<>();
+        final List<ReviewRecord> reviews = new ArrayList<>();
+        final List<FeedbackRecord> feedback = new ArrayList<>();
+    }
+
+    private static class AnswerRecord {
+        int oldID;
+        int newID;
+        String bodyText;
+        String answeredBy;
+        Timestamp dateCreated;
+    }
+
+    private static class ReviewRecord {
+        long line;
+        int answerID;
+        String reviewerName;
+        String reviewText;
+        Timestamp dateCreated;
+    }
+
+    private static class FeedbackRecord {
+        int oldID;
+        Integer parentID;
+        int questionID;
+        String sentBy;
+        String sentTo;
+        String feedbackText;
+        Timestamp timestamp;
+    }
+
+    QaImporter(Connection connection, int chunkSize) {
+        if (chunkSize < 1) {
+            throw new IllegalArgumentException("chunkSize must be at least 1");
+        }
+        this.connection = connection;
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * Imports every question of a file.
+     *
+     * @param reader The file contents
+     * @param format The format of the file
+     * @param progress Called with the number of questions imported so far after each chunk, or null
+     * @return The number of rows imported and the records skipped
+     * @throws IOException if the file cannot be read or a CSV file has no header
+     * @throws SQLException if a chunk cannot be written; earlier chunks stay imported
+     */
+    QaImportResult importQuestions(Reader reader, ExportFormat format, IntConsumer progress) throws IOException, SQLException {
+        lines = reader instanceof BufferedReader ? (BufferedReader) reader : new BufferedReader(reader);
+        if (format == ExportFormat.CSV) {
+            openCsv();
+        }
+        // Archived threads keep their IDs, so new ones come after them as well
+        nextQuestionID = maxID("SELECT GREATEST((SELECT COALESCE(MAX(questionID), 0) FROM Questions), "
+                + "(SELECT COALESCE(MAX(questionID), 0) FROM ArchivedQuestions))");
+        nextAnswerID = maxID("SELECT GREATEST((SELECT COALESCE(MAX(answerID), 0) FROM Answers), "
+                + "(SELECT COALESCE(MAX(answerID), 0) FROM ArchivedAnswers))");
+
+        boolean autoCommit = connection.getAutoCommit();
+        connection.setAutoCommit(false);
+        try {
+            List<QuestionRecord> chunk = new ArrayList<>();
+            QuestionRecord question;
+            while ((question = format == ExportFormat.CSV ? nextCsvQuestion() : nextJsonQuestion()) != null) {
+                assignIDs(question);
+                chunk.add(question);
+                if (chunk.size() == chunkSize) {
+                    writeChunk(chunk);
+                    chunk.clear();
+                    if (progress != null) {
+                        progress.accept(result.getQuestions());
+                    }
+                }
+            }
+            if (!chunk.isEmpty()) {
+                writeChunk(chunk);
+                if (progress != null) {
+                    progress.accept(result.getQuestions());
+                }
+            }
+        } catch (SQLException | IOException | RuntimeException e) {
+            connection.rollback();
+            throw e;
+        } finally {
+            connection.setAutoCommit(autoCommit);
+        }
+        return result;
+    }
+
+    private int maxID(String query) throws SQLException {
+        try (PreparedStatement pstmt = connection.prepareStatement(query);
+             ResultSet rs = pstmt.executeQuery()) {
+            rs.next();
+            return rs.getInt(1);
+        }
+    }
+
+    /**
+     * Gives a question and its answers new IDs and points the accepted answer and the
+     * reviews at them.
+     */
+    private void assignIDs(QuestionRecord question) {
+        question.newID = ++nextQuestionID;
+        Map<Integer, Integer> answerIDs = new HashMap<>();
+        for (AnswerRecord answer : question.answers) {
+            answer.newID = ++nextAnswerID;
+            answerIDs.put(answer.oldID, answer.newID);
+        }
+        question.acceptedAnswerID = answerIDs.getOrDefault(question.acceptedAnswerID, -1);
+        question.reviews.removeIf(review -> {
+            if (review.answerID == 0) {
+                return false;
+            }
+            Integer newID = answerIDs.get(review.answerID);
+            if (newID == null) {
+                result.skip(review.line, "The review is of answer " + review.answerID + ", which is not in the file");
+                return true;
+            }
+            review.answerID = newID;
+            return false;
+        });
+        for (FeedbackRecord feedback : question.feedback) {
+            feedback.questionID = question.newID;
+        }
+    }
+
+    private void writeChunk(List<QuestionRecord> chunk) throws SQLException {
+        String insertQuestion = "INSERT INTO Questions (questionID, bodyText, postedBy, dateCreated, "
+                + "resolvedStatus, acceptedAnsID, newMessagesCount) VALUES (?, ?, ?, ?, ?, ?, 0)";
+        String insertAnswer = "INSERT INTO Answers (answerID, questionID, bodyText, answeredBy, dateCreated) "
+                + "VALUES (?, ?, ?, ?, ?)";
+        String insertReview = "INSERT INTO Reviews (questionID, answerID, reviewerName, reviewText, dateCreated) "
+                + "VALUES (?, ?, ?, ?, ?)";
+        int answers = 0;
+        int reviews = 0;
+        List<FeedbackRecord> feedback = new ArrayList<>();
+        try (PreparedStatement questionStmt = connection.prepareStatement(insertQuestion);
+             PreparedStatement answerStmt = connection.prepareStatement(insertAnswer);
+             PreparedStatement reviewStmt = connection.prepareStatement(insertReview)) {
+            for (QuestionRecord question : chunk) {
+                questionStmt.setInt(1, question.newID);
+                questionStmt.setString(2, question.bodyText);
+                questionStmt.setString(3, question.postedBy);
+                questionStmt.setTimestamp(4, question.dateCreated);
+                questionStmt.setBoolean(5, question.resolved);
+                questionStmt.setInt(6, question.acceptedAnswerID);
+                questionStmt.addBatch();
+                for (AnswerRecord answer : question.answers) {
+                    answerStmt.setInt(1, answer.newID);
+                    answerStmt.setInt(2, question.newID);
+                    answerStmt.setString(3, answer.bodyText);
+                    answerStmt.setString(4, answer.answeredBy);
+                    answerStmt.setTimestamp(5, answer.dateCreated);
+                    answerStmt.addBatch();
+                    answers++;
+                }
+                for (ReviewRecord review : question.reviews) {
+                    reviewStmt.setInt(1, question.newID);
+                    reviewStmt.setInt(2, review.answerID);
+                    reviewStmt.setString(3, review.reviewerName);
+                    reviewStmt.setString(4, review.reviewText);
+                    reviewStmt.setTimestamp(5, review.dateCreated);
+                    reviewStmt.addBatch();
+                    reviews++;
+                }
+                feedback.addAll(question.feedback);
+            }
+            questionStmt.executeBatch();
+            if (answers > 0) {
+                answerStmt.executeBatch();
+            }
+            if (reviews > 0) {
+                reviewStmt.executeBatch();
+            }
+        }
+        writeFeedback(feedback);
+        connection.commit();
+
+        result.addQuestions(chunk.size());
+        result.addAnswers(answers);
+        result.addReviews(reviews);
+        result.addFeedback(feedback.size());
+        for (QuestionRecord question : chunk) {
+            DatabaseHelper3.indexSearchText(question.bodyText);
+            for (AnswerRecord answer : question.answers) {
+                DatabaseHelper3.indexSearchText(answer.bodyText);
+            }
+        }
+    }
+
+    /**
+     * Inserts feedback in rounds: first the messages whose parent is already written or
+     * not in the chunk, then the replies to those, and so on, so every reply can be
+     * pointed at the generated ID of its parent.
+     */
+    private void writeFeedback(List<FeedbackRecord> feedback) throws SQLException {
+        if (feedback.isEmpty()) {
+            return;
+        }
+        Set<Integer> inChunk = new HashSet<>();
+        for (FeedbackRecord message : feedback) {
+            inChunk.add(message.oldID);
+        }
+        Map<Integer, Integer> newIDs = new HashMap<>();
+        String insertFeedback = "INSERT INTO Feedback (questionID, sentTo, sentBy, feedbackText, parentID, timestamp) "
+                + "VALUES (?, ?, ?, ?, ?, ?)";
+        try (PreparedStatement pstmt = connection.prepareStatement(insertFeedback, new String[] {"id"})) {
+            List<FeedbackRecord> pending = new ArrayList<>(feedback);
+            while (!pending.isEmpty()) {
+                List<FeedbackRecord> ready = new ArrayList<>();
+                for (FeedbackRecord message : pending) {
+                    if (message.parentID == null || !inChunk.contains(message.parentID) || newIDs.containsKey(message.parentID)) {
+                        ready.add(message);
+                    }
+                }
+                if (ready.isEmpty()) {
+                    // The remaining replies only point at each other; keep them as top-level messages
+                    ready.addAll(pending);
+                    for (FeedbackRecord message : ready) {
+                        message.parentID = null;
+                    }
+                }
+                for (FeedbackRecord message : ready) {
+                    Integer parentID = message.parentID == null ? null : newIDs.get(message.parentID);
+                    pstmt.setInt(1, message.questionID);
+                    pstmt.setString(2, message.sentTo);
+                    pstmt.setString(3, message.sentBy);
+                    pstmt.setString(4, message.feedbackText);
+                    if (parentID != null) {
+                        pstmt.setInt(5, parentID);
+                    } else {
+                        pstmt.setNull(5, Types.INTEGER);
+                    }
+                    pstmt.setTimestamp(6, message.timestamp);
+                    pstmt.addBatch();
+                }
+                pstmt.executeBatch();
+                try (ResultSet keys = pstmt.getGeneratedKeys()) {
+                    for (FeedbackRecord message : ready) {
+                        if (!keys.next()) {
+                            throw new SQLException("The database did not return an ID for every feedback message");
+                        }
+                        newIDs.put(message.oldID, keys.getInt(1));
+                    }
+                }
+                pending.removeAll(ready);
+            }
+        }
+    }
+
+    //================================================================================
+    // JSON Lines
+    //================================================================================
+
+    /**
+     * Reads the next question line, skipping blank and invalid lines.
+     */
+    private QuestionRecord nextJsonQuestion() throws IOException {
+        String line;
+        while ((line = lines.readLine()) != null) {
+            lineNumber++;
+            if (line.isBlank()) {
+                continue;
+            }
+            try {
+                Object value = JsonParser.parse(line);
+                if (!(value instanceof Map)) {
+                    throw new IllegalArgumentException("Expected an object");
+                }
+                return jsonQuestion((Map<?, ?>) value, lineNumber);
+            } catch (IllegalArgumentException | DateTimeParseException | ClassCastException e) {
+                result.skip(lineNumber, e.getMessage());
+            }
+        }
+        return null;
+    }
+
+    private static QuestionRecord jsonQuestion(Map<?, ?> json, long line) {
+        QuestionRecord question = new QuestionRecord();
+        question.oldID = jsonInt(json, "questionID", 0);
+        question.bodyText = (String) json.get("bodyText");
+        question.postedBy = (String) json.get("postedBy");
+        question.dateCreated = timestamp((String) json.get("dateCreated"));
+        question.resolved = Boolean.TRUE.equals(json.get("resolved"));
+        question.acceptedAnswerID = jsonInt(json, "acceptedAnswerID", -1);
+        for (Map<?, ?> a : jsonObjects(json, "answers")) {
+            AnswerRecord answer = new AnswerRecord();
+            answer.oldID = jsonInt(a, "answerID", 0);
+            answer.bodyText = (String) a.get("bodyText");
+            answer.answeredBy = (String) a.get("answeredBy");
+            answer.dateCreated = timestamp((String) a.get("dateCreated"));
+            question.answers.add(answer);
+        }
+        for (Map<?, ?> r : jsonObjects(json, "reviews")) {
+            ReviewRecord review = new ReviewRecord();
+            review.line = line;
+            review.answerID = jsonInt(r, "answerID", 0);
+            review.reviewerName = (String) r.get("reviewerName");
+            review.reviewText = (String) r.get("reviewText");
+            review.dateCreated = timestamp((String) r.get("dateCreated"));
+            question.reviews.add(review);
+        }
+        for (Map<?, ?> f : jsonObjects(json, "feedback")) {
+            FeedbackRecord message = new FeedbackRecord();
+            message.oldID = jsonInt(f, "id", 0);
+            message.parentID = f.get("parentID") == null ? null : jsonInt(f, "parentID", 0);
+            message.sentBy = (String) f.get("sentBy");
+            message.sentTo = (String) f.get("sentTo");
+            message.feedbackText = (String) f.get("feedbackText");
+            message.timestamp = timestamp((String) f.get("timestamp"));
+            question.feedback.add(message);
+        }
+        return question;
+    }
+
+    private static int jsonInt(Map<?, ?> json, String key, int missing) {
+        Object value = json.get(key);
+        return value == null ? missing : ((Number) value).intValue();
+    }
+
+    private static List<Map<?, ?>> jsonObjects(Map<?, ?> json, String key) {
+        List<Map<?, ?>> objects = new ArrayList<>();
+        Object value = json.get(key);
+        if (value != null) {
+            for (Object element : (List<?>) value) {
+                objects.add((Map<?, ?>) element);
+            }
+        }
+        return objects;
+    }
+
+    //================================================================================
+    // CSV
+    //================================================================================
+
+    private void openCsv() throws IOException {
+        csv = new CsvReader(lines);
+        List<String> header = csv.next();
+        if (header == null) {
+            throw new IOException("The file is empty");
+        }
+        columns = new HashMap<>();
+        for (int i = 0; i < header.size(); i++) {
+            columns.put(header.get(i).trim().toLowerCase(Locale.ROOT), i);
+        }
+        for (String column : QaExporter.CSV_HEADER) {
+            if (!columns.containsKey(column.toLowerCase(Locale.ROOT))) {
+                throw new IOException("The file has no " + column + " column");
+            }
+        }
+    }
+
+    /**
+     * Reads the next question record and the records after it that belong to it.
+     */
+    private QuestionRecord nextCsvQuestion() throws IOException {
+        QuestionRecord question = nextCsvQuestion;
+        nextCsvQuestion = null;
+        List<String> record;
+        while ((record = csv.next()) != null) {
+            long line = csv.getRecordLine();
+            try {
+                String type = csvField(record, "recordType");
+                if (type.equals("question")) {
+                    QuestionRecord next = csvQuestion(record);
+                    if (question != null) {
+                        nextCsvQuestion = next;
+                        return question;
+                    }
+                    question = next;
+                    continue;
+                }
+                Integer questionID = csvInt(record, "questionID");
+                if (question == null || questionID == null || questionID != question.oldID) {
+                    result.skip(line, "The " + type + " does not follow its question");
+                    continue;
+                }
+                switch (type) {
+                    case "answer":
+                        AnswerRecord answer = new AnswerRecord();
+                        answer.oldID = csvRequiredInt(record, "id");
+                        answer.bodyText = csvText(record, "text");
+                        answer.answeredBy = csvText(record, "author");
+                        answer.dateCreated = timestamp(csvText(record, "createdAt"));
+                        question.answers.add(answer);
+                        break;
+                    case "review":
+                        ReviewRecord review = new ReviewRecord();
+                        review.line = line;
+                        Integer answerID = csvInt(record, "answerID");
+                        review.answerID = answerID == null ? 0 : answerID;
+                        review.reviewerName = csvText(record, "author");
+                        review.reviewText = csvText(record, "text");
+                        review.dateCreated = timestamp(csvText(record, "createdAt"));
+                        question.reviews.add(review);
+                        break;
+                    case "feedback":
+                        FeedbackRecord message = new FeedbackRecord();
+                        message.oldID = csvRequiredInt(record, "id");
+                        message.parentID = csvInt(record, "parentID");
+                        message.sentBy = csvText(record, "author");
+                        message.sentTo = csvText(record, "recipient");
+                        message.feedbackText = csvText(record, "text");
+                        message.timestamp = timestamp(csvText(record, "createdAt"));
+                        question.feedback.add(message);
+                        break;
+                    default:
+                        result.skip(line, "Unknown record type " + type);
+                }
+            } catch (IllegalArgumentException | DateTimeParseException e) {
+                result.skip(line, "Invalid record: " + e.getMessage());
+            }
+        }
+        return question;
+    }
+
+    private QuestionRecord csvQuestion(List<String> record) {
+        QuestionRecord question = new QuestionRecord();
+        question.oldID = csvRequiredInt(record, "id");
+        question.bodyText = csvText(record, "text");
+        question.postedBy = csvText(record, "author");
+        question.dateCreated = timestamp(csvText(record, "createdAt"));
+        question.resolved = Boolean.parseBoolean(csvField(record, "resolved"));
+        Integer accepted = csvInt(record, "acceptedAnswerID");
+        question.acceptedAnswerID = accepted == null ? -1 : accepted;
+        return question;
+    }
+
+    private String csvField(List<String> record, String column) {
+        int index = columns.get(column.toLowerCase(Locale.ROOT));
+        return index < record.size() ? record.get(index) : "";
+    }
+
+    private String csvText(List<String> record, String column) {
+        String value = csvField(record, column);
+        return value.isEmpty() ? null : value;
+    }
+
+    private Integer csvInt(List<String> record, String column) {
+        String value = csvField(record, column).trim();
+        return value.isEmpty() ? null : Integer.valueOf(value);
+    }
+
+    private int csvRequiredInt(List<String> record, String column) {
+        Integer value = csvInt(record, column);
+        if (value == null) {
+            throw new IllegalArgumentException("The " + column + " column is empty");
+        }
+        return value;
+    }
+
+    /**
+     * Parses a timestamp written by the exporter, using the current time if there is none.
+     */
+    private static Timestamp timestamp(String value) {
+        if (value == null || value.isBlank()) {
+            return new Timestamp(System.currentTimeMillis());
+        }
+        return Timestamp.valueOf(LocalDateTime.parse(value.trim()));
+    }
+}
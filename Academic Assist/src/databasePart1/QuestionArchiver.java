@@ -0,0 +1,355 @@
+package databasePart1;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+import application.Answer;
+import application.Question;
+
+/**
+ * Moves resolved threads nobody has touched for a while out of the tables the pages
+ * read, into archive tables of the same shape, and moves them back on request.
+ *
+ * <p>A thread is the question with its answers, reviews, review feedback, feedback and
+ * chat messages. Threads are moved a batch at a time: each table of a batch is copied
+ * with one {@code INSERT ... SELECT} and cleared with one {@code DELETE}, and the batch
+ * is committed as a whole, so a thread is never split between the two sets of tables.
+ * Threads with unresolved flags are left alone until a moderator has dealt with them.</p>
+ */
+class QuestionArchiver {
+
+    static final int DEFAULT_BATCH_SIZE = 200;
+
+    /**
+     * A table of a thread and its archive table. The rows of a batch of threads are
+     * selected by the condition, where {@code %s} stands for the question IDs.
+     */
+    private static class ThreadTable {
+        final String table;
+        final String archive;
+        final String columns;
+        final String condition;
+        final String archiveCondition;
+        final String order;
+
+        ThreadTable(String table, String columns, String condition, String archiveCondition, String order) {
+            this.table = table;
+            this.archive = "Archived" + table;
+            this.columns = columns;
+            this.condition = condition;
+            this.archiveCondition = archiveCondition;
+            this.order = order;
+        }
+    }
+
+    // In the order rows are inserted, so a row comes after the rows it refers to
+    private static final ThreadTable[] THREAD_TABLES = {
+        new ThreadTable("Questions", "questionID, bodyText, postedBy, dateCreated, resolvedStatus, acceptedAnsID, newMessagesCount",
+                "questionID IN (%s)", "questionID IN (%s)", "questionID"),
+        new ThreadTable("Answers", "answerID, questionID, bodyText, answeredBy, dateCreated",
+                "questionID IN (%s)", "questionID IN (%s)", "answerID"),
+        new ThreadTable("Reviews", "reviewID, questionID, answerID, reviewerName, reviewText, dateCreated",
+                "questionID IN (%s)", "questionID IN (%s)", "reviewID"),
+        new ThreadTable("ReviewFeedback", "id, reviewID, targetID, isAnswer, sentTo, sentBy, feedbackText, parentID, timestamp",
+                "reviewID IN (SELECT reviewID FROM Reviews WHERE questionID IN (%s))",
+                "reviewID IN (SELECT reviewID FROM ArchivedReviews WHERE questionID IN (%s))", "id"),
+        new ThreadTable("Feedback", "id, questionID, sentTo, sentBy, feedbackText, parentID, timestamp",
+                "questionID IN (%s)", "questionID IN (%s)", "id"),
+        new ThreadTable("ChatMessages", "message_id, question_id, reviewer_username, student_username, sender_role, message, timestamp",
+                "question_id IN (%s)", "question_id IN (%s)", "message_id")
+    };
+
+    // Resolved questions with no activity in their thread since the cutoff
+    private static final String CANDIDATES = "SELECT q.questionID FROM Questions q "
+            + "WHERE q.resolvedStatus = TRUE AND q.dateCreated < ? "
+            + "AND NOT EXISTS (SELECT 1 FROM Answers a WHERE a.questionID = q.questionID AND a.dateCreated >= ?) "
+            + "AND NOT EXISTS (SELECT 1 FROM Reviews r WHERE r.questionID = q.questionID AND r.dateCreated >= ?) "
+            + "AND NOT EXISTS (SELECT 1 FROM ReviewFeedback rf JOIN Reviews r ON rf.reviewID = r.reviewID "
+            + "WHERE r.questionID = q.questionID AND rf.timestamp >= ?) "
+            + "AND NOT EXISTS (SELECT 1 FROM Feedback f WHERE f.questionID = q.questionID AND f.timestamp >= ?) "
+            + "AND NOT EXISTS (SELECT 1 FROM ChatMessages c WHERE c.question_id = q.questionID AND c.timestamp >= ?) "
+            + "AND NOT EXISTS (SELECT 1 FROM FlaggedContent fc WHERE fc.resolved = FALSE AND ("
+            + "(fc.contentType = 'Question' AND fc.contentID = q.questionID) "
+            + "OR (fc.contentType = 'Answer' AND fc.contentID IN (SELECT answerID FROM Answers WHERE questionID = q.questionID)) "
+            + "OR (fc.contentType = 'Feedback' AND fc.contentID IN (SELECT id FROM Feedback WHERE questionID = q.questionID)))) "
+            + "ORDER BY q.questionID LIMIT ?";
+
+    private final Connection connection;
+    private final int batchSize;
+
+    QuestionArchiver(Connection connection, int batchSize) {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("batchSize must be at least 1");
+        }
+        this.connection = connection;
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Creates the archive tables. They have the columns of the tables they archive and
+     * the time the thread was archived, but no foreign keys.
+     */
+    static void createTables(Statement statement) throws SQLException {
+        statement.execute("CREATE TABLE IF NOT EXISTS ArchivedQuestions ("
+                + "questionID INT PRIMARY KEY, "
+                + "bodyText TEXT, "
+                + "postedBy VARCHAR(255), "
+                + "dateCreated TIMESTAMP, "
+                + "resolvedStatus BOOLEAN, "
+                + "acceptedAnsID INT, "
+                + "newMessagesCount INT, "
+                + "archivedAt TIMESTAMP)");
+        statement.execute("CREATE TABLE IF NOT EXISTS ArchivedAnswers ("
+                + "answerID INT PRIMARY KEY, "
+                + "questionID INT, "
+                + "bodyText TEXT, "
+                + "answeredBy VARCHAR(255), "
+                + "dateCreated TIMESTAMP, "
+                + "archivedAt TIMESTAMP)");
+        statement.execute("CREATE TABLE IF NOT EXISTS ArchivedReviews ("
+                + "reviewID INT PRIMARY KEY, "
+                + "questionID INT, "
+                + "answerID INT, "
+                + "reviewerName VARCHAR(255), "
+                + "reviewText TEXT, "
+                + "dateCreated TIMESTAMP, "
+                + "archivedAt TIMESTAMP)");
+        statement.execute("CREATE TABLE IF NOT EXISTS ArchivedReviewFeedback ("
+                + "id INT PRIMARY KEY, "
+                + "reviewID INT, "
+                + "targetID INT, "
+                + "isAnswer BOOLEAN, "
+                + "sentTo VARCHAR(255), "
+                + "sentBy VARCHAR(255), "
+                + "feedbackText TEXT, "
+                + "parentID INT, "
+                + "timestamp TIMESTAMP, "
+                + "archivedAt TIMESTAMP)");
+        statement.execute("CREATE TABLE IF NOT EXISTS ArchivedFeedback ("
+                + "id INT PRIMARY KEY, "
+                + "questionID INT, "
+                + "sentTo VARCHAR(255), "
+                + "sentBy VARCHAR(255), "
+                + "feedbackText TEXT, "
+                + "parentID INT, "
+                + "timestamp TIMESTAMP, "
+                + "archivedAt TIMESTAMP)");
+        statement.execute("CREATE TABLE IF NOT EXISTS ArchivedChatMessages ("
+                + "message_id INT PRIMARY KEY, "
+                + "question_id INT, "
+                + "reviewer_username TEXT, "
+                + "student_username TEXT, "
+                + "sender_role TEXT, "
+                + "message TEXT, "
+                + "timestamp TIMESTAMP, "
+                + "archivedAt TIMESTAMP)");
+        statement.execute("CREATE INDEX IF NOT EXISTS idx_archived_answers_question ON ArchivedAnswers(questionID)");
+        statement.execute("CREATE INDEX IF NOT EXISTS idx_archived_reviews_question ON ArchivedReviews(questionID)");
+        statement.execute("CREATE INDEX IF NOT EXISTS idx_archived_review_feedback_review ON ArchivedReviewFeedback(reviewID)");
+        statement.execute("CREATE INDEX IF NOT EXISTS idx_archived_feedback_question ON ArchivedFeedback(questionID)");
+        statement.execute("CREATE INDEX IF NOT EXISTS idx_archived_chat_question ON ArchivedChatMessages(question_id)");
+    }
+
+    /**
+     * Archives every resolved thread with no activity since the cutoff.
+     *
+     * @param cutoff Threads with a post or message at or after this time are kept
+     * @param onBatch Called with the question IDs of each batch once it is committed
+     * @return The number of threads archived
+     * @throws SQLException if a batch cannot be moved; earlier batches stay archived
+     */
+    int archive(Timestamp cutoff, Consumer<List<Integer>> onBatch) throws SQLException {
+        int archived = 0;
+        boolean autoCommit = connection.getAutoCommit();
+        connection.setAutoCommit(false);
+        try {
+            List<Integer> batch;
+            while (!(batch = candidates(cutoff)).isEmpty()) {
+                Timestamp archivedAt = new Timestamp(System.currentTimeMillis());
+                try {
+                    for (ThreadTable table : THREAD_TABLES) {
+                        String query = "INSERT INTO " + table.archive + " (" + table.columns + ", archivedAt) "
+                                + "SELECT " + table.columns + ", ? FROM " + table.table
+                                + " WHERE " + String.format(table.condition, placeholders(batch.size()));
+                        try (PreparedStatement pstmt = connection.prepareStatement(query)) {
+                            pstmt.setTimestamp(1, archivedAt);
+                            bind(pstmt, 2, batch);
+                            pstmt.executeUpdate();
+                        }
+                    }
+                    delete(batch, true);
+                    connection.commit();
+                } catch (SQLException e) {
+                    connection.rollback();
+                    throw e;
+                }
+                archived += batch.size();
+                if (onBatch != null) {
+                    onBatch.accept(batch);
+                }
+            }
+        } finally {
+            connection.setAutoCommit(autoCommit);
+        }
+        return archived;
+    }
+
+    /**
+     * Moves an archived thread back to the tables the pages read.
+     *
+     * @param questionID The ID of the archived question
+     * @return Whether the question was in the archive
+     */
+    boolean restore(int questionID) throws SQLException {
+        List<Integer> ids = List.of(questionID);
+        boolean autoCommit = connection.getAutoCommit();
+        connection.setAutoCommit(false);
+        try {
+            int restored = 0;
+            for (ThreadTable table : THREAD_TABLES) {
+                String query = "INSERT INTO " + table.table + " (" + table.columns + ") "
+                        + "SELECT " + table.columns + " FROM " + table.archive
+                        + " WHERE " + String.format(table.archiveCondition, "?") + " ORDER BY " + table.order;
+                try (PreparedStatement pstmt = connection.prepareStatement(query)) {
+                    pstmt.setInt(1, questionID);
+                    int rows = pstmt.executeUpdate();
+                    if (table == THREAD_TABLES[0]) {
+                        restored = rows;
+                    }
+                }
+                if (restored == 0) {
+                    break;
+                }
+            }
+            if (restored > 0) {
+                // Archiving dropped the thread's subscriptions along with the question
+                DatabaseHelper2.subscribeParticipants(connection, questionID);
+            }
+            delete(ids, false);
+            connection.commit();
+            return restored > 0;
+        } catch (SQLException e) {
+            connection.rollback();
+            throw e;
+        } finally {
+            connection.setAutoCommit(autoCommit);
+        }
+    }
+
+    /**
+     * Finds archived questions whose text, or the text of one of their answers,
+     * contains a keyword.
+     *
+     * @param keyword The text to look for; every archived question matches when empty
+     * @param limit The maximum number of questions to return
+     * @return The matching questions, newest first
+     */
+    List<Question> search(String keyword, int limit) throws SQLException {
+        boolean hasKeyword = keyword != null && !keyword.trim().isEmpty();
+        String query = "SELECT * FROM ArchivedQuestions q "
+                + (hasKeyword ? "WHERE LOWER(q.bodyText) LIKE ? OR EXISTS (SELECT 1 FROM ArchivedAnswers a "
+                        + "WHERE a.questionID = q.questionID AND LOWER(a.bodyText) LIKE ?) " : "")
+                + "ORDER BY q.dateCreated DESC LIMIT ?";
+        List<Question> questions = new ArrayList<>();
+        try (PreparedStatement pstmt = connection.prepareStatement(query)) {
+            int index = 1;
+            if (hasKeyword) {
+                String pattern = "%" + keyword.trim().toLowerCase() + "%";
+                pstmt.setString(index++, pattern);
+                pstmt.setString(index++, pattern);
+            }
+            pstmt.setInt(index, limit);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    Question question = new Question(
+                        rs.getInt("questionID"),
+                        rs.getString("bodyText"),
+                        rs.getString("postedBy"),
+                        rs.getTimestamp("dateCreated")
+                    );
+                    question.setResolved(rs.getBoolean("resolvedStatus"));
+                    question.setAcceptedAnsID(rs.getInt("acceptedAnsID"));
+                    question.setNewMessagesCount(rs.getInt("newMessagesCount"));
+                    questions.add(question);
+                }
+            }
+        }
+        return questions;
+    }
+
+    /**
+     * Returns the answers of an archived question, oldest first.
+     */
+    List<Answer> getAnswers(int questionID) throws SQLException {
+        List<Answer> answers = new ArrayList<>();
+        String query = "SELECT * FROM ArchivedAnswers WHERE questionID = ? ORDER BY dateCreated, answerID";
+        try (PreparedStatement pstmt = connection.prepareStatement(query)) {
+            pstmt.setInt(1, questionID);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    answers.add(new Answer(
+                        rs.getInt("answerID"),
+                        rs.getInt("questionID"),
+                        rs.getString("bodyText"),
+                        rs.getString("answeredBy"),
+                        rs.getTimestamp("dateCreated")
+                    ));
+                }
+            }
+        }
+        return answers;
+    }
+
+    private List<Integer> candidates(Timestamp cutoff) throws SQLException {
+        List<Integer> ids = new ArrayList<>();
+        try (PreparedStatement pstmt = connection.prepareStatement(CANDIDATES)) {
+            for (int i = 1; i <= 6; i++) {
+                pstmt.setTimestamp(i, cutoff);
+            }
+            pstmt.setInt(7, batchSize);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    ids.add(rs.getInt(1));
+                }
+            }
+        }
+        return ids;
+    }
+
+    /**
+     * Deletes the rows of the threads from the live tables or from the archive tables,
+     * rows that refer to others first.
+     */
+    private void delete(List<Integer> ids, boolean live) throws SQLException {
+        for (int i = THREAD_TABLES.length - 1; i >= 0; i--) {
+            ThreadTable table = THREAD_TABLES[i];
+            String query = "DELETE FROM " + (live ? table.table : table.archive) + " WHERE "
+                    + String.format(live ? table.condition : table.archiveCondition, placeholders(ids.size()));
+            try (PreparedStatement pstmt = connection.prepareStatement(query)) {
+                bind(pstmt, 1, ids);
+                pstmt.executeUpdate();
+            }
+        }
+    }
+
+    private static String placeholders(int count) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            sb.append(i == 0 ? "?" : ", ?");
+        }
+        return sb.toString();
+    }
+
+    private static void bind(PreparedStatement pstmt, int first, List<Integer> ids) throws SQLException {
+        for (int i = 0; i < ids.size(); i++) {
+            pstmt.setInt(first + i, ids.get(i));
+        }
+    }
+}
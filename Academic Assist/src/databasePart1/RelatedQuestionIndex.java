@@ -0,0 +1,225 @@
+package databasePart1;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/**
+ * An in-memory vector index of resolved questions, used to point students to answered
+ * questions similar to the one they are reading.
+ *
+ * <p>Each resolved question is indexed together with its accepted answer as a vector of
+ * TF-IDF term weights. An inverted index from term to the questions containing it means a
+ * lookup only visits questions that share a term with the query, and the best matches by
+ * cosine similarity are kept in a bounded heap.</p>
+ *
+ * <p>Term frequencies are stored raw and IDF is applied at query time, so new documents
+ * never invalidate old ones. Only the document lengths depend on IDF; they are computed
+ * when a document is added and recomputed for the whole index once the corpus has grown
+ * by a quarter since the last time.</p>
+ */
+class RelatedQuestionIndex {
+
+    private static final double RENORMALIZE_GROWTH = 1.25;
+
+    private final Map<Integer, Map<String, Integer>> termCounts = new HashMap<>();
+    private final Map<Integer, Double> norms = new HashMap<>();
+    private final Map<String, Map<Integer, Integer>> postings = new HashMap<>();
+    private final Map<Integer, Integer> questionByAnswer = new HashMap<>();
+    private final Map<Integer, Integer> answerByQuestion = new HashMap<>();
+    private int normalizedAtSize = 0;
+    private boolean loaded = false;
+
+    /**
+     * Loads every resolved question and its accepted answer if the index is not loaded yet.
+     */
+    synchronized void ensureLoaded(Connection connection) throws SQLException {
+        if (loaded) {
+            return;
+        }
+        termCounts.clear();
+        norms.clear();
+        postings.clear();
+        questionByAnswer.clear();
+        answerByQuestion.clear();
+        String query = "SELECT q.questionID, a.answerID, q.bodyText AS questionText, a.bodyText AS answerText "
+                     + "FROM Questions q JOIN Answers a ON a.answerID = q.acceptedAnsID "
+                     + "WHERE q.resolvedStatus = TRUE";
+        try (PreparedStatement pstmt = connection.prepareStatement(query);
+             ResultSet rs = pstmt.executeQuery()) {
+            while (rs.next()) {
+                int questionID = rs.getInt("questionID");
+                addTerms(questionID, rs.getInt("answerID"), rs.getString("questionText") + " " + rs.getString("answerText"));
+            }
+        }
+        renormalize();
+        loaded = true;
+    }
+
+    /**
+     * Drops the index, so the next lookup reloads it with every resolved question,
+     * including those added by a bulk import.
+     */
+    synchronized void invalidate() {
+        loaded = false;
+    }
+
+    /**
+     * Returns true once the index has been loaded from the database.
+     */
+    synchronized boolean isLoaded() {
+        return loaded;
+    }
+
+    /**
+     * Returns the question an indexed accepted answer belongs to, or null if the answer
+     * is not indexed.
+     */
+    synchronized Integer questionForAnswer(int answerID) {
+        return questionByAnswer.get(answerID);
+    }
+
+    /**
+     * Indexes a resolved question with its accepted answer, replacing any earlier entry.
+     * Ignored until the index has been loaded, since loading will pick it up.
+     */
+    synchronized void put(int questionID, int answerID, String questionText, String answerText) {
+        if (!loaded) {
+            return;
+        }
+        removeTerms(questionID);
+        addTerms(questionID, answerID, questionText + " " + answerText);
+        if (termCounts.size() > normalizedAtSize * RENORMALIZE_GROWTH) {
+            renormalize();
+        } else {
+            norms.put(questionID, norm(termCounts.get(questionID)));
+        }
+    }
+
+    /**
+     * Removes a question from the index.
+     */
+    synchronized void remove(int questionID) {
+        removeTerms(questionID);
+    }
+
+    /**
+     * Finds the indexed questions most similar to a text.
+     *
+     * @param text The query text, usually the body of the question being read
+     * @param k The maximum number of questions to return
+     * @param excludeID A question ID to leave out of the results
+     * @return The IDs of the most similar questions, best first
+     */
+    synchronized List<Integer> topK(String text, int k, int excludeID) {
+        Map<String, Integer> queryCounts = countTerms(text);
+        Map<Integer, Double> dotProducts = new HashMap<>();
+        double queryNorm = 0.0;
+        for (Map.Entry<String, Integer> term : queryCounts.entrySet()) {
+            Map<Integer, Integer> docs = postings.get(term.getKey());
+            if (docs == null) {
+                continue;
+            }
+            double idf = idf(docs.size());
+            double queryWeight = tf(term.getValue()) * idf;
+            queryNorm += queryWeight * queryWeight;
+            for (Map.Entry<Integer, Integer> doc : docs.entrySet()) {
+                dotProducts.merge(doc.getKey(), queryWeight * tf(doc.getValue()) * idf, Double::sum);
+            }
+        }
+
+        // Keep the k best candidates, with the weakest at the head of the heap
+        PriorityQueue<Map.Entry<Integer, Double>> best = new PriorityQueue<>(Map.Entry.comparingByValue());
+        for (Map.Entry<Integer, Double> candidate : dotProducts.entrySet()) {
+            if (candidate.getKey() == excludeID) {
+                continue;
+            }
+            double docNorm = norms.getOrDefault(candidate.getKey(), 0.0);
+            if (docNorm == 0.0 || queryNorm == 0.0) {
+                continue;
+            }
+            candidate.setValue(candidate.getValue() / (docNorm * Math.sqrt(queryNorm)));
+            best.add(candidate);
+            if (best.size() > k) {
+                best.poll();
+            }
+        }
+
+        List<Integer> result = new ArrayList<>();
+        while (!best.isEmpty()) {
+            result.add(0, best.poll().getKey());
+        }
+        return result;
+    }
+
+    private void addTerms(int questionID, int answerID, String text) {
+        Map<String, Integer> counts = countTerms(text);
+        termCounts.put(questionID, counts);
+        questionByAnswer.put(answerID, questionID);
+        answerByQuestion.put(questionID, answerID);
+        for (Map.Entry<String, Integer> term : counts.entrySet()) {
+            postings.computeIfAbsent(term.getKey(), t -> new HashMap<>()).put(questionID, term.getValue());
+        }
+    }
+
+    private void removeTerms(int questionID) {
+        Map<String, Integer> counts = termCounts.remove(questionID);
+        norms.remove(questionID);
+        Integer answerID = answerByQuestion.remove(questionID);
+        if (answerID != null) {
+            questionByAnswer.remove(answerID);
+        }
+        if (counts == null) {
+            return;
+        }
+        for (String term : counts.keySet()) {
+            Map<Integer, Integer> docs = postings.get(term);
+            if (docs != null) {
+                docs.remove(questionID);
+                if (docs.isEmpty()) {
+                    postings.remove(term);
+                }
+            }
+        }
+    }
+
+    private void renormalize() {
+        for (Map.Entry<Integer, Map<String, Integer>> doc : termCounts.entrySet()) {
+            norms.put(doc.getKey(), norm(doc.getValue()));
+        }
+        normalizedAtSize = termCounts.size();
+    }
+
+    private double norm(Map<String, Integer> counts) {
+        double sum = 0.0;
+        for (Map.Entry<String, Integer> term : counts.entrySet()) {
+            double weight = tf(term.getValue()) * idf(postings.get(term.getKey()).size());
+            sum += weight * weight;
+        }
+        return Math.sqrt(sum);
+    }
+
+    private double idf(int docFrequency) {
+        return Math.log(1.0 + (double) termCounts.size() / docFrequency);
+    }
+
+    private static double tf(int count) {
+        return 1.0 + Math.log(count);
+    }
+
+    private static Map<String, Integer> countTerms(String text) {
+        Map<String, Integer> counts = new HashMap<>();
+        for (String token : TextTokenizer.tokenize(text)) {
+            if (!TextTokenizer.isStopWord(token)) {
+                counts.merge(token, 1, Integer::sum);
+            }
+        }
+        return counts;
+    }
+}
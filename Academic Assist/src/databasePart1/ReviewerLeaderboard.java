@@ -0,0 +1,126 @@
+package databasePart1;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+import application.ReviewerRank;
+
+/**
+ * Keeps every reviewer ordered by ranking score so leaderboard pages can be served
+ * without aggregating Reviews and ReviewerWeights for each view. The ordering is
+ * loaded once from the ReviewerStats table and then updated one reviewer at a time
+ * whenever that reviewer's aggregates change.
+ *
+ * <p>The score combines three signals:</p>
+ * <ul>
+ *   <li>a trust-weighted rating, the average weight pulled towards a neutral prior so a
+ *       single high rating does not outrank many consistent ones</li>
+ *   <li>review volume, on a logarithmic scale</li>
+ *   <li>recency, as a term that grows with the date of the latest review so that a
+ *       reviewer who was active 90 days later gains one point; since it depends on
+ *       absolute dates the ordering does not decay and never has to be recomputed</li>
+ * </ul>
+ */
+class ReviewerLeaderboard {
+
+    private static final double PRIOR_RATING = 3.0;
+    private static final int PRIOR_COUNT = 3;
+    private static final double VOLUME_WEIGHT = 0.5;
+    private static final double RECENCY_DAYS_PER_POINT = 90.0;
+    private static final long MILLIS_PER_DAY = 24L * 60 * 60 * 1000;
+
+    private static final Comparator<ReviewerRank> BY_SCORE =
+            Comparator.comparingDouble(ReviewerRank::getScore).reversed()
+                      .thenComparing(ReviewerRank::getUserName);
+
+    private final Map<String, ReviewerRank> byName = new HashMap<>();
+    private final TreeSet<ReviewerRank> ranked = new TreeSet<>(BY_SCORE);
+    private boolean loaded = false;
+
+    /**
+     * Computes the ranking score for a reviewer's aggregates.
+     */
+    static double score(ReviewerRank rank) {
+        double trustedRating = (rank.getRatingSum() + PRIOR_RATING * PRIOR_COUNT)
+                / (rank.getRatingCount() + PRIOR_COUNT);
+        double volume = VOLUME_WEIGHT * Math.log10(1 + rank.getTotalReviews());
+        double recency = rank.getLastReviewTime() == null ? 0.0
+                : rank.getLastReviewTime().getTime() / (double) MILLIS_PER_DAY / RECENCY_DAYS_PER_POINT;
+        return trustedRating + volume + recency;
+    }
+
+    /**
+     * Replaces the whole leaderboard with the given reviewers.
+     */
+    synchronized void load(List<ReviewerRank> ranks) {
+        byName.clear();
+        ranked.clear();
+        for (ReviewerRank rank : ranks) {
+            add(rank);
+        }
+        loaded = true;
+    }
+
+    /**
+     * Returns true once the leaderboard has been loaded and is still valid.
+     */
+    synchronized boolean isLoaded() {
+        return loaded;
+    }
+
+    /**
+     * Marks the leaderboard as stale so it is reloaded on the next read.
+     */
+    synchronized void invalidate() {
+        loaded = false;
+    }
+
+    /**
+     * Moves a single reviewer to the position matching their new aggregates.
+     * Ignored until the leaderboard has been loaded.
+     */
+    synchronized void update(ReviewerRank rank) {
+        if (!loaded) {
+            return;
+        }
+        ReviewerRank previous = byName.remove(rank.getUserName());
+        if (previous != null) {
+            ranked.remove(previous);
+        }
+        add(rank);
+    }
+
+    /**
+     * Returns one page of the leaderboard, best reviewer first.
+     *
+     * @param page The page number, starting at 0
+     * @param pageSize The number of reviewers per page
+     */
+    synchronized List<ReviewerRank> getPage(int page, int pageSize) {
+        List<ReviewerRank> result = new ArrayList<>();
+        if (page < 0 || pageSize <= 0) {
+            return result;
+        }
+        long skip = (long) page * pageSize;
+        Iterator<ReviewerRank> it = ranked.iterator();
+        while (skip > 0 && it.hasNext()) {
+            it.next();
+            skip--;
+        }
+        while (result.size() < pageSize && it.hasNext()) {
+            result.add(it.next());
+        }
+        return result;
+    }
+
+    private void add(ReviewerRank rank) {
+        rank.setScore(score(rank));
+        byName.put(rank.getUserName(), rank);
+        ranked.add(rank);
+    }
+}
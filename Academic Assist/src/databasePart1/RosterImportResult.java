@@ -0,0 +1,73 @@
+package databasePart1;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The outcome of importing a roster: what happened to each row and how many users were
+ * created, updated or rejected.
+ */
+public class RosterImportResult {
+
+    /**
+     * What happened to a row of the roster.
+     */
+    public enum Status {
+        CREATED, UPDATED, FAILED
+    }
+
+    /**
+     * The outcome of one row.
+     */
+    public static class Row {
+        private final long lineNumber;
+        private final String userName;
+        private final Status status;
+        private final String message;
+        private final String oneTimePassword;
+
+        Row(long lineNumber, String userName, Status status, String message, String oneTimePassword) {
+            this.lineNumber = lineNumber;
+            this.userName = userName;
+            this.status = status;
+            this.message = message;
+            this.oneTimePassword = oneTimePassword;
+        }
+
+        /** Returns the line of the file the row started on */
+        public long getLineNumber() { return lineNumber; }
+        public String getUserName() { return userName; }
+        public Status getStatus() { return status; }
+        /** Returns why the row failed, or an empty string */
+        public String getMessage() { return message; }
+        /** Returns the one-time password generated for a new user without a password, or null */
+        public String getOneTimePassword() { return oneTimePassword; }
+    }
+
+    private final List<Row> rows = new ArrayList<>();
+    private int created = 0;
+    private int updated = 0;
+    private int failed = 0;
+
+    void add(Row row) {
+        rows.add(row);
+        switch (row.getStatus()) {
+            case CREATED:
+                created++;
+                break;
+            case UPDATED:
+                updated++;
+                break;
+            default:
+                failed++;
+                break;
+        }
+    }
+
+    /** Returns the outcome of every row, in the order of the file */
+    public List<Row> getRows() { return Collections.unmodifiableList(rows); }
+    public int getCreated() { return created; }
+    public int getUpdated() { return updated; }
+    public int getFailed() { return failed; }
+}
@@ -0,0 +1,331 @@
+package databasePart1;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.security.SecureRandom;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.IntConsumer;
+
+import application.PasswordEvaluator;
+import application.RosterValidator;
+import application.User;
+
+/**
+ * Creates and updates user accounts from a CSV roster, such as a course's class list.
+ *
+ * <p>The roster is read as a stream and handled {@value #CHUNK_SIZE} rows at a time:
+ * <ol>
+ *   <li>Each row is validated with the account setup rules, in parallel.</li>
+ *   <li>One query finds which usernames already exist.</li>
+ *   <li>Passwords are hashed in parallel on the password worker pool.</li>
+ *   <li>The new users are inserted and the existing users are updated in two JDBC batches
+ *       within a single transaction.</li>
+ * </ol>
+ * If a batch fails, the chunk is rolled back and its rows are written one at a time, so
+ * one bad row only fails itself.</p>
+ *
+ * <p>The first row names the columns. The {@code userName}, {@code firstName},
+ * {@code lastName} and {@code email} columns are required. The {@code role} column
+ * defaults to Student. A new user without a {@code password} gets a numeric one-time
+ * password, which makes them choose their own password at first login. An existing user
+ * keeps their password unless the row gives a new one, and gains the row's role if they
+ * did not have it yet.</p>
+ */
+class RosterImporter {
+
+    static final int CHUNK_SIZE = 500;
+    static final Set<String> ROLES = Set.of("Student", "Reviewer", "Instructor", "Staff");
+    private static final String[] REQUIRED = {"username", "firstname", "lastname", "email"};
+
+    private static final SecureRandom random = new SecureRandom();
+
+    private final Connection connection;
+    private final RosterValidator validator = new RosterValidator();
+
+    /**
+     * A row waiting to be written.
+     */
+    private static class Pending {
+        final long lineNumber;
+        final User user;
+        final String password;
+        String error = "";
+        boolean exists;
+        String oneTimePassword;
+        String passwordHash;
+
+        Pending(long lineNumber, User user, String password) {
+            this.lineNumber = lineNumber;
+            this.user = user;
+            this.password = password;
+        }
+    }
+
+    RosterImporter(Connection connection) {
+        this.connection = connection;
+    }
+
+    /**
+     * Imports every row of a roster.
+     *
+     * @param csv The roster, with a header row
+     * @param progress Called with the number of rows handled so far after each chunk, or null
+     * @return The outcome of each row
+     * @throws IOException if the roster cannot be read or its header is missing a column
+     * @throws SQLException if the database cannot be read
+     */
+    RosterImportResult importRoster(Reader csv, IntConsumer progress) throws IOException, SQLException {
+        CsvReader reader = new CsvReader(csv);
+        List<String> header = reader.next();
+        if (header == null) {
+            throw new IOException("The roster is empty");
+        }
+        Map<String, Integer> columns = new HashMap<>();
+        for (int i = 0; i < header.size(); i++) {
+            columns.put(header.get(i).trim().replace("_", "").replace(" ", "").toLowerCase(Locale.ROOT), i);
+        }
+        for (String column : REQUIRED) {
+            if (!columns.containsKey(column)) {
+                throw new IOException("The roster has no " + column + " column");
+            }
+        }
+
+        RosterImportResult result = new RosterImportResult();
+        Set<String> seen = new HashSet<>();
+        List<Pending> chunk = new ArrayList<>();
+        int handled = 0;
+        List<String> record;
+        while ((record = reader.next()) != null) {
+            Pending row = new Pending(reader.getRecordLine(),
+                new User(field(record, columns, "username"), "", roleOf(field(record, columns, "role")),
+                    field(record, columns, "firstname"), field(record, columns, "lastname"), field(record, columns, "email")),
+                field(record, columns, "password"));
+            if (record.size() != header.size()) {
+                row.error = "Expected " + header.size() + " fields but found " + record.size();
+            } else if (!seen.add(row.user.getUserName())) {
+                row.error = "The username appears more than once in the roster";
+            }
+            chunk.add(row);
+            if (chunk.size() == CHUNK_SIZE) {
+                writeChunk(chunk, result);
+                handled += chunk.size();
+                chunk.clear();
+                if (progress != null) {
+                    progress.accept(handled);
+                }
+            }
+        }
+        if (!chunk.isEmpty()) {
+            writeChunk(chunk, result);
+            handled += chunk.size();
+            if (progress != null) {
+                progress.accept(handled);
+            }
+        }
+        return result;
+    }
+
+    private void writeChunk(List<Pending> chunk, RosterImportResult result) throws SQLException {
+        validate(chunk);
+        List<Pending> valid = new ArrayList<>();
+        for (Pending row : chunk) {
+            if (row.error.isEmpty()) {
+                valid.add(row);
+            }
+        }
+        markExisting(valid);
+        hashPasswords(valid);
+
+        boolean autoCommit = connection.getAutoCommit();
+        connection.setAutoCommit(false);
+        try {
+            try {
+                writeRows(valid);
+                connection.commit();
+            } catch (SQLException e) {
+                // Write the rows one at a time, so only the rows at fault fail
+                connection.rollback();
+                for (Pending row : valid) {
+                    try {
+                        writeRows(List.of(row));
+                        connection.commit();
+                    } catch (SQLException rowError) {
+                        connection.rollback();
+                        row.error = rowError.getMessage();
+                    }
+                }
+            }
+        } finally {
+            connection.setAutoCommit(autoCommit);
+        }
+
+        for (Pending row : chunk) {
+            if (!row.error.isEmpty()) {
+                result.add(new RosterImportResult.Row(row.lineNumber, row.user.getUserName(),
+                    RosterImportResult.Status.FAILED, row.error, null));
+            } else {
+                result.add(new RosterImportResult.Row(row.lineNumber, row.user.getUserName(),
+                    row.exists ? RosterImportResult.Status.UPDATED : RosterImportResult.Status.CREATED,
+                    "", row.oneTimePassword));
+            }
+        }
+    }
+
+    /**
+     * Checks the fields of each row that has no error yet, using every core.
+     */
+    private void validate(List<Pending> chunk) {
+        List<User> users = new ArrayList<>(chunk.size());
+        for (Pending row : chunk) {
+            users.add(row.user);
+        }
+        List<String> errors = validator.validateAll(users);
+        for (int i = 0; i < chunk.size(); i++) {
+            Pending row = chunk.get(i);
+            if (!row.error.isEmpty()) {
+                continue;
+            }
+            if (!errors.get(i).isEmpty()) {
+                row.error = errors.get(i);
+            } else if (!ROLES.contains(row.user.getRole())) {
+                row.error = "The role must be one of " + String.join(", ", ROLES);
+            } else if (!row.password.isEmpty()) {
+                row.error = PasswordEvaluator.evaluatePassword(row.password);
+            }
+        }
+    }
+
+    private void markExisting(List<Pending> rows) throws SQLException {
+        if (rows.isEmpty()) {
+            return;
+        }
+        StringBuilder query = new StringBuilder("SELECT userName FROM cse360users WHERE userName IN (");
+        for (int i = 0; i < rows.size(); i++) {
+            query.append(i == 0 ? "?" : ", ?");
+        }
+        query.append(")");
+        Set<String> existing = new HashSet<>();
+        try (PreparedStatement pstmt = connection.prepareStatement(query.toString())) {
+            for (int i = 0; i < rows.size(); i++) {
+                pstmt.setString(i + 1, rows.get(i).user.getUserName());
+            }
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    existing.add(rs.getString("userName"));
+                }
+            }
+        }
+        for (Pending row : rows) {
+            row.exists = existing.contains(row.user.getUserName());
+        }
+    }
+
+    /**
+     * Hashes the passwords the rows need on the password worker pool, or on this thread
+     * if the pool is too busy to take them.
+     */
+    private void hashPasswords(List<Pending> rows) {
+        List<CompletableFuture<String>> hashes = new ArrayList<>();
+        List<Pending> hashed = new ArrayList<>();
+        for (Pending row : rows) {
+            String password = row.password;
+            if (password.isEmpty()) {
+                if (row.exists) {
+                    continue;
+                }
+                row.oneTimePassword = String.valueOf(100000 + random.nextInt(900000));
+                password = row.oneTimePassword;
+            }
+            String toHash = password;
+            hashes.add(PasswordHasher.submit(() -> PasswordHasher.hash(toHash))
+                .exceptionally(e -> PasswordHasher.hash(toHash)));
+            hashed.add(row);
+        }
+        for (int i = 0; i < hashed.size(); i++) {
+            hashed.get(i).passwordHash = hashes.get(i).join();
+        }
+    }
+
+    private void writeRows(List<Pending> rows) throws SQLException {
+        String insert = "INSERT INTO cse360users (userName, password, role, firstName, lastName, email) VALUES (?, ?, ?, ?, ?, ?)";
+        String update = "UPDATE cse360users SET password = COALESCE(?, password), firstName = ?, lastName = ?, email = ?, "
+                + "role = CASE WHEN role IS NULL OR role = '' THEN ? "
+                + "WHEN ',' || role || ',' LIKE ? THEN role ELSE role || ',' || ? END "
+                + "WHERE userName = ?";
+        try (PreparedStatement insertStmt = connection.prepareStatement(insert);
+             PreparedStatement updateStmt = connection.prepareStatement(update)) {
+            int inserts = 0;
+            int updates = 0;
+            for (Pending row : rows) {
+                User user = row.user;
+                if (row.exists) {
+                    if (row.passwordHash != null) {
+                        updateStmt.setString(1, row.passwordHash);
+                    } else {
+                        updateStmt.setNull(1, Types.VARCHAR);
+                    }
+                    updateStmt.setString(2, user.getfirstName());
+                    updateStmt.setString(3, user.getlastName());
+                    updateStmt.setString(4, user.getemail());
+                    updateStmt.setString(5, user.getRole());
+                    updateStmt.setString(6, "%," + user.getRole() + ",%");
+                    updateStmt.setString(7, user.getRole());
+                    updateStmt.setString(8, user.getUserName());
+                    updateStmt.addBatch();
+                    updates++;
+                } else {
+                    insertStmt.setString(1, user.getUserName());
+                    insertStmt.setString(2, row.passwordHash);
+                    insertStmt.setString(3, user.getRole());
+                    insertStmt.setString(4, user.getfirstName());
+                    insertStmt.setString(5, user.getlastName());
+                    insertStmt.setString(6, user.getemail());
+                    insertStmt.addBatch();
+                    inserts++;
+                }
+            }
+            if (inserts > 0) {
+                insertStmt.executeBatch();
+            }
+            if (updates > 0) {
+                updateStmt.executeBatch();
+            }
+        }
+    }
+
+    private static String field(List<String> record, Map<String, Integer> columns, String column) {
+        Integer index = columns.get(column);
+        if (index == null || index >= record.size()) {
+            return "";
+        }
+        return record.get(index).trim();
+    }
+
+    /**
+     * Returns the role named in a row, with the capitalization used by the rest of the
+     * application, or Student if the row names none.
+     */
+    private static String roleOf(String role) {
+        if (role.isEmpty()) {
+            return "Student";
+        }
+        for (String known : ROLES) {
+            if (known.equalsIgnoreCase(role)) {
+                return known;
+            }
+        }
+        return role;
+    }
+}
@@ -0,0 +1,148 @@
+package databasePart1;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Matches new posts against every saved search at once, the reverse of a normal search:
+ * the queries are indexed and each post is run against them.
+ *
+ * <p>A saved search matches a post when the post contains every word of the search.
+ * Each search is indexed under a single anchor word, its longest word since long words
+ * tend to be the rarest. A post only has to look up its own distinct words to find the
+ * searches that might match, and only those are checked word by word, so the cost of a
+ * post does not grow with the number of saved searches that cannot match it.</p>
+ */
+class SavedSearchPercolator {
+
+    /**
+     * A saved search and the words a post needs to contain to match it.
+     */
+    static class SavedSearch {
+        final int searchID;
+        final String userName;
+        final Set<String> terms;
+        final String anchor;
+
+        SavedSearch(int searchID, String userName, String queryText) {
+            this.searchID = searchID;
+            this.userName = userName;
+            this.terms = termsOf(queryText);
+            String longest = null;
+            for (String term : terms) {
+                if (longest == null || term.length() > longest.length()) {
+                    longest = term;
+                }
+            }
+            this.anchor = longest;
+        }
+    }
+
+    private final Map<Integer, SavedSearch> searches = new HashMap<>();
+    private final Map<String, List<SavedSearch>> byAnchor = new HashMap<>();
+    private boolean loaded = false;
+
+    /**
+     * Returns the distinct words of a text that take part in matching.
+     */
+    static Set<String> termsOf(String text) {
+        Set<String> terms = new LinkedHashSet<>();
+        for (String token : TextTokenizer.tokenize(text)) {
+            if (!TextTokenizer.isStopWord(token)) {
+                terms.add(token);
+            }
+        }
+        return terms;
+    }
+
+    /**
+     * Loads every saved search into memory if they are not loaded yet.
+     */
+    synchronized void ensureLoaded(Connection connection) throws SQLException {
+        if (loaded) {
+            return;
+        }
+        searches.clear();
+        byAnchor.clear();
+        String query = "SELECT searchID, userName, queryText FROM SavedSearches";
+        try (PreparedStatement pstmt = connection.prepareStatement(query);
+             ResultSet rs = pstmt.executeQuery()) {
+            while (rs.next()) {
+                add(new SavedSearch(rs.getInt("searchID"), rs.getString("userName"), rs.getString("queryText")));
+            }
+        }
+        loaded = true;
+    }
+
+    /**
+     * Drops the loaded searches, so they are read from the database again on next use.
+     */
+    synchronized void invalidate() {
+        loaded = false;
+    }
+
+    /**
+     * Adds a saved search. Ignored until the searches have been loaded, since loading
+     * will pick it up.
+     */
+    synchronized void put(SavedSearch search) {
+        if (loaded) {
+            add(search);
+        }
+    }
+
+    /**
+     * Removes a saved search.
+     */
+    synchronized void remove(int searchID) {
+        SavedSearch search = searches.remove(searchID);
+        if (search == null) {
+            return;
+        }
+        List<SavedSearch> anchored = byAnchor.get(search.anchor);
+        anchored.remove(search);
+        if (anchored.isEmpty()) {
+            byAnchor.remove(search.anchor);
+        }
+    }
+
+    /**
+     * Finds every saved search a text matches.
+     *
+     * @param text The text of a new post
+     * @return The matching saved searches
+     */
+    synchronized List<SavedSearch> match(String text) {
+        List<SavedSearch> matches = new ArrayList<>();
+        Set<String> postTerms = new HashSet<>(termsOf(text));
+        for (String term : postTerms) {
+            List<SavedSearch> anchored = byAnchor.get(term);
+            if (anchored == null) {
+                continue;
+            }
+            for (SavedSearch search : anchored) {
+                if (postTerms.containsAll(search.terms)) {
+                    matches.add(search);
+                }
+            }
+        }
+        return matches;
+    }
+
+    private void add(SavedSearch search) {
+        if (search.anchor == null) {
+            return;
+        }
+        searches.put(search.searchID, search);
+        byAnchor.computeIfAbsent(search.anchor, a -> new ArrayList<>()).add(search);
+    }
+}
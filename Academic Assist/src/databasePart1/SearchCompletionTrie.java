@@ -0,0 +1,202 @@
+package databasePart1;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.TreeMap;
+
+/**
+ * A compressed prefix trie (radix tree) of the terms and two-word phrases used in
+ * questions and answers, used to complete what a student types in the search field.
+ *
+ * <p>Each edge holds a run of characters instead of a single one, so a chain of nodes
+ * with one child collapses into a single edge. Every node also remembers the highest
+ * frequency anywhere below it, which lets a lookup visit subtrees best first and stop
+ * as soon as it has enough completions instead of collecting every match.</p>
+ *
+ * <p>Frequencies only grow: text is added as it is posted, and terms of deleted posts
+ * remain until the trie is rebuilt on the next start.</p>
+ */
+class SearchCompletionTrie {
+
+    // A phrase is only suggested once it has been used more than once
+    static final int MIN_PHRASE_COUNT = 2;
+
+    private static class Node {
+        String edge;
+        int count;
+        int best;
+        final TreeMap<Character, Node> children = new TreeMap<>();
+
+        Node(String edge) {
+            this.edge = edge;
+        }
+    }
+
+    private final Node root = new Node("");
+    private boolean loaded = false;
+
+    /**
+     * Returns true once the trie has been filled from the database.
+     */
+    synchronized boolean isLoaded() {
+        return loaded;
+    }
+
+    /**
+     * Marks the trie as filled, after which added text is indexed as it is posted.
+     */
+    synchronized void markLoaded() {
+        loaded = true;
+    }
+
+    /**
+     * Empties the trie, so it is filled from the database again on next use.
+     */
+    synchronized void clear() {
+        root.children.clear();
+        root.count = 0;
+        root.best = 0;
+        loaded = false;
+    }
+
+    /**
+     * Adds every term and two-word phrase of a text.
+     */
+    synchronized void addText(String text) {
+        String previous = null;
+        for (String token : TextTokenizer.tokenize(text)) {
+            if (TextTokenizer.isStopWord(token)) {
+                previous = null;
+                continue;
+            }
+            add(token);
+            if (previous != null) {
+                add(previous + " " + token);
+            }
+            previous = token;
+        }
+    }
+
+    /**
+     * Finds the most frequent terms and phrases that start with a prefix.
+     *
+     * @param prefix The lowercase prefix typed so far
+     * @param limit The maximum number of completions to return
+     * @return The completions, most frequent first
+     */
+    synchronized List<String> complete(String prefix, int limit) {
+        List<String> result = new ArrayList<>();
+        if (prefix.isEmpty() || limit <= 0) {
+            return result;
+        }
+
+        // Walk down to the node whose path starts with the prefix
+        Node node = root;
+        StringBuilder path = new StringBuilder();
+        int matched = 0;
+        while (matched < prefix.length()) {
+            Node child = node.children.get(prefix.charAt(matched));
+            if (child == null) {
+                return result;
+            }
+            int common = commonPrefix(child.edge, prefix, matched);
+            if (matched + common < prefix.length() && common < child.edge.length()) {
+                return result;
+            }
+            matched += common;
+            path.append(child.edge);
+            node = child;
+        }
+
+        // Best first over subtrees and terms, so the search stops after the limit
+        PriorityQueue<Candidate> queue = new PriorityQueue<>();
+        queue.add(new Candidate(node, path.toString(), false));
+        while (!queue.isEmpty() && result.size() < limit) {
+            Candidate candidate = queue.poll();
+            if (candidate.term) {
+                result.add(candidate.text);
+                continue;
+            }
+            Node current = candidate.node;
+            if (current.count > 0 && (current.count >= MIN_PHRASE_COUNT || candidate.text.indexOf(' ') < 0)) {
+                queue.add(new Candidate(current, candidate.text, true));
+            }
+            for (Node child : current.children.values()) {
+                queue.add(new Candidate(child, candidate.text + child.edge, false));
+            }
+        }
+        return result;
+    }
+
+    private void add(String term) {
+        List<Node> path = new ArrayList<>();
+        Node node = root;
+        int matched = 0;
+        while (matched < term.length()) {
+            path.add(node);
+            char next = term.charAt(matched);
+            Node child = node.children.get(next);
+            if (child == null) {
+                child = new Node(term.substring(matched));
+                node.children.put(next, child);
+                node = child;
+                break;
+            }
+            int common = commonPrefix(child.edge, term, matched);
+            if (common < child.edge.length()) {
+                // Split the edge where the new term leaves it
+                Node split = new Node(child.edge.substring(0, common));
+                split.best = child.best;
+                child.edge = child.edge.substring(common);
+                split.children.put(child.edge.charAt(0), child);
+                node.children.put(next, split);
+                child = split;
+            }
+            matched += common;
+            node = child;
+        }
+        node.count++;
+        path.add(node);
+        for (Node onPath : path) {
+            onPath.best = Math.max(onPath.best, node.count);
+        }
+    }
+
+    private static int commonPrefix(String edge, String text, int offset) {
+        int i = 0;
+        while (i < edge.length() && offset + i < text.length() && edge.charAt(i) == text.charAt(offset + i)) {
+            i++;
+        }
+        return i;
+    }
+
+    private static class Candidate implements Comparable<Candidate> {
+        final Node node;
+        final String text;
+        final boolean term;
+
+        Candidate(Node node, String text, boolean term) {
+            this.node = node;
+            this.text = text;
+            this.term = term;
+        }
+
+        int priority() {
+            return term ? node.count : node.best;
+        }
+
+        @Override
+        public int compareTo(Candidate other) {
+            int byPriority = Integer.compare(other.priority(), priority());
+            if (byPriority != 0) {
+                return byPriority;
+            }
+            // A finished term is emitted before a subtree that can at most tie with it
+            if (term != other.term) {
+                return term ? -1 : 1;
+            }
+            return text.compareTo(other.text);
+        }
+    }
+}
@@ -0,0 +1,152 @@
+package databasePart1;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Corrects misspelled search terms against the vocabulary of questions and answers
+ * using the symmetric delete method.
+ *
+ * <p>Every vocabulary word is stored under each string that can be made from it by
+ * deleting up to {@value #MAX_EDIT_DISTANCE} characters. A misspelled word is looked up
+ * the same way, so candidates are found by a handful of map lookups instead of comparing
+ * against the whole vocabulary, and only those candidates get a full edit distance check.
+ * Deletes are generated from the first {@value #PREFIX_LENGTH} characters only, which
+ * bounds the size of the index for long words.</p>
+ */
+class SpellingCorrector {
+
+    static final int MAX_EDIT_DISTANCE = 2;
+    static final int PREFIX_LENGTH = 7;
+    // Very short words have too many close neighbours to be corrected reliably
+    private static final int MIN_WORD_LENGTH = 3;
+
+    private final Map<String, Integer> frequencies = new HashMap<>();
+    private final Map<String, Set<String>> deletes = new HashMap<>();
+
+    /**
+     * Empties the vocabulary.
+     */
+    synchronized void clear() {
+        frequencies.clear();
+        deletes.clear();
+    }
+
+    /**
+     * Adds every word of a text to the vocabulary.
+     */
+    synchronized void addText(String text) {
+        for (String token : TextTokenizer.tokenize(text)) {
+            if (TextTokenizer.isStopWord(token)) {
+                continue;
+            }
+            if (frequencies.merge(token, 1, Integer::sum) == 1) {
+                for (String delete : deletesOf(token)) {
+                    deletes.computeIfAbsent(delete, d -> new HashSet<>()).add(token);
+                }
+            }
+        }
+    }
+
+    /**
+     * Finds the closest vocabulary word to a word, preferring the smallest edit distance
+     * and then the most frequent word.
+     *
+     * @param word A lowercase word
+     * @return The word itself if it is known or cannot be corrected, otherwise the correction
+     */
+    synchronized String correct(String word) {
+        if (frequencies.containsKey(word) || word.length() < MIN_WORD_LENGTH || isNumber(word)) {
+            return word;
+        }
+        String best = word;
+        int bestDistance = MAX_EDIT_DISTANCE + 1;
+        int bestFrequency = 0;
+        Set<String> checked = new HashSet<>();
+        for (String delete : deletesOf(word)) {
+            List<String> candidates = new ArrayList<>();
+            if (frequencies.containsKey(delete)) {
+                candidates.add(delete);
+            }
+            Set<String> words = deletes.get(delete);
+            if (words != null) {
+                candidates.addAll(words);
+            }
+            for (String candidate : candidates) {
+                if (!checked.add(candidate) || Math.abs(candidate.length() - word.length()) > MAX_EDIT_DISTANCE) {
+                    continue;
+                }
+                int distance = editDistance(word, candidate);
+                int frequency = frequencies.get(candidate);
+                if (distance < bestDistance || (distance == bestDistance && frequency > bestFrequency)) {
+                    best = candidate;
+                    bestDistance = distance;
+                    bestFrequency = frequency;
+                }
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Generates the word and every string made by deleting up to the maximum number of
+     * characters from its prefix.
+     */
+    private static Set<String> deletesOf(String word) {
+        Set<String> result = new HashSet<>();
+        String prefix = word.length() > PREFIX_LENGTH ? word.substring(0, PREFIX_LENGTH) : word;
+        result.add(prefix);
+        List<String> current = new ArrayList<>();
+        current.add(prefix);
+        for (int distance = 1; distance <= MAX_EDIT_DISTANCE; distance++) {
+            List<String> next = new ArrayList<>();
+            for (String s : current) {
+                for (int i = 0; i < s.length(); i++) {
+                    String delete = s.substring(0, i) + s.substring(i + 1);
+                    if (result.add(delete)) {
+                        next.add(delete);
+                    }
+                }
+            }
+            current = next;
+        }
+        return result;
+    }
+
+    /**
+     * Computes the edit distance between two words, counting a swap of two adjacent
+     * characters as a single edit.
+     */
+    static int editDistance(String a, String b) {
+        int[][] d = new int[a.length() + 1][b.length() + 1];
+        for (int i = 0; i <= a.length(); i++) {
+            d[i][0] = i;
+        }
+        for (int j = 0; j <= b.length(); j++) {
+            d[0][j] = j;
+        }
+        for (int i = 1; i <= a.length(); i++) {
+            for (int j = 1; j <= b.length(); j++) {
+                int cost = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+                d[i][j] = Math.min(Math.min(d[i - 1][j] + 1, d[i][j - 1] + 1), d[i - 1][j - 1] + cost);
+                if (i > 1 && j > 1 && a.charAt(i - 1) == b.charAt(j - 2) && a.charAt(i - 2) == b.charAt(j - 1)) {
+                    d[i][j] = Math.min(d[i][j], d[i - 2][j - 2] + 1);
+                }
+            }
+        }
+        return d[a.length()][b.length()];
+    }
+
+    private static boolean isNumber(String word) {
+        for (int i = 0; i < word.length(); i++) {
+            if (!Character.isDigit(word.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
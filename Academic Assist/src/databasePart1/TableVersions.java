@@ -0,0 +1,43 @@
+package databasePart1;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counts the writes made to each table through the database helpers, so a cached
+ * result can tell whether any table it was built from has changed since. A cached
+ * result keeps the versions of the tables it read and is only reused while they all
+ * still match.
+ */
+class TableVersions {
+
+    static final String QUESTIONS = "Questions";
+    static final String ANSWERS = "Answers";
+    static final String REVIEWS = "Reviews";
+
+    private static final ConcurrentHashMap<String, AtomicLong> versions = new ConcurrentHashMap<>();
+
+    private TableVersions() {
+    }
+
+    /**
+     * Records a write to each of the given tables.
+     */
+    static void bump(String... tables) {
+        for (String table : tables) {
+            versions.computeIfAbsent(table, t -> new AtomicLong()).incrementAndGet();
+        }
+    }
+
+    /**
+     * Returns the current version of each of the given tables, in the same order.
+     */
+    static long[] snapshot(String... tables) {
+        long[] snapshot = new long[tables.length];
+        for (int i = 0; i < tables.length; i++) {
+            AtomicLong version = versions.get(tables[i]);
+            snapshot[i] = version == null ? 0 : version.get();
+        }
+        return snapshot;
+    }
+}
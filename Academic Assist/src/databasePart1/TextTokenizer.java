@@ -0,0 +1,55 @@
+package databasePart1;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Splits question and answer text into the lowercase terms used by the in-memory
+ * search and similarity indexes, so every index agrees on what a term is.
+ */
+class TextTokenizer {
+
+    // Common words that say nothing about what a question is about
+    private static final Set<String> STOP_WORDS = new HashSet<>(Arrays.asList(
+        "a", "an", "and", "are", "as", "at", "be", "but", "by", "can", "do", "does", "for",
+        "from", "how", "i", "if", "in", "is", "it", "my", "of", "on", "or", "so", "that",
+        "the", "this", "to", "was", "we", "what", "when", "where", "which", "why", "with", "you"
+    ));
+
+    private TextTokenizer() {
+    }
+
+    /**
+     * Splits text into lowercase runs of letters and digits, in the order they appear.
+     *
+     * @param text The text to split, may be null
+     * @return The terms of the text
+     */
+    static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        if (text == null) {
+            return tokens;
+        }
+        int start = -1;
+        for (int i = 0; i <= text.length(); i++) {
+            boolean wordChar = i < text.length() && Character.isLetterOrDigit(text.charAt(i));
+            if (wordChar && start == -1) {
+                start = i;
+            } else if (!wordChar && start != -1) {
+                tokens.add(text.substring(start, i).toLowerCase());
+                start = -1;
+            }
+        }
+        return tokens;
+    }
+
+    /**
+     * Returns true if a lowercase term is too common to be useful for matching.
+     */
+    static boolean isStopWord(String term) {
+        return STOP_WORDS.contains(term);
+    }
+}
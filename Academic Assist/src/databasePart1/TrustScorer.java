@@ -0,0 +1,54 @@
+package databasePart1;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Scores answers and reviews for a single student using the weights that student
+ * gave to reviewers, so the content they trust most is shown first. The weights are
+ * passed in as an in-memory map and the review signals are collected with one query
+ * per thread, so scoring never needs a query per answer.
+ */
+class TrustScorer {
+
+    // An accepted answer is always worth more than any realistic amount of trust
+    private static final double ACCEPTED_BONUS = 1000.0;
+    // Every review counts a little, even from reviewers the student has not weighted
+    private static final double REVIEW_BASE = 1.0;
+
+    private final Map<String, Integer> weights;
+
+    /**
+     * Creates a scorer for a student.
+     *
+     * @param weights The student's weight for each reviewer username
+     */
+    TrustScorer(Map<String, Integer> weights) {
+        this.weights = weights;
+    }
+
+    /**
+     * Returns the weight the student gave to a user, or 0 if they gave none.
+     */
+    int weightOf(String userName) {
+        Integer weight = userName == null ? null : weights.get(userName);
+        return weight != null ? weight : 0;
+    }
+
+    /**
+     * Scores an answer from its accepted status, its author and the reviewers who reviewed it.
+     *
+     * @param answeredBy The username of the answer's author
+     * @param accepted Whether the answer is the accepted answer of its question
+     * @param reviewers The usernames of the reviewers who reviewed the answer
+     * @return The score, higher is shown first
+     */
+    double scoreAnswer(String answeredBy, boolean accepted, List<String> reviewers) {
+        double score = accepted ? ACCEPTED_BONUS : 0.0;
+        score += weightOf(answeredBy);
+        for (String reviewer : reviewers) {
+            score += REVIEW_BASE + weightOf(reviewer);
+        }
+        return score;
+    }
+}